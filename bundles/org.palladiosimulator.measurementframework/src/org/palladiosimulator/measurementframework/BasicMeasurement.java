@@ -1,12 +1,16 @@
 package org.palladiosimulator.measurementframework;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.measure.Measure;
 import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
 
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
 import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.CaptureType;
 import org.palladiosimulator.metricspec.Identifier;
 import org.palladiosimulator.metricspec.MetricDescription;
 import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
@@ -14,6 +18,9 @@ import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
 /**
  * Represents a basic measurement, i.e., a measurement for a {@see BaseMetricDescription}.
  * 
+ * Subclasses may store their sample in a primitive representation and only create the
+ * {@link Measure} on demand (see {@link RealNumberMeasurement} and {@link IntegerNumberMeasurement}).
+ * 
  * @param <VALUE_TYPE>
  *            denotes the class of the taken sample (Integer, Long, ...)
  * @param <QUANTITY>
@@ -21,7 +28,7 @@ import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
  * 
  * @author Sebastian Lehrig
  */
-public final class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> extends MeasuringValue {
+public class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> extends MeasuringValue {
 
     /** The represented measure. */
     private final Measure<VALUE_TYPE, QUANTITY> measure;
@@ -41,7 +48,34 @@ public final class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> exten
     }
 
     /**
-     * Checks whether a given measure and a given metric are compatible with each other.
+     * Constructor for measurements created by a {@link MeasurementFactory}, i.e., without checks.
+     * 
+     * @param factory
+     *            The factory providing the validated base metric.
+     * @param measure
+     *            The measure to be represented.
+     */
+    BasicMeasurement(final MeasurementFactory<QUANTITY> factory, final Measure<VALUE_TYPE, QUANTITY> measure) {
+        super(factory.getMetricDescription());
+        this.measure = measure;
+    }
+
+    /**
+     * Constructor for subclasses that provide their measure on demand by overriding
+     * {@link #getMeasure()}. Subclasses are responsible for validating their sample against the
+     * given metric description.
+     * 
+     * @param metricDescription
+     *            The base metric to be represented.
+     */
+    protected BasicMeasurement(final BaseMetricDescription metricDescription) {
+        super(metricDescription);
+        this.measure = null;
+    }
+
+    /**
+     * Checks whether a given measure and a given metric are compatible with each other. Successful
+     * checks are cached by {@link MeasurementValidator}.
      * 
      * @param measure
      *            The measure to be checked.
@@ -50,6 +84,18 @@ public final class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> exten
      */
     private void checkMeasureDataType(final Measure<VALUE_TYPE, QUANTITY> measure,
             final BaseMetricDescription metricDescription) {
+        if (measure instanceof IdentifierMeasure<?> && ((IdentifierMeasure<?>) measure).isInterned()
+                && metricDescription.getCaptureType() == CaptureType.IDENTIFIER) {
+            // interned identifier measures always hold an identifier
+            checkMeasureUnit(measure.getUnit(), metricDescription);
+            return;
+        }
+
+        final Class<?> valueClass = measure.getValue().getClass();
+        if (MeasurementValidator.isValidated(metricDescription, measure.getUnit(), valueClass)) {
+            return;
+        }
+
         final Class<?> valueDataType;
         switch (metricDescription.getCaptureType()) {
         case IDENTIFIER:
@@ -66,23 +112,75 @@ public final class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> exten
             break;
         }
 
-        if (!valueDataType.isAssignableFrom(measure.getValue().getClass())) {
-            throw new IllegalArgumentException("Datatype of measurement (" + measure.getValue().getClass().getName()
+        if (!valueDataType.isAssignableFrom(valueClass)) {
+            throw new IllegalArgumentException("Datatype of measurement (" + valueClass.getName()
                     + ") not compatible with declared base metric (" + valueDataType.getName() + "; "
                     + metricDescription.getName() + ")");
         }
 
+        checkMeasureUnit(measure.getUnit(), metricDescription);
+        MeasurementValidator.validated(metricDescription, measure.getUnit(), valueClass);
+    }
+
+    /**
+     * Checks whether a given metric captures values of the given capture type in the given unit.
+     * Successful checks are cached by {@link MeasurementValidator}.
+     * 
+     * @param metricDescription
+     *            The metric to be checked.
+     * @param unit
+     *            The unit of the values to be represented.
+     * @param captureType
+     *            The capture type of the values to be represented.
+     * @param valueClass
+     *            The class of the values to be represented, corresponding to the capture type.
+     */
+    static void checkSample(final BaseMetricDescription metricDescription, final Unit<?> unit,
+            final CaptureType captureType, final Class<?> valueClass) {
+        if (MeasurementValidator.isValidated(metricDescription, unit, valueClass)) {
+            return;
+        }
+        checkCaptureType(metricDescription, captureType);
+        checkMeasureUnit(unit, metricDescription);
+        MeasurementValidator.validated(metricDescription, unit, valueClass);
+    }
+
+    /**
+     * Checks whether a given metric captures values of the given capture type.
+     * 
+     * @param metricDescription
+     *            The metric to be checked.
+     * @param captureType
+     *            The capture type of the values to be represented.
+     */
+    static void checkCaptureType(final BaseMetricDescription metricDescription, final CaptureType captureType) {
+        if (metricDescription.getCaptureType() != captureType) {
+            throw new IllegalArgumentException("Datatype of measurement (" + captureType
+                    + ") not compatible with declared base metric (" + metricDescription.getCaptureType() + "; "
+                    + metricDescription.getName() + ")");
+        }
+    }
+
+    /**
+     * Checks whether a given unit is compatible with the default unit of a given metric. Metrics
+     * without a default unit, i.e., non-numerical metrics, accept any unit.
+     * 
+     * @param unit
+     *            The unit to be checked.
+     * @param metricDescription
+     *            The metric to be checked.
+     */
+    static void checkMeasureUnit(final Unit<?> unit, final BaseMetricDescription metricDescription) {
         if (metricDescription instanceof NumericalBaseMetricDescription) {
             final NumericalBaseMetricDescription numericalBaseMetricDescription;
             numericalBaseMetricDescription = (NumericalBaseMetricDescription) metricDescription;
-            if (!measure.getUnit().isCompatible(numericalBaseMetricDescription.getDefaultUnit())) {
-                throw new IllegalArgumentException("Unit of measurement (" + measure.getUnit()
+            if (!unit.isCompatible(numericalBaseMetricDescription.getDefaultUnit())) {
+                throw new IllegalArgumentException("Unit of measurement (" + unit
                         + ") not compatible with declared base metric unit ("
                         + numericalBaseMetricDescription.getDefaultUnit() + ") of metric description \""
                         + numericalBaseMetricDescription.getName() + "\"");
             }
         }
-
     }
 
     /**
@@ -91,15 +189,91 @@ public final class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> exten
      * @return the measured value and its quantity
      * @see Measure
      */
-    public final Measure<VALUE_TYPE, QUANTITY> getMeasure() {
+    public Measure<VALUE_TYPE, QUANTITY> getMeasure() {
         return this.measure;
     }
 
+    /**
+     * Returns the unit in which the sample was taken.
+     * 
+     * @return the unit of the measured value.
+     */
+    public Unit<QUANTITY> getUnit() {
+        return getMeasure().getUnit();
+    }
+
+    /**
+     * Returns the measured value stated in the given unit as a primitive <code>double</code>.
+     * 
+     * @param unit
+     *            the unit in which the value is requested.
+     * @return the measured value in the given unit.
+     * @see Measure#doubleValue(Unit)
+     */
+    public double doubleValue(final Unit<QUANTITY> unit) {
+        return getMeasure().doubleValue(unit);
+    }
+
+    /**
+     * Returns the measured value stated in the given unit as a primitive <code>long</code>.
+     * 
+     * @param unit
+     *            the unit in which the value is requested.
+     * @return the measured value in the given unit.
+     * @throws ArithmeticException
+     *             if the converted value cannot be represented as a <code>long</code>.
+     * @see Measure#longValue(Unit)
+     */
+    public long longValue(final Unit<QUANTITY> unit) {
+        return getMeasure().longValue(unit);
+    }
+
+    /**
+     * Rounds a given value to a <code>long</code> in the same way as {@link Measure#longValue(Unit)}.
+     * 
+     * @param value
+     *            the value to be rounded.
+     * @return the rounded value.
+     * @throws ArithmeticException
+     *             if the value cannot be represented as a <code>long</code>.
+     */
+    static long roundToLong(final double value) {
+        if (Double.isNaN(value) || value < Long.MIN_VALUE || value > Long.MAX_VALUE) {
+            throw new ArithmeticException(value + " not compatible with long");
+        }
+        return Math.round(value);
+    }
+
     @Override
     public List<Measure<?, ?>> asList() {
-        final ArrayList<Measure<?, ?>> result = new ArrayList<Measure<?, ?>>(1);
-        result.add(this.measure);
-        return result;
+        return Collections.<Measure<?, ?>> singletonList(getMeasure());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> measureAt(final int index) {
+        if (index != 0) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+        }
+        return getMeasure();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        consumer.accept(getMeasure());
     }
 
     /**
@@ -119,4 +293,16 @@ public final class BasicMeasurement<VALUE_TYPE, QUANTITY extends Quantity> exten
         return basicMeasurement.getMeasure();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public double doubleValueForMetric(final MetricDescription wantedMetric, final Unit<?> unit) {
+        if (wantedMetric instanceof BaseMetricDescription && getMeasuringValueForMetric(wantedMetric) == this) {
+            return doubleValue((Unit<QUANTITY>) unit);
+        }
+        return super.doubleValueForMetric(wantedMetric, unit);
+    }
+
 }
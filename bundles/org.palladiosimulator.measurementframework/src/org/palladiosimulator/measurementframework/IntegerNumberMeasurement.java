@@ -0,0 +1,124 @@
+package org.palladiosimulator.measurementframework;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.measure.UnitConversion;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.CaptureType;
+
+/**
+ * Represents a basic measurement for a {@link CaptureType#INTEGER_NUMBER} metric. The sample is
+ * stored as a primitive <code>long</code>; the corresponding {@link Measure} is only created once
+ * it is requested, e.g., via {@link #getMeasure()} or {@link #asList()}. Consumers interested in
+ * the plain value should use {@link #longValue(Unit)} or {@link #doubleValue(Unit)} instead.
+ * 
+ * @param <QUANTITY>
+ *            denotes the measured {@link Quantity}
+ * 
+ * @author agent
+ */
+public final class IntegerNumberMeasurement<QUANTITY extends Quantity> extends BasicMeasurement<Long, QUANTITY> {
+
+    /** The measured value. */
+    private final long value;
+
+    /** The unit of the measured value. */
+    private final Unit<QUANTITY> unit;
+
+    /** The represented measure; created on first request. */
+    private Measure<Long, QUANTITY> measure;
+
+    /**
+     * Default constructor.
+     * 
+     * @param value
+     *            The measured value.
+     * @param unit
+     *            The unit of the measured value.
+     * @param metricDescription
+     *            The base metric to be represented.
+     * @throws IllegalArgumentException
+     *             If the metric does not capture integer numbers or if its default unit is not
+     *             compatible with the given unit.
+     */
+    public IntegerNumberMeasurement(final long value, final Unit<QUANTITY> unit,
+            final BaseMetricDescription metricDescription) {
+        super(metricDescription);
+        checkSample(metricDescription, unit, CaptureType.INTEGER_NUMBER, Long.class);
+        this.value = value;
+        this.unit = unit;
+    }
+
+    /**
+     * Constructor for measurements created by a {@link MeasurementFactory}, i.e., without checks.
+     * 
+     * @param factory
+     *            The factory providing the validated base metric and unit.
+     * @param value
+     *            The measured value.
+     */
+    IntegerNumberMeasurement(final MeasurementFactory<QUANTITY> factory, final long value) {
+        super(factory.getMetricDescription());
+        this.value = value;
+        this.unit = factory.getUnit();
+    }
+
+    /**
+     * Returns the measured value in the unit it was taken in.
+     * 
+     * @return the measured value.
+     * @see #getUnit()
+     */
+    public long longValue() {
+        return this.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long longValue(final Unit<QUANTITY> unit) {
+        if (unit == this.unit || unit.equals(this.unit)) {
+            return this.value;
+        }
+        return roundToLong(doubleValue(unit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValue(final Unit<QUANTITY> unit) {
+        if (unit == this.unit || unit.equals(this.unit)) {
+            return this.value;
+        }
+        return UnitConversion.of(this.unit, unit).convert(this.value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Unit<QUANTITY> getUnit() {
+        return this.unit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The measure is created on first request. Concurrent first requests may create distinct but
+     * equal measures.
+     */
+    @Override
+    public Measure<Long, QUANTITY> getMeasure() {
+        Measure<Long, QUANTITY> result = this.measure;
+        if (result == null) {
+            result = Measure.valueOf(this.value, this.unit);
+            this.measure = result;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.palladiosimulator.measurementframework;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.Identifier;
+
+/**
+ * Factory for basic measurements of a fixed base metric and unit. Metric and unit are validated
+ * once when the factory is created; measurements created by the factory skip all further checks.
+ * Producers taking many measurements of the same metric, e.g., probes, should create a factory
+ * once and reuse it.
+ * 
+ * @param <QUANTITY>
+ *            denotes the measured {@link Quantity}
+ * 
+ * @author agent
+ */
+public final class MeasurementFactory<QUANTITY extends Quantity> {
+
+    /** The base metric of the created measurements. */
+    private final BaseMetricDescription metricDescription;
+
+    /** The unit of the created measurements. */
+    private final Unit<QUANTITY> unit;
+
+    /** The capture type of the metric. */
+    private final CaptureType captureType;
+
+    private MeasurementFactory(final BaseMetricDescription metricDescription, final Unit<QUANTITY> unit) {
+        this.metricDescription = metricDescription;
+        this.unit = unit;
+        this.captureType = metricDescription.getCaptureType();
+    }
+
+    /**
+     * Creates a factory for measurements of the given metric in the given unit.
+     * 
+     * @param metricDescription
+     *            The base metric of the created measurements.
+     * @param unit
+     *            The unit of the created measurements.
+     * @param <Q>
+     *            denotes the measured {@link Quantity}
+     * @return the new factory.
+     * @throws IllegalArgumentException
+     *             If the default unit of the metric is not compatible with the given unit.
+     */
+    public static <Q extends Quantity> MeasurementFactory<Q> forMetric(final BaseMetricDescription metricDescription,
+            final Unit<Q> unit) {
+        if (metricDescription == null || unit == null) {
+            throw new IllegalArgumentException("Metric description and unit must not be null");
+        }
+        BasicMeasurement.checkMeasureUnit(unit, metricDescription);
+        return new MeasurementFactory<Q>(metricDescription, unit);
+    }
+
+    /**
+     * Creates a measurement of a real number without any checks.
+     * 
+     * @param value
+     *            The measured value.
+     * @return the new measurement.
+     * @throws IllegalStateException
+     *             If the metric does not capture real numbers.
+     */
+    public RealNumberMeasurement<QUANTITY> createRealNumberMeasurement(final double value) {
+        checkCaptureType(CaptureType.REAL_NUMBER);
+        return new RealNumberMeasurement<QUANTITY>(this, value);
+    }
+
+    /**
+     * Creates a measurement of an integer number without any checks.
+     * 
+     * @param value
+     *            The measured value.
+     * @return the new measurement.
+     * @throws IllegalStateException
+     *             If the metric does not capture integer numbers.
+     */
+    public IntegerNumberMeasurement<QUANTITY> createIntegerNumberMeasurement(final long value) {
+        checkCaptureType(CaptureType.INTEGER_NUMBER);
+        return new IntegerNumberMeasurement<QUANTITY>(this, value);
+    }
+
+    /**
+     * Creates a measurement of an identifier without any checks. The measure is interned, see
+     * {@link IdentifierMeasure#valueOf(Identifier, Unit)}.
+     * 
+     * @param identifier
+     *            The measured identifier.
+     * @return the new measurement.
+     * @throws IllegalStateException
+     *             If the metric does not capture identifiers.
+     */
+    public BasicMeasurement<Identifier, QUANTITY> createIdentifierMeasurement(final Identifier identifier) {
+        checkCaptureType(CaptureType.IDENTIFIER);
+        if (identifier == null) {
+            throw new IllegalArgumentException("Identifier must not be null");
+        }
+        final Measure<Identifier, QUANTITY> measure = IdentifierMeasure.valueOf(identifier, this.unit);
+        return new BasicMeasurement<Identifier, QUANTITY>(this, measure);
+    }
+
+    private void checkCaptureType(final CaptureType expectedCaptureType) {
+        if (this.captureType != expectedCaptureType) {
+            throw new IllegalStateException("Metric \"" + this.metricDescription.getName() + "\" captures "
+                    + this.captureType + ", not " + expectedCaptureType);
+        }
+    }
+
+    /**
+     * Returns the base metric of the created measurements.
+     * 
+     * @return the metric description.
+     */
+    public BaseMetricDescription getMetricDescription() {
+        return this.metricDescription;
+    }
+
+    /**
+     * Returns the unit of the created measurements.
+     * 
+     * @return the unit.
+     */
+    public Unit<QUANTITY> getUnit() {
+        return this.unit;
+    }
+}
@@ -0,0 +1,93 @@
+package org.palladiosimulator.measurementframework;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+
+/**
+ * Bounded cache of successful measurement validations, keyed by base metric description, unit,
+ * and the class of the measured value. All three are compared by identity, i.e., a repeated
+ * validation of the same combination costs three reference comparisons instead of a capture type
+ * switch, a reflective type check, and a dimension analysis of the unit. Metric descriptions are
+ * assumed to keep their capture type and default unit once measurements have been validated.
+ * 
+ * The cache is a direct-mapped table: each combination maps to a single slot, and a validated
+ * combination replaces the one cached in its slot. Lookups and replacements are lock-free.
+ * 
+ * @author agent
+ */
+final class MeasurementValidator {
+
+    /** Number of bits of a slot index. */
+    private static final int SLOT_BITS = 8;
+
+    /** The slots, each holding the validation recorded last for one of the keys mapped to it. */
+    private static final AtomicReferenceArray<Validation> SLOTS = new AtomicReferenceArray<Validation>(
+            1 << SLOT_BITS);
+
+    private MeasurementValidator() {
+    }
+
+    /**
+     * Returns whether the given combination has been validated successfully before.
+     * 
+     * @param metricDescription
+     *            the base metric of the measurement.
+     * @param unit
+     *            the unit of the measured value.
+     * @param valueClass
+     *            the class of the measured value.
+     * @return <code>true</code> if the combination is known to be valid, <code>false</code> if it
+     *         has to be checked.
+     */
+    static boolean isValidated(final BaseMetricDescription metricDescription, final Unit<?> unit,
+            final Class<?> valueClass) {
+        final Validation validation = SLOTS.get(slotOf(metricDescription, unit, valueClass));
+        return validation != null && validation.metricDescription == metricDescription && validation.unit == unit
+                && validation.valueClass == valueClass;
+    }
+
+    /**
+     * Remembers a combination that has been validated successfully.
+     * 
+     * @param metricDescription
+     *            the base metric of the measurement.
+     * @param unit
+     *            the unit of the measured value.
+     * @param valueClass
+     *            the class of the measured value.
+     */
+    static void validated(final BaseMetricDescription metricDescription, final Unit<?> unit,
+            final Class<?> valueClass) {
+        SLOTS.set(slotOf(metricDescription, unit, valueClass), new Validation(metricDescription, unit, valueClass));
+    }
+
+    private static int slotOf(final BaseMetricDescription metricDescription, final Unit<?> unit,
+            final Class<?> valueClass) {
+        final int hash = (System.identityHashCode(metricDescription) * 31 + System.identityHashCode(unit)) * 31
+                + System.identityHashCode(valueClass);
+        // Fibonacci hashing, taking the high bits of the product as slot index
+        return (hash * 0x9E3779B9) >>> (Integer.SIZE - SLOT_BITS);
+    }
+
+    /**
+     * A validated combination.
+     */
+    private static final class Validation {
+
+        private final BaseMetricDescription metricDescription;
+
+        private final Unit<?> unit;
+
+        private final Class<?> valueClass;
+
+        private Validation(final BaseMetricDescription metricDescription, final Unit<?> unit,
+                final Class<?> valueClass) {
+            this.metricDescription = metricDescription;
+            this.unit = unit;
+            this.valueClass = valueClass;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package org.palladiosimulator.measurementframework;
 
-import java.util.List;
-
 import javax.measure.Measure;
 
 import org.palladiosimulator.measurementframework.measureprovider.IMeasureProvider;
@@ -55,14 +53,25 @@ public abstract class MeasuringValue implements IMeasureProvider, IMetricEntity
      */
     @Override
     public Measure<?, ?>[] asArray() {
-        final List<Measure<?, ?>> asList = asList();
-        final Measure<?, ?>[] result = new Measure<?, ?>[asList.size()];
-        for (int i = 0; i < asList.size(); i++) {
-            result[i] = asList.get(i);
+        final Measure<?, ?>[] result = new Measure<?, ?>[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = measureAt(i);
         }
         return result;
     }
 
+    /**
+     * Returns an immutable measuring value with the measures of this one. Listeners keeping a
+     * measuring value beyond their call-back have to keep the frozen value, since the notified one
+     * may be reused (see {@link ReusableMeasurement}). Measuring values are immutable by default,
+     * i.e., return themselves.
+     * 
+     * @return an immutable measuring value with the measures of this one.
+     */
+    public MeasuringValue freeze() {
+        return this;
+    }
+
     /**
      * Returns this measuring value in case it conforms to the given metric description.
      * 
@@ -77,4 +86,19 @@ public abstract class MeasuringValue implements IMeasureProvider, IMetricEntity
         }
         return this;
     }
+
+    /**
+     * Returns whether this measuring value conforms to or contains a measure of the given metric,
+     * i.e., whether {@link #getMeasuringValueForMetric(MetricDescription)} returns a measuring
+     * value. Measuring values creating the returned measuring values on request should answer
+     * without creating them.
+     * 
+     * @param metricDesciption
+     *            the given metric description.
+     * @return <code>true</code> if this measuring value provides the given metric,
+     *         <code>false</code> otherwise.
+     */
+    public boolean containsMetric(final MetricDescription metricDesciption) {
+        return getMeasuringValueForMetric(metricDesciption) != null;
+    }
 }
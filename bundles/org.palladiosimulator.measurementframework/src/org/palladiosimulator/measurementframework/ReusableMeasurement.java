@@ -0,0 +1,398 @@
+package org.palladiosimulator.measurementframework;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.measurementframework.measure.UnitConversion;
+import org.palladiosimulator.measurementframework.measureprovider.ColumnarMeasureProvider;
+import org.palladiosimulator.measurementframework.measureprovider.MeasureListView;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout.SlotKind;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Mutable measurement of a base metric or a flat metric set, refilled by its owning measurement
+ * source for each new measurement. Reusable measurements avoid allocating a measurement per event
+ * in synchronous pipelines: they are only passed to listeners declaring that they do not retain
+ * measurements (see {@link IMeasurementSourceListener#retainsMeasurements()}), and such listeners
+ * have to call {@link #freeze()} to keep a measurement beyond the call-back. Sources with
+ * retaining listeners pass a frozen copy instead.
+ * 
+ * Values are stated in the default units of the metrics, i.e., the units of the
+ * {@link MetricSetLayout} of a metric set. Reusable measurements are not thread-safe.
+ * 
+ * @author agent
+ */
+public final class ReusableMeasurement extends MeasuringValue {
+
+    /** Layout of the metric set; <code>null</code> for base metrics. */
+    private final MetricSetLayout layout;
+
+    /** The slot kinds, i.e., one for base metrics. */
+    private final SlotKind[] slotKinds;
+
+    /** The metrics of the slots. */
+    private final BaseMetricDescription[] slotMetrics;
+
+    /** The units of the slots. */
+    private final Unit<?>[] units;
+
+    /** The columns of the slots within the value arrays. */
+    private final int[] columns;
+
+    /** The values of real number slots. */
+    private final double[] realValues;
+
+    /** The values of integer number slots. */
+    private final long[] integerValues;
+
+    /** The interned identifier measures of identifier slots. */
+    private final Object[] objectValues;
+
+    /**
+     * Default constructor.
+     * 
+     * @param metricDescription
+     *            a base metric or a metric set only subsuming base metrics.
+     * @throws IllegalArgumentException
+     *             if the metric set subsumes metric sets.
+     */
+    public ReusableMeasurement(final MetricDescription metricDescription) {
+        super(metricDescription);
+        if (metricDescription instanceof MetricSetDescription) {
+            this.layout = MetricSetLayout.forMetric((MetricSetDescription) metricDescription);
+            if (this.layout.isNested()) {
+                throw new IllegalArgumentException("Reusable measurements do not support nested metric set \""
+                        + metricDescription.getName() + "\"");
+            }
+            this.slotKinds = new SlotKind[this.layout.size()];
+            this.slotMetrics = new BaseMetricDescription[this.layout.size()];
+            this.units = new Unit<?>[this.layout.size()];
+            this.columns = new int[this.layout.size()];
+            for (int i = 0; i < this.layout.size(); i++) {
+                this.slotKinds[i] = this.layout.getSlotKind(i);
+                this.slotMetrics[i] = (BaseMetricDescription) this.layout.getSubsumedMetric(i);
+                this.units[i] = this.layout.getUnit(i);
+                this.columns[i] = this.layout.getColumn(i);
+            }
+            this.realValues = new double[this.layout.getRealColumnCount()];
+            this.integerValues = new long[this.layout.getIntegerColumnCount()];
+            this.objectValues = new Object[this.layout.getObjectColumnCount()];
+        } else if (metricDescription instanceof BaseMetricDescription) {
+            final BaseMetricDescription baseMetric = (BaseMetricDescription) metricDescription;
+            this.layout = null;
+            this.slotMetrics = new BaseMetricDescription[] { baseMetric };
+            this.units = new Unit<?>[] { baseMetric instanceof NumericalBaseMetricDescription
+                    ? ((NumericalBaseMetricDescription) baseMetric).getDefaultUnit()
+                    : Unit.ONE };
+            this.columns = new int[] { 0 };
+            switch (baseMetric.getCaptureType()) {
+            case REAL_NUMBER:
+                this.slotKinds = new SlotKind[] { SlotKind.REAL_NUMBER };
+                break;
+            case INTEGER_NUMBER:
+                this.slotKinds = new SlotKind[] { SlotKind.INTEGER_NUMBER };
+                break;
+            default:
+                this.slotKinds = new SlotKind[] { SlotKind.IDENTIFIER };
+                break;
+            }
+            this.realValues = new double[this.slotKinds[0] == SlotKind.REAL_NUMBER ? 1 : 0];
+            this.integerValues = new long[this.slotKinds[0] == SlotKind.INTEGER_NUMBER ? 1 : 0];
+            this.objectValues = new Object[this.slotKinds[0] == SlotKind.IDENTIFIER ? 1 : 0];
+        } else {
+            throw new IllegalArgumentException("Unsupported type of Metric Description");
+        }
+    }
+
+    /**
+     * Sets the value of a real number slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @param value
+     *            the value, stated in the unit of the slot.
+     * @return this measurement.
+     */
+    public ReusableMeasurement setReal(final int slot, final double value) {
+        checkSlotKind(slot, SlotKind.REAL_NUMBER);
+        this.realValues[this.columns[slot]] = value;
+        return this;
+    }
+
+    /**
+     * Sets the value of an integer number slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @param value
+     *            the value, stated in the unit of the slot.
+     * @return this measurement.
+     */
+    public ReusableMeasurement setInteger(final int slot, final long value) {
+        checkSlotKind(slot, SlotKind.INTEGER_NUMBER);
+        this.integerValues[this.columns[slot]] = value;
+        return this;
+    }
+
+    /**
+     * Sets the value of an identifier slot. The measure of the identifier is interned, i.e., no
+     * measure is created per measurement.
+     * 
+     * @param slot
+     *            the slot.
+     * @param identifier
+     *            the identifier.
+     * @return this measurement.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ReusableMeasurement setIdentifier(final int slot, final Identifier identifier) {
+        checkSlotKind(slot, SlotKind.IDENTIFIER);
+        if (identifier == null) {
+            throw new IllegalArgumentException("Identifier must not be null");
+        }
+        this.objectValues[this.columns[slot]] = IdentifierMeasure.valueOf(identifier, (Unit) this.units[slot]);
+        return this;
+    }
+
+    private void checkSlotKind(final int slot, final SlotKind slotKind) {
+        if (this.slotKinds[slot] != slotKind) {
+            throw new IllegalArgumentException("Metric \"" + this.slotMetrics[slot].getName() + "\" of slot " + slot
+                    + " is not of kind " + slotKind);
+        }
+    }
+
+    /**
+     * Returns the value of a real or integer number slot without creating a measure.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the value, stated in the unit of the slot.
+     */
+    public double doubleValueAt(final int slot) {
+        switch (this.slotKinds[slot]) {
+        case REAL_NUMBER:
+            return this.realValues[this.columns[slot]];
+        case INTEGER_NUMBER:
+            return this.integerValues[this.columns[slot]];
+        default:
+            throw new IllegalArgumentException("Metric \"" + this.slotMetrics[slot].getName() + "\" of slot " + slot
+                    + " does not capture numbers");
+        }
+    }
+
+    /**
+     * Returns the value of an integer number slot without creating a measure.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the value, stated in the unit of the slot.
+     */
+    public long longValueAt(final int slot) {
+        checkSlotKind(slot, SlotKind.INTEGER_NUMBER);
+        return this.integerValues[this.columns[slot]];
+    }
+
+    /**
+     * Returns the slot of the given base metric.
+     * 
+     * @param metricDescription
+     *            the base metric.
+     * @return the slot, or -1 if the metric is not part of this measurement.
+     */
+    public int slotOf(final MetricDescription metricDescription) {
+        if (this.layout != null) {
+            return this.layout.indexOf(metricDescription);
+        }
+        return metricDescription.getId().equals(this.slotMetrics[0].getId()) ? 0 : -1;
+    }
+
+    /**
+     * Returns the unit of a slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the unit.
+     */
+    public Unit<?> getUnit(final int slot) {
+        return this.units[slot];
+    }
+
+    /**
+     * Creates an immutable copy of the current values.
+     * 
+     * @return a {@link TupleMeasurement} for metric sets, a basic measurement for base metrics.
+     * @throws IllegalStateException
+     *             if an identifier slot has not been set yet.
+     */
+    @Override
+    public MeasuringValue freeze() {
+        if (this.layout == null) {
+            return measurementAt(0);
+        }
+        for (int i = 0; i < this.objectValues.length; i++) {
+            if (this.objectValues[i] == null) {
+                throw new IllegalStateException("Identifier of metric \"" + getMetricDesciption().getName()
+                        + "\" has not been set");
+            }
+        }
+        return new TupleMeasurement(this.layout.getMetricSetDescription(), new ColumnarMeasureProvider(this.layout,
+                this.realValues.clone(), this.integerValues.clone(), this.objectValues.clone()));
+    }
+
+    /**
+     * Creates the measure of a slot.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Measure<?, ?> slotMeasure(final int slot) {
+        switch (this.slotKinds[slot]) {
+        case REAL_NUMBER:
+            return Measure.valueOf(this.realValues[this.columns[slot]], (Unit) this.units[slot]);
+        case INTEGER_NUMBER:
+            return Measure.valueOf(this.integerValues[this.columns[slot]], (Unit) this.units[slot]);
+        default:
+            final Object measure = this.objectValues[this.columns[slot]];
+            if (measure == null) {
+                throw new IllegalStateException("Identifier of metric \"" + this.slotMetrics[slot].getName()
+                        + "\" has not been set");
+            }
+            return (Measure<?, ?>) measure;
+        }
+    }
+
+    /**
+     * Creates an immutable measurement of a slot.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private MeasuringValue measurementAt(final int slot) {
+        switch (this.slotKinds[slot]) {
+        case REAL_NUMBER:
+            return new RealNumberMeasurement(this.realValues[this.columns[slot]], this.units[slot],
+                    this.slotMetrics[slot]);
+        case INTEGER_NUMBER:
+            return new IntegerNumberMeasurement(this.integerValues[this.columns[slot]], this.units[slot],
+                    this.slotMetrics[slot]);
+        default:
+            return new BasicMeasurement((Measure) slotMeasure(slot), this.slotMetrics[slot]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Measure<?, ?>> asList() {
+        return new MeasureListView(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.slotKinds.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> measureAt(final int index) {
+        if (index < 0 || index >= this.slotKinds.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.slotKinds.length);
+        }
+        return slotMeasure(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        for (int i = 0; i < this.slotKinds.length; i++) {
+            consumer.accept(slotMeasure(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V, Q extends Quantity> Measure<V, Q> getMeasureForMetric(final MetricDescription wantedMetric) {
+        if (!(wantedMetric instanceof BaseMetricDescription)) {
+            throw new IllegalArgumentException("Only base metrics have measures attached.");
+        }
+        final int slot = slotOf(wantedMetric);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Metric \"" + wantedMetric.getName() + "\" is not part of measurement");
+        }
+        return (Measure<V, Q>) slotMeasure(slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValueForMetric(final MetricDescription wantedMetric, final Unit<?> unit) {
+        final int slot = wantedMetric instanceof BaseMetricDescription ? slotOf(wantedMetric) : -1;
+        if (slot >= 0 && this.slotKinds[slot] != SlotKind.IDENTIFIER) {
+            return UnitConversion.convert(doubleValueAt(slot), this.units[slot], unit);
+        }
+        return super.doubleValueForMetric(wantedMetric, unit);
+    }
+
+    /**
+     * Returns this measuring value in case it conforms to the given metric description. For base
+     * metrics subsumed by the metric set, an immutable basic measurement of the current value is
+     * created instead.
+     * 
+     * @param metricDesciption
+     *            the given metric description.
+     * @return this measuring value or the basic measurement if it conforms to the given metric
+     *         description, <code>null</code> otherwise.
+     */
+    @Override
+    public MeasuringValue getMeasuringValueForMetric(final MetricDescription metricDesciption) {
+        if (metricDesciption.getId().equals(getMetricDesciption().getId())) {
+            return this;
+        }
+        final int slot = this.layout == null ? -1 : slotOf(metricDesciption);
+        return slot < 0 ? null : measurementAt(slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Answers via the slots, i.e., without creating a basic measurement.
+     */
+    @Override
+    public boolean containsMetric(final MetricDescription metricDesciption) {
+        return metricDesciption.getId().equals(getMetricDesciption().getId())
+                || this.layout != null && slotOf(metricDesciption) >= 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("ReusableMeasurement [");
+        for (int i = 0; i < this.slotKinds.length; i++) {
+            final boolean unset = this.slotKinds[i] == SlotKind.IDENTIFIER
+                    && this.objectValues[this.columns[i]] == null;
+            sb.append(unset ? "unset" : slotMeasure(i)).append(' ');
+        }
+        sb.deleteCharAt(sb.length() - 1);
+        sb.append(']');
+        return sb.toString();
+    }
+}
@@ -4,12 +4,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.measure.Measure;
 import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
 
-import org.palladiosimulator.measurementframework.measureprovider.IMeasureProvider;
+import org.palladiosimulator.measurementframework.measureprovider.AbstractMeasureProvider;
+import org.palladiosimulator.measurementframework.measureprovider.ColumnarMeasureProvider;
 import org.palladiosimulator.measurementframework.measureprovider.MeasurementListMeasureProvider;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout;
 import org.palladiosimulator.metricspec.BaseMetricDescription;
 import org.palladiosimulator.metricspec.MetricDescription;
 import org.palladiosimulator.metricspec.MetricSetDescription;
@@ -18,15 +22,19 @@ import org.palladiosimulator.metricspec.MetricSpecPackage;
 /**
  * Represents a tuple measurement, i.e., a measurement for a {@see MetricSetDescription}.
  * 
+ * Tuple measurements either subsume a list of measurements or store their measures in columnar
+ * form as defined by a {@link MetricSetLayout}. The latter avoids creating the subsumed
+ * measurements and their measures unless these are requested.
+ * 
  * @author Sebastian Lehrig, Christian Stier
  */
 public final class TupleMeasurement extends MeasuringValue {
 
     /** Delegate to a measure provider holding the represented measure. */
-    private final IMeasureProvider measureProvider;
+    private final AbstractMeasureProvider measureProvider;
 
-    /** List of subsumed measurements. */
-    private final List<MeasuringValue> subsumedMeasurements;
+    /** List of subsumed measurements; created on first request for columnar tuple measurements. */
+    private List<MeasuringValue> subsumedMeasurements;
 
     /**
      * Default constructor.
@@ -43,21 +51,47 @@ public final class TupleMeasurement extends MeasuringValue {
             final MetricSetDescription metricSetDescription) {
         super(metricSetDescription);
 
+        final MetricSetLayout layout = MetricSetLayout.forMetric(metricSetDescription);
+        layout.checkSubsumedMeasurements(subsumedMeasurements);
+
         this.subsumedMeasurements = subsumedMeasurements;
-        this.measureProvider = new MeasurementListMeasureProvider(subsumedMeasurements);
+        this.measureProvider = new MeasurementListMeasureProvider(subsumedMeasurements, layout.getIndex());
+    }
 
-        if (subsumedMeasurements.size() != metricSetDescription.getSubsumedMetrics().size()) {
-            throw new IllegalArgumentException(
-                    "Number of measurements has to match the number of child metrics in the metric set description");
-        }
+    /**
+     * Constructor for tuple measurements storing their measures in columnar form.
+     * 
+     * @param metricSetDescription
+     *            Metric set description of this measurement.
+     * @param measureProvider
+     *            Columnar measure provider holding the measures of this measurement.
+     * @throws IllegalArgumentException
+     *             If the layout of the measure provider does not describe the given metric set.
+     */
+    public TupleMeasurement(final MetricSetDescription metricSetDescription,
+            final ColumnarMeasureProvider measureProvider) {
+        super(metricSetDescription);
 
-        int i = 0;
-        for (final MetricDescription subsumedMetric : metricSetDescription.getSubsumedMetrics()) {
-            if (!subsumedMeasurements.get(i++).getMetricDesciption().getId().equals(subsumedMetric.getId())) {
-                throw new IllegalArgumentException("Subsumed metric \"" + subsumedMetric.getName() + "\" of metric \""
-                        + metricSetDescription.getName() + "\" not present in measurement");
-            }
+        if (measureProvider.getLayout().getMetricSetDescription() != metricSetDescription) {
+            throw new IllegalArgumentException("Layout of the measure provider does not describe metric \""
+                    + metricSetDescription.getName() + "\"");
         }
+        this.measureProvider = measureProvider;
+    }
+
+    /**
+     * Convenience constructor for metric sets only subsuming real number metrics, e.g., point in
+     * time and response time.
+     * 
+     * @param layout
+     *            Layout of the metric set description of this measurement.
+     * @param realValues
+     *            Values of the subsumed metrics in the order and units of the layout.
+     * @throws IllegalArgumentException
+     *             If the number of values does not match the layout.
+     */
+    public TupleMeasurement(final MetricSetLayout layout, final double... realValues) {
+        this(layout.getMetricSetDescription(), new ColumnarMeasureProvider(layout, realValues, null, null));
     }
 
     /**
@@ -122,6 +156,30 @@ public final class TupleMeasurement extends MeasuringValue {
         return this.measureProvider.asList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.measureProvider.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> measureAt(final int index) {
+        return this.measureProvider.measureAt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        this.measureProvider.forEachMeasure(consumer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -130,13 +188,50 @@ public final class TupleMeasurement extends MeasuringValue {
         return this.measureProvider.getMeasureForMetric(wantedMetric);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValueForMetric(final MetricDescription wantedMetric, final Unit<?> unit) {
+        return this.measureProvider.doubleValueForMetric(wantedMetric, unit);
+    }
+
     /**
      * Returns the list of subsumed measurements.
      * 
      * @return the list of subsumed measurements.
      */
     public List<MeasuringValue> getSubsumedMeasurements() {
-        return Collections.unmodifiableList(this.subsumedMeasurements);
+        return Collections.unmodifiableList(subsumedMeasurements());
+    }
+
+    /**
+     * Returns the subsumed measurement of the given slot, i.e., the measurement of the subsumed
+     * metric at the given position of the metric set description.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the subsumed measurement.
+     */
+    public MeasuringValue getSubsumedMeasurement(final int slot) {
+        if (this.subsumedMeasurements == null) {
+            return ((ColumnarMeasureProvider) this.measureProvider).getSubsumedMeasurement(slot);
+        }
+        return this.subsumedMeasurements.get(slot);
+    }
+
+    /**
+     * Returns the list of subsumed measurements, creating it for columnar tuple measurements.
+     * 
+     * @return the list of subsumed measurements.
+     */
+    private List<MeasuringValue> subsumedMeasurements() {
+        List<MeasuringValue> result = this.subsumedMeasurements;
+        if (result == null) {
+            result = ((ColumnarMeasureProvider) this.measureProvider).getSubsumedMeasurements();
+            this.subsumedMeasurements = result;
+        }
+        return result;
     }
 
     /*
@@ -148,8 +243,8 @@ public final class TupleMeasurement extends MeasuringValue {
     public String toString() {
         final StringBuilder sb = new StringBuilder();
         sb.append("TupleMeasurement [");
-        for (final Measure<?, ?> sub : asList()) {
-            sb.append(sub.toString());
+        for (int i = 0; i < size(); i++) {
+            sb.append(measureAt(i).toString());
             sb.append(" ");
         }
         sb.deleteCharAt(sb.length() - 1);
@@ -158,23 +253,19 @@ public final class TupleMeasurement extends MeasuringValue {
     }
 
     /**
-     * Returns this measuring value in case it conforms to the given metric description.
+     * Returns this measuring value in case it conforms to the given metric description. For base
+     * metrics, the subsumed measurement conforming to the given metric is returned instead. Nested
+     * tuple measurements are resolved via the index of the metric set description.
      * 
      * @param metricDesciption
      *            the given metric description.
-     * @return this measuring value if it conforms to the given metric description,
-     *         <code>null</code> otherwise.
+     * @return this measuring value or the subsumed measurement if it conforms to the given metric
+     *         description, <code>null</code> otherwise.
      */
+    @Override
     public MeasuringValue getMeasuringValueForMetric(final MetricDescription metricDesciption) {
-        if(MetricSpecPackage.eINSTANCE.getBaseMetricDescription().isInstance(metricDesciption)
-                && MetricSpecPackage.eINSTANCE.getMetricSetDescription()
-                    .isInstance(this.getMetricDesciption())) {
-            for(MeasuringValue curMeasurement : this.subsumedMeasurements) {
-                MeasuringValue value = curMeasurement.getMeasuringValueForMetric(metricDesciption);
-                if(value != null) {
-                    return value;
-                }
-            }
+        if (MetricSpecPackage.eINSTANCE.getBaseMetricDescription().isInstance(metricDesciption)) {
+            return this.measureProvider.getMeasurementForMetric(metricDesciption);
         } else if (!metricDesciption.getId().equals(getMetricDesciption().getId())) {
             return null;
         }
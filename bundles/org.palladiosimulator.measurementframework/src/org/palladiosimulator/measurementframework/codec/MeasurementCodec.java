@@ -0,0 +1,125 @@
+package org.palladiosimulator.measurementframework.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and primitive encodings of the binary measurement format.
+ * 
+ * A stream starts with the magic number {@link #MAGIC} and the format {@link #VERSION}, followed by
+ * records. Each record starts with a tag byte. Definition records assign the next free reference
+ * of their kind to a metric ID, a unit, an identifier literal, or a schema, i.e., a metric
+ * together with the units of its base metrics. A definition always precedes the first record
+ * using it. Measurement records reference their schema and encode one value per base metric, in
+ * the depth-first order of the metric description:
+ * <ul>
+ * <li>real numbers as XOR delta to the raw bits of the previous value of the same schema slot; a
+ * header byte states the number of trailing zero bytes (upper 4 bits) and the number of
+ * remaining significant bytes (lower 4 bits) of the delta, followed by the significant bytes in
+ * little-endian order, i.e., repeated values need a single byte,</li>
+ * <li>integer numbers as variable-length zig-zag delta to the previous value of the same schema
+ * slot, and</li>
+ * <li>identifiers as variable-length identifier reference.</li>
+ * </ul>
+ * 
+ * @author agent
+ */
+final class MeasurementCodec {
+
+    /** Magic number at the start of each stream ("PMF" and format generation 1). */
+    static final int MAGIC = 0x504D4631;
+
+    /** Version of the format. */
+    static final byte VERSION = 1;
+
+    /** Tag of records defining a metric reference; followed by the metric ID. */
+    static final byte DEFINE_METRIC = 1;
+
+    /** Tag of records defining a unit reference; followed by the textual unit. */
+    static final byte DEFINE_UNIT = 2;
+
+    /** Tag of records defining an identifier reference; followed by metric reference and literal. */
+    static final byte DEFINE_IDENTIFIER = 3;
+
+    /** Tag of records defining a schema reference; followed by metric reference and unit references. */
+    static final byte DEFINE_SCHEMA = 4;
+
+    /** Tag of measurement records; followed by schema reference and values. */
+    static final byte MEASUREMENT = 16;
+
+    /** Maximum number of bytes of a variable-length <code>long</code>. */
+    static final int MAX_VAR_LONG_BYTES = 10;
+
+    /** Charset of strings. */
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private MeasurementCodec() {
+    }
+
+    /**
+     * Puts a variable-length <code>long</code> into the buffer, 7 bits per byte starting with the
+     * least significant bits.
+     * 
+     * @param buffer
+     *            the buffer with at least {@link #MAX_VAR_LONG_BYTES} bytes remaining.
+     * @param value
+     *            the value to be put.
+     */
+    static void putVarLong(final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    /**
+     * Maps signed to unsigned values such that values of small magnitude stay small.
+     * 
+     * @param value
+     *            the signed value.
+     * @return the unsigned value.
+     */
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Inverse of {@link #zigZag(long)}.
+     * 
+     * @param value
+     *            the unsigned value.
+     * @return the signed value.
+     */
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Puts a real number as XOR delta to the previous value of its slot into the buffer.
+     * 
+     * @param buffer
+     *            the buffer with at least 9 bytes remaining.
+     * @param bits
+     *            the raw bits of the value.
+     * @param previousBits
+     *            the raw bits of the previous value.
+     */
+    static void putReal(final ByteBuffer buffer, final long bits, final long previousBits) {
+        final long delta = bits ^ previousBits;
+        if (delta == 0) {
+            buffer.put((byte) 0);
+            return;
+        }
+        final int trailingZeroBytes = Long.numberOfTrailingZeros(delta) >>> 3;
+        final int significantBytes = 8 - (Long.numberOfLeadingZeros(delta) >>> 3) - trailingZeroBytes;
+        buffer.put((byte) (trailingZeroBytes << 4 | significantBytes));
+        long remaining = delta >>> (trailingZeroBytes << 3);
+        for (int i = 0; i < significantBytes; i++) {
+            buffer.put((byte) remaining);
+            remaining >>>= 8;
+        }
+    }
+}
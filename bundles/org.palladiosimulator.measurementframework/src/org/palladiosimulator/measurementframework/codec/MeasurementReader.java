@@ -0,0 +1,404 @@
+package org.palladiosimulator.measurementframework.codec;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.IntegerNumberMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.measurementframework.measureprovider.ColumnarMeasureProvider;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Streaming reader decoding measurements written by a {@link MeasurementWriter}. Metric IDs are
+ * resolved to metric descriptions by a given resolver; identifiers are resolved by their literal
+ * within the identifiers of their textual metric. Real and integer number measurements are
+ * decoded to {@link RealNumberMeasurement}s and {@link IntegerNumberMeasurement}s, tuple
+ * measurements to columnar {@link TupleMeasurement}s.
+ * 
+ * Readers are not thread-safe.
+ * 
+ * @author agent
+ */
+public final class MeasurementReader implements Closeable {
+
+    /** Default size of the read buffer in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final Function<String, ? extends MetricDescription> metricResolver;
+
+    private final List<MetricDescription> metrics = new ArrayList<MetricDescription>();
+
+    private final List<Unit<?>> units = new ArrayList<Unit<?>>();
+
+    private final List<IdentifierMeasure<?>> identifiers = new ArrayList<IdentifierMeasure<?>>();
+
+    private final List<MeasurementSchema> schemas = new ArrayList<MeasurementSchema>();
+
+    /** Whether the channel reached its end. */
+    private boolean endOfStream;
+
+    private long measurementCount;
+
+    /**
+     * Constructor resolving metric IDs within the given metric descriptions, including the metrics
+     * subsumed by metric sets.
+     * 
+     * @param channel
+     *            the channel to read from.
+     * @param metricDescriptions
+     *            the metric descriptions of the encoded measurements.
+     * @throws IOException
+     *             if reading the stream header fails or the stream is not in the binary measurement
+     *             format.
+     */
+    public MeasurementReader(final ReadableByteChannel channel,
+            final Collection<? extends MetricDescription> metricDescriptions) throws IOException {
+        this(channel, metricsById(metricDescriptions)::get);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param channel
+     *            the channel to read from.
+     * @param metricResolver
+     *            the resolver of metric IDs; returns <code>null</code> for unknown IDs.
+     * @throws IOException
+     *             if reading the stream header fails or the stream is not in the binary measurement
+     *             format.
+     */
+    public MeasurementReader(final ReadableByteChannel channel,
+            final Function<String, ? extends MetricDescription> metricResolver) throws IOException {
+        this.channel = channel;
+        this.metricResolver = metricResolver;
+        this.buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+        this.buffer.flip();
+
+        if (!fill(5) || this.buffer.getInt() != MeasurementCodec.MAGIC) {
+            throw new IOException("Not a binary measurement stream");
+        }
+        final byte version = this.buffer.get();
+        if (version != MeasurementCodec.VERSION) {
+            throw new IOException("Unsupported version " + version + " of binary measurement stream");
+        }
+    }
+
+    private static Map<String, MetricDescription> metricsById(
+            final Collection<? extends MetricDescription> metricDescriptions) {
+        final Map<String, MetricDescription> result = new HashMap<String, MetricDescription>();
+        for (final MetricDescription metricDescription : metricDescriptions) {
+            addMetric(metricDescription, result);
+        }
+        return result;
+    }
+
+    private static void addMetric(final MetricDescription metricDescription,
+            final Map<String, MetricDescription> result) {
+        result.put(metricDescription.getId(), metricDescription);
+        if (metricDescription instanceof MetricSetDescription) {
+            for (final MetricDescription subsumedMetric : ((MetricSetDescription) metricDescription)
+                    .getSubsumedMetrics()) {
+                addMetric(subsumedMetric, result);
+            }
+        }
+    }
+
+    /**
+     * Reads the next measurement.
+     * 
+     * @return the next measurement, or <code>null</code> at the end of the stream.
+     * @throws IOException
+     *             if reading from the channel fails or the stream is malformed.
+     */
+    public MeasuringValue read() throws IOException {
+        while (fill(1)) {
+            final byte tag = this.buffer.get();
+            switch (tag) {
+            case MeasurementCodec.MEASUREMENT:
+                this.measurementCount++;
+                return readMeasurement(schemaAt(readVarInt()));
+            case MeasurementCodec.DEFINE_METRIC:
+                this.metrics.add(resolveMetric(readString()));
+                break;
+            case MeasurementCodec.DEFINE_UNIT:
+                this.units.add(parseUnit(readString()));
+                break;
+            case MeasurementCodec.DEFINE_IDENTIFIER:
+                final MetricDescription metric = referenced(this.metrics, readVarInt(), "metric");
+                this.identifiers.add(resolveIdentifier(metric, readString()));
+                break;
+            case MeasurementCodec.DEFINE_SCHEMA:
+                this.schemas.add(readSchema());
+                break;
+            default:
+                throw new IOException("Unknown record tag " + tag);
+            }
+        }
+        return null;
+    }
+
+    private MeasurementSchema readSchema() throws IOException {
+        final MetricDescription metric = referenced(this.metrics, readVarInt(), "metric");
+        final Unit<?>[] schemaUnits = new Unit<?>[readVarInt()];
+        for (int i = 0; i < schemaUnits.length; i++) {
+            schemaUnits[i] = referenced(this.units, readVarInt(), "unit");
+        }
+        try {
+            return new MeasurementSchema(this.schemas.size(), metric, schemaUnits);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Schema does not match metric \"" + metric.getName() + "\"", e);
+        }
+    }
+
+    private MeasurementSchema schemaAt(final int reference) throws IOException {
+        return referenced(this.schemas, reference, "schema");
+    }
+
+    private MeasuringValue readMeasurement(final MeasurementSchema schema) throws IOException {
+        final long[] values = schema.previousValues;
+        for (int slot = 0; slot < values.length; slot++) {
+            switch (schema.captureTypes[slot]) {
+            case REAL_NUMBER:
+                values[slot] ^= readRealDelta();
+                break;
+            case INTEGER_NUMBER:
+                values[slot] += MeasurementCodec.unZigZag(readVarLong());
+                break;
+            default:
+                values[slot] = readVarLong();
+                break;
+            }
+        }
+
+        if (schema.metric instanceof BaseMetricDescription) {
+            return createBasicMeasurement(schema, 0);
+        }
+        final int[] cursor = new int[2];
+        return createTupleMeasurement(schema, cursor);
+    }
+
+    /**
+     * Creates the tuple measurement of the metric set at the given cursor, i.e., the index of its
+     * layout and of its first slot. Nested tuple measurements are created recursively.
+     */
+    private TupleMeasurement createTupleMeasurement(final MeasurementSchema schema, final int[] cursor)
+            throws IOException {
+        final MetricSetLayout layout = schema.getLayouts()[cursor[0]++];
+        final double[] realValues = new double[layout.getRealColumnCount()];
+        final long[] integerValues = new long[layout.getIntegerColumnCount()];
+        final Object[] objectValues = new Object[layout.getObjectColumnCount()];
+        for (int i = 0; i < layout.size(); i++) {
+            final int column = layout.getColumn(i);
+            switch (layout.getSlotKind(i)) {
+            case REAL_NUMBER:
+                realValues[column] = Double.longBitsToDouble(schema.previousValues[cursor[1]++]);
+                break;
+            case INTEGER_NUMBER:
+                integerValues[column] = schema.previousValues[cursor[1]++];
+                break;
+            case IDENTIFIER:
+                objectValues[column] = identifierAt(schema.previousValues[cursor[1]++]);
+                break;
+            default:
+                objectValues[column] = createTupleMeasurement(schema, cursor);
+                break;
+            }
+        }
+        return new TupleMeasurement(layout.getMetricSetDescription(),
+                new ColumnarMeasureProvider(layout, realValues, integerValues, objectValues));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private MeasuringValue createBasicMeasurement(final MeasurementSchema schema, final int slot)
+            throws IOException {
+        final BaseMetricDescription metric = schema.baseMetrics[slot];
+        final Unit<Quantity> unit = (Unit<Quantity>) schema.units[slot];
+        try {
+            switch (schema.captureTypes[slot]) {
+            case REAL_NUMBER:
+                return new RealNumberMeasurement<Quantity>(Double.longBitsToDouble(schema.previousValues[slot]), unit,
+                        metric);
+            case INTEGER_NUMBER:
+                return new IntegerNumberMeasurement<Quantity>(schema.previousValues[slot], unit, metric);
+            default:
+                return new BasicMeasurement(identifierAt(schema.previousValues[slot]), metric);
+            }
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Measurement does not match metric \"" + metric.getName() + "\"", e);
+        }
+    }
+
+    private IdentifierMeasure<?> identifierAt(final long reference) throws IOException {
+        if (reference < 0 || reference >= this.identifiers.size()) {
+            throw new IOException("Undefined identifier reference " + reference);
+        }
+        return this.identifiers.get((int) reference);
+    }
+
+    private MetricDescription resolveMetric(final String id) throws IOException {
+        final MetricDescription metric = this.metricResolver.apply(id);
+        if (metric == null) {
+            throw new IOException("Unknown metric ID \"" + id + "\"");
+        }
+        return metric;
+    }
+
+    private static Unit<?> parseUnit(final String text) throws IOException {
+        try {
+            return Unit.valueOf(text);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Unknown unit \"" + text + "\"", e);
+        }
+    }
+
+    private static IdentifierMeasure<?> resolveIdentifier(final MetricDescription metric, final String literal)
+            throws IOException {
+        if (metric instanceof TextualBaseMetricDescription) {
+            for (final Identifier identifier : ((TextualBaseMetricDescription) metric).getIdentifiers()) {
+                if (literal.equals(identifier.getLiteral())) {
+                    return IdentifierMeasure.valueOf(identifier, Unit.ONE);
+                }
+            }
+        }
+        throw new IOException("Unknown identifier \"" + literal + "\" of metric \"" + metric.getName() + "\"");
+    }
+
+    private static <T> T referenced(final List<T> definitions, final int reference, final String kind)
+            throws IOException {
+        if (reference < 0 || reference >= definitions.size()) {
+            throw new IOException("Undefined " + kind + " reference " + reference);
+        }
+        return definitions.get(reference);
+    }
+
+    private String readString() throws IOException {
+        final int length = readVarInt();
+        final byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!fill(1)) {
+                throw new EOFException("Unexpected end of binary measurement stream");
+            }
+            final int chunk = Math.min(length - offset, this.buffer.remaining());
+            this.buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return new String(bytes, MeasurementCodec.CHARSET);
+    }
+
+    private int readVarInt() throws IOException {
+        final long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Malformed binary measurement stream");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the XOR delta of a real number.
+     * 
+     * @see MeasurementCodec#putReal(ByteBuffer, long, long)
+     */
+    private long readRealDelta() throws IOException {
+        if (!fill(1)) {
+            throw new EOFException("Unexpected end of binary measurement stream");
+        }
+        final int header = this.buffer.get() & 0xFF;
+        final int significantBytes = header & 0x0F;
+        final int trailingZeroBytes = header >>> 4;
+        if (significantBytes + trailingZeroBytes > 8) {
+            throw new IOException("Malformed real number in binary measurement stream");
+        }
+        if (!fill(significantBytes)) {
+            throw new EOFException("Unexpected end of binary measurement stream");
+        }
+        long delta = 0;
+        for (int i = 0; i < significantBytes; i++) {
+            delta |= (this.buffer.get() & 0xFFL) << (i << 3);
+        }
+        return delta << (trailingZeroBytes << 3);
+    }
+
+    private long readVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!this.buffer.hasRemaining() && !fill(1)) {
+                throw new EOFException("Unexpected end of binary measurement stream");
+            }
+            final byte b = this.buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable-length value in binary measurement stream");
+    }
+
+    /**
+     * Reads from the channel until the given number of bytes is buffered or the channel ends.
+     * 
+     * @return <code>true</code> if the bytes are buffered, <code>false</code> at the end of the
+     *         channel.
+     */
+    private boolean fill(final int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return true;
+        }
+        this.buffer.compact();
+        try {
+            while (this.buffer.position() < bytes && !this.endOfStream) {
+                if (this.channel.read(this.buffer) < 0) {
+                    this.endOfStream = true;
+                }
+            }
+        } finally {
+            this.buffer.flip();
+        }
+        return this.buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Returns the number of measurements read so far.
+     * 
+     * @return the number of measurements.
+     */
+    public long getMeasurementCount() {
+        return this.measurementCount;
+    }
+
+    /**
+     * Closes the channel.
+     * 
+     * @throws IOException
+     *             if closing the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,136 @@
+package org.palladiosimulator.measurementframework.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+
+/**
+ * A metric description together with the units of its base metrics, i.e., the structure shared by
+ * all measurement records referencing the schema. Base metrics are flattened in depth-first order;
+ * each base metric is a slot of the schema. Schemas also hold the previous value of each slot for
+ * delta encoding.
+ * 
+ * @author agent
+ */
+final class MeasurementSchema {
+
+    /** Reference of this schema within its stream. */
+    final int reference;
+
+    /** The described metric. */
+    final MetricDescription metric;
+
+    /** Base metrics in depth-first order, one per slot. */
+    final BaseMetricDescription[] baseMetrics;
+
+    /** Capture types of the slots. */
+    final CaptureType[] captureTypes;
+
+    /** Units of the slots. */
+    final Unit<?>[] units;
+
+    /** Raw bits of the previous real number or the previous integer number per slot. */
+    final long[] previousValues;
+
+    /** Layouts of the described metric set and its nested sets, in depth-first order; decoding only. */
+    private MetricSetLayout[] layouts;
+
+    /**
+     * Default constructor.
+     * 
+     * @param reference
+     *            the reference of the schema.
+     * @param metric
+     *            the described metric.
+     * @param units
+     *            the units of the base metrics in depth-first order.
+     * @throws IllegalArgumentException
+     *             if the number of units does not match the base metrics.
+     */
+    MeasurementSchema(final int reference, final MetricDescription metric, final Unit<?>[] units) {
+        final List<BaseMetricDescription> flattened = new ArrayList<BaseMetricDescription>();
+        flatten(metric, flattened);
+        if (flattened.size() != units.length) {
+            throw new IllegalArgumentException("Number of measures has to match the number of base metrics of metric \""
+                    + metric.getName() + "\"");
+        }
+        this.reference = reference;
+        this.metric = metric;
+        this.baseMetrics = flattened.toArray(new BaseMetricDescription[flattened.size()]);
+        this.captureTypes = new CaptureType[this.baseMetrics.length];
+        for (int i = 0; i < this.baseMetrics.length; i++) {
+            this.captureTypes[i] = this.baseMetrics[i].getCaptureType();
+        }
+        this.units = units;
+        this.previousValues = new long[units.length];
+    }
+
+    private static void flatten(final MetricDescription metric, final List<BaseMetricDescription> result) {
+        if (metric instanceof BaseMetricDescription) {
+            result.add((BaseMetricDescription) metric);
+        } else if (metric instanceof MetricSetDescription) {
+            for (final MetricDescription subsumedMetric : ((MetricSetDescription) metric).getSubsumedMetrics()) {
+                flatten(subsumedMetric, result);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported type of Metric Description");
+        }
+    }
+
+    /**
+     * Returns whether the given units equal the units of this schema.
+     * 
+     * @param measureUnits
+     *            the units, one per slot.
+     * @return <code>true</code> if all units are equal, <code>false</code> otherwise.
+     */
+    boolean hasUnits(final Unit<?>[] measureUnits) {
+        for (int i = 0; i < this.units.length; i++) {
+            if (this.units[i] != measureUnits[i] && !this.units[i].equals(measureUnits[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the layouts of the described metric set and its nested sets in depth-first order,
+     * using the units of this schema. Layouts are compiled on first request.
+     * 
+     * @return the layouts.
+     */
+    MetricSetLayout[] getLayouts() {
+        if (this.layouts == null) {
+            final List<MetricSetLayout> result = new ArrayList<MetricSetLayout>();
+            compileLayouts((MetricSetDescription) this.metric, 0, result);
+            this.layouts = result.toArray(new MetricSetLayout[result.size()]);
+        }
+        return this.layouts;
+    }
+
+    private int compileLayouts(final MetricSetDescription metricSet, final int firstSlot,
+            final List<MetricSetLayout> result) {
+        final List<MetricDescription> subsumedMetrics = metricSet.getSubsumedMetrics();
+        final Unit<?>[] layoutUnits = new Unit<?>[subsumedMetrics.size()];
+        final int position = result.size();
+        result.add(null);
+        int slot = firstSlot;
+        for (int i = 0; i < layoutUnits.length; i++) {
+            final MetricDescription subsumedMetric = subsumedMetrics.get(i);
+            if (subsumedMetric instanceof MetricSetDescription) {
+                slot = compileLayouts((MetricSetDescription) subsumedMetric, slot, result);
+            } else {
+                layoutUnits[i] = this.units[slot++];
+            }
+        }
+        result.set(position, MetricSetLayout.compile(metricSet, layoutUnits));
+        return slot;
+    }
+}
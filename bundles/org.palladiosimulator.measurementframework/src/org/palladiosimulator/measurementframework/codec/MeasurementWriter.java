@@ -0,0 +1,372 @@
+package org.palladiosimulator.measurementframework.codec;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.measure.Measure;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.IntegerNumberMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Streaming writer encoding measurements in the binary measurement format (see
+ * {@link MeasurementReader} for decoding). Basic measurements, tuple measurements, and
+ * identifier measures are supported. Metric IDs, units, and identifiers are written once, on first
+ * use; measurement records only reference them.
+ * 
+ * Records are buffered and written to the channel once the buffer is full, on {@link #flush()},
+ * and on {@link #close()}. Writers are not thread-safe.
+ * 
+ * @author agent
+ */
+public final class MeasurementWriter implements Closeable, Flushable {
+
+    /** Default size of the write buffer in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+
+    private ByteBuffer buffer;
+
+    /** References of written metric IDs. */
+    private final Map<MetricDescription, Integer> metricReferences = new IdentityHashMap<MetricDescription, Integer>();
+
+    /** References of written units. */
+    private final Map<Unit<?>, Integer> unitReferences = new HashMap<Unit<?>, Integer>();
+
+    /** References of written identifiers. */
+    private final Map<Identifier, Integer> identifierReferences = new IdentityHashMap<Identifier, Integer>();
+
+    /** Written schemas per metric description. */
+    private final Map<MetricDescription, List<MeasurementSchema>> schemas;
+
+    private int schemaCount;
+
+    /** Measures of the measurement currently written. */
+    private Measure<?, ?>[] measures = new Measure<?, ?>[8];
+
+    /** Units of the measurement currently written. */
+    private Unit<?>[] measureUnits = new Unit<?>[8];
+
+    private int measureCount;
+
+    private final Consumer<Measure<?, ?>> measureCollector = new Consumer<Measure<?, ?>>() {
+        @Override
+        public void accept(final Measure<?, ?> measure) {
+            MeasurementWriter.this.measures[MeasurementWriter.this.measureCount] = measure;
+            MeasurementWriter.this.measureUnits[MeasurementWriter.this.measureCount++] = measure.getUnit();
+        }
+    };
+
+    /** Bytes written to the channel so far. */
+    private long flushedBytes;
+
+    private long measurementCount;
+
+    private boolean closed;
+
+    /**
+     * Constructor using a buffer of {@link #DEFAULT_BUFFER_SIZE}.
+     * 
+     * @param channel
+     *            the channel to write to.
+     */
+    public MeasurementWriter(final WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Default constructor. The stream header is written with the first flush.
+     * 
+     * @param channel
+     *            the channel to write to.
+     * @param bufferSize
+     *            the initial size of the write buffer in bytes; it grows for records exceeding it.
+     * @throws IllegalArgumentException
+     *             if the buffer size is less than 64 bytes.
+     */
+    public MeasurementWriter(final WritableByteChannel channel, final int bufferSize) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size has to be at least 64 bytes");
+        }
+        this.channel = channel;
+        this.schemas = new IdentityHashMap<MetricDescription, List<MeasurementSchema>>();
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.putInt(MeasurementCodec.MAGIC);
+        this.buffer.put(MeasurementCodec.VERSION);
+    }
+
+    /**
+     * Writes a measurement.
+     * 
+     * @param measurement
+     *            the measurement to be written.
+     * @throws IOException
+     *             if writing to the channel fails.
+     * @throws IllegalArgumentException
+     *             if the measures of the measurement do not match its metric description.
+     */
+    public void write(final MeasuringValue measurement) throws IOException {
+        checkOpen();
+        collectMeasures(measurement);
+        final MeasurementSchema schema = schemaOf(measurement.getMetricDesciption());
+        defineIdentifiers(schema);
+
+        ensureRemaining(1 + MeasurementCodec.MAX_VAR_LONG_BYTES * (1 + schema.units.length));
+        this.buffer.put(MeasurementCodec.MEASUREMENT);
+        MeasurementCodec.putVarLong(this.buffer, schema.reference);
+        if (measurement instanceof RealNumberMeasurement<?>) {
+            putReal(schema, 0, ((RealNumberMeasurement<?>) measurement).doubleValue());
+        } else if (measurement instanceof IntegerNumberMeasurement<?>) {
+            putInteger(schema, 0, ((IntegerNumberMeasurement<?>) measurement).longValue());
+        } else {
+            for (int slot = 0; slot < this.measureCount; slot++) {
+                putMeasure(schema, slot, this.measures[slot]);
+            }
+        }
+        for (int i = 0; i < this.measureCount; i++) {
+            this.measures[i] = null;
+        }
+        this.measurementCount++;
+    }
+
+    /**
+     * Writes the given measurements in order.
+     * 
+     * @param measurements
+     *            the measurements to be written.
+     * @throws IOException
+     *             if writing to the channel fails.
+     */
+    public void write(final List<? extends MeasuringValue> measurements) throws IOException {
+        for (int i = 0; i < measurements.size(); i++) {
+            write(measurements.get(i));
+        }
+    }
+
+    /**
+     * Collects measures and units of the given measurement; the measures of primitive basic
+     * measurements are not created.
+     */
+    private void collectMeasures(final MeasuringValue measurement) {
+        final int size = measurement.size();
+        if (size > this.measures.length) {
+            this.measures = new Measure<?, ?>[Math.max(size, 2 * this.measures.length)];
+            this.measureUnits = new Unit<?>[this.measures.length];
+        }
+        this.measureCount = 0;
+        if (measurement instanceof RealNumberMeasurement<?>) {
+            this.measureUnits[this.measureCount++] = ((RealNumberMeasurement<?>) measurement).getUnit();
+        } else if (measurement instanceof IntegerNumberMeasurement<?>) {
+            this.measureUnits[this.measureCount++] = ((IntegerNumberMeasurement<?>) measurement).getUnit();
+        } else {
+            measurement.forEachMeasure(this.measureCollector);
+        }
+        if (this.measureCount != size) {
+            throw new IllegalStateException("Measurement provides " + this.measureCount + " instead of " + size
+                    + " measures");
+        }
+    }
+
+    private void putMeasure(final MeasurementSchema schema, final int slot, final Measure<?, ?> measure) {
+        final Object value = measure.getValue();
+        switch (schema.captureTypes[slot]) {
+        case REAL_NUMBER:
+            putReal(schema, slot, ((Number) value).doubleValue());
+            break;
+        case INTEGER_NUMBER:
+            putInteger(schema, slot, ((Number) value).longValue());
+            break;
+        case IDENTIFIER:
+            MeasurementCodec.putVarLong(this.buffer, this.identifierReferences.get(value));
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported capture type " + schema.captureTypes[slot]);
+        }
+    }
+
+    private void putReal(final MeasurementSchema schema, final int slot, final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        MeasurementCodec.putReal(this.buffer, bits, schema.previousValues[slot]);
+        schema.previousValues[slot] = bits;
+    }
+
+    private void putInteger(final MeasurementSchema schema, final int slot, final long value) {
+        MeasurementCodec.putVarLong(this.buffer, MeasurementCodec.zigZag(value - schema.previousValues[slot]));
+        schema.previousValues[slot] = value;
+    }
+
+    /**
+     * Returns the schema of the given metric and the collected units, defining it if necessary.
+     */
+    private MeasurementSchema schemaOf(final MetricDescription metric) throws IOException {
+        List<MeasurementSchema> candidates = this.schemas.get(metric);
+        if (candidates == null) {
+            candidates = new ArrayList<MeasurementSchema>(1);
+            this.schemas.put(metric, candidates);
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            final MeasurementSchema candidate = candidates.get(i);
+            if (candidate.units.length == this.measureCount && candidate.hasUnits(this.measureUnits)) {
+                return candidate;
+            }
+        }
+
+        final Unit<?>[] units = new Unit<?>[this.measureCount];
+        System.arraycopy(this.measureUnits, 0, units, 0, units.length);
+        final MeasurementSchema schema = new MeasurementSchema(this.schemaCount, metric, units);
+        final int metricReference = metricReferenceOf(metric);
+        final int[] unitReferences = new int[units.length];
+        for (int i = 0; i < units.length; i++) {
+            unitReferences[i] = unitReferenceOf(units[i]);
+        }
+
+        ensureRemaining(1 + MeasurementCodec.MAX_VAR_LONG_BYTES * (2 + units.length));
+        this.buffer.put(MeasurementCodec.DEFINE_SCHEMA);
+        MeasurementCodec.putVarLong(this.buffer, metricReference);
+        MeasurementCodec.putVarLong(this.buffer, units.length);
+        for (final int unitReference : unitReferences) {
+            MeasurementCodec.putVarLong(this.buffer, unitReference);
+        }
+        this.schemaCount++;
+        candidates.add(schema);
+        return schema;
+    }
+
+    private int metricReferenceOf(final MetricDescription metric) throws IOException {
+        Integer reference = this.metricReferences.get(metric);
+        if (reference == null) {
+            reference = this.metricReferences.size();
+            putDefinition(MeasurementCodec.DEFINE_METRIC, -1, metric.getId());
+            this.metricReferences.put(metric, reference);
+        }
+        return reference;
+    }
+
+    private int unitReferenceOf(final Unit<?> unit) throws IOException {
+        Integer reference = this.unitReferences.get(unit);
+        if (reference == null) {
+            reference = this.unitReferences.size();
+            putDefinition(MeasurementCodec.DEFINE_UNIT, -1, unit.toString());
+            this.unitReferences.put(unit, reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Defines the identifiers of the collected measures not written so far.
+     */
+    private void defineIdentifiers(final MeasurementSchema schema) throws IOException {
+        for (int slot = 0; slot < this.measureCount; slot++) {
+            if (schema.captureTypes[slot] == CaptureType.IDENTIFIER) {
+                final Object identifier = this.measures[slot].getValue();
+                if (!(identifier instanceof Identifier)) {
+                    throw new IllegalArgumentException("Measure of identifier metric \""
+                            + schema.baseMetrics[slot].getName() + "\" does not hold an identifier");
+                }
+                if (!this.identifierReferences.containsKey(identifier)) {
+                    final int metricReference = metricReferenceOf(schema.baseMetrics[slot]);
+                    putDefinition(MeasurementCodec.DEFINE_IDENTIFIER, metricReference,
+                            ((Identifier) identifier).getLiteral());
+                    this.identifierReferences.put((Identifier) identifier, this.identifierReferences.size());
+                }
+            }
+        }
+    }
+
+    private void putDefinition(final byte tag, final int metricReference, final String text) throws IOException {
+        final byte[] bytes = text.getBytes(MeasurementCodec.CHARSET);
+        ensureRemaining(1 + 2 * MeasurementCodec.MAX_VAR_LONG_BYTES + bytes.length);
+        this.buffer.put(tag);
+        if (metricReference >= 0) {
+            MeasurementCodec.putVarLong(this.buffer, metricReference);
+        }
+        MeasurementCodec.putVarLong(this.buffer, bytes.length);
+        this.buffer.put(bytes);
+    }
+
+    private void ensureRemaining(final int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            flushBuffer();
+            if (this.buffer.capacity() < bytes) {
+                this.buffer = ByteBuffer.allocateDirect(bytes);
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.flushedBytes += this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+    }
+
+    /**
+     * Returns the number of written measurements.
+     * 
+     * @return the number of measurements.
+     */
+    public long getMeasurementCount() {
+        return this.measurementCount;
+    }
+
+    /**
+     * Returns the number of bytes of the encoded stream so far, including buffered bytes.
+     * 
+     * @return the position within the encoded stream.
+     */
+    public long getPosition() {
+        return this.flushedBytes + this.buffer.position();
+    }
+
+    /**
+     * Writes all buffered records to the channel.
+     * 
+     * @throws IOException
+     *             if writing to the channel fails.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+        flushBuffer();
+    }
+
+    /**
+     * Flushes buffered records and closes the channel.
+     * 
+     * @throws IOException
+     *             if writing to or closing the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            try {
+                flushBuffer();
+            } finally {
+                this.closed = true;
+                this.channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * This package provides a compact binary format for streams of measurements, e.g., to persist
+ * measurement traces of a simulation run and to replay them later. A {@link MeasurementWriter}
+ * encodes measurements to a channel; a {@link MeasurementReader} decodes them again, resolving
+ * metric descriptions by their IDs.
+ * 
+ * @author agent
+ */
+package org.palladiosimulator.measurementframework.codec;
@@ -0,0 +1,105 @@
+package org.palladiosimulator.measurementframework.filter;
+
+import java.util.SplittableRandom;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Filter forwarding each measurement independently with a given probability. Instead of drawing a
+ * random number per measurement, the filter draws the geometrically distributed number of
+ * measurements dropped before the next forwarded one, i.e., one random number per forwarded
+ * measurement. Filters created with the same seed forward the same measurements of the same
+ * stream.
+ * 
+ * @author agent
+ */
+public class BernoulliSamplingFilter extends MeasurementFilter {
+
+    /** Probability with which a measurement is forwarded. */
+    private final double probability;
+
+    /** Logarithm of the probability with which a measurement is dropped. */
+    private final double logDropProbability;
+
+    private final SplittableRandom random;
+
+    /** Number of measurements to be dropped before the next one is forwarded. */
+    private long remainingDrops;
+
+    /**
+     * Constructor using a random seed.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     * @param probability
+     *            the probability with which a measurement is forwarded.
+     * @throws IllegalArgumentException
+     *             if the probability is not greater than 0 and at most 1.
+     */
+    public BernoulliSamplingFilter(final MetricDescription metricDescription, final double probability) {
+        this(metricDescription, probability, new SplittableRandom());
+    }
+
+    /**
+     * Constructor using the given seed, e.g., for reproducible simulation runs.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     * @param probability
+     *            the probability with which a measurement is forwarded.
+     * @param seed
+     *            the seed of the random numbers.
+     * @throws IllegalArgumentException
+     *             if the probability is not greater than 0 and at most 1.
+     */
+    public BernoulliSamplingFilter(final MetricDescription metricDescription, final double probability,
+            final long seed) {
+        this(metricDescription, probability, new SplittableRandom(seed));
+    }
+
+    private BernoulliSamplingFilter(final MetricDescription metricDescription, final double probability,
+            final SplittableRandom random) {
+        super(metricDescription);
+        if (!(probability > 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Sampling probability has to be greater than 0 and at most 1");
+        }
+        this.probability = probability;
+        this.logDropProbability = Math.log1p(-probability);
+        this.random = random;
+        this.remainingDrops = nextDrops();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean accept(final MeasuringValue measurement) {
+        if (this.remainingDrops > 0) {
+            this.remainingDrops--;
+            return false;
+        }
+        this.remainingDrops = nextDrops();
+        return true;
+    }
+
+    /**
+     * Draws the number of measurements dropped before the next forwarded one.
+     */
+    private long nextDrops() {
+        if (this.probability == 1) {
+            return 0;
+        }
+        // inversion of the geometric distribution; 1 - u avoids the logarithm of 0
+        return (long) Math.floor(Math.log(1 - this.random.nextDouble()) / this.logDropProbability);
+    }
+
+    /**
+     * Returns the sampling probability.
+     * 
+     * @return the probability with which a measurement is forwarded.
+     */
+    public double getProbability() {
+        return this.probability;
+    }
+}
@@ -0,0 +1,92 @@
+package org.palladiosimulator.measurementframework.filter;
+
+import java.util.Objects;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Filter forwarding a measurement only if the value of a given base metric differs from its value
+ * in the previously received measurement, e.g., to record state changes instead of each sampled
+ * state. The first measurement is always forwarded. Values are compared by
+ * {@link Object#equals(Object)}, i.e., identifiers by identity and numbers by their value in the
+ * unit they were taken in. Measurements without the compared metric are dropped.
+ * 
+ * The filter only keeps the compared value, not the measurement.
+ * 
+ * @author agent
+ */
+public class ChangeFilter extends MeasurementFilter {
+
+    /** Marks that no measurement has been received yet. */
+    private static final Object NO_VALUE = new Object();
+
+    /** The base metric whose values are compared. */
+    private final BaseMetricDescription comparedMetric;
+
+    /** Value of the compared metric in the previously received measurement. */
+    private Object previousValue = NO_VALUE;
+
+    /**
+     * Constructor for filtering measurements of a base metric, e.g., a state metric.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements, also used as compared metric.
+     */
+    public ChangeFilter(final BaseMetricDescription metricDescription) {
+        this(metricDescription, metricDescription);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     * @param comparedMetric
+     *            the base metric whose values are compared, e.g., the state metric subsumed by
+     *            a metric set of point in time and state.
+     */
+    public ChangeFilter(final MetricDescription metricDescription, final BaseMetricDescription comparedMetric) {
+        super(metricDescription);
+        if (comparedMetric == null) {
+            throw new IllegalArgumentException("Compared metric must not be null");
+        }
+        this.comparedMetric = comparedMetric;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean accept(final MeasuringValue measurement) {
+        if (!measurement.containsMetric(this.comparedMetric)) {
+            return false;
+        }
+        final Object value = measurement.getMeasureForMetric(this.comparedMetric).getValue();
+        if (Objects.equals(value, this.previousValue)) {
+            return false;
+        }
+        this.previousValue = value;
+        return true;
+    }
+
+    /**
+     * Forgets the previous value such that the next measurement is forwarded.
+     */
+    @Override
+    protected void complete() {
+        synchronized (this.lock) {
+            this.previousValue = NO_VALUE;
+        }
+    }
+
+    /**
+     * Returns the base metric whose values are compared.
+     * 
+     * @return the compared metric.
+     */
+    public BaseMetricDescription getComparedMetric() {
+        return this.comparedMetric;
+    }
+}
@@ -0,0 +1,69 @@
+package org.palladiosimulator.measurementframework.filter;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Filter forwarding every n-th measurement, starting with the first one, i.e., decimating the
+ * measurements by the given factor.
+ * 
+ * @author agent
+ */
+public class DecimationFilter extends MeasurementFilter {
+
+    /** Only every n-th measurement is forwarded. */
+    private final int interval;
+
+    /** Number of measurements to be dropped before the next one is forwarded. */
+    private int remainingDrops;
+
+    /**
+     * Default constructor.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     * @param interval
+     *            only every n-th measurement is forwarded; 1 forwards all measurements.
+     * @throws IllegalArgumentException
+     *             if the interval is not positive.
+     */
+    public DecimationFilter(final MetricDescription metricDescription, final int interval) {
+        super(metricDescription);
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Decimation interval has to be positive");
+        }
+        this.interval = interval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean accept(final MeasuringValue measurement) {
+        if (this.remainingDrops > 0) {
+            this.remainingDrops--;
+            return false;
+        }
+        this.remainingDrops = this.interval - 1;
+        return true;
+    }
+
+    /**
+     * Restarts the decimation with the next measurement.
+     */
+    @Override
+    protected void complete() {
+        synchronized (this.lock) {
+            this.remainingDrops = 0;
+        }
+    }
+
+    /**
+     * Returns the decimation interval.
+     * 
+     * @return only every n-th measurement is forwarded.
+     */
+    public int getInterval() {
+        return this.interval;
+    }
+}
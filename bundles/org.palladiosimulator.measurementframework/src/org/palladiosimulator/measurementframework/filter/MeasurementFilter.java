@@ -0,0 +1,179 @@
+package org.palladiosimulator.measurementframework.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Filter stage between a measurement source and its listeners. Registered at a measurement
+ * source, the filter forwards only the measurements it accepts to the listeners registered at the
+ * filter, e.g., to reduce the load of recorders in long steady-state runs. Forwarded measurements
+ * are not modified, i.e., the filter has the metric description of the filtered source, and
+ * {@link #preUnregister()} is propagated to the listeners of the filter.
+ * 
+ * Subclasses decide about each measurement in {@link #accept(MeasuringValue)}, which is invoked
+ * while holding the lock of the filter state. Measurements are forwarded outside of the lock;
+ * batches are forwarded as batches of the accepted measurements.
+ * 
+ * @author agent
+ */
+public abstract class MeasurementFilter extends MeasurementSource implements IMeasurementSourceListener {
+
+    /** Lock guarding the filter state. */
+    protected final Object lock = new Object();
+
+    /** Number of measurements passed to the filter. */
+    private long receivedMeasurements;
+
+    /** Number of measurements forwarded to the listeners. */
+    private long forwardedMeasurements;
+
+    /**
+     * Default constructor.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     */
+    protected MeasurementFilter(final MetricDescription metricDescription) {
+        super(metricDescription);
+    }
+
+    /**
+     * Decides whether the given measurement is forwarded. Invoked while holding {@link #lock}.
+     * 
+     * @param measurement
+     *            the measurement; reusable measurements have to be frozen if kept.
+     * @return <code>true</code> if the measurement is forwarded, <code>false</code> otherwise.
+     */
+    protected abstract boolean accept(MeasuringValue measurement);
+
+    /**
+     * Forwards the given measurement to the listeners if it is accepted.
+     * 
+     * @param newMeasurement
+     *            the new measurement.
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        final boolean accepted;
+        synchronized (this.lock) {
+            this.receivedMeasurements++;
+            accepted = accept(newMeasurement);
+            if (accepted) {
+                this.forwardedMeasurements++;
+            }
+        }
+        if (accepted) {
+            notifyMeasurementSourceListener(newMeasurement);
+        }
+    }
+
+    /**
+     * Forwards the accepted measurements of the given batch to the listeners as one batch. If all
+     * measurements are accepted, the batch itself is forwarded.
+     * 
+     * @param newMeasurements
+     *            the new measurements.
+     */
+    @Override
+    public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        List<MeasuringValue> acceptedMeasurements = null;
+        final int acceptedCount;
+        synchronized (this.lock) {
+            this.receivedMeasurements += newMeasurements.size();
+            for (int i = 0; i < newMeasurements.size(); i++) {
+                final MeasuringValue measurement = newMeasurements.get(i);
+                if (accept(measurement)) {
+                    if (acceptedMeasurements != null) {
+                        acceptedMeasurements.add(measurement);
+                    }
+                } else if (acceptedMeasurements == null) {
+                    // copy the measurements accepted so far once the first one is rejected
+                    acceptedMeasurements = new ArrayList<MeasuringValue>(newMeasurements.subList(0, i));
+                }
+            }
+            acceptedCount = acceptedMeasurements == null ? newMeasurements.size() : acceptedMeasurements.size();
+            this.forwardedMeasurements += acceptedCount;
+        }
+        if (acceptedCount == newMeasurements.size()) {
+            notifyMeasurementSourceListener(newMeasurements);
+        } else if (acceptedCount > 0) {
+            notifyMeasurementSourceListener(acceptedMeasurements);
+        }
+    }
+
+    /**
+     * Forwards the given measurements as one batch to the listeners of this filter, e.g.,
+     * measurements held back by the filter. Must not be invoked while holding {@link #lock}.
+     * 
+     * @param measurements
+     *            the forwarded measurements.
+     */
+    protected final void forward(final List<? extends MeasuringValue> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+        synchronized (this.lock) {
+            this.forwardedMeasurements += measurements.size();
+        }
+        notifyMeasurementSourceListener(measurements);
+    }
+
+    /**
+     * Returns whether the listeners of this filter retain measurements; forwarded measurements
+     * are not kept by the filter.
+     * 
+     * @return <code>true</code> if a listener retains measurements, <code>false</code> otherwise.
+     */
+    @Override
+    public boolean retainsMeasurements() {
+        return listenersRetainMeasurements();
+    }
+
+    /**
+     * Completes the filter (see {@link #complete()}) and informs the listeners of this filter
+     * about being unregistered.
+     */
+    @Override
+    public void preUnregister() {
+        complete();
+        for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+            listener.preUnregister();
+        }
+    }
+
+    /**
+     * Invoked by {@link #preUnregister()} before the listeners are informed. Filters holding back
+     * measurements forward them here; all filters reset their state so that they can be
+     * registered again. The default implementation does nothing.
+     */
+    protected void complete() {
+        // nothing held back by default
+    }
+
+    /**
+     * Returns the number of measurements passed to this filter.
+     * 
+     * @return the number of received measurements.
+     */
+    public long getReceivedMeasurementCount() {
+        synchronized (this.lock) {
+            return this.receivedMeasurements;
+        }
+    }
+
+    /**
+     * Returns the number of measurements forwarded to the listeners of this filter.
+     * 
+     * @return the number of forwarded measurements.
+     */
+    public long getForwardedMeasurementCount() {
+        synchronized (this.lock) {
+            return this.forwardedMeasurements;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.palladiosimulator.measurementframework.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Filter keeping a uniform random sample of fixed size of all received measurements, i.e., each
+ * received measurement is part of the sample with the same probability. The sample is held back
+ * and forwarded as one batch on {@link #emitSample()} or {@link #preUnregister()}, in the order in
+ * which its measurements were received, e.g., ordered by their point in time.
+ * 
+ * The sample is maintained by Li's Algorithm L, which draws the number of measurements skipped
+ * before the next replacement instead of a random number per measurement. Memory consumption only
+ * depends on the sample size. Filters created with the same seed keep the same sample of the same
+ * stream.
+ * 
+ * @author agent
+ */
+public class ReservoirSamplingFilter extends MeasurementFilter {
+
+    /** The sample; only the first {@link #sampleSize} entries are used. */
+    private final MeasuringValue[] sample;
+
+    /** Index of each sampled measurement within the received stream. */
+    private final long[] sampleIndices;
+
+    private final SplittableRandom random;
+
+    /** Number of sampled measurements. */
+    private int sampleSize;
+
+    /** Number of measurements received since the sample was last emitted. */
+    private long receivedSinceEmission;
+
+    /** Index of the next measurement replacing a sampled one. */
+    private long nextReplacement;
+
+    /** Current threshold of Algorithm L. */
+    private double threshold;
+
+    /**
+     * Constructor using a random seed.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     * @param capacity
+     *            the maximal number of sampled measurements.
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public ReservoirSamplingFilter(final MetricDescription metricDescription, final int capacity) {
+        this(metricDescription, capacity, new SplittableRandom());
+    }
+
+    /**
+     * Constructor using the given seed, e.g., for reproducible simulation runs.
+     * 
+     * @param metricDescription
+     *            Metric description of the filtered measurements.
+     * @param capacity
+     *            the maximal number of sampled measurements.
+     * @param seed
+     *            the seed of the random numbers.
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public ReservoirSamplingFilter(final MetricDescription metricDescription, final int capacity, final long seed) {
+        this(metricDescription, capacity, new SplittableRandom(seed));
+    }
+
+    private ReservoirSamplingFilter(final MetricDescription metricDescription, final int capacity,
+            final SplittableRandom random) {
+        super(metricDescription);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Sample capacity has to be positive");
+        }
+        this.sample = new MeasuringValue[capacity];
+        this.sampleIndices = new long[capacity];
+        this.random = random;
+    }
+
+    /**
+     * Adds the given measurement to the sample if it is selected; never forwards it immediately.
+     * 
+     * @param measurement
+     *            the measurement; frozen if sampled.
+     * @return <code>false</code>.
+     */
+    @Override
+    protected boolean accept(final MeasuringValue measurement) {
+        final long index = this.receivedSinceEmission++;
+        if (this.sampleSize < this.sample.length) {
+            this.sample[this.sampleSize] = measurement.freeze();
+            this.sampleIndices[this.sampleSize] = index;
+            if (++this.sampleSize == this.sample.length) {
+                this.threshold = Math.exp(Math.log(nextUniform()) / this.sample.length);
+                this.nextReplacement = index + nextSkip() + 1;
+            }
+        } else if (index == this.nextReplacement) {
+            final int slot = this.random.nextInt(this.sample.length);
+            this.sample[slot] = measurement.freeze();
+            this.sampleIndices[slot] = index;
+            this.threshold *= Math.exp(Math.log(nextUniform()) / this.sample.length);
+            this.nextReplacement = index + nextSkip() + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Draws the number of measurements skipped before the next replacement.
+     */
+    private long nextSkip() {
+        return (long) Math.floor(Math.log(nextUniform()) / Math.log1p(-this.threshold));
+    }
+
+    /**
+     * Draws a uniformly distributed number within (0, 1].
+     */
+    private double nextUniform() {
+        return 1 - this.random.nextDouble();
+    }
+
+    /**
+     * Returns whether the filter retains measurements, which it does for sampled ones.
+     * 
+     * @return <code>true</code>.
+     */
+    @Override
+    public boolean retainsMeasurements() {
+        return true;
+    }
+
+    /**
+     * Returns the current sample without emitting it.
+     * 
+     * @return the sampled measurements in the order in which they were received.
+     */
+    public List<MeasuringValue> getSample() {
+        synchronized (this.lock) {
+            return Collections.unmodifiableList(orderedSample());
+        }
+    }
+
+    /**
+     * Forwards the current sample as one batch to the listeners of this filter and starts a new
+     * sample, e.g., at the end of a simulation phase.
+     */
+    public void emitSample() {
+        final List<MeasuringValue> emittedSample;
+        synchronized (this.lock) {
+            emittedSample = orderedSample();
+            Arrays.fill(this.sample, null);
+            this.sampleSize = 0;
+            this.receivedSinceEmission = 0;
+        }
+        forward(emittedSample);
+    }
+
+    /**
+     * Emits the current sample.
+     */
+    @Override
+    protected void complete() {
+        emitSample();
+    }
+
+    /**
+     * Returns the sampled measurements ordered by their index within the received stream.
+     * Callers have to hold the lock of the filter.
+     */
+    private List<MeasuringValue> orderedSample() {
+        final Integer[] slots = new Integer[this.sampleSize];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (first, second) -> Long.compare(this.sampleIndices[first], this.sampleIndices[second]));
+        final List<MeasuringValue> result = new ArrayList<MeasuringValue>(slots.length);
+        for (final Integer slot : slots) {
+            result.add(this.sample[slot]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximal number of sampled measurements.
+     * 
+     * @return the capacity of the sample.
+     */
+    public int getCapacity() {
+        return this.sample.length;
+    }
+}
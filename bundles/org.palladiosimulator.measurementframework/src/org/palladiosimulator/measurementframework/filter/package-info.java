@@ -0,0 +1,10 @@
+/**
+ * This package provides filter stages that reduce the measurements reaching the listeners of a
+ * measurement source, e.g., recorders in long steady-state runs. Filters are listeners and
+ * measurement sources at the same time: they forward a subset of the received measurements
+ * unmodified, either by decimation, Bernoulli sampling, reservoir sampling, or by forwarding state
+ * changes only.
+ * 
+ * @author agent
+ */
+package org.palladiosimulator.measurementframework.filter;
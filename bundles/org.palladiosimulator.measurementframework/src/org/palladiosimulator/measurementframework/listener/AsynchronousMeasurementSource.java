@@ -0,0 +1,376 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Decouples the listeners of a measurement source from the thread producing the measurements.
+ * Registered at a measurement source, this stage appends each new measurement to a bounded
+ * {@link MeasurementRingBuffer}; a dedicated consumer thread drains the buffer and passes the
+ * measurements in batches to the listeners registered at this stage. Slow listeners, e.g.,
+ * recorders writing to disk, therefore no longer stall the producing simulation thread.
+ * 
+ * Measurements have to be notified by one thread at a time. If the buffer is full, the configured
+ * {@link Backpressure} strategy applies. {@link #preUnregister()} waits until all buffered
+ * measurements have been dispatched, informs the listeners of this stage, and stops the consumer
+ * thread. An idle consumer thread parks until new measurements arrive and terminates after
+ * {@link #CONSUMER_KEEP_ALIVE_MILLIS} without measurements, i.e., even if the stage is never
+ * unregistered; a new consumer thread is started if further measurements arrive. Exceptions thrown
+ * by listeners on the consumer thread are rethrown to the producing thread with its next call.
+ * 
+ * @author agent
+ */
+public class AsynchronousMeasurementSource extends MeasurementSource implements IMeasurementSourceListener {
+
+    /**
+     * Strategies applied when the buffer of an asynchronous measurement source is full.
+     */
+    public enum Backpressure {
+        /** The producing thread waits until the consumer thread has freed space. */
+        BLOCK,
+        /** New measurements are dropped while the buffer is full. */
+        DROP,
+        /**
+         * Once the buffer is filled beyond three quarters, only every n-th new measurement is
+         * buffered; measurements are dropped while the buffer is full.
+         */
+        SAMPLE
+    }
+
+    /** Default capacity of the buffer. */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    /** Default sampling interval for {@link Backpressure#SAMPLE}. */
+    public static final int DEFAULT_SAMPLING_INTERVAL = 10;
+
+    /** Time in milliseconds an idle consumer thread waits for new measurements before it terminates. */
+    public static final long CONSUMER_KEEP_ALIVE_MILLIS = 1000;
+
+    /** Maximal number of measurements dispatched as one batch. */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /** Keep-alive time of idle consumer threads in nanoseconds. */
+    private static final long CONSUMER_KEEP_ALIVE_NANOS = TimeUnit.MILLISECONDS.toNanos(CONSUMER_KEEP_ALIVE_MILLIS);
+
+    /** Buffer between producing and consumer thread. */
+    private final MeasurementRingBuffer buffer;
+
+    /** Strategy applied if the buffer is full. */
+    private final Backpressure backpressure;
+
+    /** Only every n-th measurement is buffered when sampling. */
+    private final int samplingInterval;
+
+    /** Factory for consumer threads. */
+    private final ThreadFactory threadFactory;
+
+    /** Signalled by the producing thread once measurements have been buffered. */
+    private final DispatchSignal measurementsBuffered = new DispatchSignal();
+
+    /** Signalled by the consumer thread once it has freed space or dispatched measurements. */
+    private final DispatchSignal measurementsDispatched = new DispatchSignal();
+
+    /** Lock guarding start and stop of the consumer thread. */
+    private final Object consumerLock = new Object();
+
+    /** The current consumer thread; <code>null</code> if none is running. */
+    private volatile Thread consumer;
+
+    /** Whether the current consumer thread shall keep running. */
+    private volatile boolean running;
+
+    /** Number of measurements completely dispatched to the listeners. */
+    private final AtomicLong dispatchedMeasurements = new AtomicLong();
+
+    /** Number of dropped measurements. */
+    private final AtomicLong droppedMeasurements = new AtomicLong();
+
+    /** Measurements seen while sampling, used to select every n-th measurement. */
+    private long sampledMeasurements;
+
+    /** First exception thrown by a listener on the consumer thread and not yet rethrown. */
+    private volatile RuntimeException failure;
+
+    /**
+     * Constructor using default capacity, blocking backpressure, and daemon consumer threads.
+     * 
+     * @param metricDescription
+     *            Metric description of the forwarded measurements.
+     */
+    public AsynchronousMeasurementSource(final MetricDescription metricDescription) {
+        this(metricDescription, DEFAULT_CAPACITY, Backpressure.BLOCK);
+    }
+
+    /**
+     * Constructor using daemon consumer threads.
+     * 
+     * @param metricDescription
+     *            Metric description of the forwarded measurements.
+     * @param capacity
+     *            Minimal capacity of the buffer.
+     * @param backpressure
+     *            Strategy applied if the buffer is full.
+     */
+    public AsynchronousMeasurementSource(final MetricDescription metricDescription, final int capacity,
+            final Backpressure backpressure) {
+        this(metricDescription, capacity, backpressure, DEFAULT_SAMPLING_INTERVAL, runnable -> {
+            final Thread thread = new Thread(runnable,
+                    "Measurement dispatcher (" + metricDescription.getName() + ")");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param metricDescription
+     *            Metric description of the forwarded measurements.
+     * @param capacity
+     *            Minimal capacity of the buffer.
+     * @param backpressure
+     *            Strategy applied if the buffer is full.
+     * @param samplingInterval
+     *            Only every n-th measurement is buffered when sampling; ignored for other
+     *            strategies.
+     * @param threadFactory
+     *            Factory for consumer threads, e.g., creating virtual threads where available.
+     */
+    public AsynchronousMeasurementSource(final MetricDescription metricDescription, final int capacity,
+            final Backpressure backpressure, final int samplingInterval, final ThreadFactory threadFactory) {
+        super(metricDescription);
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Sampling interval has to be positive");
+        }
+        this.buffer = new MeasurementRingBuffer(capacity);
+        this.backpressure = backpressure;
+        this.samplingInterval = samplingInterval;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        rethrowFailure();
+        switch (this.backpressure) {
+        case BLOCK:
+            while (!this.buffer.offer(newMeasurement)) {
+                ensureConsumer();
+                this.measurementsDispatched
+                        .await(() -> this.buffer.size() < this.buffer.capacity() || this.failure != null);
+                rethrowFailure();
+            }
+            break;
+        case SAMPLE:
+            if (this.buffer.size() > this.buffer.capacity() / 4 * 3
+                    && this.sampledMeasurements++ % this.samplingInterval != 0) {
+                this.droppedMeasurements.incrementAndGet();
+            } else if (!this.buffer.offer(newMeasurement)) {
+                this.droppedMeasurements.incrementAndGet();
+            }
+            break;
+        default:
+            if (!this.buffer.offer(newMeasurement)) {
+                this.droppedMeasurements.incrementAndGet();
+            }
+            break;
+        }
+        this.measurementsBuffered.signal();
+        ensureConsumer();
+    }
+
+    /**
+     * Waits until all measurements buffered so far have been dispatched to the listeners. Has no
+     * effect if called by the consumer thread itself, e.g., from within a listener.
+     */
+    public void flush() {
+        if (Thread.currentThread() == this.consumer) {
+            return;
+        }
+        final long bufferedMeasurements = this.buffer.getOfferedCount();
+        this.measurementsDispatched.await(
+                () -> this.dispatchedMeasurements.get() >= bufferedMeasurements || this.consumer == null);
+        rethrowFailure();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Dispatches all buffered measurements, informs the listeners of this stage, and stops the
+     * consumer thread afterwards.
+     */
+    @Override
+    public void preUnregister() {
+        flush();
+        stopConsumer();
+        for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+            listener.preUnregister();
+        }
+    }
+
+    /**
+     * Returns the number of measurements currently waiting for being dispatched.
+     * 
+     * @return the number of buffered measurements.
+     */
+    @Override
+    public int getQueueDepth() {
+        return this.buffer.size();
+    }
+
+    /**
+     * Returns the capacity of the buffer.
+     * 
+     * @return the capacity of the buffer.
+     */
+    public int getCapacity() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * Returns the number of measurements dropped due to backpressure.
+     * 
+     * @return the number of dropped measurements.
+     */
+    public long getDroppedMeasurementCount() {
+        return this.droppedMeasurements.get();
+    }
+
+    /**
+     * Returns the number of measurements dispatched to the listeners so far.
+     * 
+     * @return the number of dispatched measurements.
+     */
+    public long getDispatchedMeasurementCount() {
+        return this.dispatchedMeasurements.get();
+    }
+
+    /**
+     * Starts a consumer thread unless one is running.
+     */
+    private void ensureConsumer() {
+        if (this.consumer != null) {
+            return;
+        }
+        synchronized (this.consumerLock) {
+            if (this.consumer == null) {
+                this.running = true;
+                final Thread thread = this.threadFactory.newThread(this::dispatchMeasurements);
+                this.consumer = thread;
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Stops the current consumer thread after it has dispatched all buffered measurements. The
+     * lock is released while joining, since an idle consumer thread acquires it to terminate.
+     */
+    private void stopConsumer() {
+        final Thread thread;
+        synchronized (this.consumerLock) {
+            thread = this.consumer;
+            if (thread == null || thread == Thread.currentThread()) {
+                return;
+            }
+            this.running = false;
+        }
+        this.measurementsBuffered.signal();
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        synchronized (this.consumerLock) {
+            if (this.consumer == thread) {
+                this.consumer = null;
+            }
+        }
+        this.measurementsDispatched.signal();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Body of the consumer thread. Drains the buffer in batches until stopped and the buffer is
+     * empty, or until it has been idle for {@link #CONSUMER_KEEP_ALIVE_MILLIS}.
+     */
+    private void dispatchMeasurements() {
+        final List<MeasuringValue> batch = new ArrayList<MeasuringValue>(MAX_BATCH_SIZE);
+        while (this.running || !this.buffer.isEmpty()) {
+            if (this.buffer.drainTo(batch, MAX_BATCH_SIZE) == 0) {
+                if (!this.measurementsBuffered.await(() -> !this.running || !this.buffer.isEmpty(),
+                        CONSUMER_KEEP_ALIVE_NANOS) && !keepConsumerAlive()) {
+                    return;
+                }
+                continue;
+            }
+            this.measurementsDispatched.signal();
+            try {
+                notifyMeasurementSourceListener(batch);
+            } catch (final RuntimeException e) {
+                if (this.failure == null) {
+                    this.failure = e;
+                }
+            } finally {
+                this.dispatchedMeasurements.addAndGet(batch.size());
+                batch.clear();
+                this.measurementsDispatched.signal();
+            }
+        }
+    }
+
+    /**
+     * Terminates the idle consumer thread unless measurements have arrived meanwhile. The
+     * consumer thread is released before the buffer is checked again, while producing threads
+     * check for a consumer thread after buffering; thus, either the consumer thread sees the new
+     * measurements or the producing thread starts a new consumer thread.
+     * 
+     * @return <code>true</code> if the calling consumer thread has to continue, <code>false</code>
+     *         if it has to terminate.
+     */
+    private boolean keepConsumerAlive() {
+        final Thread thread = Thread.currentThread();
+        synchronized (this.consumerLock) {
+            if (this.consumer != thread || !this.running) {
+                return this.running;
+            }
+            this.consumer = null;
+        }
+        this.measurementsDispatched.signal();
+        if (this.buffer.isEmpty()) {
+            return false;
+        }
+        synchronized (this.consumerLock) {
+            if (this.consumer == null) {
+                this.consumer = thread;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rethrows an exception thrown by a listener on the consumer thread.
+     */
+    private void rethrowFailure() {
+        final RuntimeException currentFailure = this.failure;
+        if (currentFailure != null) {
+            this.failure = null;
+            throw new IllegalStateException("Listener failed while dispatching measurements asynchronously",
+                    currentFailure);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Optional instrumentation of the dispatch of measurements from measurement sources to their
+ * listeners. If enabled by setting the system property {@value #INSTRUMENTATION_PROPERTY} to
+ * <code>true</code>, measurement sources count notifications and measurements, and time the
+ * call-backs of each listener. Instrumentation is disabled by default; the property is read once
+ * into a constant such that the just-in-time compiler removes the instrumented code paths, i.e.,
+ * disabled instrumentation has no overhead.
+ * 
+ * Only every n-th call-back of a listener is timed via {@link System#nanoTime()}, where n is
+ * given by the system property {@value #SAMPLING_INTERVAL_PROPERTY} (default
+ * {@value #DEFAULT_SAMPLING_INTERVAL}). The collected data is available as snapshots (see
+ * {@link MeasurementSource#getDispatchSnapshot()}) and via JMX (see
+ * {@link #registerMBean(MeasurementSource)}).
+ * 
+ * @author agent
+ */
+public final class DispatchInstrumentation {
+
+    /** System property that enables the instrumentation if set to <code>true</code>. */
+    public static final String INSTRUMENTATION_PROPERTY = "org.palladiosimulator.measurementframework.instrumentDispatch";
+
+    /** System property setting the interval in which call-backs of listeners are timed. */
+    public static final String SAMPLING_INTERVAL_PROPERTY = "org.palladiosimulator.measurementframework.dispatchSamplingInterval";
+
+    /** Default interval in which call-backs of listeners are timed. */
+    public static final int DEFAULT_SAMPLING_INTERVAL = 16;
+
+    /** Domain of the object names of registered MBeans. */
+    public static final String MBEAN_DOMAIN = "org.palladiosimulator.measurementframework";
+
+    /** Whether the instrumentation is enabled. */
+    static final boolean ENABLED = Boolean.getBoolean(INSTRUMENTATION_PROPERTY);
+
+    /** Interval in which call-backs of listeners are timed. */
+    static final int SAMPLING_INTERVAL = Math.max(1,
+            Integer.getInteger(SAMPLING_INTERVAL_PROPERTY, DEFAULT_SAMPLING_INTERVAL));
+
+    /** Sequence number distinguishing the MBeans of sources with the same metric. */
+    private static final AtomicLong MBEAN_SEQUENCE = new AtomicLong();
+
+    private DispatchInstrumentation() {
+        // static access only
+    }
+
+    /**
+     * Returns whether the instrumentation is enabled.
+     * 
+     * @return <code>true</code> if the instrumentation is enabled, <code>false</code> otherwise.
+     * @see #INSTRUMENTATION_PROPERTY
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns the interval in which call-backs of listeners are timed.
+     * 
+     * @return only every n-th call-back of a listener is timed.
+     * @see #SAMPLING_INTERVAL_PROPERTY
+     */
+    public static int getSamplingInterval() {
+        return SAMPLING_INTERVAL;
+    }
+
+    /**
+     * Registers an MBean exposing the dispatch snapshots of the given source at the platform MBean
+     * server. The MBean is registered regardless of whether the instrumentation is enabled.
+     * 
+     * @param source
+     *            the instrumented source.
+     * @return the name of the registered MBean, e.g., to unregister it once the source is not
+     *         used anymore.
+     * @throws IllegalStateException
+     *             if the MBean cannot be registered.
+     * @see #unregisterMBean(ObjectName)
+     */
+    public static ObjectName registerMBean(final MeasurementSource source) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName(MBEAN_DOMAIN + ":type=MeasurementSource,metric="
+                    + ObjectName.quote(source.getMetricDesciption().getName()) + ",id="
+                    + MBEAN_SEQUENCE.incrementAndGet());
+            server.registerMBean(new MeasurementSourceMXBeanAdapter(source), name);
+            return name;
+        } catch (final JMException e) {
+            throw new IllegalStateException("MBean of measurement source cannot be registered", e);
+        }
+    }
+
+    /**
+     * Unregisters an MBean registered by {@link #registerMBean(MeasurementSource)}. Has no effect
+     * if the MBean is not registered.
+     * 
+     * @param name
+     *            the name of the MBean.
+     */
+    public static void unregisterMBean(final ObjectName name) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (final JMException e) {
+            throw new IllegalStateException("MBean of measurement source cannot be unregistered", e);
+        }
+    }
+
+    /**
+     * Standard MXBean adapter of a measurement source, taking a new snapshot on each access.
+     */
+    private static final class MeasurementSourceMXBeanAdapter implements MeasurementSourceMXBean {
+
+        private final MeasurementSource source;
+
+        MeasurementSourceMXBeanAdapter(final MeasurementSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public MeasurementSourceSnapshot getSnapshot() {
+            return this.source.getDispatchSnapshot();
+        }
+
+        @Override
+        public String getMetricName() {
+            return this.source.getMetricDesciption().getName();
+        }
+
+        @Override
+        public long getNotificationCount() {
+            return getSnapshot().getNotificationCount();
+        }
+
+        @Override
+        public long getMeasurementCount() {
+            return getSnapshot().getMeasurementCount();
+        }
+
+        @Override
+        public long getIncompatibleMeasurementCount() {
+            return this.source.getIncompatibleMeasurementCount();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return this.source.getQueueDepth();
+        }
+
+        @Override
+        public ListenerDispatchSnapshot[] getListeners() {
+            return getSnapshot().getListeners().toArray(new ListenerDispatchSnapshot[0]);
+        }
+    }
+}
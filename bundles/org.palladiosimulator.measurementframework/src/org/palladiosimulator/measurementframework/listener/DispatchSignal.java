@@ -0,0 +1,96 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lets threads of the dispatching stages wait for a condition another thread makes true, e.g.,
+ * free space in a buffer or new measurements to be dispatched. Waiting threads spin briefly, then
+ * park until the condition's thread calls {@link #signal()}; they do not consume processor time
+ * while parked. Signalling only unparks threads if any are waiting.
+ * 
+ * Threads register before they re-check the condition and park, while {@link #signal()} issues a
+ * full fence between the preceding change of the condition and reading the registered threads.
+ * Therefore, either the waiting thread sees the change or the signalling thread sees the waiting
+ * thread, i.e., no signal is lost.
+ * 
+ * @author agent
+ */
+final class DispatchSignal {
+
+    /** Number of spins before waiting threads park. */
+    private static final int SPINS = 64;
+
+    /** The parked or parking threads. */
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+
+    /**
+     * Waits until the given condition holds.
+     * 
+     * @param condition
+     *            the condition; evaluated repeatedly by the waiting thread.
+     */
+    void await(final BooleanSupplier condition) {
+        await(condition, Long.MAX_VALUE);
+    }
+
+    /**
+     * Waits until the given condition holds or the given time has elapsed.
+     * 
+     * @param condition
+     *            the condition; evaluated repeatedly by the waiting thread.
+     * @param timeoutNanos
+     *            the maximal waiting time in nanoseconds; {@link Long#MAX_VALUE} for no limit.
+     * @return <code>true</code> if the condition holds, <code>false</code> if the time has
+     *         elapsed.
+     */
+    boolean await(final BooleanSupplier condition, final long timeoutNanos) {
+        for (int spins = 0; spins < SPINS; spins++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        final Thread thread = Thread.currentThread();
+        final long deadline = System.nanoTime() + timeoutNanos;
+        boolean interrupted = false;
+        this.waiters.add(thread);
+        try {
+            while (!condition.getAsBoolean()) {
+                if (timeoutNanos == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    final long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, remainingNanos);
+                }
+                // the waiting threads are not meant to be cancelled; park would return at once
+                interrupted |= Thread.interrupted();
+            }
+            return true;
+        } finally {
+            this.waiters.remove(thread);
+            if (interrupted) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wakes up all waiting threads to re-check their conditions. Has to be called after each change
+     * that may make a condition hold.
+     */
+    void signal() {
+        VarHandle.fullFence();
+        if (!this.waiters.isEmpty()) {
+            for (final Thread waiter : this.waiters) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.palladiosimulator.measurementframework.listener;
 
+import java.util.List;
+
 import org.palladiosimulator.measurementframework.MeasuringValue;
 
 /**
@@ -21,6 +23,35 @@ public interface IMeasurementSourceListener {
      */
     public void newMeasurementAvailable(MeasuringValue newMeasurement);
 
+    /**
+     * Call-back method for observers, informing these about a batch of new measurements. The
+     * default implementation passes each measurement to {@link #newMeasurementAvailable(MeasuringValue)}
+     * in the order of the batch. Listeners that can process several measurements at once, e.g., by
+     * writing them with a single bulk operation, should override this method.
+     * 
+     * @param newMeasurements
+     *            The newly available measurements; the list must not be modified or kept.
+     */
+    public default void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        for (int i = 0; i < newMeasurements.size(); i++) {
+            newMeasurementAvailable(newMeasurements.get(i));
+        }
+    }
+
+    /**
+     * Returns whether this listener keeps notified measurements beyond its call-backs, e.g., by
+     * buffering them. Measurement sources may notify listeners not retaining measurements about a
+     * {@link org.palladiosimulator.measurementframework.ReusableMeasurement} that is refilled once
+     * the call-back returns; such listeners have to call {@link MeasuringValue#freeze()} to keep a
+     * measurement. The default implementation returns <code>true</code>, i.e., listeners are
+     * notified about immutable measurements only.
+     * 
+     * @return <code>true</code> if this listener retains measurements, <code>false</code> otherwise.
+     */
+    public default boolean retainsMeasurements() {
+        return true;
+    }
+
     /**
      * After having registered, e.g., at a {@link Calculator}, this method gets invoked to inform
      * the listener about being unregistered.
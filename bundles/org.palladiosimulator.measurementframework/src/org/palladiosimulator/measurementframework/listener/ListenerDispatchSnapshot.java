@@ -0,0 +1,107 @@
+package org.palladiosimulator.measurementframework.listener;
+
+/**
+ * Immutable snapshot of the dispatch statistics of a single listener registered at a measurement
+ * source (see {@link DispatchInstrumentation}). Durations are only taken for sampled call-backs;
+ * the cumulative duration of all call-backs is estimated from these.
+ * 
+ * @author agent
+ */
+public final class ListenerDispatchSnapshot {
+
+    private final String listener;
+
+    private final long dispatchCount;
+
+    private final long measurementCount;
+
+    private final long sampledDispatchCount;
+
+    private final long sampledDispatchNanos;
+
+    private final long maxDispatchNanos;
+
+    ListenerDispatchSnapshot(final String listener, final long dispatchCount, final long measurementCount,
+            final long sampledDispatchCount, final long sampledDispatchNanos, final long maxDispatchNanos) {
+        this.listener = listener;
+        this.dispatchCount = dispatchCount;
+        this.measurementCount = measurementCount;
+        this.sampledDispatchCount = sampledDispatchCount;
+        this.sampledDispatchNanos = sampledDispatchNanos;
+        this.maxDispatchNanos = maxDispatchNanos;
+    }
+
+    /**
+     * Returns the string representation of the listener.
+     * 
+     * @return the listener description.
+     */
+    public String getListener() {
+        return this.listener;
+    }
+
+    /**
+     * Returns the number of call-backs of the listener, counting a batch as one call-back.
+     * 
+     * @return the number of call-backs.
+     */
+    public long getDispatchCount() {
+        return this.dispatchCount;
+    }
+
+    /**
+     * Returns the number of measurements passed to the listener.
+     * 
+     * @return the number of measurements.
+     */
+    public long getMeasurementCount() {
+        return this.measurementCount;
+    }
+
+    /**
+     * Returns the number of timed call-backs.
+     * 
+     * @return the number of timed call-backs.
+     */
+    public long getSampledDispatchCount() {
+        return this.sampledDispatchCount;
+    }
+
+    /**
+     * Returns the cumulative duration of the timed call-backs.
+     * 
+     * @return the duration in nanoseconds.
+     */
+    public long getSampledDispatchNanos() {
+        return this.sampledDispatchNanos;
+    }
+
+    /**
+     * Returns the maximal duration of a timed call-back.
+     * 
+     * @return the duration in nanoseconds.
+     */
+    public long getMaxDispatchNanos() {
+        return this.maxDispatchNanos;
+    }
+
+    /**
+     * Returns the estimated cumulative duration of all call-backs, extrapolated from the timed
+     * ones.
+     * 
+     * @return the duration in nanoseconds.
+     */
+    public long getEstimatedDispatchNanos() {
+        if (this.sampledDispatchCount == 0) {
+            return 0;
+        }
+        return (long) ((double) this.sampledDispatchNanos / this.sampledDispatchCount * this.dispatchCount);
+    }
+
+    @Override
+    public String toString() {
+        return "ListenerDispatchSnapshot [listener=" + this.listener + ", dispatchCount=" + this.dispatchCount
+                + ", measurementCount=" + this.measurementCount + ", estimatedDispatchNanos="
+                + getEstimatedDispatchNanos() + ", maxDispatchNanos=" + this.maxDispatchNanos + "]";
+    }
+}
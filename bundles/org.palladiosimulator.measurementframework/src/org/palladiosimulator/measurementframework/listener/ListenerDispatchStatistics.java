@@ -0,0 +1,66 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatch statistics of a single listener registered at a measurement source. Only used if the
+ * instrumentation is enabled (see {@link DispatchInstrumentation}).
+ * 
+ * @author agent
+ */
+final class ListenerDispatchStatistics {
+
+    /** The listener. */
+    final IMeasurementSourceListener listener;
+
+    /** Number of call-backs. */
+    private final AtomicLong dispatches = new AtomicLong();
+
+    /** Number of measurements passed with the call-backs. */
+    private final AtomicLong measurements = new AtomicLong();
+
+    /** Number of timed call-backs. */
+    private final AtomicLong sampledDispatches = new AtomicLong();
+
+    /** Cumulative duration of the timed call-backs. */
+    private final AtomicLong sampledNanos = new AtomicLong();
+
+    /** Maximal duration of a timed call-back. */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    ListenerDispatchStatistics(final IMeasurementSourceListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts a call-back passing the given number of measurements.
+     * 
+     * @param measurementCount
+     *            the number of measurements.
+     * @return <code>true</code> if the call-back is to be timed, <code>false</code> otherwise.
+     */
+    boolean startDispatch(final int measurementCount) {
+        this.measurements.addAndGet(measurementCount);
+        return this.dispatches.getAndIncrement() % DispatchInstrumentation.SAMPLING_INTERVAL == 0;
+    }
+
+    /**
+     * Records the duration of a timed call-back.
+     * 
+     * @param nanos
+     *            the duration in nanoseconds.
+     */
+    void endSampledDispatch(final long nanos) {
+        this.sampledDispatches.incrementAndGet();
+        this.sampledNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = this.maxNanos.get()) && !this.maxNanos.compareAndSet(max, nanos)) {
+            // retry until the maximum is at least the given duration
+        }
+    }
+
+    ListenerDispatchSnapshot snapshot() {
+        return new ListenerDispatchSnapshot(String.valueOf(this.listener), this.dispatches.get(),
+                this.measurements.get(), this.sampledDispatches.get(), this.sampledNanos.get(), this.maxNanos.get());
+    }
+}
@@ -0,0 +1,577 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.ReusableMeasurement;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Join stage assembling measurements of a target metric set from the measurements of several
+ * measurement sources, e.g., response times and the resource state sampled at the same point in
+ * time. The first source is the primary source: for each of its measurements, the stage looks up
+ * the measurement of each other source whose point in time is nearest to the point in time of the
+ * primary measurement, at most the given tolerance apart, and emits a measurement of the target
+ * metric set. The point in time of the emitted measurement is the one of the primary measurement;
+ * each further metric of the target metric set is taken from the first source providing it.
+ * Primary measurements without a match in every other source are dropped. A tolerance of 0
+ * requires exactly equal points in time.
+ * 
+ * The stage is a measurement source itself. Whether the sources provide the point in time metric
+ * and all metrics of the target metric set is validated once on construction; notified
+ * measurements are only checked for belonging to their source's metric by the source itself.
+ * 
+ * Measurements of each source have to arrive in the order of their point in time. Measurements of
+ * the other sources are kept in hash buckets of the width of the tolerance, so that lookups only
+ * visit neighbouring buckets. A primary measurement is joined once all other sources have
+ * progressed beyond its point in time plus the tolerance; buffered measurements that cannot match
+ * a pending or future primary measurement anymore are evicted. Additionally, each buffer holds at
+ * most the given capacity of measurements, dropping the oldest ones, so that memory stays bounded
+ * over long runs. Once all sources have informed the stage about being unregistered, pending
+ * primary measurements are joined with the measurements at hand and the listeners of the stage
+ * are informed about being unregistered.
+ * 
+ * @author agent
+ */
+public class MeasurementJoin extends MeasurementSource {
+
+    /** Default maximal number of buffered measurements per source. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Layout of the target metric set. */
+    private final MetricSetLayout layout;
+
+    /** The joined sources; the first one is the primary source. */
+    private final List<MeasurementSource> sources;
+
+    /** Point in time metric used for matching. */
+    private final NumericalBaseMetricDescription pointInTimeMetric;
+
+    /** Unit of the points in time. */
+    private final Unit<?> pointInTimeUnit;
+
+    /** Maximal distance of matched points in time. */
+    private final double tolerance;
+
+    /** Maximal number of buffered measurements per source. */
+    private final int capacity;
+
+    /** Slot of the point in time metric within the target metric set. */
+    private final int pointInTimeSlot;
+
+    /** Index of the input providing each slot of the target metric set. */
+    private final int[] slotInputs;
+
+    /** The inputs, one per source. */
+    private final Input[] inputs;
+
+    /** Measurement assembling the joined values; guarded by {@link #lock}. */
+    private final ReusableMeasurement joinedMeasurement;
+
+    /** Lock guarding the buffers. */
+    private final Object lock = new Object();
+
+    /** Pending primary measurements in order of arrival. */
+    private final ArrayDeque<BufferedMeasurement> pendingMeasurements = new ArrayDeque<BufferedMeasurement>();
+
+    /** Number of emitted measurements. */
+    private long joinedMeasurementCount;
+
+    /** Number of primary measurements dropped for lacking a match. */
+    private long unmatchedMeasurementCount;
+
+    /** Number of measurements dropped because a buffer was full. */
+    private long evictedMeasurementCount;
+
+    /**
+     * Constructor using {@link #DEFAULT_CAPACITY}.
+     * 
+     * @param targetMetric
+     *            the metric set of the emitted measurements.
+     * @param pointInTimeMetric
+     *            the point in time metric subsumed by the target metric set and provided by all
+     *            sources.
+     * @param tolerance
+     *            the maximal distance of matched points in time, stated in the default unit of the
+     *            point in time metric; 0 for exact matches.
+     * @param sources
+     *            the joined sources, starting with the primary source.
+     */
+    public MeasurementJoin(final MetricSetDescription targetMetric,
+            final NumericalBaseMetricDescription pointInTimeMetric, final double tolerance,
+            final List<? extends MeasurementSource> sources) {
+        this(targetMetric, pointInTimeMetric, tolerance, DEFAULT_CAPACITY, sources);
+    }
+
+    /**
+     * Default constructor. Listeners of the stage are registered at the sources by
+     * {@link #connect()}.
+     * 
+     * @param targetMetric
+     *            the metric set of the emitted measurements; subsuming base metrics only.
+     * @param pointInTimeMetric
+     *            the point in time metric subsumed by the target metric set and provided by all
+     *            sources.
+     * @param tolerance
+     *            the maximal distance of matched points in time, stated in the default unit of the
+     *            point in time metric; 0 for exact matches.
+     * @param capacity
+     *            the maximal number of buffered measurements per source.
+     * @param sources
+     *            the joined sources, starting with the primary source.
+     * @throws IllegalArgumentException
+     *             if the sources do not provide the point in time metric or the metrics of the
+     *             target metric set, or a parameter is out of range.
+     */
+    public MeasurementJoin(final MetricSetDescription targetMetric,
+            final NumericalBaseMetricDescription pointInTimeMetric, final double tolerance, final int capacity,
+            final List<? extends MeasurementSource> sources) {
+        super(targetMetric);
+        if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("Tolerance has to be non-negative and finite");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity has to be positive");
+        }
+        if (sources.size() < 2) {
+            throw new IllegalArgumentException("At least two sources have to be joined");
+        }
+        this.layout = MetricSetLayout.forMetric(targetMetric);
+        this.pointInTimeSlot = this.layout.indexOf(pointInTimeMetric);
+        if (this.pointInTimeSlot < 0
+                || this.layout.getSlotKind(this.pointInTimeSlot) != MetricSetLayout.SlotKind.REAL_NUMBER) {
+            throw new IllegalArgumentException("Point in time metric \"" + pointInTimeMetric.getName()
+                    + "\" has to be a real number metric of the target metric set");
+        }
+        this.joinedMeasurement = new ReusableMeasurement(targetMetric);
+        this.sources = Collections.unmodifiableList(new ArrayList<MeasurementSource>(sources));
+        this.pointInTimeMetric = pointInTimeMetric;
+        this.pointInTimeUnit = this.layout.getUnit(this.pointInTimeSlot);
+        this.tolerance = tolerance;
+        this.capacity = capacity;
+
+        this.inputs = new Input[this.sources.size()];
+        for (int i = 0; i < this.inputs.length; i++) {
+            final MetricDescription sourceMetric = this.sources.get(i).getMetricDesciption();
+            if (!provides(sourceMetric, pointInTimeMetric)) {
+                throw new IllegalArgumentException("Source of metric \"" + sourceMetric.getName()
+                        + "\" does not provide the point in time metric \"" + pointInTimeMetric.getName() + "\"");
+            }
+            this.inputs[i] = new Input(i);
+        }
+        this.slotInputs = new int[this.layout.size()];
+        for (int slot = 0; slot < this.slotInputs.length; slot++) {
+            final MetricDescription slotMetric = this.layout.getSubsumedMetric(slot);
+            int input = 0;
+            while (input < this.inputs.length
+                    && !provides(this.sources.get(input).getMetricDesciption(), slotMetric)) {
+                input++;
+            }
+            if (input == this.inputs.length) {
+                throw new IllegalArgumentException("Metric \"" + slotMetric.getName()
+                        + "\" of the target metric set is not provided by any source");
+            }
+            this.slotInputs[slot] = input;
+        }
+    }
+
+    /**
+     * Returns whether measurements of the given metric provide the given base metric.
+     */
+    private static boolean provides(final MetricDescription metric, final MetricDescription providedMetric) {
+        if (metric instanceof MetricSetDescription) {
+            return MetricSetLayout.forMetric((MetricSetDescription) metric).getIndex().pathOf(providedMetric) != null;
+        }
+        return metric.getId().equals(providedMetric.getId());
+    }
+
+    /**
+     * Registers the listeners of this stage at the joined sources.
+     */
+    public void connect() {
+        for (int i = 0; i < this.inputs.length; i++) {
+            this.sources.get(i).addObserver(this.inputs[i]);
+        }
+    }
+
+    /**
+     * Unregisters the listeners of this stage from the joined sources without informing them.
+     */
+    public void disconnect() {
+        for (int i = 0; i < this.inputs.length; i++) {
+            this.sources.get(i).removeObserver(this.inputs[i]);
+        }
+    }
+
+    /**
+     * Returns the listener of this stage for the source with the given index, e.g., to register
+     * it at the source by hand instead of via {@link #connect()}.
+     * 
+     * @param index
+     *            the index of the source; 0 for the primary source.
+     * @return the listener.
+     */
+    public IMeasurementSourceListener getInput(final int index) {
+        return this.inputs[index];
+    }
+
+    /**
+     * Buffers the given measurements of an input and emits the measurements joined thereby.
+     */
+    private void receive(final Input input, final List<? extends MeasuringValue> newMeasurements) {
+        final List<MeasuringValue> joined = new ArrayList<MeasuringValue>();
+        synchronized (this.lock) {
+            for (int i = 0; i < newMeasurements.size(); i++) {
+                final MeasuringValue measurement = newMeasurements.get(i);
+                final double pointInTime = measurement.doubleValueForMetric(this.pointInTimeMetric,
+                        this.pointInTimeUnit);
+                if (input.index == 0) {
+                    this.pendingMeasurements.addLast(new BufferedMeasurement(measurement, pointInTime, 0));
+                    input.latestPointInTime = Math.max(input.latestPointInTime, pointInTime);
+                } else {
+                    input.add(measurement, pointInTime);
+                }
+            }
+            join(joined, false);
+        }
+        emit(joined);
+    }
+
+    /**
+     * Marks an input as finished; once all inputs are finished, joins all pending measurements
+     * and informs the listeners of this stage about being unregistered.
+     */
+    private void finish(final Input input) {
+        final List<MeasuringValue> joined = new ArrayList<MeasuringValue>();
+        boolean allFinished = true;
+        synchronized (this.lock) {
+            input.finished = true;
+            for (final Input other : this.inputs) {
+                allFinished &= other.finished;
+            }
+            join(joined, allFinished);
+            if (allFinished) {
+                for (final Input other : this.inputs) {
+                    other.clear();
+                }
+            }
+        }
+        emit(joined);
+        if (allFinished) {
+            for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+                listener.preUnregister();
+            }
+        }
+    }
+
+    /**
+     * Joins the pending primary measurements whose matches are final, evicts buffered
+     * measurements that cannot match anymore, and adds the joined measurements to the given list.
+     * Callers have to hold the lock of the buffers.
+     * 
+     * @param joined
+     *            the list of joined measurements.
+     * @param all
+     *            whether all pending measurements are to be joined regardless of the progress of
+     *            the inputs.
+     */
+    private void join(final List<MeasuringValue> joined, final boolean all) {
+        while (!this.pendingMeasurements.isEmpty()) {
+            final BufferedMeasurement pending = this.pendingMeasurements.peekFirst();
+            if (!all && this.pendingMeasurements.size() <= this.capacity && !isFinal(pending.pointInTime)) {
+                break;
+            }
+            this.pendingMeasurements.pollFirst();
+            final MeasuringValue measurement = join(pending);
+            if (measurement == null) {
+                this.unmatchedMeasurementCount++;
+            } else {
+                joined.add(measurement);
+                this.joinedMeasurementCount++;
+            }
+        }
+        final double earliestMatch = (this.pendingMeasurements.isEmpty() ? this.inputs[0].latestPointInTime
+                : this.pendingMeasurements.peekFirst().pointInTime) - this.tolerance;
+        for (int i = 1; i < this.inputs.length; i++) {
+            this.inputs[i].evictBefore(earliestMatch);
+        }
+    }
+
+    /**
+     * Returns whether all inputs other than the primary one have progressed beyond the given point
+     * in time plus the tolerance, i.e., whether no closer match can arrive anymore.
+     */
+    private boolean isFinal(final double pointInTime) {
+        for (int i = 1; i < this.inputs.length; i++) {
+            final Input input = this.inputs[i];
+            if (!input.finished && input.latestPointInTime < pointInTime + this.tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Joins the given primary measurement with the nearest measurements of the other inputs.
+     * 
+     * @return the joined measurement, or <code>null</code> if an input has no match.
+     */
+    private MeasuringValue join(final BufferedMeasurement primary) {
+        final MeasuringValue[] matches = new MeasuringValue[this.inputs.length];
+        matches[0] = primary.measurement;
+        for (int i = 1; i < this.inputs.length; i++) {
+            matches[i] = this.inputs[i].nearest(primary.pointInTime);
+            if (matches[i] == null) {
+                return null;
+            }
+        }
+        final ReusableMeasurement result = this.joinedMeasurement;
+        for (int slot = 0; slot < this.slotInputs.length; slot++) {
+            final MeasuringValue source = matches[this.slotInputs[slot]];
+            final MetricDescription slotMetric = this.layout.getSubsumedMetric(slot);
+            switch (this.layout.getSlotKind(slot)) {
+            case REAL_NUMBER:
+                result.setReal(slot, slot == this.pointInTimeSlot ? primary.pointInTime
+                        : source.doubleValueForMetric(slotMetric, this.layout.getUnit(slot)));
+                break;
+            case INTEGER_NUMBER:
+                result.setInteger(slot, longValue(source.getMeasureForMetric(slotMetric), this.layout.getUnit(slot)));
+                break;
+            default:
+                result.setIdentifier(slot, (Identifier) source.getMeasureForMetric(slotMetric).getValue());
+                break;
+            }
+        }
+        return result.freeze();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long longValue(final Measure<?, ?> measure, final Unit<?> unit) {
+        return ((Measure<?, Quantity>) measure).longValue((Unit<Quantity>) unit);
+    }
+
+    private void emit(final List<MeasuringValue> joined) {
+        if (joined.size() == 1) {
+            notifyMeasurementSourceListener(joined.get(0));
+        } else if (!joined.isEmpty()) {
+            notifyMeasurementSourceListener(joined);
+        }
+    }
+
+    /**
+     * Returns the joined sources.
+     * 
+     * @return the sources, starting with the primary source.
+     */
+    public List<MeasurementSource> getSources() {
+        return this.sources;
+    }
+
+    /**
+     * Returns the maximal distance of matched points in time.
+     * 
+     * @return the tolerance in the default unit of the point in time metric.
+     */
+    public double getTolerance() {
+        return this.tolerance;
+    }
+
+    /**
+     * Returns the number of emitted measurements.
+     * 
+     * @return the number of joined measurements.
+     */
+    public long getJoinedMeasurementCount() {
+        synchronized (this.lock) {
+            return this.joinedMeasurementCount;
+        }
+    }
+
+    /**
+     * Returns the number of primary measurements dropped because another source had no
+     * measurement within the tolerance.
+     * 
+     * @return the number of unmatched measurements.
+     */
+    public long getUnmatchedMeasurementCount() {
+        synchronized (this.lock) {
+            return this.unmatchedMeasurementCount;
+        }
+    }
+
+    /**
+     * Returns the number of measurements dropped because the buffer of their source was full.
+     * 
+     * @return the number of evicted measurements.
+     */
+    public long getEvictedMeasurementCount() {
+        synchronized (this.lock) {
+            return this.evictedMeasurementCount;
+        }
+    }
+
+    /**
+     * Returns the number of buffered measurements, including pending primary measurements.
+     * 
+     * @return the number of buffered measurements.
+     */
+    public int getBufferedMeasurementCount() {
+        synchronized (this.lock) {
+            int count = this.pendingMeasurements.size();
+            for (int i = 1; i < this.inputs.length; i++) {
+                count += this.inputs[i].order.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Measurement buffered with its point in time and hash bucket.
+     */
+    private static final class BufferedMeasurement {
+
+        final MeasuringValue measurement;
+
+        final double pointInTime;
+
+        final long bucket;
+
+        BufferedMeasurement(final MeasuringValue measurement, final double pointInTime, final long bucket) {
+            this.measurement = measurement;
+            this.pointInTime = pointInTime;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * Listener of a single source, buffering its measurements in hash buckets by point in time.
+     * The buffers of the primary input are not used.
+     */
+    private final class Input implements IMeasurementSourceListener {
+
+        /** Index of the source. */
+        final int index;
+
+        /** Buffered measurements per bucket in order of arrival. */
+        final Map<Long, ArrayDeque<BufferedMeasurement>> buckets = new HashMap<Long, ArrayDeque<BufferedMeasurement>>();
+
+        /** Buffered measurements in order of arrival. */
+        final ArrayDeque<BufferedMeasurement> order = new ArrayDeque<BufferedMeasurement>();
+
+        /** Latest point in time of a measurement of the source. */
+        double latestPointInTime = Double.NEGATIVE_INFINITY;
+
+        /** Whether the source has informed this input about being unregistered. */
+        boolean finished;
+
+        Input(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+            receive(this, Collections.singletonList(newMeasurement));
+        }
+
+        @Override
+        public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+            receive(this, newMeasurements);
+        }
+
+        @Override
+        public void preUnregister() {
+            finish(this);
+        }
+
+        /**
+         * Buffers a measurement, dropping the oldest one if the buffer is full.
+         */
+        void add(final MeasuringValue measurement, final double pointInTime) {
+            if (this.order.size() == MeasurementJoin.this.capacity) {
+                removeOldest();
+                MeasurementJoin.this.evictedMeasurementCount++;
+            }
+            final BufferedMeasurement buffered = new BufferedMeasurement(measurement, pointInTime,
+                    bucketOf(pointInTime));
+            this.buckets.computeIfAbsent(buffered.bucket, bucket -> new ArrayDeque<BufferedMeasurement>(2))
+                    .addLast(buffered);
+            this.order.addLast(buffered);
+            this.latestPointInTime = Math.max(this.latestPointInTime, pointInTime);
+        }
+
+        /**
+         * Returns the buffered measurement nearest to the given point in time within the
+         * tolerance; the earlier one for equal distances.
+         */
+        MeasuringValue nearest(final double pointInTime) {
+            final long bucket = bucketOf(pointInTime);
+            BufferedMeasurement nearest = null;
+            double nearestDistance = MeasurementJoin.this.tolerance;
+            final long span = MeasurementJoin.this.tolerance == 0 ? 0 : 1;
+            for (long candidateBucket = bucket - span; candidateBucket <= bucket + span; candidateBucket++) {
+                final ArrayDeque<BufferedMeasurement> candidates = this.buckets.get(candidateBucket);
+                if (candidates == null) {
+                    continue;
+                }
+                for (final BufferedMeasurement candidate : candidates) {
+                    final double distance = Math.abs(candidate.pointInTime - pointInTime);
+                    if (distance < nearestDistance || distance == nearestDistance
+                            && (nearest == null || candidate.pointInTime < nearest.pointInTime)) {
+                        nearest = candidate;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+            return nearest == null ? null : nearest.measurement;
+        }
+
+        /**
+         * Evicts the buffered measurements before the given point in time.
+         */
+        void evictBefore(final double pointInTime) {
+            while (!this.order.isEmpty() && this.order.peekFirst().pointInTime < pointInTime) {
+                removeOldest();
+            }
+        }
+
+        private void removeOldest() {
+            final BufferedMeasurement oldest = this.order.pollFirst();
+            final ArrayDeque<BufferedMeasurement> bucket = this.buckets.get(oldest.bucket);
+            bucket.remove(oldest);
+            if (bucket.isEmpty()) {
+                this.buckets.remove(oldest.bucket);
+            }
+        }
+
+        /**
+         * Returns the hash bucket of the given point in time: the bits of the point in time for
+         * exact matches, its multiple of the tolerance otherwise.
+         */
+        private long bucketOf(final double pointInTime) {
+            if (MeasurementJoin.this.tolerance == 0) {
+                return Double.doubleToLongBits(pointInTime + 0.0);
+            }
+            return (long) Math.floor(pointInTime / MeasurementJoin.this.tolerance);
+        }
+
+        void clear() {
+            this.buckets.clear();
+            this.order.clear();
+            this.latestPointInTime = Double.NEGATIVE_INFINITY;
+            this.finished = false;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.listener.AsynchronousMeasurementSource.Backpressure;
+
+/**
+ * Bridge exposing a measurement source as a {@link Flow.Publisher}. Each subscriber is registered
+ * as a listener at the source via its own {@link MeasurementSubscription}, which buffers the
+ * measurements in a bounded buffer and passes them to the subscriber as requested, i.e., sinks
+ * signal by their demand whether they keep up with the source. If a buffer is full, the configured
+ * {@link Backpressure} strategy applies to the producing thread.
+ * 
+ * Subscribers are informed by tasks of the given executor, one signal at a time.
+ * {@link IMeasurementSourceListener#preUnregister()} completes the subscriptions once all
+ * buffered measurements have been passed. Measurements of incompatible metrics are not thrown back
+ * to the producing thread but passed to {@link Flow.Subscriber#onError(Throwable)} as
+ * {@link IllegalArgumentException}, dropping the measurements still buffered. Failed and cancelled
+ * subscriptions are unregistered from the source.
+ * 
+ * @author agent
+ */
+public class MeasurementPublisher implements Flow.Publisher<MeasuringValue> {
+
+    /** The published source. */
+    private final MeasurementSource source;
+
+    /** Minimal capacity of the buffer of each subscription. */
+    private final int capacity;
+
+    /** Strategy applied if the buffer of a subscription is full. */
+    private final Backpressure backpressure;
+
+    /** Executor informing the subscribers. */
+    private final Executor executor;
+
+    /**
+     * Constructor using buffers of {@link Flow#defaultBufferSize()}, blocking backpressure, and the
+     * common fork-join pool.
+     * 
+     * @param source
+     *            the published source.
+     */
+    public MeasurementPublisher(final MeasurementSource source) {
+        this(source, Flow.defaultBufferSize(), Backpressure.BLOCK, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param source
+     *            the published source.
+     * @param capacity
+     *            minimal capacity of the buffer of each subscription.
+     * @param backpressure
+     *            strategy applied if the buffer of a subscription is full.
+     * @param executor
+     *            executor informing the subscribers.
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public MeasurementPublisher(final MeasurementSource source, final int capacity, final Backpressure backpressure,
+            final Executor executor) {
+        if (source == null || backpressure == null || executor == null) {
+            throw new IllegalArgumentException("Source, backpressure, and executor must not be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity has to be positive");
+        }
+        this.source = source;
+        this.capacity = capacity;
+        this.backpressure = backpressure;
+        this.executor = executor;
+    }
+
+    /**
+     * Registers the given subscriber as a listener at the published source. The subscriber is
+     * informed about its subscription before any measurement is buffered for it.
+     * 
+     * @param subscriber
+     *            the subscriber.
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super MeasuringValue> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null");
+        }
+        final MeasurementSubscription subscription = new MeasurementSubscription(this.source, subscriber,
+                this.capacity, this.backpressure, this.executor);
+        subscriber.onSubscribe(subscription);
+        subscription.register();
+    }
+
+    /**
+     * Returns the published source.
+     * 
+     * @return the source.
+     */
+    public MeasurementSource getSource() {
+        return this.source;
+    }
+}
@@ -0,0 +1,169 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+
+/**
+ * Bounded, lock-free ring buffer of measurements for exactly one producing and one consuming
+ * thread. The producer only writes the tail and the consumer only writes the head; each side
+ * publishes its progress with release semantics and caches the other side's progress to avoid
+ * reading it on every operation.
+ * 
+ * @author agent
+ */
+public final class MeasurementRingBuffer {
+
+    /** The slots of this buffer; its length is a power of two. */
+    private final MeasuringValue[] slots;
+
+    /** Mask mapping sequence numbers to slots. */
+    private final int mask;
+
+    /** Sequence number of the next slot to be read; written by the consumer only. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Sequence number of the next slot to be written; written by the producer only. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Head as last seen by the producer. */
+    private long producerHeadCache;
+
+    /** Tail as last seen by the consumer. */
+    private long consumerTailCache;
+
+    /**
+     * Default constructor.
+     * 
+     * @param capacity
+     *            the minimal capacity of this buffer; rounded up to the next power of two.
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive or too large.
+     */
+    public MeasurementRingBuffer(final int capacity) {
+        super();
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity of ring buffer has to be in [1, 2^30]");
+        }
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity
+                : Integer.highestOneBit(capacity) << 1;
+        this.slots = new MeasuringValue[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Appends a measurement to this buffer. May only be called by the producing thread.
+     * 
+     * @param measurement
+     *            the measurement to be appended.
+     * @return <code>true</code> if the measurement was appended, <code>false</code> if the buffer
+     *         is full.
+     */
+    public boolean offer(final MeasuringValue measurement) {
+        final long currentTail = this.tail.get();
+        if (currentTail - this.producerHeadCache >= this.slots.length) {
+            this.producerHeadCache = this.head.get();
+            if (currentTail - this.producerHeadCache >= this.slots.length) {
+                return false;
+            }
+        }
+        this.slots[(int) currentTail & this.mask] = measurement;
+        this.tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest measurement from this buffer. May only be called by the consuming thread.
+     * 
+     * @return the oldest measurement or <code>null</code> if the buffer is empty.
+     */
+    public MeasuringValue poll() {
+        final long currentHead = this.head.get();
+        if (currentHead >= this.consumerTailCache) {
+            this.consumerTailCache = this.tail.get();
+            if (currentHead >= this.consumerTailCache) {
+                return null;
+            }
+        }
+        final int index = (int) currentHead & this.mask;
+        final MeasuringValue measurement = this.slots[index];
+        this.slots[index] = null;
+        this.head.lazySet(currentHead + 1);
+        return measurement;
+    }
+
+    /**
+     * Moves up to the given number of the oldest measurements to the given list. May only be
+     * called by the consuming thread.
+     * 
+     * @param target
+     *            the list receiving the measurements.
+     * @param maxMeasurements
+     *            the maximal number of measurements to be moved.
+     * @return the number of moved measurements.
+     */
+    public int drainTo(final List<? super MeasuringValue> target, final int maxMeasurements) {
+        final long currentHead = this.head.get();
+        if (currentHead >= this.consumerTailCache) {
+            this.consumerTailCache = this.tail.get();
+        }
+        final int count = (int) Math.min(maxMeasurements, this.consumerTailCache - currentHead);
+        for (int i = 0; i < count; i++) {
+            final int index = (int) (currentHead + i) & this.mask;
+            target.add(this.slots[index]);
+            this.slots[index] = null;
+        }
+        if (count > 0) {
+            this.head.lazySet(currentHead + count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of measurements currently held by this buffer. The result is an estimate
+     * if producer or consumer are active concurrently.
+     * 
+     * @return the number of buffered measurements.
+     */
+    public int size() {
+        final long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, this.slots.length));
+    }
+
+    /**
+     * Returns whether this buffer is currently empty.
+     * 
+     * @return <code>true</code> if the buffer is empty, <code>false</code> otherwise.
+     */
+    public boolean isEmpty() {
+        return this.tail.get() == this.head.get();
+    }
+
+    /**
+     * Returns the capacity of this buffer.
+     * 
+     * @return the capacity.
+     */
+    public int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * Returns the total number of measurements appended to this buffer so far.
+     * 
+     * @return the number of appended measurements.
+     */
+    public long getOfferedCount() {
+        return this.tail.get();
+    }
+
+    /**
+     * Returns the total number of measurements removed from this buffer so far.
+     * 
+     * @return the number of removed measurements.
+     */
+    public long getPolledCount() {
+        return this.head.get();
+    }
+}
@@ -1,10 +1,12 @@
 package org.palladiosimulator.measurementframework.listener;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.palladiosimulator.commons.designpatterns.AbstractObservable;
 import org.palladiosimulator.commons.designpatterns.IAbstractObservable;
 import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.ReusableMeasurement;
 import org.palladiosimulator.metricspec.MetricDescription;
 import org.palladiosimulator.metricspec.metricentity.IMetricEntity;
 import org.palladiosimulator.metricspec.metricentity.MetricEntity;
@@ -13,14 +15,43 @@ import org.palladiosimulator.metricspec.metricentity.MetricEntity;
  * AbstractMeasureProvider sources provide measurements from analyzers, e.g., by providing the
  * measurements from probes. To provide such measurements, they implement the observer pattern.
  * Observers have to implement the {@link IMeasurementSourceListener} interface to get informed
- * about new measurements.
+ * about new measurements. Observers are managed by a {@link MeasurementSourceListenerRegistry},
+ * i.e., they may be added and removed while measurements are dispatched.
+ * 
+ * Measurement sources check whether notified measurements are compatible with their metric
+ * description. Metric descriptions judged compatible once are remembered by identity so that
+ * repeated notifications skip the check. Checks can be disabled completely by setting the system
+ * property {@value #VALIDATION_PROPERTY} to <code>false</code>. The dispatch of measurements to
+ * observers can be instrumented, see {@link DispatchInstrumentation}.
  * 
  * @author Sebastian Lehrig, Steffen Becker
  */
 public abstract class MeasurementSource extends MetricEntity implements IAbstractObservable<IMeasurementSourceListener> {
 
+    /** System property that disables compatibility checks of measurements if set to <code>false</code>. */
+    public static final String VALIDATION_PROPERTY = "org.palladiosimulator.measurementframework.validateMeasurements";
+
+    /** Whether compatibility checks of measurements are enabled. */
+    private static final boolean VALIDATION_ENABLED = Boolean
+            .parseBoolean(System.getProperty(VALIDATION_PROPERTY, Boolean.TRUE.toString()));
+
+    /** Maximum number of metric descriptions remembered as being compatible. */
+    private static final int MAX_COMPATIBLE_METRICS = 8;
+
     /** Delegator object for handling observers. */
-    private final AbstractObservable<IMeasurementSourceListener> observableDelegate;
+    private final MeasurementSourceListenerRegistry observableDelegate;
+
+    /** Metric descriptions already judged compatible; compared by identity. */
+    private volatile MetricDescription[] compatibleMetrics = new MetricDescription[0];
+
+    /** Lock for extending the compatible metric descriptions. */
+    private final Object compatibleMetricsLock = new Object();
+
+    /** Number of full compatibility checks, i.e., checks not answered by remembered metrics. */
+    private final AtomicLong compatibilityChecks = new AtomicLong();
+
+    /** Number of measurements rejected for being incompatible. */
+    private final AtomicLong incompatibleMeasurements = new AtomicLong();
 
     /**
      * Default constructor. Nothing special.
@@ -31,8 +62,7 @@ public abstract class MeasurementSource extends MetricEntity implements IAbstrac
     public MeasurementSource(final MetricDescription metricDesciption) {
         super(metricDesciption);
 
-        this.observableDelegate = new AbstractObservable<IMeasurementSourceListener>() {
-        };
+        this.observableDelegate = new MeasurementSourceListenerRegistry();
     }
 
     /**
@@ -40,7 +70,7 @@ public abstract class MeasurementSource extends MetricEntity implements IAbstrac
      */
     @Override
     public void addObserver(final IMeasurementSourceListener observer) {
-        observableDelegate.addObserver(observer);
+        observableDelegate.addListener(observer);
     }
 
     /**
@@ -48,7 +78,7 @@ public abstract class MeasurementSource extends MetricEntity implements IAbstrac
      */
     @Override
     public void removeObserver(final IMeasurementSourceListener observer) {
-        observableDelegate.removeObserver(observer);
+        observableDelegate.removeListener(observer);
     }
 
     /**
@@ -57,7 +87,7 @@ public abstract class MeasurementSource extends MetricEntity implements IAbstrac
      * @return The list of observers.
      */
     protected final Collection<IMeasurementSourceListener> getMeasurementSourceListeners() {
-        return observableDelegate.getObservers();
+        return observableDelegate.getListeners();
     }
 
     /**
@@ -68,9 +98,64 @@ public abstract class MeasurementSource extends MetricEntity implements IAbstrac
      */
     protected final void notifyMeasurementSourceListener(final MeasuringValue newMeasurement) {
         if (!isCompatibleMeasurement(newMeasurement)) {
+            this.incompatibleMeasurements.incrementAndGet();
             throw new IllegalArgumentException("Taken measurement has an incompatible metric");
         }
-        observableDelegate.getEventDispatcher().newMeasurementAvailable(newMeasurement);
+        observableDelegate.notifyListeners(newMeasurement);
+    }
+
+    /**
+     * Triggers the call-back method for observers with the given, reusable measurement. Observers
+     * are informed about the reusable measurement itself if none of them retains measurements, and
+     * about a frozen copy otherwise. The source may refill the reusable measurement once this
+     * method returns.
+     * 
+     * @param newMeasurement
+     *            The reusable measurement observers are informed about.
+     * @see IMeasurementSourceListener#retainsMeasurements()
+     */
+    protected final void notifyMeasurementSourceListener(final ReusableMeasurement newMeasurement) {
+        final MeasuringValue measurement = observableDelegate.retainsMeasurements() ? newMeasurement.freeze()
+                : newMeasurement;
+        notifyMeasurementSourceListener(measurement);
+    }
+
+    /**
+     * Returns whether any registered observer retains measurements. Observers forwarding notified
+     * measurements to the observers of this source retain measurements if these do.
+     * 
+     * @return <code>true</code> if an observer retains measurements, <code>false</code> otherwise.
+     * @see IMeasurementSourceListener#retainsMeasurements()
+     */
+    protected final boolean listenersRetainMeasurements() {
+        return observableDelegate.retainsMeasurements();
+    }
+
+    /**
+     * Triggers the batch call-back method for observers with the given, new measurements. All
+     * measurements are checked before any observer gets informed; consecutive measurements of the
+     * same metric description are only checked once.
+     * 
+     * @param newMeasurements
+     *            The new measurements observers are informed about.
+     * @see IMeasurementSourceListener#newMeasurementsAvailable(List)
+     */
+    protected final void notifyMeasurementSourceListener(final List<? extends MeasuringValue> newMeasurements) {
+        if (newMeasurements.isEmpty()) {
+            return;
+        }
+        MetricDescription checkedMetric = null;
+        for (int i = 0; i < newMeasurements.size(); i++) {
+            final MetricDescription metric = newMeasurements.get(i).getMetricDesciption();
+            if (metric != checkedMetric) {
+                if (!isCompatibleMetric(metric)) {
+                    this.incompatibleMeasurements.incrementAndGet();
+                    throw new IllegalArgumentException("Taken measurement has an incompatible metric");
+                }
+                checkedMetric = metric;
+            }
+        }
+        observableDelegate.notifyListeners(newMeasurements);
     }
 
     /**
@@ -83,9 +168,114 @@ public abstract class MeasurementSource extends MetricEntity implements IAbstrac
      *         <code>false</code> otherwise.
      */
     private boolean isCompatibleMeasurement(final IMetricEntity measurement) {
-        if (!isCompatibleWith(measurement.getMetricDesciption())) {
+        if (!isCompatibleMetric(measurement.getMetricDesciption())) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a measurement source is compatible with a given metric description. Metric
+     * descriptions judged compatible before are accepted without a full check.
+     * 
+     * @param metricDescription
+     *            The metric description to be checked.
+     * @return <code>true</code> if measurement source and metric description are compatible or
+     *         if checks are disabled, <code>false</code> otherwise.
+     */
+    private boolean isCompatibleMetric(final MetricDescription metricDescription) {
+        if (!VALIDATION_ENABLED) {
+            return true;
+        }
+        final MetricDescription[] knownMetrics = this.compatibleMetrics;
+        for (int i = 0; i < knownMetrics.length; i++) {
+            if (knownMetrics[i] == metricDescription) {
+                return true;
+            }
+        }
+
+        this.compatibilityChecks.incrementAndGet();
+        if (!isCompatibleWith(metricDescription)) {
             return false;
         }
+        rememberCompatibleMetric(metricDescription);
         return true;
     }
+
+    /**
+     * Remembers a metric description judged compatible, unless the maximum number of remembered
+     * metric descriptions is reached.
+     * 
+     * @param metricDescription
+     *            The compatible metric description.
+     */
+    private void rememberCompatibleMetric(final MetricDescription metricDescription) {
+        synchronized (this.compatibleMetricsLock) {
+            final MetricDescription[] knownMetrics = this.compatibleMetrics;
+            if (knownMetrics.length >= MAX_COMPATIBLE_METRICS) {
+                return;
+            }
+            for (int i = 0; i < knownMetrics.length; i++) {
+                if (knownMetrics[i] == metricDescription) {
+                    return;
+                }
+            }
+            final MetricDescription[] extendedMetrics = new MetricDescription[knownMetrics.length + 1];
+            System.arraycopy(knownMetrics, 0, extendedMetrics, 0, knownMetrics.length);
+            extendedMetrics[knownMetrics.length] = metricDescription;
+            this.compatibleMetrics = extendedMetrics;
+        }
+    }
+
+    /**
+     * Returns whether compatibility checks of measurements are enabled.
+     * 
+     * @return <code>true</code> if checks are enabled, <code>false</code> otherwise.
+     * @see #VALIDATION_PROPERTY
+     */
+    public static boolean isValidationEnabled() {
+        return VALIDATION_ENABLED;
+    }
+
+    /**
+     * Returns the number of full compatibility checks performed by this source, i.e., the number
+     * of checks that could not be answered by remembered metric descriptions.
+     * 
+     * @return the number of full compatibility checks.
+     */
+    public final long getCompatibilityCheckCount() {
+        return this.compatibilityChecks.get();
+    }
+
+    /**
+     * Returns the number of measurements this source rejected for being incompatible.
+     * 
+     * @return the number of rejected measurements.
+     */
+    public final long getIncompatibleMeasurementCount() {
+        return this.incompatibleMeasurements.get();
+    }
+
+    /**
+     * Returns the number of measurements waiting for being dispatched to the observers, e.g., by
+     * asynchronous sources. Synchronous sources dispatch measurements immediately.
+     * 
+     * @return the number of waiting measurements; 0 for synchronous sources.
+     */
+    public int getQueueDepth() {
+        return 0;
+    }
+
+    /**
+     * Returns a snapshot of the dispatch of measurements to the observers of this source. Counts
+     * of notifications and the statistics of the observers are only collected if the
+     * {@link DispatchInstrumentation} is enabled.
+     * 
+     * @return the snapshot.
+     */
+    public MeasurementSourceSnapshot getDispatchSnapshot() {
+        return new MeasurementSourceSnapshot(getMetricDesciption().getName(), DispatchInstrumentation.ENABLED,
+                observableDelegate.getNotificationCount(), observableDelegate.getMeasurementCount(),
+                getIncompatibleMeasurementCount(), getQueueDepth(), observableDelegate.getListenerSnapshots());
+    }
 }
@@ -0,0 +1,246 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+
+/**
+ * Registry of {@link IMeasurementSourceListener}s specialized for dispatching measurements.
+ * Registered listeners are kept in an array that is replaced on each change (copy-on-write).
+ * Dispatching reads the current array once and calls the listeners in a plain loop, i.e., without
+ * locks, reflection, or allocation. Listeners may therefore be added and removed while other
+ * threads dispatch measurements; each dispatch informs the listeners registered when it started.
+ * 
+ * If the {@link DispatchInstrumentation} is enabled, the registry additionally counts
+ * notifications and measurements, and keeps the dispatch statistics of each listener in a second
+ * copy-on-write array used for dispatching instead.
+ * 
+ * @author agent
+ */
+public final class MeasurementSourceListenerRegistry {
+
+    /** Array used while no listener is registered. */
+    private static final IMeasurementSourceListener[] NO_LISTENERS = new IMeasurementSourceListener[0];
+
+    /** Array used while no listener is registered or the instrumentation is disabled. */
+    private static final ListenerDispatchStatistics[] NO_STATISTICS = new ListenerDispatchStatistics[0];
+
+    /** The registered listeners in order of registration; replaced on each change. */
+    private volatile IMeasurementSourceListener[] listeners = NO_LISTENERS;
+
+    /** Dispatch statistics of the registered listeners; only maintained if instrumented. */
+    private volatile ListenerDispatchStatistics[] statistics = NO_STATISTICS;
+
+    /** Number of notifications; only counted if instrumented. */
+    private final AtomicLong notifications = new AtomicLong();
+
+    /** Number of dispatched measurements; only counted if instrumented. */
+    private final AtomicLong measurements = new AtomicLong();
+
+    /**
+     * Registers the given listener.
+     * 
+     * @param listener
+     *            the listener to be registered.
+     * @throws IllegalArgumentException
+     *             if the listener is <code>null</code>.
+     */
+    public synchronized void addListener(final IMeasurementSourceListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        final IMeasurementSourceListener[] current = this.listeners;
+        final IMeasurementSourceListener[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = listener;
+        this.listeners = extended;
+        if (DispatchInstrumentation.ENABLED) {
+            final ListenerDispatchStatistics[] currentStatistics = this.statistics;
+            final ListenerDispatchStatistics[] extendedStatistics = Arrays.copyOf(currentStatistics,
+                    currentStatistics.length + 1);
+            extendedStatistics[currentStatistics.length] = new ListenerDispatchStatistics(listener);
+            this.statistics = extendedStatistics;
+        }
+    }
+
+    /**
+     * Unregisters the given listener. Has no effect if the listener is not registered.
+     * 
+     * @param listener
+     *            the listener to be unregistered.
+     * @return <code>true</code> if the listener was registered, <code>false</code> otherwise.
+     */
+    public synchronized boolean removeListener(final IMeasurementSourceListener listener) {
+        final IMeasurementSourceListener[] current = this.listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(listener)) {
+                final IMeasurementSourceListener[] reduced = new IMeasurementSourceListener[current.length - 1];
+                System.arraycopy(current, 0, reduced, 0, i);
+                System.arraycopy(current, i + 1, reduced, i, current.length - i - 1);
+                this.listeners = reduced.length == 0 ? NO_LISTENERS : reduced;
+                if (DispatchInstrumentation.ENABLED) {
+                    final ListenerDispatchStatistics[] currentStatistics = this.statistics;
+                    final ListenerDispatchStatistics[] reducedStatistics;
+                    reducedStatistics = new ListenerDispatchStatistics[reduced.length];
+                    System.arraycopy(currentStatistics, 0, reducedStatistics, 0, i);
+                    System.arraycopy(currentStatistics, i + 1, reducedStatistics, i, current.length - i - 1);
+                    this.statistics = reducedStatistics.length == 0 ? NO_STATISTICS : reducedStatistics;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the currently registered listeners.
+     * 
+     * @return an unmodifiable snapshot of the registered listeners.
+     */
+    public List<IMeasurementSourceListener> getListeners() {
+        return Collections.unmodifiableList(Arrays.asList(this.listeners));
+    }
+
+    /**
+     * Returns the number of currently registered listeners.
+     * 
+     * @return the number of registered listeners.
+     */
+    public int size() {
+        return this.listeners.length;
+    }
+
+    /**
+     * Returns whether any registered listener retains measurements.
+     * 
+     * @return <code>true</code> if a listener retains measurements, <code>false</code> otherwise.
+     * @see IMeasurementSourceListener#retainsMeasurements()
+     */
+    public boolean retainsMeasurements() {
+        final IMeasurementSourceListener[] current = this.listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].retainsMeasurements()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Informs all registered listeners about the given, new measurement.
+     * 
+     * @param newMeasurement
+     *            the new measurement.
+     * @see IMeasurementSourceListener#newMeasurementAvailable(MeasuringValue)
+     */
+    public void notifyListeners(final MeasuringValue newMeasurement) {
+        if (DispatchInstrumentation.ENABLED) {
+            notifyListenersInstrumented(newMeasurement);
+            return;
+        }
+        final IMeasurementSourceListener[] current = this.listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].newMeasurementAvailable(newMeasurement);
+        }
+    }
+
+    /**
+     * Informs all registered listeners about the given batch of new measurements.
+     * 
+     * @param newMeasurements
+     *            the new measurements.
+     * @see IMeasurementSourceListener#newMeasurementsAvailable(List)
+     */
+    public void notifyListeners(final List<? extends MeasuringValue> newMeasurements) {
+        if (DispatchInstrumentation.ENABLED) {
+            notifyListenersInstrumented(newMeasurements);
+            return;
+        }
+        final IMeasurementSourceListener[] current = this.listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].newMeasurementsAvailable(newMeasurements);
+        }
+    }
+
+    private void notifyListenersInstrumented(final MeasuringValue newMeasurement) {
+        final ListenerDispatchStatistics[] current = this.statistics;
+        this.notifications.incrementAndGet();
+        this.measurements.incrementAndGet();
+        for (int i = 0; i < current.length; i++) {
+            final ListenerDispatchStatistics listenerStatistics = current[i];
+            if (listenerStatistics.startDispatch(1)) {
+                final long start = System.nanoTime();
+                listenerStatistics.listener.newMeasurementAvailable(newMeasurement);
+                listenerStatistics.endSampledDispatch(System.nanoTime() - start);
+            } else {
+                listenerStatistics.listener.newMeasurementAvailable(newMeasurement);
+            }
+        }
+    }
+
+    private void notifyListenersInstrumented(final List<? extends MeasuringValue> newMeasurements) {
+        final ListenerDispatchStatistics[] current = this.statistics;
+        this.notifications.incrementAndGet();
+        this.measurements.addAndGet(newMeasurements.size());
+        for (int i = 0; i < current.length; i++) {
+            final ListenerDispatchStatistics listenerStatistics = current[i];
+            if (listenerStatistics.startDispatch(newMeasurements.size())) {
+                final long start = System.nanoTime();
+                listenerStatistics.listener.newMeasurementsAvailable(newMeasurements);
+                listenerStatistics.endSampledDispatch(System.nanoTime() - start);
+            } else {
+                listenerStatistics.listener.newMeasurementsAvailable(newMeasurements);
+            }
+        }
+    }
+
+    /**
+     * Informs all registered listeners about being unregistered.
+     * 
+     * @see IMeasurementSourceListener#preUnregister()
+     */
+    public void notifyPreUnregister() {
+        final IMeasurementSourceListener[] current = this.listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].preUnregister();
+        }
+    }
+
+    /**
+     * Returns the number of notifications, counting a batch as one notification.
+     * 
+     * @return the number of notifications; 0 if the instrumentation is disabled.
+     * @see DispatchInstrumentation
+     */
+    public long getNotificationCount() {
+        return this.notifications.get();
+    }
+
+    /**
+     * Returns the number of measurements dispatched to the listeners.
+     * 
+     * @return the number of measurements; 0 if the instrumentation is disabled.
+     * @see DispatchInstrumentation
+     */
+    public long getMeasurementCount() {
+        return this.measurements.get();
+    }
+
+    /**
+     * Returns snapshots of the dispatch statistics of the registered listeners.
+     * 
+     * @return the snapshots in order of registration; empty if the instrumentation is disabled.
+     * @see DispatchInstrumentation
+     */
+    public List<ListenerDispatchSnapshot> getListenerSnapshots() {
+        final ListenerDispatchStatistics[] current = this.statistics;
+        final List<ListenerDispatchSnapshot> snapshots = new ArrayList<ListenerDispatchSnapshot>(current.length);
+        for (int i = 0; i < current.length; i++) {
+            snapshots.add(current[i].snapshot());
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,60 @@
+package org.palladiosimulator.measurementframework.listener;
+
+/**
+ * Management interface of a measurement source as registered by
+ * {@link DispatchInstrumentation#registerMBean(MeasurementSource)}. Each attribute reflects the
+ * state of the source at the time of access.
+ * 
+ * @author agent
+ */
+public interface MeasurementSourceMXBean {
+
+    /**
+     * Returns a snapshot of the dispatch of the source.
+     * 
+     * @return the snapshot.
+     */
+    MeasurementSourceSnapshot getSnapshot();
+
+    /**
+     * Returns the name of the metric of the source.
+     * 
+     * @return the metric name.
+     */
+    String getMetricName();
+
+    /**
+     * Returns the number of notifications of the listeners.
+     * 
+     * @return the number of notifications; 0 if the instrumentation is disabled.
+     */
+    long getNotificationCount();
+
+    /**
+     * Returns the number of measurements dispatched to the listeners.
+     * 
+     * @return the number of measurements; 0 if the instrumentation is disabled.
+     */
+    long getMeasurementCount();
+
+    /**
+     * Returns the number of measurements rejected for being incompatible.
+     * 
+     * @return the number of rejected measurements.
+     */
+    long getIncompatibleMeasurementCount();
+
+    /**
+     * Returns the number of measurements waiting for being dispatched.
+     * 
+     * @return the queue depth; 0 for synchronous sources.
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns the dispatch statistics of the registered listeners.
+     * 
+     * @return the statistics per listener; empty if the instrumentation is disabled.
+     */
+    ListenerDispatchSnapshot[] getListeners();
+}
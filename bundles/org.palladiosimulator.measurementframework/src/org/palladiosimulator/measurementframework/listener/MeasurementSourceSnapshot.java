@@ -0,0 +1,111 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the dispatch of a measurement source (see {@link DispatchInstrumentation}).
+ * Counts of notifications and measurements as well as listener statistics are only collected if
+ * the instrumentation is enabled.
+ * 
+ * @author agent
+ */
+public final class MeasurementSourceSnapshot {
+
+    private final String metricName;
+
+    private final boolean instrumented;
+
+    private final long notificationCount;
+
+    private final long measurementCount;
+
+    private final long incompatibleMeasurementCount;
+
+    private final int queueDepth;
+
+    private final List<ListenerDispatchSnapshot> listeners;
+
+    MeasurementSourceSnapshot(final String metricName, final boolean instrumented, final long notificationCount,
+            final long measurementCount, final long incompatibleMeasurementCount, final int queueDepth,
+            final List<ListenerDispatchSnapshot> listeners) {
+        this.metricName = metricName;
+        this.instrumented = instrumented;
+        this.notificationCount = notificationCount;
+        this.measurementCount = measurementCount;
+        this.incompatibleMeasurementCount = incompatibleMeasurementCount;
+        this.queueDepth = queueDepth;
+        this.listeners = Collections.unmodifiableList(listeners);
+    }
+
+    /**
+     * Returns the name of the metric of the source.
+     * 
+     * @return the metric name.
+     */
+    public String getMetricName() {
+        return this.metricName;
+    }
+
+    /**
+     * Returns whether the instrumentation was enabled when the snapshot was taken.
+     * 
+     * @return <code>true</code> if the instrumentation is enabled, <code>false</code> otherwise.
+     */
+    public boolean isInstrumented() {
+        return this.instrumented;
+    }
+
+    /**
+     * Returns the number of notifications of the listeners, counting a batch as one notification.
+     * 
+     * @return the number of notifications.
+     */
+    public long getNotificationCount() {
+        return this.notificationCount;
+    }
+
+    /**
+     * Returns the number of measurements dispatched to the listeners.
+     * 
+     * @return the number of measurements.
+     */
+    public long getMeasurementCount() {
+        return this.measurementCount;
+    }
+
+    /**
+     * Returns the number of measurements rejected for being incompatible.
+     * 
+     * @return the number of rejected measurements.
+     */
+    public long getIncompatibleMeasurementCount() {
+        return this.incompatibleMeasurementCount;
+    }
+
+    /**
+     * Returns the number of measurements waiting for being dispatched.
+     * 
+     * @return the queue depth; 0 for synchronous sources.
+     */
+    public int getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    /**
+     * Returns the dispatch statistics of the listeners registered when the snapshot was taken.
+     * 
+     * @return the statistics per listener in order of registration.
+     */
+    public List<ListenerDispatchSnapshot> getListeners() {
+        return this.listeners;
+    }
+
+    @Override
+    public String toString() {
+        return "MeasurementSourceSnapshot [metricName=" + this.metricName + ", notificationCount="
+                + this.notificationCount + ", measurementCount=" + this.measurementCount
+                + ", incompatibleMeasurementCount=" + this.incompatibleMeasurementCount + ", queueDepth="
+                + this.queueDepth + ", listeners=" + this.listeners + "]";
+    }
+}
@@ -0,0 +1,356 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.listener.AsynchronousMeasurementSource.Backpressure;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * Subscription of a {@link Flow.Subscriber} to a measurement source, created by a
+ * {@link MeasurementPublisher}. The subscription is the listener registered at the source: it
+ * appends new measurements to a bounded {@link MeasurementRingBuffer} and passes them to the
+ * subscriber by a task of the executor as long as the subscriber has outstanding demand.
+ * 
+ * Measurements are checked for compatibility with the metric of the source regardless of
+ * {@link MeasurementSource#VALIDATION_PROPERTY}, since subscribers expect measurements of that
+ * metric only. Since the {@link MeasurementSourceListenerRegistry} of the source allows several
+ * threads to dispatch at once, measurements may be notified concurrently; they are buffered by one
+ * thread at a time. If the buffer is full, the configured {@link Backpressure} strategy applies;
+ * producers blocked by {@link Backpressure#BLOCK} continue once the subscriber requests further
+ * measurements or cancels the subscription.
+ * 
+ * @author agent
+ */
+public final class MeasurementSubscription implements Flow.Subscription, IMeasurementSourceListener {
+
+    /** The source this subscription is registered at. */
+    private final MeasurementSource source;
+
+    private final Flow.Subscriber<? super MeasuringValue> subscriber;
+
+    /** Buffer between producing thread and executor. */
+    private final MeasurementRingBuffer buffer;
+
+    /** Strategy applied if the buffer is full. */
+    private final Backpressure backpressure;
+
+    /** Executor informing the subscriber. */
+    private final Executor executor;
+
+    /** Serializes notifying threads, since the buffer supports a single producer only. */
+    private final Object producerLock = new Object();
+
+    /** Signalled once the drain task has freed space or the subscription has terminated. */
+    private final DispatchSignal bufferProgress = new DispatchSignal();
+
+    /** Outstanding demand of the subscriber; {@link Long#MAX_VALUE} if unbounded. */
+    private final AtomicLong demand = new AtomicLong();
+
+    /** Number of requested drains; a drain task runs while positive. */
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+
+    /** Number of measurements passed to the subscriber. */
+    private final AtomicLong deliveredMeasurements = new AtomicLong();
+
+    /** Number of dropped measurements. */
+    private final AtomicLong droppedMeasurements = new AtomicLong();
+
+    /** Metric description judged compatible last; compared by identity. */
+    private volatile MetricDescription compatibleMetric;
+
+    /** Whether the source has no further measurements, i.e., the subscriber is to be completed. */
+    private volatile boolean completed;
+
+    /** Error to be passed to the subscriber. */
+    private volatile Throwable error;
+
+    /** Whether the subscription is cancelled or the subscriber has been completed. */
+    private volatile boolean terminated;
+
+    /**
+     * Measurements seen while sampling, used to select every n-th measurement; guarded by the
+     * producer lock.
+     */
+    private long sampledMeasurements;
+
+    MeasurementSubscription(final MeasurementSource source, final Flow.Subscriber<? super MeasuringValue> subscriber,
+            final int capacity, final Backpressure backpressure, final Executor executor) {
+        this.source = source;
+        this.subscriber = subscriber;
+        this.buffer = new MeasurementRingBuffer(capacity);
+        this.backpressure = backpressure;
+        this.executor = executor;
+    }
+
+    /**
+     * Registers this subscription at the source unless it has been cancelled meanwhile.
+     */
+    void register() {
+        if (!this.terminated) {
+            this.source.addObserver(this);
+            if (this.terminated) {
+                this.source.removeObserver(this);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void request(final long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Number of requested measurements has to be positive"));
+            return;
+        }
+        long current;
+        long updated;
+        do {
+            current = this.demand.get();
+            updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!this.demand.compareAndSet(current, updated));
+        drain();
+    }
+
+    /**
+     * Stops passing measurements to the subscriber and unregisters this subscription from the
+     * source.
+     */
+    @Override
+    public void cancel() {
+        this.terminated = true;
+        this.bufferProgress.signal();
+        this.source.removeObserver(this);
+    }
+
+    /**
+     * Buffers the given measurement for the subscriber.
+     * 
+     * @param newMeasurement
+     *            the new measurement.
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        if (this.terminated || this.completed) {
+            return;
+        }
+        if (!isCompatible(newMeasurement)) {
+            fail(new IllegalArgumentException("Taken measurement has an incompatible metric"));
+            return;
+        }
+        synchronized (this.producerLock) {
+            offer(newMeasurement);
+        }
+        drain();
+    }
+
+    /**
+     * Buffers the given measurements for the subscriber.
+     * 
+     * @param newMeasurements
+     *            the new measurements.
+     */
+    @Override
+    public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        synchronized (this.producerLock) {
+            for (int i = 0; i < newMeasurements.size(); i++) {
+                final MeasuringValue newMeasurement = newMeasurements.get(i);
+                if (this.terminated || this.completed) {
+                    return;
+                }
+                if (!isCompatible(newMeasurement)) {
+                    fail(new IllegalArgumentException("Taken measurement has an incompatible metric"));
+                    return;
+                }
+                offer(newMeasurement);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Completes the subscriber once all buffered measurements have been passed.
+     */
+    @Override
+    public void preUnregister() {
+        this.completed = true;
+        drain();
+    }
+
+    private boolean isCompatible(final MeasuringValue measurement) {
+        final MetricDescription metric = measurement.getMetricDesciption();
+        if (metric == this.compatibleMetric) {
+            return true;
+        }
+        if (!this.source.isCompatibleWith(metric)) {
+            return false;
+        }
+        this.compatibleMetric = metric;
+        return true;
+    }
+
+    private void offer(final MeasuringValue measurement) {
+        switch (this.backpressure) {
+        case BLOCK:
+            while (!this.buffer.offer(measurement)) {
+                if (this.terminated) {
+                    return;
+                }
+                drain();
+                this.bufferProgress.await(() -> this.buffer.size() < this.buffer.capacity() || this.terminated);
+            }
+            break;
+        case SAMPLE:
+            if (this.buffer.size() > this.buffer.capacity() / 4 * 3
+                    && this.sampledMeasurements++ % AsynchronousMeasurementSource.DEFAULT_SAMPLING_INTERVAL != 0) {
+                this.droppedMeasurements.incrementAndGet();
+            } else if (!this.buffer.offer(measurement)) {
+                this.droppedMeasurements.incrementAndGet();
+            }
+            break;
+        default:
+            if (!this.buffer.offer(measurement)) {
+                this.droppedMeasurements.incrementAndGet();
+            }
+            break;
+        }
+    }
+
+    /**
+     * Passes the given error to the subscriber, dropping buffered measurements, and unregisters
+     * this subscription from the source.
+     */
+    private void fail(final Throwable failure) {
+        if (this.error == null) {
+            this.error = failure;
+        }
+        this.completed = true;
+        this.source.removeObserver(this);
+        drain();
+    }
+
+    /**
+     * Schedules a drain task unless one is running; a running task drains once more.
+     */
+    private void drain() {
+        if (this.pendingDrains.getAndIncrement() == 0) {
+            this.executor.execute(this::drainBuffer);
+        }
+    }
+
+    /**
+     * Body of the drain task. Passes buffered measurements to the subscriber as long as it has
+     * outstanding demand, and completes it once the buffer is empty and no measurements follow.
+     * Errors are passed immediately. At most one buffer capacity is passed per task; further
+     * measurements are passed by a new task.
+     */
+    private void drainBuffer() {
+        int drains = this.pendingDrains.get();
+        int passedMeasurements = 0;
+        while (true) {
+            if (this.error != null && !this.terminated) {
+                this.terminated = true;
+                this.bufferProgress.signal();
+                this.subscriber.onError(this.error);
+                return;
+            }
+            long requested = this.demand.get();
+            long emitted = 0;
+            while (emitted < requested && !this.terminated) {
+                if (passedMeasurements == this.buffer.capacity()) {
+                    if (requested != Long.MAX_VALUE) {
+                        this.demand.addAndGet(-emitted);
+                    }
+                    this.bufferProgress.signal();
+                    this.executor.execute(this::drainBuffer);
+                    return;
+                }
+                final MeasuringValue measurement = this.buffer.poll();
+                if (measurement == null) {
+                    break;
+                }
+                try {
+                    this.subscriber.onNext(measurement);
+                } catch (final RuntimeException e) {
+                    // subscribers violating the specification are treated as cancelled
+                    cancel();
+                    return;
+                }
+                this.deliveredMeasurements.incrementAndGet();
+                emitted++;
+                passedMeasurements++;
+            }
+            if (emitted > 0) {
+                if (requested != Long.MAX_VALUE) {
+                    requested = this.demand.addAndGet(-emitted);
+                }
+                this.bufferProgress.signal();
+            }
+            if (this.terminated) {
+                return;
+            }
+            if (this.completed && this.error == null && this.buffer.isEmpty()) {
+                this.terminated = true;
+                this.bufferProgress.signal();
+                this.subscriber.onComplete();
+                return;
+            }
+            drains = this.pendingDrains.addAndGet(-drains);
+            if (drains == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the outstanding demand of the subscriber.
+     * 
+     * @return the number of requested but not yet passed measurements; {@link Long#MAX_VALUE} if
+     *         unbounded.
+     */
+    public long getDemand() {
+        return this.demand.get();
+    }
+
+    /**
+     * Returns the number of measurements buffered for the subscriber.
+     * 
+     * @return the number of buffered measurements.
+     */
+    public int getQueueDepth() {
+        return this.buffer.size();
+    }
+
+    /**
+     * Returns the number of measurements passed to the subscriber.
+     * 
+     * @return the number of delivered measurements.
+     */
+    public long getDeliveredMeasurementCount() {
+        return this.deliveredMeasurements.get();
+    }
+
+    /**
+     * Returns the number of measurements dropped because the buffer was full.
+     * 
+     * @return the number of dropped measurements.
+     */
+    public long getDroppedMeasurementCount() {
+        return this.droppedMeasurements.get();
+    }
+
+    /**
+     * Returns whether the subscription is cancelled or the subscriber has been completed.
+     * 
+     * @return <code>true</code> if no further measurements are passed, <code>false</code>
+     *         otherwise.
+     */
+    public boolean isTerminated() {
+        return this.terminated;
+    }
+}
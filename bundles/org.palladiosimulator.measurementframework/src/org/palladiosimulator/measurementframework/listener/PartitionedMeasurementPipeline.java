@@ -0,0 +1,432 @@
+package org.palladiosimulator.measurementframework.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.palladiosimulator.commons.designpatterns.IAbstractObservable;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+
+/**
+ * Distributes measurements of several sources, e.g., of simulations running in the same JVM, to
+ * worker lanes executed by an {@link Executor}. Measurements are routed by a partition key, by
+ * default the ID of their metric description; all measurements of a partition are handled by the
+ * same lane, i.e., they reach the listeners of this pipeline in the order they were notified,
+ * while different partitions are dispatched concurrently. Sources that correspond to a measuring
+ * point can be bound to a partition key with {@link #listenerFor(Object)}.
+ * 
+ * The pipeline is registered as listener at sources and informs its own listeners like a
+ * measurement source. Listeners may be called by several lanes concurrently and thus have to be
+ * thread-safe; each lane calls them with one batch at a time. If a lane holds
+ * {@link #DEFAULT_LANE_CAPACITY} or the configured number of measurements, notifying threads wait
+ * until the lane has dispatched measurements. Listeners notifying this pipeline from within a lane
+ * never wait, since lanes waiting for each other could deadlock; the capacity of the target lane
+ * may be exceeded instead. Exceptions thrown by listeners on a lane are rethrown to the next
+ * notifying thread.
+ * 
+ * The listeners of this pipeline are informed about being unregistered once all listeners returned
+ * by {@link #listenerFor(Object)} have been unregistered, or on {@link #finish()}. Since the
+ * pipeline itself may be registered at any number of sources, unregistering it only dispatches
+ * the waiting measurements.
+ * 
+ * @author agent
+ */
+public class PartitionedMeasurementPipeline
+        implements IMeasurementSourceListener, IAbstractObservable<IMeasurementSourceListener> {
+
+    /** Default maximal number of measurements waiting per lane. */
+    public static final int DEFAULT_LANE_CAPACITY = 1 << 14;
+
+    /** Maximal number of measurements dispatched as one batch. */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /** Maximal number of batches a lane dispatches before yielding its executor thread. */
+    private static final int MAX_BATCHES_PER_RUN = 16;
+
+    /** The listeners of this pipeline. */
+    private final MeasurementSourceListenerRegistry listeners = new MeasurementSourceListenerRegistry();
+
+    /** Computes the partition key of a measurement. */
+    private final Function<? super MeasuringValue, ?> partitionKey;
+
+    /** Executor running the lanes. */
+    private final Executor executor;
+
+    /** The worker lanes. */
+    private final Lane[] lanes;
+
+    /** Maximal number of measurements waiting per lane. */
+    private final int laneCapacity;
+
+    /** Signalled by the lanes once they have dispatched measurements. */
+    private final DispatchSignal laneProgress = new DispatchSignal();
+
+    /** Number of measurements completely dispatched to the listeners. */
+    private final AtomicLong dispatchedMeasurements = new AtomicLong();
+
+    /**
+     * Number of measurements waiting in all lanes. Measurements a listener notifies from within a
+     * lane are counted before the notifying measurement is released, i.e., the number only drops to
+     * zero once no lane holds or forwards measurements.
+     */
+    private final AtomicInteger waitingMeasurements = new AtomicInteger();
+
+    /** First exception thrown by a listener on a lane and not yet rethrown. */
+    private volatile RuntimeException failure;
+
+    /** Number of listeners returned by {@link #listenerFor(Object)} and not yet unregistered. */
+    private final AtomicInteger openInputs = new AtomicInteger();
+
+    /** Whether the listeners of this pipeline have been informed about being unregistered. */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Constructor partitioning by metric description, using one lane per available processor on
+     * the common fork-join pool.
+     */
+    public PartitionedMeasurementPipeline() {
+        this(byMetric(), Runtime.getRuntime().availableProcessors(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor using {@link #DEFAULT_LANE_CAPACITY}.
+     * 
+     * @param partitionKey
+     *            computes the partition key of a measurement, e.g., {@link #byMetric()}.
+     * @param laneCount
+     *            number of lanes, i.e., maximal number of partitions dispatched concurrently.
+     * @param executor
+     *            executor running the lanes, e.g., the common fork-join pool or an executor
+     *            creating virtual threads where available.
+     */
+    public PartitionedMeasurementPipeline(final Function<? super MeasuringValue, ?> partitionKey,
+            final int laneCount, final Executor executor) {
+        this(partitionKey, laneCount, executor, DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param partitionKey
+     *            computes the partition key of a measurement, e.g., {@link #byMetric()}.
+     * @param laneCount
+     *            number of lanes, i.e., maximal number of partitions dispatched concurrently.
+     * @param executor
+     *            executor running the lanes, e.g., the common fork-join pool or an executor
+     *            creating virtual threads where available.
+     * @param laneCapacity
+     *            maximal number of measurements waiting per lane.
+     */
+    public PartitionedMeasurementPipeline(final Function<? super MeasuringValue, ?> partitionKey,
+            final int laneCount, final Executor executor, final int laneCapacity) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("Number of lanes has to be positive");
+        }
+        if (laneCapacity <= 0) {
+            throw new IllegalArgumentException("Lane capacity has to be positive");
+        }
+        if (partitionKey == null || executor == null) {
+            throw new IllegalArgumentException("Partition key and executor must not be null");
+        }
+        this.partitionKey = partitionKey;
+        this.executor = executor;
+        this.laneCapacity = laneCapacity;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            this.lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Returns a partition key function partitioning measurements by the ID of their metric
+     * description.
+     * 
+     * @return the partition key function.
+     */
+    public static Function<MeasuringValue, String> byMetric() {
+        return measurement -> measurement.getMetricDesciption().getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addObserver(final IMeasurementSourceListener observer) {
+        this.listeners.addListener(observer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeObserver(final IMeasurementSourceListener observer) {
+        this.listeners.removeListener(observer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        rethrowFailure();
+        laneOf(this.partitionKey.apply(newMeasurement)).enqueue(newMeasurement);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        rethrowFailure();
+        for (int i = 0; i < newMeasurements.size(); i++) {
+            final MeasuringValue newMeasurement = newMeasurements.get(i);
+            laneOf(this.partitionKey.apply(newMeasurement)).enqueue(newMeasurement);
+        }
+    }
+
+    /**
+     * Returns a listener routing all measurements to the partition of the given key, e.g., a
+     * measuring point. The listener is meant to be registered at the source of that partition
+     * only; being unregistered, it waits until all measurements have been dispatched. Once all
+     * returned listeners have been unregistered, the pipeline finishes (see {@link #finish()}).
+     * Therefore, the listeners of all sources should be requested before the first source is
+     * unregistered.
+     * 
+     * @param key
+     *            the partition key.
+     * @return the listener.
+     */
+    public IMeasurementSourceListener listenerFor(final Object key) {
+        final Lane lane = laneOf(key);
+        this.openInputs.incrementAndGet();
+        return new IMeasurementSourceListener() {
+
+            /** Whether this listener has been unregistered. */
+            private final AtomicBoolean unregistered = new AtomicBoolean();
+
+            @Override
+            public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+                rethrowFailure();
+                lane.enqueue(newMeasurement);
+            }
+
+            @Override
+            public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+                rethrowFailure();
+                for (int i = 0; i < newMeasurements.size(); i++) {
+                    lane.enqueue(newMeasurements.get(i));
+                }
+            }
+
+            @Override
+            public void preUnregister() {
+                if (this.unregistered.compareAndSet(false, true)
+                        && PartitionedMeasurementPipeline.this.openInputs.decrementAndGet() == 0) {
+                    finish();
+                } else {
+                    flush();
+                }
+            }
+        };
+    }
+
+    /**
+     * Waits until all measurements notified so far, including the ones listeners notify in turn,
+     * have been dispatched to the listeners. Has no effect if called by a lane itself, e.g., from
+     * within a listener.
+     */
+    public void flush() {
+        if (isLaneWorker()) {
+            return;
+        }
+        this.laneProgress.await(() -> this.waitingMeasurements.get() == 0);
+        rethrowFailure();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Dispatches all waiting measurements. Since the pipeline may still be registered at other
+     * sources, its listeners are not informed (see {@link #finish()}).
+     */
+    @Override
+    public void preUnregister() {
+        flush();
+    }
+
+    /**
+     * Dispatches all waiting measurements and informs the listeners of this pipeline about being
+     * unregistered. Has to be called by owners registering the pipeline itself at sources, once
+     * all of these have been unregistered; called automatically once all listeners returned by
+     * {@link #listenerFor(Object)} have been unregistered. Further calls only dispatch the waiting
+     * measurements.
+     */
+    public void finish() {
+        flush();
+        if (this.finished.compareAndSet(false, true)) {
+            this.listeners.notifyPreUnregister();
+        }
+    }
+
+    /**
+     * Returns the number of lanes.
+     * 
+     * @return the number of lanes.
+     */
+    public int getLaneCount() {
+        return this.lanes.length;
+    }
+
+    /**
+     * Returns the number of measurements currently waiting for being dispatched.
+     * 
+     * @return the number of waiting measurements.
+     */
+    public int getQueueDepth() {
+        return this.waitingMeasurements.get();
+    }
+
+    /**
+     * Returns the number of measurements dispatched to the listeners so far.
+     * 
+     * @return the number of dispatched measurements.
+     */
+    public long getDispatchedMeasurementCount() {
+        return this.dispatchedMeasurements.get();
+    }
+
+    private Lane laneOf(final Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Partition key must not be null");
+        }
+        final int hash = key.hashCode();
+        return this.lanes[Math.floorMod(hash ^ (hash >>> 16), this.lanes.length)];
+    }
+
+    /**
+     * Returns whether the current thread runs one of the lanes of this pipeline.
+     * 
+     * @return <code>true</code> if called from within a lane, <code>false</code> otherwise.
+     */
+    private boolean isLaneWorker() {
+        final Thread thread = Thread.currentThread();
+        for (final Lane lane : this.lanes) {
+            if (lane.worker == thread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rethrows an exception thrown by a listener on a lane.
+     */
+    private void rethrowFailure() {
+        final RuntimeException currentFailure = this.failure;
+        if (currentFailure != null) {
+            this.failure = null;
+            throw new IllegalStateException("Listener failed while dispatching measurements of a partition",
+                    currentFailure);
+        }
+    }
+
+    /**
+     * Worker lane dispatching the measurements of its partitions in order. A lane is scheduled on
+     * the executor while it holds measurements; at most one task per lane runs at a time.
+     */
+    private final class Lane implements Runnable {
+
+        /** The waiting measurements. */
+        private final Queue<MeasuringValue> queue = new ConcurrentLinkedQueue<MeasuringValue>();
+
+        /** Number of waiting measurements, including the batch being dispatched. */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /** Whether a task of this lane is scheduled or running. */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /** The batch being dispatched; only used by the running task. */
+        private final List<MeasuringValue> batch = new ArrayList<MeasuringValue>(MAX_BATCH_SIZE);
+
+        /** The thread running this lane; <code>null</code> if not running. */
+        private volatile Thread worker;
+
+        private void enqueue(final MeasuringValue newMeasurement) {
+            final int laneCapacity = PartitionedMeasurementPipeline.this.laneCapacity;
+            while (this.size.get() >= laneCapacity && !isLaneWorker()) {
+                PartitionedMeasurementPipeline.this.laneProgress.await(
+                        () -> this.size.get() < laneCapacity || PartitionedMeasurementPipeline.this.failure != null);
+                rethrowFailure();
+            }
+            PartitionedMeasurementPipeline.this.waitingMeasurements.incrementAndGet();
+            this.size.incrementAndGet();
+            this.queue.offer(newMeasurement);
+            schedule();
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                try {
+                    PartitionedMeasurementPipeline.this.executor.execute(this);
+                } catch (final RejectedExecutionException e) {
+                    this.scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            this.worker = Thread.currentThread();
+            try {
+                for (int i = 0; i < MAX_BATCHES_PER_RUN && dispatchBatch(); i++) {
+                    // dispatch a limited number of batches to let other lanes run
+                }
+            } finally {
+                this.worker = null;
+                this.scheduled.set(false);
+            }
+            if (!this.queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Dispatches the next batch of waiting measurements.
+         * 
+         * @return <code>true</code> if measurements have been dispatched, <code>false</code> if the
+         *         lane was empty.
+         */
+        private boolean dispatchBatch() {
+            MeasuringValue measurement;
+            while (this.batch.size() < MAX_BATCH_SIZE && (measurement = this.queue.poll()) != null) {
+                this.batch.add(measurement);
+            }
+            if (this.batch.isEmpty()) {
+                return false;
+            }
+            try {
+                PartitionedMeasurementPipeline.this.listeners.notifyListeners(this.batch);
+            } catch (final RuntimeException e) {
+                if (PartitionedMeasurementPipeline.this.failure == null) {
+                    PartitionedMeasurementPipeline.this.failure = e;
+                }
+            } finally {
+                PartitionedMeasurementPipeline.this.dispatchedMeasurements.addAndGet(this.batch.size());
+                this.size.addAndGet(-this.batch.size());
+                PartitionedMeasurementPipeline.this.waitingMeasurements.addAndGet(-this.batch.size());
+                this.batch.clear();
+                PartitionedMeasurementPipeline.this.laneProgress.signal();
+            }
+            return true;
+        }
+    }
+}
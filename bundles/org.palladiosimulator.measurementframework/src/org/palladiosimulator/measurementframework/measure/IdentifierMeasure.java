@@ -9,6 +9,10 @@ import org.palladiosimulator.metricspec.Identifier;
 /**
  * Holds <code>Identifier</code> values that are used to characterize textual base metrics.
  * 
+ * Identifier measures are immutable. Measures created by {@link #valueOf(Identifier, Unit)} are
+ * interned, i.e., shared between all measurements of the same identifier and unit, so that
+ * identifier-heavy metrics, e.g., resource states, do not create a measure per measurement.
+ * 
  * @param <QUANTITY>
  *            the quantity to be used, e.g., <code>Dimensionless</code> with <code>Unit.ONE</code>.
  * 
@@ -25,6 +29,9 @@ public class IdentifierMeasure<QUANTITY extends Quantity> extends Measure<Identi
     /** The given unit conforming to <code>QUANTITY</code>. */
     private final Unit<QUANTITY> unit;
 
+    /** Whether this measure is shared by {@link IdentifierMeasureCache}; not kept when serialized. */
+    private final transient boolean interned;
+
     /**
      * Default constructor. Initializes this measure based on a given identifier and a unit
      * conforming to <code>QUANTITY</code>.
@@ -35,9 +42,24 @@ public class IdentifierMeasure<QUANTITY extends Quantity> extends Measure<Identi
      *            the unit used for initialization.
      */
     public IdentifierMeasure(final Identifier identifier, final Unit<QUANTITY> unit) {
+        this(identifier, unit, false);
+    }
+
+    /**
+     * Constructor for interned measures.
+     * 
+     * @param identifier
+     *            the identifier used for initialization.
+     * @param unit
+     *            the unit used for initialization.
+     * @param interned
+     *            whether the measure is shared by {@link IdentifierMeasureCache}.
+     */
+    IdentifierMeasure(final Identifier identifier, final Unit<QUANTITY> unit, final boolean interned) {
         super();
         this.value = identifier;
         this.unit = unit;
+        this.interned = interned;
     }
 
     @Override
@@ -50,6 +72,17 @@ public class IdentifierMeasure<QUANTITY extends Quantity> extends Measure<Identi
         return unit;
     }
 
+    /**
+     * Returns whether this measure is interned, i.e., has been returned by
+     * {@link #valueOf(Identifier, Unit)} and is shared. Interned measures always hold an
+     * identifier.
+     * 
+     * @return <code>true</code> if this measure is interned, <code>false</code> otherwise.
+     */
+    public boolean isInterned() {
+        return this.interned;
+    }
+
     @Override
     public Measure<Identifier, QUANTITY> to(final Unit<QUANTITY> unit) {
         throw new UnsupportedOperationException();
@@ -61,17 +94,23 @@ public class IdentifierMeasure<QUANTITY extends Quantity> extends Measure<Identi
     }
 
     /**
-     * Factory for IdentifierMeasures based on the given identifier and unit.
+     * Factory for IdentifierMeasures based on the given identifier and unit. Returns a shared,
+     * interned measure if available; the number of interned measures is bounded, i.e., rarely used
+     * identifiers may get a new measure again. Use the constructor if a measure must not be shared.
      * 
      * @param identifier
      *            the identifier used for initialization.
      * @param unit
      *            the unit used for initialization.
      * @param <Q> the quantity to be used.
-     * @return a newly created IdentifierMeasure object.
+     * @return an interned IdentifierMeasure object, or a newly created one for <code>null</code>
+     *         identifiers or units.
      */
     public static <Q extends Quantity> IdentifierMeasure<Q> valueOf(final Identifier identifier, final Unit<Q> unit) {
-        return new IdentifierMeasure<Q>(identifier, unit);
+        if (identifier == null || unit == null) {
+            return new IdentifierMeasure<Q>(identifier, unit);
+        }
+        return IdentifierMeasureCache.intern(identifier, unit);
     }
 
 }
@@ -0,0 +1,75 @@
+package org.palladiosimulator.measurementframework.measure;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.metricspec.Identifier;
+
+/**
+ * Bounded cache of shared {@link IdentifierMeasure} instances, keyed by identifier and unit.
+ * Identifiers are compared by identity, units by equality.
+ * 
+ * The cache is a direct-mapped table: each key maps to a single slot, and interning a key replaces
+ * the measure of another key mapped to the same slot. The cache thus never holds more than
+ * {@link #CAPACITY} measures while the few identifiers of a simulation run, e.g., resource states,
+ * stay cached. Lookups and replacements are lock-free.
+ * 
+ * Slots refer to their measures weakly. A measure, and with it its identifier, thus stays cached
+ * only while measurements use it, i.e., the cache does not keep the identifiers of unloaded metric
+ * models reachable.
+ * 
+ * @author agent
+ */
+final class IdentifierMeasureCache {
+
+    /** Number of bits of a slot index. */
+    private static final int SLOT_BITS = 10;
+
+    /** Number of slots. */
+    static final int CAPACITY = 1 << SLOT_BITS;
+
+    /** The slots, each referring to the measure cached last for one of the keys mapped to it. */
+    private static final AtomicReferenceArray<WeakReference<IdentifierMeasure<?>>> SLOTS;
+
+    static {
+        SLOTS = new AtomicReferenceArray<WeakReference<IdentifierMeasure<?>>>(CAPACITY);
+    }
+
+    private IdentifierMeasureCache() {
+    }
+
+    /**
+     * Returns the shared measure of the given identifier and unit, creating and caching it if
+     * needed.
+     * 
+     * @param identifier
+     *            the identifier.
+     * @param unit
+     *            the unit.
+     * @param <Q>
+     *            the quantity to be used.
+     * @return the shared, interned measure.
+     */
+    @SuppressWarnings("unchecked")
+    static <Q extends Quantity> IdentifierMeasure<Q> intern(final Identifier identifier, final Unit<Q> unit) {
+        final int slot = slotOf(identifier, unit);
+        final WeakReference<IdentifierMeasure<?>> reference = SLOTS.get(slot);
+        final IdentifierMeasure<?> cached = reference == null ? null : reference.get();
+        if (cached != null && cached.getValue() == identifier
+                && (cached.getUnit() == unit || cached.getUnit().equals(unit))) {
+            return (IdentifierMeasure<Q>) cached;
+        }
+        final IdentifierMeasure<Q> measure = new IdentifierMeasure<Q>(identifier, unit, true);
+        SLOTS.set(slot, new WeakReference<IdentifierMeasure<?>>(measure));
+        return measure;
+    }
+
+    private static int slotOf(final Identifier identifier, final Unit<?> unit) {
+        final int hash = System.identityHashCode(identifier) * 31 + unit.hashCode();
+        // Fibonacci hashing, taking the high bits of the product as slot index
+        return (hash * 0x9E3779B9) >>> (Integer.SIZE - SLOT_BITS);
+    }
+}
@@ -0,0 +1,182 @@
+package org.palladiosimulator.measurementframework.measure;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.measure.converter.AddConverter;
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.MultiplyConverter;
+import javax.measure.converter.RationalConverter;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+/**
+ * Conversion of <code>double</code> values from a source unit to a target unit. Conversions are
+ * cached per pair of units, i.e., the JScience converter chain is only built once per pair, and
+ * affine converters, e.g., from milliseconds to seconds, are reduced to a single multiplication
+ * and addition on primitives. Results of reduced conversions may therefore differ from
+ * {@link UnitConverter#convert(double)} in the last bit. Other converters, e.g., logarithmic ones,
+ * are used as they are.
+ * 
+ * The cache is a direct-mapped table keyed by the identity of both units: each pair maps to a
+ * single slot, and a new pair replaces the conversion cached in its slot. Lookups and
+ * replacements are lock-free. Consumers converting many values between the same units should
+ * keep the conversion instead of looking it up for each value.
+ * 
+ * @author agent
+ */
+public final class UnitConversion {
+
+    /** Number of bits of a slot index. */
+    private static final int SLOT_BITS = 8;
+
+    private static final AtomicReferenceArray<UnitConversion> SLOTS = new AtomicReferenceArray<UnitConversion>(
+            1 << SLOT_BITS);
+
+    /** The source unit. */
+    private final Unit<?> sourceUnit;
+
+    /** The target unit. */
+    private final Unit<?> targetUnit;
+
+    /** Factor of the affine conversion. */
+    private final double factor;
+
+    /** Offset of the affine conversion. */
+    private final double offset;
+
+    /** The converter used if the conversion is not affine; <code>null</code> otherwise. */
+    private final UnitConverter converter;
+
+    private UnitConversion(final Unit<?> sourceUnit, final Unit<?> targetUnit, final double factor,
+            final double offset, final UnitConverter converter) {
+        this.sourceUnit = sourceUnit;
+        this.targetUnit = targetUnit;
+        this.factor = factor;
+        this.offset = offset;
+        this.converter = converter;
+    }
+
+    /**
+     * Returns the conversion between the given units.
+     * 
+     * @param sourceUnit
+     *            the unit of the converted values.
+     * @param targetUnit
+     *            the unit of the results.
+     * @return the cached conversion.
+     * @throws ConversionException
+     *             if the units are not compatible.
+     */
+    public static UnitConversion of(final Unit<?> sourceUnit, final Unit<?> targetUnit) {
+        final int slot = slotOf(sourceUnit, targetUnit);
+        final UnitConversion cached = SLOTS.get(slot);
+        if (cached != null && cached.sourceUnit == sourceUnit && cached.targetUnit == targetUnit) {
+            return cached;
+        }
+        final UnitConversion conversion = create(sourceUnit, targetUnit);
+        SLOTS.set(slot, conversion);
+        return conversion;
+    }
+
+    /**
+     * Converts a value between the given units.
+     * 
+     * @param value
+     *            the value in the source unit.
+     * @param sourceUnit
+     *            the unit of the value.
+     * @param targetUnit
+     *            the unit of the result.
+     * @return the value in the target unit.
+     * @throws ConversionException
+     *             if the units are not compatible.
+     */
+    public static double convert(final double value, final Unit<?> sourceUnit, final Unit<?> targetUnit) {
+        if (sourceUnit == targetUnit) {
+            return value;
+        }
+        return of(sourceUnit, targetUnit).convert(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UnitConversion create(final Unit<?> sourceUnit, final Unit<?> targetUnit) {
+        final UnitConverter converter = ((Unit<Quantity>) sourceUnit).getConverterTo((Unit<Quantity>) targetUnit);
+        if (converter == UnitConverter.IDENTITY) {
+            return new UnitConversion(sourceUnit, targetUnit, 1.0, 0.0, null);
+        } else if (converter instanceof RationalConverter) {
+            final RationalConverter rationalConverter = (RationalConverter) converter;
+            return new UnitConversion(sourceUnit, targetUnit,
+                    (double) rationalConverter.getDividend() / rationalConverter.getDivisor(), 0.0, null);
+        } else if (converter instanceof MultiplyConverter) {
+            return new UnitConversion(sourceUnit, targetUnit, ((MultiplyConverter) converter).getFactor(), 0.0, null);
+        } else if (converter instanceof AddConverter) {
+            return new UnitConversion(sourceUnit, targetUnit, 1.0, ((AddConverter) converter).getOffset(), null);
+        } else if (converter.isLinear()) {
+            // linear converters, e.g., compound ones, scale by their value at one
+            return new UnitConversion(sourceUnit, targetUnit, converter.convert(1.0), 0.0, null);
+        }
+        return new UnitConversion(sourceUnit, targetUnit, Double.NaN, Double.NaN, converter);
+    }
+
+    private static int slotOf(final Unit<?> sourceUnit, final Unit<?> targetUnit) {
+        final int hash = System.identityHashCode(sourceUnit) * 31 + System.identityHashCode(targetUnit);
+        // Fibonacci hashing, taking the high bits of the product as slot index
+        return (hash * 0x9E3779B9) >>> (Integer.SIZE - SLOT_BITS);
+    }
+
+    /**
+     * Converts a value from the source unit to the target unit.
+     * 
+     * @param value
+     *            the value in the source unit.
+     * @return the value in the target unit.
+     */
+    public double convert(final double value) {
+        if (this.converter != null) {
+            return this.converter.convert(value);
+        }
+        return value * this.factor + this.offset;
+    }
+
+    /**
+     * Returns whether this conversion leaves values unchanged.
+     * 
+     * @return <code>true</code> if the conversion is the identity, <code>false</code> otherwise.
+     */
+    public boolean isIdentity() {
+        return this.converter == null && this.factor == 1.0 && this.offset == 0.0;
+    }
+
+    /**
+     * Returns whether this conversion has been reduced to a multiplication and addition.
+     * 
+     * @return <code>true</code> if the conversion is affine, <code>false</code> otherwise.
+     */
+    public boolean isAffine() {
+        return this.converter == null;
+    }
+
+    /**
+     * Returns the unit of the converted values.
+     * 
+     * @return the source unit.
+     */
+    public Unit<?> getSourceUnit() {
+        return this.sourceUnit;
+    }
+
+    /**
+     * Returns the unit of the results.
+     * 
+     * @return the target unit.
+     */
+    public Unit<?> getTargetUnit() {
+        return this.targetUnit;
+    }
+
+    @Override
+    public String toString() {
+        return "UnitConversion [" + this.sourceUnit + " -> " + this.targetUnit + "]";
+    }
+}
@@ -57,10 +57,9 @@ public abstract class AbstractMeasureProvider implements IMeasureProvider {
      */
     @Override
     public Measure<?, ?>[] asArray() {
-        final List<Measure<?, ?>> asList = asList();
-        final Measure<?, ?>[] result = new Measure<?, ?>[asList.size()];
-        for (int i = 0; i < asList.size(); i++) {
-            result[i] = asList.get(i);
+        final Measure<?, ?>[] result = new Measure<?, ?>[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = measureAt(i);
         }
         return result;
     }
@@ -0,0 +1,392 @@
+package org.palladiosimulator.measurementframework.measureprovider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.IntegerNumberMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.measure.UnitConversion;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout.SlotKind;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.MetricDescription;
+
+/**
+ * A columnar measure provider stores the measures of a metric set in flat, kind-specific column
+ * arrays as determined by a {@link MetricSetLayout}. Measures and measurements are only created
+ * when requested; all validation except for the length of the column arrays has been done by the
+ * layout.
+ * 
+ * @author agent
+ */
+public final class ColumnarMeasureProvider extends AbstractMeasureProvider {
+
+    /** Empty column array used for layouts without <code>double</code> slots. */
+    private static final double[] NO_REAL_VALUES = new double[0];
+
+    /** Empty column array used for layouts without <code>long</code> slots. */
+    private static final long[] NO_INTEGER_VALUES = new long[0];
+
+    /** Empty column array used for layouts without object slots. */
+    private static final Object[] NO_OBJECT_VALUES = new Object[0];
+
+    /** The layout of the stored measures. */
+    private final MetricSetLayout layout;
+
+    /** The values of real number slots. */
+    private final double[] realValues;
+
+    /** The values of integer number slots. */
+    private final long[] integerValues;
+
+    /** The values of identifier and metric set slots. */
+    private final Object[] objectValues;
+
+    /** The subsumed measurements; created on first request. */
+    private List<MeasuringValue> subsumedMeasurements;
+
+    /** Unmodifiable view on the measures; created on first request. */
+    private List<Measure<?, ?>> measures;
+
+    /**
+     * Default constructor. The given arrays are used as columns directly, i.e., they must not be
+     * modified afterwards.
+     * 
+     * @param layout
+     *            the layout of the stored measures.
+     * @param realValues
+     *            the values of real number slots; may be <code>null</code> if the layout has no
+     *            such slots.
+     * @param integerValues
+     *            the values of integer number slots; may be <code>null</code> if the layout has no
+     *            such slots.
+     * @param objectValues
+     *            the identifier measures of identifier slots and the nested measuring values of
+     *            metric set slots; may be <code>null</code> if the layout has no such slots.
+     * @throws IllegalArgumentException
+     *             if the number of values does not match the layout.
+     */
+    public ColumnarMeasureProvider(final MetricSetLayout layout, final double[] realValues,
+            final long[] integerValues, final Object[] objectValues) {
+        super();
+        this.layout = layout;
+        this.realValues = realValues == null ? NO_REAL_VALUES : realValues;
+        this.integerValues = integerValues == null ? NO_INTEGER_VALUES : integerValues;
+        this.objectValues = objectValues == null ? NO_OBJECT_VALUES : objectValues;
+
+        if (this.realValues.length != layout.getRealColumnCount()
+                || this.integerValues.length != layout.getIntegerColumnCount()
+                || this.objectValues.length != layout.getObjectColumnCount()) {
+            throw new IllegalArgumentException(
+                    "Number of values has to match the number of child metrics in the metric set description");
+        }
+        for (int i = 0; i < layout.size(); i++) {
+            checkObjectValue(i);
+        }
+    }
+
+    /**
+     * Checks whether the object value of a given slot conforms to the layout. Slots not stored in
+     * the object column array are always valid.
+     * 
+     * @param slot
+     *            the slot to be checked.
+     */
+    private void checkObjectValue(final int slot) {
+        final MetricDescription metric = this.layout.getSubsumedMetric(slot);
+        final Object value;
+        switch (this.layout.getSlotKind(slot)) {
+        case IDENTIFIER:
+            value = this.objectValues[this.layout.getColumn(slot)];
+            if (!(value instanceof Measure<?, ?>)) {
+                throw new IllegalArgumentException(
+                        "Subsumed metric \"" + metric.getName() + "\" requires an identifier measure");
+            }
+            break;
+        case METRIC_SET:
+            value = this.objectValues[this.layout.getColumn(slot)];
+            if (!(value instanceof MeasuringValue)
+                    || !((MeasuringValue) value).getMetricDesciption().getId().equals(metric.getId())) {
+                throw new IllegalArgumentException("Subsumed metric \"" + metric.getName() + "\" of metric \""
+                        + this.layout.getMetricSetDescription().getName() + "\" not present in measurement");
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Returns the layout of the stored measures.
+     * 
+     * @return the layout.
+     */
+    public MetricSetLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <V, Q extends Quantity> Measure<V, Q> getMeasureForMetric(final MetricDescription wantedMetric) {
+        if (wantedMetric instanceof BaseMetricDescription) {
+            final int slot = this.layout.indexOf(wantedMetric);
+            if (slot >= 0 && this.layout.getSlotKind(slot) != SlotKind.METRIC_SET) {
+                return slotMeasure(slot);
+            }
+        }
+        return super.getMeasureForMetric(wantedMetric);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValueForMetric(final MetricDescription wantedMetric, final Unit<?> unit) {
+        if (wantedMetric instanceof BaseMetricDescription) {
+            final int slot = this.layout.indexOf(wantedMetric);
+            if (slot >= 0) {
+                switch (this.layout.getSlotKind(slot)) {
+                case REAL_NUMBER:
+                    return UnitConversion.convert(doubleValueAt(slot), this.layout.getUnit(slot), unit);
+                case INTEGER_NUMBER:
+                    return UnitConversion.convert(longValueAt(slot), this.layout.getUnit(slot), unit);
+                default:
+                    break;
+                }
+            }
+        }
+        return super.doubleValueForMetric(wantedMetric, unit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MeasuringValue getMeasurementForMetric(final MetricDescription wantedMetric) {
+        final int[] path = this.layout.getIndex().pathOf(wantedMetric);
+        if (path == null) {
+            return null;
+        }
+        MeasuringValue result = getSubsumedMeasurement(path[0]);
+        for (int i = 1; i < path.length; i++) {
+            if (!(result instanceof TupleMeasurement)) {
+                // other measurements of metric sets are only searched via the public API
+                return result.getMeasuringValueForMetric(wantedMetric);
+            }
+            result = ((TupleMeasurement) result).getSubsumedMeasurement(path[i]);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Measure<?, ?>> asList() {
+        if (this.measures == null) {
+            this.measures = new MeasureListView(this);
+        }
+        return this.measures;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        if (!this.layout.isNested()) {
+            return this.layout.size();
+        }
+        int size = 0;
+        for (int i = 0; i < this.layout.size(); i++) {
+            size += this.layout.getSlotKind(i) == SlotKind.METRIC_SET ? nestedMeasurement(i).size() : 1;
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> measureAt(final int index) {
+        if (!this.layout.isNested()) {
+            if (index < 0 || index >= this.layout.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.layout.size());
+            }
+            return slotMeasure(index);
+        }
+        if (index >= 0) {
+            int remaining = index;
+            for (int i = 0; i < this.layout.size(); i++) {
+                if (this.layout.getSlotKind(i) == SlotKind.METRIC_SET) {
+                    final MeasuringValue nested = nestedMeasurement(i);
+                    if (remaining < nested.size()) {
+                        return nested.measureAt(remaining);
+                    }
+                    remaining -= nested.size();
+                } else if (remaining == 0) {
+                    return slotMeasure(i);
+                } else {
+                    remaining--;
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        for (int i = 0; i < this.layout.size(); i++) {
+            if (this.layout.getSlotKind(i) == SlotKind.METRIC_SET) {
+                nestedMeasurement(i).forEachMeasure(consumer);
+            } else {
+                consumer.accept(slotMeasure(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the subsumed measurements, one per slot.
+     * 
+     * @return the list of subsumed measurements.
+     */
+    public List<MeasuringValue> getSubsumedMeasurements() {
+        List<MeasuringValue> result = this.subsumedMeasurements;
+        if (result == null) {
+            final List<MeasuringValue> measurements = new ArrayList<MeasuringValue>(this.layout.size());
+            for (int i = 0; i < this.layout.size(); i++) {
+                measurements.add(measurementAt(i));
+            }
+            result = Collections.unmodifiableList(measurements);
+            this.subsumedMeasurements = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the subsumed measurement of the given slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the subsumed measurement.
+     */
+    public MeasuringValue getSubsumedMeasurement(final int slot) {
+        if (this.subsumedMeasurements != null) {
+            return this.subsumedMeasurements.get(slot);
+        }
+        return measurementAt(slot);
+    }
+
+    /**
+     * Returns the <code>double</code> value of the given real number slot without creating a
+     * measure.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the stored value, stated in the unit of the slot.
+     */
+    public double doubleValueAt(final int slot) {
+        return this.realValues[this.layout.getColumn(slot)];
+    }
+
+    /**
+     * Returns the <code>long</code> value of the given integer number slot without creating a
+     * measure.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the stored value, stated in the unit of the slot.
+     */
+    public long longValueAt(final int slot) {
+        return this.integerValues[this.layout.getColumn(slot)];
+    }
+
+    /**
+     * Creates the measure of a base metric slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the measure of the slot.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes"
+    })
+    private <V, Q extends Quantity> Measure<V, Q> slotMeasure(final int slot) {
+        final int column = this.layout.getColumn(slot);
+        switch (this.layout.getSlotKind(slot)) {
+        case REAL_NUMBER:
+            return Measure.valueOf(this.realValues[column], (Unit) this.layout.getUnit(slot));
+        case INTEGER_NUMBER:
+            return Measure.valueOf(this.integerValues[column], (Unit) this.layout.getUnit(slot));
+        case IDENTIFIER:
+            return (Measure<V, Q>) this.objectValues[column];
+        default:
+            throw new IllegalStateException("Measurement for a base metric is not a BasicMeasurement.");
+        }
+    }
+
+    /**
+     * Returns the nested measuring value of a metric set slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the nested measuring value.
+     */
+    private MeasuringValue nestedMeasurement(final int slot) {
+        return (MeasuringValue) this.objectValues[this.layout.getColumn(slot)];
+    }
+
+    /**
+     * Creates the measurement of a slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the measurement of the slot.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes"
+    })
+    private MeasuringValue measurementAt(final int slot) {
+        final int column = this.layout.getColumn(slot);
+        final MetricDescription metric = this.layout.getSubsumedMetric(slot);
+        switch (this.layout.getSlotKind(slot)) {
+        case REAL_NUMBER:
+            return new RealNumberMeasurement(this.realValues[column], this.layout.getUnit(slot),
+                    (BaseMetricDescription) metric);
+        case INTEGER_NUMBER:
+            return new IntegerNumberMeasurement(this.integerValues[column], this.layout.getUnit(slot),
+                    (BaseMetricDescription) metric);
+        case IDENTIFIER:
+            return new BasicMeasurement((Measure) this.objectValues[column], (BaseMetricDescription) metric);
+        default:
+            return (MeasuringValue) this.objectValues[column];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("DataTuple [");
+        for (int i = 0; i < size(); i++) {
+            sb.append(measureAt(i).toString() + " ");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -1,9 +1,14 @@
 package org.palladiosimulator.measurementframework.measureprovider;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.measure.Measure;
+import javax.measure.converter.ConversionException;
 import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.measure.UnitConversion;
 
 import org.palladiosimulator.metricspec.MetricDescription;
 
@@ -11,6 +16,10 @@ import org.palladiosimulator.metricspec.MetricDescription;
  * A measure provider offers access to an ordered list of measure objects as defined by the JScience
  * Framework.
  * 
+ * Besides the list and array views, measures can be accessed by index (see {@link #size()} and
+ * {@link #measureAt(int)}) or visited (see {@link #forEachMeasure(Consumer)}). Implementations
+ * provide these accessors without copying their measures.
+ * 
  * @author Sebastian Lehrig
  */
 public interface IMeasureProvider {
@@ -30,8 +39,34 @@ public interface IMeasureProvider {
     public abstract <VALUE_TYPE, QUANTITY extends Quantity> Measure<VALUE_TYPE, QUANTITY> getMeasureForMetric(
             MetricDescription wantedMetric);
 
+    /**
+     * Returns the value of the measure of a given metric stated in the given unit as a primitive
+     * <code>double</code>, i.e., a shortcut for
+     * <code>getMeasureForMetric(wantedMetric).doubleValue(unit)</code>. Numeric values are
+     * converted via a cached {@link UnitConversion}, which avoids building the converter of both
+     * units on each call. Implementations storing primitive values should return them without
+     * creating a measure.
+     * 
+     * @param wantedMetric
+     *            The base metric to look for.
+     * @param unit
+     *            The unit in which the value is requested.
+     * @return the value of the measure conforming to the given metric, stated in the given unit.
+     * @throws ConversionException
+     *             if the unit is not compatible with the unit of the measure.
+     */
+    @SuppressWarnings("unchecked")
+    public default double doubleValueForMetric(final MetricDescription wantedMetric, final Unit<?> unit) {
+        final Measure<?, Quantity> measure = getMeasureForMetric(wantedMetric);
+        final Object value = measure.getValue();
+        if (value instanceof Number) {
+            return UnitConversion.convert(((Number) value).doubleValue(), measure.getUnit(), unit);
+        }
+        return measure.doubleValue((Unit<Quantity>) unit);
+    }
+
     /***
-     * Returns the list of measure objects via a Java utils list.
+     * Returns the list of measure objects via a Java utils list. The returned list is unmodifiable.
      * 
      * @return the list of measure objects.
      */
@@ -44,4 +79,40 @@ public interface IMeasureProvider {
      */
     public abstract Measure<?, ?>[] asArray();
 
+    /**
+     * Returns the number of measure objects.
+     * 
+     * @return the number of measure objects.
+     */
+    public default int size() {
+        return asList().size();
+    }
+
+    /**
+     * Returns the measure object at the given position of the list of measure objects.
+     * 
+     * @param index
+     *            the position of the measure object.
+     * @return the measure object at the given position.
+     * @throws IndexOutOfBoundsException
+     *             if the index is negative or not less than {@link #size()}.
+     */
+    public default Measure<?, ?> measureAt(final int index) {
+        return asList().get(index);
+    }
+
+    /**
+     * Passes each measure object to the given consumer in the order of the list of measure
+     * objects.
+     * 
+     * @param consumer
+     *            the consumer of the measure objects.
+     */
+    public default void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        final int size = size();
+        for (int i = 0; i < size; i++) {
+            consumer.accept(measureAt(i));
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.palladiosimulator.measurementframework.measureprovider;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import javax.measure.Measure;
+
+/**
+ * Unmodifiable list view on the measures of a measure provider. The view is backed by
+ * {@link IMeasureProvider#size()} and {@link IMeasureProvider#measureAt(int)}, i.e., it does not
+ * copy any measures.
+ * 
+ * @author agent
+ */
+public final class MeasureListView extends AbstractList<Measure<?, ?>> implements RandomAccess {
+
+    /** The measure provider backing this view. */
+    private final IMeasureProvider measureProvider;
+
+    /**
+     * Default constructor.
+     * 
+     * @param measureProvider
+     *            the measure provider backing this view.
+     */
+    public MeasureListView(final IMeasureProvider measureProvider) {
+        super();
+        this.measureProvider = measureProvider;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> get(final int index) {
+        return this.measureProvider.measureAt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.measureProvider.size();
+    }
+}
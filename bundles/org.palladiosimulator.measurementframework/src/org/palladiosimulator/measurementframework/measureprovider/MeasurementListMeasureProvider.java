@@ -1,12 +1,13 @@
 package org.palladiosimulator.measurementframework.measureprovider;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.measure.Measure;
 
 import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
 import org.palladiosimulator.metricspec.MetricDescription;
 
 /**
@@ -19,6 +20,12 @@ public class MeasurementListMeasureProvider extends AbstractMeasureProvider {
     /** The given list of measurement. */
     private final List<MeasuringValue> measurements;
 
+    /** Index of the metric set described by the measurements; <code>null</code> if unknown. */
+    private final MetricSetIndex index;
+
+    /** Unmodifiable view on the measures of the measurements; created on first request. */
+    private List<Measure<?, ?>> measures;
+
     /**
      * Default constructor. Initializes this measure provider using a given list of measurements.
      * Each such measurement comes with measures to be provided.
@@ -27,8 +34,23 @@ public class MeasurementListMeasureProvider extends AbstractMeasureProvider {
      *            the given list of measurements.
      */
     public MeasurementListMeasureProvider(final List<MeasuringValue> measurements) {
+        this(measurements, null);
+    }
+
+    /**
+     * Constructor for measurements conforming to an indexed metric set, i.e., there is one
+     * measurement per subsumed metric in the order of the metric set. Lookups are resolved via the
+     * index instead of inspecting each measurement.
+     * 
+     * @param measurements
+     *            the given list of measurements.
+     * @param index
+     *            the index of the metric set the measurements conform to.
+     */
+    public MeasurementListMeasureProvider(final List<MeasuringValue> measurements, final MetricSetIndex index) {
         super();
         this.measurements = measurements;
+        this.index = index;
     }
 
     /**
@@ -36,6 +58,21 @@ public class MeasurementListMeasureProvider extends AbstractMeasureProvider {
      */
     @Override
     public MeasuringValue getMeasurementForMetric(final MetricDescription wantedMetric) {
+        if (this.index != null) {
+            final int[] path = this.index.pathOf(wantedMetric);
+            if (path == null) {
+                return null;
+            }
+            MeasuringValue result = this.measurements.get(path[0]);
+            for (int i = 1; i < path.length; i++) {
+                if (!(result instanceof TupleMeasurement)) {
+                    // other measurements of metric sets are only searched via the public API
+                    return result.getMeasuringValueForMetric(wantedMetric);
+                }
+                result = ((TupleMeasurement) result).getSubsumedMeasurement(path[i]);
+            }
+            return result;
+        }
         for (final MeasuringValue subsubmedMeasurement : this.measurements) {
             final MeasuringValue subsubmedMeasure = subsubmedMeasurement.getMeasuringValueForMetric(wantedMetric);
             if (subsubmedMeasure != null) {
@@ -50,11 +87,51 @@ public class MeasurementListMeasureProvider extends AbstractMeasureProvider {
      */
     @Override
     public final List<Measure<?, ?>> asList() {
-        final ArrayList<Measure<?, ?>> result = new ArrayList<Measure<?, ?>>();
-        for (final MeasuringValue m : this.measurements) {
-            result.addAll(m.asList());
+        if (this.measures == null) {
+            this.measures = new MeasureListView(this);
+        }
+        return this.measures;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < this.measurements.size(); i++) {
+            size += this.measurements.get(i).size();
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> measureAt(final int index) {
+        if (index >= 0) {
+            int remaining = index;
+            for (int i = 0; i < this.measurements.size(); i++) {
+                final MeasuringValue measurement = this.measurements.get(i);
+                final int size = measurement.size();
+                if (remaining < size) {
+                    return measurement.measureAt(remaining);
+                }
+                remaining -= size;
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        for (int i = 0; i < this.measurements.size(); i++) {
+            this.measurements.get(i).forEachMeasure(consumer);
         }
-        return result;
     }
 
     /**
@@ -64,8 +141,8 @@ public class MeasurementListMeasureProvider extends AbstractMeasureProvider {
     public String toString() {
         final StringBuilder sb = new StringBuilder();
         sb.append("DataTuple [");
-        for (final Measure<?, ?> m : asList()) {
-            sb.append(m.toString() + " ");
+        for (int i = 0; i < size(); i++) {
+            sb.append(measureAt(i).toString() + " ");
         }
         sb.append("]");
         return sb.toString();
@@ -0,0 +1,265 @@
+package org.palladiosimulator.measurementframework.measureprovider;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+
+/**
+ * EMF adapter attaching the structures precompiled for a {@link MetricSetDescription}, i.e., its
+ * {@link MetricSetIndex} and its default {@link MetricSetLayout}, to the description itself. The
+ * structures therefore live exactly as long as the description and do not pin metric descriptions
+ * in static caches.
+ * 
+ * The adapter observes the metric set and, via {@link DependencyAdapter}s, all metrics it subsumes,
+ * including nested ones. Once any of them changes, the adapter detaches itself and the next lookup
+ * compiles the structures anew. Dependency adapters only hold the adapter weakly, so that metric
+ * descriptions shared by several metric sets, e.g., a point in time metric, do not pin short-living
+ * metric sets.
+ * 
+ * Lookups first consult a lock-free, direct-mapped table of weak references, so that the adapter
+ * list of the description is only searched on a miss.
+ * 
+ * @author agent
+ */
+final class MetricSetAdapter extends AdapterImpl {
+
+    /** Number of bits of a slot index of the lookup table. */
+    private static final int SLOT_BITS = 8;
+
+    /**
+     * The lookup table, each slot referring to the adapter found last for one of the metric sets
+     * mapped to it.
+     */
+    private static final AtomicReferenceArray<WeakReference<MetricSetAdapter>> SLOTS;
+
+    static {
+        SLOTS = new AtomicReferenceArray<WeakReference<MetricSetAdapter>>(1 << SLOT_BITS);
+    }
+
+    /** The adapted metric set. */
+    private final MetricSetDescription metricSetDescription;
+
+    /** The index of the adapted metric set. */
+    private final MetricSetIndex index;
+
+    /** The layout using default units; compiled on first request. */
+    private volatile MetricSetLayout defaultLayout;
+
+    /** Adapters attached to the subsumed metrics, including nested ones. */
+    private final List<DependencyAdapter> dependencies = new ArrayList<DependencyAdapter>();
+
+    /** Whether the adapted metric set is unchanged since this adapter was attached. */
+    private volatile boolean valid = true;
+
+    private MetricSetAdapter(final MetricSetDescription metricSetDescription) {
+        super();
+        this.metricSetDescription = metricSetDescription;
+        this.index = new MetricSetIndex(metricSetDescription);
+    }
+
+    /**
+     * Returns the adapter of the given metric set description, attaching a new one if there is
+     * none or the description changed since.
+     * 
+     * @param metricSetDescription
+     *            the metric set description.
+     * @return the valid adapter of the description.
+     */
+    static MetricSetAdapter of(final MetricSetDescription metricSetDescription) {
+        final int slot = slotOf(metricSetDescription);
+        final WeakReference<MetricSetAdapter> reference = SLOTS.get(slot);
+        MetricSetAdapter adapter = reference == null ? null : reference.get();
+        if (adapter != null && adapter.metricSetDescription == metricSetDescription && adapter.valid) {
+            return adapter;
+        }
+
+        synchronized (metricSetDescription) {
+            adapter = null;
+            for (final Adapter candidate : metricSetDescription.eAdapters()) {
+                if (candidate instanceof MetricSetAdapter && ((MetricSetAdapter) candidate).valid) {
+                    adapter = (MetricSetAdapter) candidate;
+                    break;
+                }
+            }
+            if (adapter == null) {
+                adapter = new MetricSetAdapter(metricSetDescription);
+                metricSetDescription.eAdapters().add(adapter);
+                adapter.observeSubsumedMetrics(metricSetDescription,
+                        Collections.newSetFromMap(new IdentityHashMap<MetricDescription, Boolean>()));
+            }
+        }
+        SLOTS.set(slot, new WeakReference<MetricSetAdapter>(adapter));
+        return adapter;
+    }
+
+    private static int slotOf(final MetricSetDescription metricSetDescription) {
+        // Fibonacci hashing, taking the high bits of the product as slot index
+        return (System.identityHashCode(metricSetDescription) * 0x9E3779B9) >>> (Integer.SIZE - SLOT_BITS);
+    }
+
+    /**
+     * Attaches dependency adapters to all metrics subsumed by the given metric set that are not
+     * observed yet.
+     */
+    private void observeSubsumedMetrics(final MetricSetDescription metricSet,
+            final Set<MetricDescription> observedMetrics) {
+        for (final MetricDescription metric : metricSet.getSubsumedMetrics()) {
+            if (metric == this.metricSetDescription || !observedMetrics.add(metric)) {
+                continue;
+            }
+            final DependencyAdapter dependency = new DependencyAdapter(this, metric);
+            synchronized (metric) {
+                final Iterator<Adapter> adapters = metric.eAdapters().iterator();
+                while (adapters.hasNext()) {
+                    final Adapter adapter = adapters.next();
+                    if (adapter instanceof DependencyAdapter && ((DependencyAdapter) adapter).isObsolete()) {
+                        adapters.remove();
+                    }
+                }
+                metric.eAdapters().add(dependency);
+            }
+            this.dependencies.add(dependency);
+            if (metric instanceof MetricSetDescription) {
+                observeSubsumedMetrics((MetricSetDescription) metric, observedMetrics);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the adapted metric set.
+     * 
+     * @return the index.
+     */
+    MetricSetIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the layout of the adapted metric set that uses the default units of the subsumed
+     * metrics, compiling it on first request.
+     * 
+     * @return the default layout.
+     * @throws IllegalArgumentException
+     *             if the metric set subsumes unsupported metrics.
+     */
+    MetricSetLayout getDefaultLayout() {
+        MetricSetLayout layout = this.defaultLayout;
+        if (layout == null) {
+            // concurrent requests may compile equal layouts; the last one is kept
+            layout = MetricSetLayout.compileDefault(this.metricSetDescription);
+            this.defaultLayout = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Invalidates the adapter on any change of the adapted metric set.
+     */
+    @Override
+    public void notifyChanged(final Notification notification) {
+        if (!notification.isTouch()) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Detaches this adapter and all its dependency adapters.
+     */
+    private void invalidate() {
+        if (!this.valid) {
+            return;
+        }
+        this.valid = false;
+        synchronized (this.metricSetDescription) {
+            this.metricSetDescription.eAdapters().remove(this);
+        }
+        for (final DependencyAdapter dependency : this.dependencies) {
+            synchronized (dependency.metric) {
+                dependency.metric.eAdapters().remove(dependency);
+            }
+        }
+    }
+
+    @Override
+    public boolean isAdapterForType(final Object type) {
+        return type == MetricSetAdapter.class;
+    }
+
+    @Override
+    public void setTarget(final Notifier newTarget) {
+        // the target is fixed to the adapted metric set
+    }
+
+    @Override
+    public void unsetTarget(final Notifier oldTarget) {
+        // the target is fixed to the adapted metric set
+    }
+
+    @Override
+    public Notifier getTarget() {
+        return this.metricSetDescription;
+    }
+
+    /**
+     * Adapter of a subsumed metric, invalidating the adapter of the metric set on changes.
+     */
+    private static final class DependencyAdapter extends AdapterImpl {
+
+        private final WeakReference<MetricSetAdapter> owner;
+
+        private final MetricDescription metric;
+
+        private DependencyAdapter(final MetricSetAdapter owner, final MetricDescription metric) {
+            super();
+            this.owner = new WeakReference<MetricSetAdapter>(owner);
+            this.metric = metric;
+        }
+
+        /**
+         * Returns whether the adapter of the metric set was collected or invalidated.
+         */
+        private boolean isObsolete() {
+            final MetricSetAdapter adapter = this.owner.get();
+            return adapter == null || !adapter.valid;
+        }
+
+        @Override
+        public void notifyChanged(final Notification notification) {
+            if (!notification.isTouch()) {
+                final MetricSetAdapter adapter = this.owner.get();
+                if (adapter != null) {
+                    adapter.invalidate();
+                }
+            }
+        }
+
+        @Override
+        public void setTarget(final Notifier newTarget) {
+            // the target is fixed to the subsumed metric
+        }
+
+        @Override
+        public void unsetTarget(final Notifier oldTarget) {
+            // the target is fixed to the subsumed metric
+        }
+
+        @Override
+        public Notifier getTarget() {
+            return this.metric;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.palladiosimulator.measurementframework.measureprovider;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+
+/**
+ * A metric set index maps each metric subsumed by a {@link MetricSetDescription}, including
+ * metrics subsumed by nested metric sets, to its path of slots. The first slot of a path denotes
+ * the subsumed measurement of the top-level tuple measurement, each further slot the subsumed
+ * measurement of the nested tuple measurement selected so far.
+ * 
+ * Lookups are resolved by identity of the metric description; only metric descriptions that are
+ * not part of the indexed model (e.g., loaded from a different resource) are resolved by their ID.
+ * If a metric is subsumed several times, the first occurrence in depth-first order is indexed.
+ * 
+ * Indices are created once per metric set description and shared by all measurements (see
+ * {@link #forMetric(MetricSetDescription)}). They are attached to the metric set description as
+ * EMF adapter, i.e., they live as long as the description and are created anew once the
+ * description or one of its subsumed metrics changes.
+ * 
+ * @author agent
+ */
+public final class MetricSetIndex {
+
+    /** Paths of all subsumed metrics by identity. */
+    private final Map<MetricDescription, int[]> pathsByMetric;
+
+    /** Paths of all subsumed metrics by metric ID. */
+    private final Map<String, int[]> pathsById;
+
+    /**
+     * Creates the index of the given metric set description.
+     * 
+     * @param metricSetDescription
+     *            the metric set description to be indexed.
+     */
+    MetricSetIndex(final MetricSetDescription metricSetDescription) {
+        super();
+        this.pathsByMetric = new IdentityHashMap<MetricDescription, int[]>();
+        this.pathsById = new HashMap<String, int[]>();
+        addSubsumedMetrics(metricSetDescription, new int[0]);
+    }
+
+    /**
+     * Returns the index of the given metric set description. The index is created on first request
+     * and shared afterwards, until the description changes.
+     * 
+     * @param metricSetDescription
+     *            the metric set description.
+     * @return the index of the metric set description.
+     */
+    public static MetricSetIndex forMetric(final MetricSetDescription metricSetDescription) {
+        return MetricSetAdapter.of(metricSetDescription).getIndex();
+    }
+
+    /**
+     * Adds the metrics subsumed by the given metric set to this index.
+     * 
+     * @param metricSetDescription
+     *            the metric set whose subsumed metrics are added.
+     * @param prefix
+     *            the path of the given metric set.
+     */
+    private void addSubsumedMetrics(final MetricSetDescription metricSetDescription, final int[] prefix) {
+        final List<MetricDescription> subsumedMetrics = metricSetDescription.getSubsumedMetrics();
+        for (int slot = 0; slot < subsumedMetrics.size(); slot++) {
+            final MetricDescription metric = subsumedMetrics.get(slot);
+            final int[] path = new int[prefix.length + 1];
+            System.arraycopy(prefix, 0, path, 0, prefix.length);
+            path[prefix.length] = slot;
+
+            if (!this.pathsByMetric.containsKey(metric)) {
+                this.pathsByMetric.put(metric, path);
+            }
+            if (!this.pathsById.containsKey(metric.getId())) {
+                this.pathsById.put(metric.getId(), path);
+            }
+            if (metric instanceof MetricSetDescription && metric != metricSetDescription) {
+                addSubsumedMetrics((MetricSetDescription) metric, path);
+            }
+        }
+    }
+
+    /**
+     * Returns the path of slots leading to the measurement of the given metric. The returned array
+     * is shared and must not be modified.
+     * 
+     * @param metricDescription
+     *            the metric to look for.
+     * @return the path of the metric or <code>null</code> if the metric is not subsumed.
+     */
+    public int[] pathOf(final MetricDescription metricDescription) {
+        final int[] path = this.pathsByMetric.get(metricDescription);
+        if (path != null) {
+            return path;
+        }
+        return this.pathsById.get(metricDescription.getId());
+    }
+
+    /**
+     * Returns the slot of the given metric if it is directly subsumed by the indexed metric set.
+     * 
+     * @param metricDescription
+     *            the metric to look for.
+     * @return the slot of the metric or <code>-1</code> if the metric is not directly subsumed.
+     */
+    public int slotOf(final MetricDescription metricDescription) {
+        final int[] path = pathOf(metricDescription);
+        if (path == null || path.length != 1) {
+            return -1;
+        }
+        return path[0];
+    }
+}
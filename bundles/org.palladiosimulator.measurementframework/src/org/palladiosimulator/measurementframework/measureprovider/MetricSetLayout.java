@@ -0,0 +1,395 @@
+package org.palladiosimulator.measurementframework.measureprovider;
+
+import java.util.List;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * A metric set layout is the precompiled structure of a {@link MetricSetDescription}. For each
+ * subsumed metric (a slot), it determines how measures are stored by a
+ * {@link ColumnarMeasureProvider}, i.e., the kind of the slot, its column within the kind-specific
+ * value array, and the unit of the stored values.
+ * 
+ * Layouts are validated once on creation. Measurements sharing a layout therefore only need to
+ * provide their values. Layouts using the default units of a metric set description are attached
+ * to the description together with its {@link MetricSetIndex} (see
+ * {@link #forMetric(MetricSetDescription)}), i.e., they live as long as the description and are
+ * compiled anew once the description or one of its subsumed metrics changes.
+ * 
+ * @author agent
+ */
+public final class MetricSetLayout {
+
+    /**
+     * The kind of a slot, determining the column array its values are stored in.
+     */
+    public enum SlotKind {
+        /** Values are stored as <code>double</code>. */
+        REAL_NUMBER,
+        /** Values are stored as <code>long</code>. */
+        INTEGER_NUMBER,
+        /** Values are stored as identifier measures within the object column array. */
+        IDENTIFIER,
+        /** Values are stored as nested measuring values within the object column array. */
+        METRIC_SET
+    }
+
+    /** The described metric set. */
+    private final MetricSetDescription metricSetDescription;
+
+    /** The subsumed metrics, one per slot. */
+    private final MetricDescription[] subsumedMetrics;
+
+    /** The IDs of the subsumed metrics, one per slot. */
+    private final String[] subsumedMetricIds;
+
+    /** The shared index of the described metric set. */
+    private final MetricSetIndex index;
+
+    /** The kind of each slot. */
+    private final SlotKind[] slotKinds;
+
+    /** The column of each slot within the column array of its kind. */
+    private final int[] columns;
+
+    /** The unit of each slot; <code>null</code> for metric set slots. */
+    private final Unit<?>[] units;
+
+    /** Number of <code>double</code> columns. */
+    private final int realColumnCount;
+
+    /** Number of <code>long</code> columns. */
+    private final int integerColumnCount;
+
+    /** Number of object columns. */
+    private final int objectColumnCount;
+
+    /** Whether there are metric set slots. */
+    private final boolean nested;
+
+    /**
+     * Compiles a layout for the given metric set description and units.
+     * 
+     * @param metricSetDescription
+     *            the metric set description to be compiled.
+     * @param units
+     *            the units of the slots.
+     * @throws IllegalArgumentException
+     *             if the units do not match the subsumed metrics.
+     */
+    private MetricSetLayout(final MetricSetDescription metricSetDescription, final Unit<?>[] units) {
+        super();
+        final List<MetricDescription> metrics = metricSetDescription.getSubsumedMetrics();
+        if (units.length != metrics.size()) {
+            throw new IllegalArgumentException(
+                    "Number of units has to match the number of child metrics in the metric set description");
+        }
+
+        this.metricSetDescription = metricSetDescription;
+        this.subsumedMetrics = metrics.toArray(new MetricDescription[metrics.size()]);
+        this.subsumedMetricIds = new String[this.subsumedMetrics.length];
+        this.index = MetricSetIndex.forMetric(metricSetDescription);
+        this.slotKinds = new SlotKind[this.subsumedMetrics.length];
+        this.columns = new int[this.subsumedMetrics.length];
+        this.units = units;
+
+        int realColumns = 0;
+        int integerColumns = 0;
+        int objectColumns = 0;
+        boolean metricSetSlots = false;
+        for (int i = 0; i < this.subsumedMetrics.length; i++) {
+            final MetricDescription metric = this.subsumedMetrics[i];
+            this.subsumedMetricIds[i] = metric.getId();
+            this.slotKinds[i] = slotKindOf(metric);
+            switch (this.slotKinds[i]) {
+            case REAL_NUMBER:
+                this.columns[i] = realColumns++;
+                break;
+            case INTEGER_NUMBER:
+                this.columns[i] = integerColumns++;
+                break;
+            case METRIC_SET:
+                metricSetSlots = true;
+                this.columns[i] = objectColumns++;
+                break;
+            default:
+                this.columns[i] = objectColumns++;
+                break;
+            }
+            checkUnit(metric, units[i]);
+        }
+        this.realColumnCount = realColumns;
+        this.integerColumnCount = integerColumns;
+        this.objectColumnCount = objectColumns;
+        this.nested = metricSetSlots;
+    }
+
+    /**
+     * Returns the layout of the given metric set description that uses the default units of the
+     * subsumed metrics. Identifier metrics use {@link Unit#ONE}. The layout is compiled on first
+     * request and shared afterwards, until the description changes.
+     * 
+     * @param metricSetDescription
+     *            the metric set description.
+     * @return the layout of the metric set description.
+     * @throws IllegalArgumentException
+     *             if the metric set description subsumes unsupported metrics.
+     */
+    public static MetricSetLayout forMetric(final MetricSetDescription metricSetDescription) {
+        return MetricSetAdapter.of(metricSetDescription).getDefaultLayout();
+    }
+
+    /**
+     * Compiles the layout of the given metric set description that uses the default units of the
+     * subsumed metrics.
+     * 
+     * @param metricSetDescription
+     *            the metric set description.
+     * @return the compiled layout.
+     * @throws IllegalArgumentException
+     *             if the metric set description subsumes unsupported metrics.
+     */
+    static MetricSetLayout compileDefault(final MetricSetDescription metricSetDescription) {
+        return new MetricSetLayout(metricSetDescription, defaultUnits(metricSetDescription));
+    }
+
+    /**
+     * Compiles a layout of the given metric set description using the given units. Callers are
+     * expected to keep the layout for all measurements they create with it.
+     * 
+     * @param metricSetDescription
+     *            the metric set description.
+     * @param units
+     *            the units of the slots, one per subsumed metric. The unit of metric set slots is
+     *            ignored and may be <code>null</code>.
+     * @return the compiled layout.
+     * @throws IllegalArgumentException
+     *             if the units do not match the subsumed metrics.
+     */
+    public static MetricSetLayout compile(final MetricSetDescription metricSetDescription, final Unit<?>... units) {
+        return new MetricSetLayout(metricSetDescription, units.clone());
+    }
+
+    /**
+     * Determines the default units of all metrics subsumed by the given metric set description.
+     * 
+     * @param metricSetDescription
+     *            the metric set description.
+     * @return the default units, one per subsumed metric.
+     */
+    private static Unit<?>[] defaultUnits(final MetricSetDescription metricSetDescription) {
+        final List<MetricDescription> metrics = metricSetDescription.getSubsumedMetrics();
+        final Unit<?>[] result = new Unit<?>[metrics.size()];
+        for (int i = 0; i < result.length; i++) {
+            final MetricDescription metric = metrics.get(i);
+            if (metric instanceof NumericalBaseMetricDescription
+                    && ((NumericalBaseMetricDescription) metric).getDefaultUnit() != null) {
+                result[i] = ((NumericalBaseMetricDescription) metric).getDefaultUnit();
+            } else if (metric instanceof BaseMetricDescription) {
+                result[i] = Unit.ONE;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines the slot kind of a given subsumed metric.
+     * 
+     * @param metric
+     *            the subsumed metric.
+     * @return the slot kind.
+     */
+    private static SlotKind slotKindOf(final MetricDescription metric) {
+        if (metric instanceof MetricSetDescription) {
+            return SlotKind.METRIC_SET;
+        } else if (metric instanceof BaseMetricDescription) {
+            switch (((BaseMetricDescription) metric).getCaptureType()) {
+            case IDENTIFIER:
+                return SlotKind.IDENTIFIER;
+            case INTEGER_NUMBER:
+                return SlotKind.INTEGER_NUMBER;
+            case REAL_NUMBER:
+                return SlotKind.REAL_NUMBER;
+            default:
+                break;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported type of Metric Description");
+    }
+
+    /**
+     * Checks whether a given unit can be used for the given subsumed metric.
+     * 
+     * @param metric
+     *            the subsumed metric.
+     * @param unit
+     *            the unit to be checked.
+     */
+    private static void checkUnit(final MetricDescription metric, final Unit<?> unit) {
+        if (metric instanceof MetricSetDescription) {
+            return;
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("No unit given for base metric \"" + metric.getName() + "\"");
+        }
+        if (metric instanceof NumericalBaseMetricDescription) {
+            final Unit<?> defaultUnit = ((NumericalBaseMetricDescription) metric).getDefaultUnit();
+            if (defaultUnit != null && !unit.isCompatible(defaultUnit)) {
+                throw new IllegalArgumentException("Unit of measurement (" + unit
+                        + ") not compatible with declared base metric unit (" + defaultUnit
+                        + ") of metric description \"" + metric.getName() + "\"");
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given subsumed measurements conform to this layout, i.e., whether there is
+     * exactly one measurement per subsumed metric in the order of the metric set description.
+     * 
+     * @param subsumedMeasurements
+     *            the subsumed measurements to be checked.
+     * @throws IllegalArgumentException
+     *             if the measurements do not conform to this layout.
+     */
+    public void checkSubsumedMeasurements(final List<MeasuringValue> subsumedMeasurements) {
+        if (subsumedMeasurements.size() != this.subsumedMetrics.length) {
+            throw new IllegalArgumentException(
+                    "Number of measurements has to match the number of child metrics in the metric set description");
+        }
+
+        for (int i = 0; i < this.subsumedMetrics.length; i++) {
+            final MetricDescription measuredMetric = subsumedMeasurements.get(i).getMetricDesciption();
+            if (measuredMetric != this.subsumedMetrics[i]
+                    && !this.subsumedMetricIds[i].equals(measuredMetric.getId())) {
+                throw new IllegalArgumentException("Subsumed metric \"" + this.subsumedMetrics[i].getName()
+                        + "\" of metric \"" + this.metricSetDescription.getName() + "\" not present in measurement");
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the given metric.
+     * 
+     * @param metricDescription
+     *            the metric to look for.
+     * @return the slot of the given metric or <code>-1</code> if the metric is not directly
+     *         subsumed by the described metric set.
+     */
+    public int indexOf(final MetricDescription metricDescription) {
+        return this.index.slotOf(metricDescription);
+    }
+
+    /**
+     * Returns the shared index of the described metric set.
+     * 
+     * @return the metric set index.
+     */
+    public MetricSetIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the described metric set.
+     * 
+     * @return the metric set description.
+     */
+    public MetricSetDescription getMetricSetDescription() {
+        return this.metricSetDescription;
+    }
+
+    /**
+     * Returns the number of slots, i.e., the number of subsumed metrics.
+     * 
+     * @return the number of slots.
+     */
+    public int size() {
+        return this.subsumedMetrics.length;
+    }
+
+    /**
+     * Returns the subsumed metric of the given slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the subsumed metric.
+     */
+    public MetricDescription getSubsumedMetric(final int slot) {
+        return this.subsumedMetrics[slot];
+    }
+
+    /**
+     * Returns the kind of the given slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the slot kind.
+     */
+    public SlotKind getSlotKind(final int slot) {
+        return this.slotKinds[slot];
+    }
+
+    /**
+     * Returns the column of the given slot within the column array of the slot's kind.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the column of the slot.
+     */
+    public int getColumn(final int slot) {
+        return this.columns[slot];
+    }
+
+    /**
+     * Returns the unit of values stored in the given slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the unit of the slot; <code>null</code> for metric set slots.
+     */
+    public Unit<?> getUnit(final int slot) {
+        return this.units[slot];
+    }
+
+    /**
+     * Returns whether the described metric set subsumes other metric sets, i.e., whether there are
+     * slots of kind {@link SlotKind#METRIC_SET}.
+     * 
+     * @return <code>true</code> if there are metric set slots, <code>false</code> otherwise.
+     */
+    public boolean isNested() {
+        return this.nested;
+    }
+
+    /**
+     * Returns the number of <code>double</code> columns, i.e., the number of real number slots.
+     * 
+     * @return the number of <code>double</code> columns.
+     */
+    public int getRealColumnCount() {
+        return this.realColumnCount;
+    }
+
+    /**
+     * Returns the number of <code>long</code> columns, i.e., the number of integer number slots.
+     * 
+     * @return the number of <code>long</code> columns.
+     */
+    public int getIntegerColumnCount() {
+        return this.integerColumnCount;
+    }
+
+    /**
+     * Returns the number of object columns, i.e., the number of identifier and metric set slots.
+     * 
+     * @return the number of object columns.
+     */
+    public int getObjectColumnCount() {
+        return this.objectColumnCount;
+    }
+}
@@ -0,0 +1,446 @@
+package org.palladiosimulator.measurementframework.statistics;
+
+import java.util.List;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Listener estimating a confidence interval of the steady-state mean of a metric by the method of
+ * batch means, e.g., to stop a simulation run once the mean response time is known precisely
+ * enough. The values of the metric, converted to its default unit, are grouped into consecutive
+ * batches whose means are approximately independent and normally distributed if the batches are
+ * large enough. Measurements without the metric are ignored.
+ * 
+ * Memory is bounded by the number of batches: once this number of batches is complete, the
+ * confidence interval is computed from the batch means using the Student t distribution, the
+ * lag-1 autocorrelation of the batch means is tested for being insignificant at the same
+ * confidence level, and adjacent batches are merged, doubling the batch size. Evaluating the
+ * interval only at these points instead of after each batch reduces the bias of stopping at a
+ * randomly small interval. The precision is reached once the batch means are uncorrelated and the
+ * half-width of the interval relative to the mean is at most the requested precision. A
+ * simulation stop condition can poll {@link #isPrecisionReached()} or be informed by a call-back.
+ * 
+ * @author agent
+ */
+public class BatchMeansConfidenceListener implements IMeasurementSourceListener {
+
+    /** Default number of batches from which the confidence interval is computed. */
+    public static final int DEFAULT_BATCH_COUNT = 64;
+
+    /** The metric whose mean is estimated. */
+    private final NumericalBaseMetricDescription metric;
+
+    /** The unit of the values. */
+    private final Unit<?> unit;
+
+    /** Confidence level of the interval, e.g., 0.95. */
+    private final double confidenceLevel;
+
+    /** Requested half-width of the interval relative to the mean. */
+    private final double relativePrecision;
+
+    /** Number of initial values ignored as warm-up. */
+    private final long warmUpValues;
+
+    /** Quantile of the standard normal distribution for the confidence level. */
+    private final double normalQuantile;
+
+    /** Call-back invoked once the precision is reached; may be <code>null</code>. */
+    private final Runnable precisionReachedCallback;
+
+    /** Means of the complete batches; only the first {@link #batchCount} entries are used. */
+    private final double[] batchMeans;
+
+    /** Lock guarding the batches. */
+    private final Object lock = new Object();
+
+    /** Number of complete batches. */
+    private int batchCount;
+
+    /** Number of values per batch. */
+    private long batchSize = 1;
+
+    /** Sum of the values of the current, incomplete batch. */
+    private double currentSum;
+
+    /** Number of values of the current, incomplete batch. */
+    private long currentCount;
+
+    /** Number of received values including warm-up. */
+    private long valueCount;
+
+    /** Mean of the batches at the last evaluation. */
+    private double mean = Double.NaN;
+
+    /** Half-width of the confidence interval at the last evaluation. */
+    private double halfWidth = Double.NaN;
+
+    /** Lag-1 autocorrelation of the batch means at the last evaluation. */
+    private double lag1Autocorrelation = Double.NaN;
+
+    /** Whether the precision has been reached. */
+    private volatile boolean precisionReached;
+
+    /**
+     * Constructor using the default number of batches, no warm-up, and no call-back.
+     * 
+     * @param metric
+     *            the metric whose mean is estimated.
+     * @param confidenceLevel
+     *            the confidence level of the interval, e.g., 0.95.
+     * @param relativePrecision
+     *            the requested half-width of the interval relative to the mean, e.g., 0.05.
+     */
+    public BatchMeansConfidenceListener(final NumericalBaseMetricDescription metric, final double confidenceLevel,
+            final double relativePrecision) {
+        this(metric, confidenceLevel, relativePrecision, 0, DEFAULT_BATCH_COUNT, null);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param metric
+     *            the metric whose mean is estimated.
+     * @param confidenceLevel
+     *            the confidence level of the interval, e.g., 0.95.
+     * @param relativePrecision
+     *            the requested half-width of the interval relative to the mean, e.g., 0.05.
+     * @param warmUpValues
+     *            the number of initial values ignored as warm-up.
+     * @param batchCount
+     *            the number of batches from which the confidence interval is computed; even and at
+     *            least 4.
+     * @param precisionReachedCallback
+     *            call-back invoked once when the precision is reached, by the thread notifying
+     *            the measurement, or <code>null</code>.
+     * @throws IllegalArgumentException
+     *             if a parameter is out of range.
+     */
+    public BatchMeansConfidenceListener(final NumericalBaseMetricDescription metric, final double confidenceLevel,
+            final double relativePrecision, final long warmUpValues, final int batchCount,
+            final Runnable precisionReachedCallback) {
+        if (metric == null) {
+            throw new IllegalArgumentException("Metric must not be null");
+        }
+        if (!(confidenceLevel > 0 && confidenceLevel < 1)) {
+            throw new IllegalArgumentException("Confidence level has to be within (0, 1)");
+        }
+        if (!(relativePrecision > 0)) {
+            throw new IllegalArgumentException("Relative precision has to be positive");
+        }
+        if (warmUpValues < 0) {
+            throw new IllegalArgumentException("Number of warm-up values must not be negative");
+        }
+        if (batchCount < 4 || batchCount % 2 != 0) {
+            throw new IllegalArgumentException("Number of batches has to be even and at least 4");
+        }
+        this.metric = metric;
+        this.unit = metric.getDefaultUnit();
+        this.confidenceLevel = confidenceLevel;
+        this.relativePrecision = relativePrecision;
+        this.warmUpValues = warmUpValues;
+        this.normalQuantile = normalQuantile(0.5 + confidenceLevel / 2);
+        this.precisionReachedCallback = precisionReachedCallback;
+        this.batchMeans = new double[batchCount];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        final boolean reached;
+        synchronized (this.lock) {
+            reached = add(newMeasurement);
+        }
+        if (reached && this.precisionReachedCallback != null) {
+            this.precisionReachedCallback.run();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        boolean reached = false;
+        synchronized (this.lock) {
+            for (int i = 0; i < newMeasurements.size(); i++) {
+                reached |= add(newMeasurements.get(i));
+            }
+        }
+        if (reached && this.precisionReachedCallback != null) {
+            this.precisionReachedCallback.run();
+        }
+    }
+
+    /**
+     * Adds the value of the given measurement to the current batch. Callers have to hold the
+     * lock of the batches.
+     * 
+     * @return <code>true</code> if the precision has been reached by this value,
+     *         <code>false</code> otherwise.
+     */
+    private boolean add(final MeasuringValue measurement) {
+        if (!measurement.containsMetric(this.metric)) {
+            return false;
+        }
+        final double value = measurement.doubleValueForMetric(this.metric, this.unit);
+        if (Double.isNaN(value) || ++this.valueCount <= this.warmUpValues) {
+            return false;
+        }
+        this.currentSum += value;
+        if (++this.currentCount < this.batchSize) {
+            return false;
+        }
+        this.batchMeans[this.batchCount++] = this.currentSum / this.currentCount;
+        this.currentSum = 0;
+        this.currentCount = 0;
+        if (this.batchCount < this.batchMeans.length) {
+            return false;
+        }
+        final boolean reached = updateInterval();
+        mergeBatches();
+        return reached;
+    }
+
+    /**
+     * Merges adjacent batches, doubling the batch size. Callers have to hold the lock of the
+     * batches.
+     */
+    private void mergeBatches() {
+        final int mergedCount = this.batchCount / 2;
+        for (int i = 0; i < mergedCount; i++) {
+            this.batchMeans[i] = (this.batchMeans[2 * i] + this.batchMeans[2 * i + 1]) / 2;
+        }
+        this.batchCount = mergedCount;
+        this.batchSize *= 2;
+    }
+
+    /**
+     * Computes the confidence interval and lag-1 autocorrelation of the complete batches.
+     * Callers have to hold the lock of the batches.
+     * 
+     * @return <code>true</code> if the precision has been reached for the first time,
+     *         <code>false</code> otherwise.
+     */
+    private boolean updateInterval() {
+        final int count = this.batchCount;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += this.batchMeans[i];
+        }
+        final double batchMean = sum / count;
+        double squares = 0;
+        double lag1Products = 0;
+        for (int i = 0; i < count; i++) {
+            final double deviation = this.batchMeans[i] - batchMean;
+            squares += deviation * deviation;
+            if (i > 0) {
+                lag1Products += deviation * (this.batchMeans[i - 1] - batchMean);
+            }
+        }
+        this.mean = batchMean;
+        this.halfWidth = studentQuantile(this.normalQuantile, count - 1) * Math.sqrt(squares / (count - 1) / count);
+        this.lag1Autocorrelation = squares == 0 ? 0 : lag1Products / squares;
+
+        if (this.precisionReached || Math.abs(this.lag1Autocorrelation) > this.normalQuantile / Math.sqrt(count)
+                || !(this.halfWidth <= this.relativePrecision * Math.abs(this.mean))) {
+            return false;
+        }
+        this.precisionReached = true;
+        return true;
+    }
+
+    /**
+     * Returns whether the precision has been reached, i.e., whether the run may stop. Once
+     * reached, the flag stays set.
+     * 
+     * @return <code>true</code> if the precision has been reached, <code>false</code> otherwise.
+     */
+    public boolean isPrecisionReached() {
+        return this.precisionReached;
+    }
+
+    /**
+     * Returns the mean of the batches when the confidence interval was last computed.
+     * 
+     * @return the mean in the default unit of the metric; {@link Double#NaN} if the interval has
+     *         not been computed yet.
+     */
+    public double getMean() {
+        synchronized (this.lock) {
+            return this.mean;
+        }
+    }
+
+    /**
+     * Returns the half-width of the confidence interval.
+     * 
+     * @return the half-width in the default unit of the metric; {@link Double#NaN} if the
+     *         interval has not been computed yet.
+     */
+    public double getHalfWidth() {
+        synchronized (this.lock) {
+            return this.halfWidth;
+        }
+    }
+
+    /**
+     * Returns the lower bound of the confidence interval.
+     * 
+     * @return the lower bound in the default unit of the metric.
+     */
+    public double getLowerBound() {
+        synchronized (this.lock) {
+            return this.mean - this.halfWidth;
+        }
+    }
+
+    /**
+     * Returns the upper bound of the confidence interval.
+     * 
+     * @return the upper bound in the default unit of the metric.
+     */
+    public double getUpperBound() {
+        synchronized (this.lock) {
+            return this.mean + this.halfWidth;
+        }
+    }
+
+    /**
+     * Returns the lag-1 autocorrelation of the batch means.
+     * 
+     * @return the autocorrelation; {@link Double#NaN} if the interval has not been computed yet.
+     */
+    public double getLag1Autocorrelation() {
+        synchronized (this.lock) {
+            return this.lag1Autocorrelation;
+        }
+    }
+
+    /**
+     * Returns the number of complete batches.
+     * 
+     * @return the number of batches.
+     */
+    public int getBatchCount() {
+        synchronized (this.lock) {
+            return this.batchCount;
+        }
+    }
+
+    /**
+     * Returns the current number of values per batch.
+     * 
+     * @return the batch size.
+     */
+    public long getBatchSize() {
+        synchronized (this.lock) {
+            return this.batchSize;
+        }
+    }
+
+    /**
+     * Returns the number of received values, including warm-up values.
+     * 
+     * @return the number of values.
+     */
+    public long getValueCount() {
+        synchronized (this.lock) {
+            return this.valueCount;
+        }
+    }
+
+    /**
+     * Returns the confidence level of the interval.
+     * 
+     * @return the confidence level.
+     */
+    public double getConfidenceLevel() {
+        return this.confidenceLevel;
+    }
+
+    /**
+     * Returns the requested half-width of the interval relative to the mean.
+     * 
+     * @return the relative precision.
+     */
+    public double getRelativePrecision() {
+        return this.relativePrecision;
+    }
+
+    /**
+     * Returns the metric whose mean is estimated.
+     * 
+     * @return the metric.
+     */
+    public NumericalBaseMetricDescription getMetric() {
+        return this.metric;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainsMeasurements() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void preUnregister() {
+        // the interval stays available after unregistering
+    }
+
+    /**
+     * Approximates the quantile of the Student t distribution by a Cornish-Fisher expansion of the
+     * corresponding normal quantile; accurate to about 10<sup>-3</sup> for five or more degrees of
+     * freedom.
+     */
+    private static double studentQuantile(final double z, final int degreesOfFreedom) {
+        final double n = degreesOfFreedom;
+        final double z2 = z * z;
+        final double z3 = z2 * z;
+        final double z5 = z3 * z2;
+        final double z7 = z5 * z2;
+        final double z9 = z7 * z2;
+        return z + (z3 + z) / (4 * n) + (5 * z5 + 16 * z3 + 3 * z) / (96 * n * n)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * n * n * n)
+                + (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / (92160 * n * n * n * n);
+    }
+
+    /**
+     * Approximates the quantile of the standard normal distribution by Acklam's rational
+     * approximation; relative error below 1.2 * 10<sup>-9</sup>.
+     */
+    private static double normalQuantile(final double p) {
+        final double low = 0.02425;
+        if (p < low) {
+            final double q = Math.sqrt(-2 * Math.log(p));
+            return normalTail(q);
+        } else if (p > 1 - low) {
+            final double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -normalTail(q);
+        }
+        final double q = p - 0.5;
+        final double r = q * q;
+        return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r
+                + 1.383577518672690e+02) * r - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q
+                / (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r
+                        + 6.680131188771972e+01) * r - 1.328068155288572e+01) * r + 1);
+    }
+
+    private static double normalTail(final double q) {
+        return (((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q
+                - 2.549671688253286e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00)
+                / ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q
+                        + 3.754408661907416e+00) * q + 1);
+    }
+}
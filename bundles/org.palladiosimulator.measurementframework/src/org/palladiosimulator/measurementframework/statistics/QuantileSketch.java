@@ -0,0 +1,332 @@
+package org.palladiosimulator.measurementframework.statistics;
+
+/**
+ * Streaming quantile estimator with bounded relative error. Values are counted in logarithmically
+ * sized buckets, similar to an HDR histogram, such that any quantile estimate deviates from an
+ * actually observed value by at most the relative accuracy of the sketch. Memory is bounded by a
+ * maximum number of buckets per sign; if the observed values span more buckets, the buckets of the
+ * values closest to zero are collapsed, i.e., only the accuracy of these values degrades.
+ * Magnitudes below {@link Double#MIN_NORMAL}, i.e., subnormal values, are counted as zero;
+ * infinite values are counted separately and estimated exactly.
+ * 
+ * Sketches are not thread-safe.
+ * 
+ * @author agent
+ */
+public final class QuantileSketch {
+
+    /** Default relative accuracy of quantile estimates. */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    /**
+     * Smallest supported relative accuracy; it keeps the bucket indices of all finite values well
+     * within the range of <code>int</code>.
+     */
+    public static final double MIN_RELATIVE_ACCURACY = 1e-6;
+
+    /** Default maximum number of buckets per sign. */
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    /** Smallest magnitude counted in a bucket; values of smaller magnitude are counted as zero. */
+    private static final double MIN_INDEXABLE_VALUE = Double.MIN_NORMAL;
+
+    private final double relativeAccuracy;
+
+    private final int maxBuckets;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final BucketStore positiveBuckets;
+
+    private final BucketStore negativeBuckets;
+
+    private long zeroCount;
+
+    private long negativeInfinityCount;
+
+    private long positiveInfinityCount;
+
+    private long count;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Constructor using {@link #DEFAULT_RELATIVE_ACCURACY} and {@link #DEFAULT_MAX_BUCKETS}.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param relativeAccuracy
+     *            the relative accuracy of quantile estimates, e.g., 0.01 for 1%.
+     * @param maxBuckets
+     *            the maximum number of buckets per sign.
+     * @throws IllegalArgumentException
+     *             if the relative accuracy is not in [{@link #MIN_RELATIVE_ACCURACY}, 1) or the
+     *             number of buckets is not positive.
+     */
+    public QuantileSketch(final double relativeAccuracy, final int maxBuckets) {
+        if (!(relativeAccuracy >= MIN_RELATIVE_ACCURACY && relativeAccuracy < 1.0d)) {
+            throw new IllegalArgumentException("Relative accuracy has to be in [" + MIN_RELATIVE_ACCURACY + ", 1)");
+        }
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("Maximum number of buckets has to be positive");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.gamma = (1.0d + relativeAccuracy) / (1.0d - relativeAccuracy);
+        this.logGamma = Math.log(this.gamma);
+        this.positiveBuckets = new BucketStore(maxBuckets);
+        this.negativeBuckets = new BucketStore(maxBuckets);
+    }
+
+    /**
+     * Adds a value to this sketch.
+     * 
+     * @param value
+     *            the value to be added.
+     * @throws IllegalArgumentException
+     *             if the value is not a number.
+     */
+    public void add(final double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Value has to be a number");
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            this.positiveInfinityCount++;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            this.negativeInfinityCount++;
+        } else if (value >= MIN_INDEXABLE_VALUE) {
+            this.positiveBuckets.add(indexOf(value), 1);
+        } else if (value <= -MIN_INDEXABLE_VALUE) {
+            this.negativeBuckets.add(indexOf(-value), 1);
+        } else {
+            this.zeroCount++;
+        }
+        this.count++;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Adds all values of another sketch to this sketch.
+     * 
+     * @param other
+     *            the sketch to be merged into this sketch.
+     * @throws IllegalArgumentException
+     *             if the other sketch has a different relative accuracy.
+     */
+    public void merge(final QuantileSketch other) {
+        if (other.relativeAccuracy != this.relativeAccuracy) {
+            throw new IllegalArgumentException("Sketches have to share their relative accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        this.positiveBuckets.addAll(other.positiveBuckets);
+        this.negativeBuckets.addAll(other.negativeBuckets);
+        this.zeroCount += other.zeroCount;
+        this.negativeInfinityCount += other.negativeInfinityCount;
+        this.positiveInfinityCount += other.positiveInfinityCount;
+        this.count += other.count;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Creates an independent copy of this sketch.
+     * 
+     * @return the copy.
+     */
+    public QuantileSketch copy() {
+        final QuantileSketch copy = createEmpty();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Creates an empty sketch with the accuracy and memory bound of this sketch.
+     * 
+     * @return the empty sketch.
+     */
+    QuantileSketch createEmpty() {
+        return new QuantileSketch(this.relativeAccuracy, this.maxBuckets);
+    }
+
+    /**
+     * Estimates the given quantile of all added values.
+     * 
+     * @param quantile
+     *            the quantile, e.g., 0.5 for the median.
+     * @return the estimated quantile, or {@link Double#NaN} if no values were added.
+     * @throws IllegalArgumentException
+     *             if the quantile is not in [0, 1].
+     */
+    public double getQuantile(final double quantile) {
+        if (!(quantile >= 0.0d && quantile <= 1.0d)) {
+            throw new IllegalArgumentException("Quantile has to be in [0, 1]");
+        }
+        if (this.count == 0) {
+            return Double.NaN;
+        }
+
+        final long rank = (long) (quantile * (this.count - 1));
+        long seen = this.negativeInfinityCount;
+        if (seen > rank) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        for (int index = this.negativeBuckets.maxIndex; this.negativeBuckets.total > 0
+                && index >= this.negativeBuckets.minIndex; index--) {
+            seen += this.negativeBuckets.countAt(index);
+            if (seen > rank) {
+                return clamp(-valueOf(index));
+            }
+        }
+        seen += this.zeroCount;
+        if (seen > rank) {
+            return clamp(0.0d);
+        }
+        for (int index = this.positiveBuckets.minIndex; this.positiveBuckets.total > 0
+                && index <= this.positiveBuckets.maxIndex; index++) {
+            seen += this.positiveBuckets.countAt(index);
+            if (seen > rank) {
+                return clamp(valueOf(index));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Returns the number of added values.
+     * 
+     * @return the number of values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the relative accuracy of quantile estimates.
+     * 
+     * @return the relative accuracy.
+     */
+    public double getRelativeAccuracy() {
+        return this.relativeAccuracy;
+    }
+
+    /**
+     * Determines the bucket of a positive, finite value.
+     * 
+     * @param value
+     *            the value.
+     * @return the bucket index.
+     */
+    private int indexOf(final double value) {
+        return (int) Math.ceil(Math.log(value) / this.logGamma);
+    }
+
+    /**
+     * Determines the representative value of a bucket, i.e., the value with the lowest relative
+     * error to all values of the bucket.
+     * 
+     * @param index
+     *            the bucket index.
+     * @return the representative value.
+     */
+    private double valueOf(final int index) {
+        return 2.0d * Math.pow(this.gamma, index) / (this.gamma + 1.0d);
+    }
+
+    private double clamp(final double value) {
+        return Math.max(this.min, Math.min(this.max, value));
+    }
+
+    /**
+     * Dense array of bucket counts covering a contiguous range of bucket indices.
+     */
+    private static final class BucketStore {
+
+        private static final int INITIAL_BUCKETS = 64;
+
+        private final int maxBuckets;
+
+        private long[] counts = new long[0];
+
+        /** Bucket index stored at position 0 of the counts. */
+        private int offset;
+
+        /** Lowest used bucket index; only valid if total is positive. */
+        private int minIndex;
+
+        /** Highest used bucket index; only valid if total is positive. */
+        private int maxIndex;
+
+        private long total;
+
+        private BucketStore(final int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        private long countAt(final int index) {
+            return this.counts[index - this.offset];
+        }
+
+        private void addAll(final BucketStore other) {
+            for (int index = other.minIndex; other.total > 0 && index <= other.maxIndex; index++) {
+                final long bucketCount = other.countAt(index);
+                if (bucketCount > 0) {
+                    add(index, bucketCount);
+                }
+            }
+        }
+
+        private void add(final int index, final long bucketCount) {
+            int target = index;
+            if (this.total == 0) {
+                if (this.counts.length == 0) {
+                    this.counts = new long[Math.min(INITIAL_BUCKETS, this.maxBuckets)];
+                }
+                this.offset = index - this.counts.length / 2;
+                this.minIndex = index;
+                this.maxIndex = index;
+            } else {
+                int newMin = Math.min(this.minIndex, index);
+                final int newMax = Math.max(this.maxIndex, index);
+                if ((long) newMax - newMin >= this.maxBuckets) {
+                    newMin = newMax - this.maxBuckets + 1;
+                    target = Math.max(index, newMin);
+                }
+                if (newMin < this.offset || newMax >= this.offset + this.counts.length || newMin > this.minIndex) {
+                    relocate(newMin, newMax);
+                }
+                this.minIndex = newMin;
+                this.maxIndex = newMax;
+            }
+            this.counts[target - this.offset] += bucketCount;
+            this.total += bucketCount;
+        }
+
+        /**
+         * Moves the counts into an array covering the given range. Counts of buckets below the
+         * range are collapsed into its lowest bucket.
+         */
+        private void relocate(final int newMin, final int newMax) {
+            final int span = newMax - newMin + 1;
+            final int length = Math.min(this.maxBuckets, Math.max(2 * this.counts.length, span));
+            final int newOffset = newMin - (length - span) / 2;
+            final long[] newCounts = new long[length];
+            for (int index = this.minIndex; index <= this.maxIndex; index++) {
+                newCounts[Math.max(index, newMin) - newOffset] += this.counts[index - this.offset];
+            }
+            this.counts = newCounts;
+            this.offset = newOffset;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.palladiosimulator.measurementframework.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Listener aggregating measurements into {@link StreamingStatistics}, keyed by the aggregated
+ * metric descriptions. Each notified measurement contributes the values of all aggregated metrics
+ * it contains, converted to their default units; measurements without aggregated metrics are
+ * ignored. Memory consumption is independent of the number of measurements.
+ * 
+ * The aggregator is a measurement source itself: it informs its observers about snapshots of its
+ * statistics (see {@link StatisticsMetricSet}), either every given number of aggregated
+ * measurements, on {@link #emitSnapshot()}, or on {@link #preUnregister()}.
+ * 
+ * @author agent
+ */
+public class StatisticsAggregator extends MeasurementSource implements IMeasurementSourceListener {
+
+    private final StatisticsMetricSet snapshotMetrics;
+
+    /** Statistics per aggregated metric; also used as lock for all statistics. */
+    private final Map<MetricDescription, StreamingStatistics> statistics;
+
+    /** Statistics in the order of the aggregated metrics. */
+    private final StreamingStatistics[] orderedStatistics;
+
+    /** Number of aggregated measurements after which a snapshot is emitted; 0 if disabled. */
+    private final int snapshotInterval;
+
+    /** Number of measurements aggregated since the last emitted snapshot. */
+    private int pendingMeasurements;
+
+    /**
+     * Constructor for an aggregator that only emits snapshots on request, using default quantiles.
+     * 
+     * @param aggregatedMetrics
+     *            the metrics to be aggregated.
+     */
+    public StatisticsAggregator(final NumericalBaseMetricDescription... aggregatedMetrics) {
+        this(new StatisticsMetricSet(aggregatedMetrics), 0);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param snapshotMetrics
+     *            the metric set describing the aggregated metrics and the emitted snapshots,
+     *            without point in time metric.
+     * @param snapshotInterval
+     *            the number of aggregated measurements after which a snapshot is emitted
+     *            automatically, or 0 to emit snapshots only on request.
+     * @throws IllegalArgumentException
+     *             if the metric set has a point in time metric, which is reserved for windowed
+     *             aggregation, or the snapshot interval is negative.
+     */
+    public StatisticsAggregator(final StatisticsMetricSet snapshotMetrics, final int snapshotInterval) {
+        super(snapshotMetrics.getMetricSetDescription());
+        if (snapshotMetrics.getPointInTimeMetric() != null) {
+            throw new IllegalArgumentException("Snapshots of metric set \""
+                    + snapshotMetrics.getMetricSetDescription().getName()
+                    + "\" require a point in time; use a WindowedStatisticsAggregator instead");
+        }
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Snapshot interval must not be negative");
+        }
+        this.snapshotMetrics = snapshotMetrics;
+        this.snapshotInterval = snapshotInterval;
+        this.orderedStatistics = new StreamingStatistics[snapshotMetrics.getAggregatedMetricCount()];
+        final Map<MetricDescription, StreamingStatistics> statisticsMap;
+        statisticsMap = new LinkedHashMap<MetricDescription, StreamingStatistics>();
+        for (int i = 0; i < this.orderedStatistics.length; i++) {
+            this.orderedStatistics[i] = new StreamingStatistics();
+            statisticsMap.put(snapshotMetrics.getAggregatedMetric(i), this.orderedStatistics[i]);
+        }
+        this.statistics = Collections.unmodifiableMap(statisticsMap);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        final TupleMeasurement snapshot;
+        synchronized (this.statistics) {
+            snapshot = aggregate(newMeasurement);
+        }
+        if (snapshot != null) {
+            notifyMeasurementSourceListener(snapshot);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * All measurements of the batch are aggregated at once; snapshots due within the batch are
+     * emitted as one batch afterwards.
+     */
+    @Override
+    public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        List<TupleMeasurement> snapshots = null;
+        synchronized (this.statistics) {
+            for (int i = 0; i < newMeasurements.size(); i++) {
+                final TupleMeasurement snapshot = aggregate(newMeasurements.get(i));
+                if (snapshot != null) {
+                    if (snapshots == null) {
+                        snapshots = new ArrayList<TupleMeasurement>();
+                    }
+                    snapshots.add(snapshot);
+                }
+            }
+        }
+        if (snapshots != null) {
+            notifyMeasurementSourceListener(snapshots);
+        }
+    }
+
+    /**
+     * Adds the values of all aggregated metrics contained in the given measurement to their
+     * statistics; values that are not a number are ignored. Callers have to hold the lock of the
+     * statistics.
+     * 
+     * @param measurement
+     *            the measurement to be aggregated.
+     * @return a snapshot if one is due, <code>null</code> otherwise.
+     */
+    private TupleMeasurement aggregate(final MeasuringValue measurement) {
+        boolean aggregated = false;
+        for (int i = 0; i < this.orderedStatistics.length; i++) {
+            final MetricDescription metric = this.snapshotMetrics.getAggregatedMetric(i);
+            if (measurement.containsMetric(metric)) {
+                final double value = measurement.doubleValueForMetric(metric, this.snapshotMetrics.getUnit(i));
+                if (!Double.isNaN(value)) {
+                    this.orderedStatistics[i].add(value);
+                    aggregated = true;
+                }
+            }
+        }
+        if (aggregated && this.snapshotInterval > 0 && ++this.pendingMeasurements >= this.snapshotInterval) {
+            this.pendingMeasurements = 0;
+            return this.snapshotMetrics.createSnapshot(this.orderedStatistics);
+        }
+        return null;
+    }
+
+    /**
+     * Creates a snapshot of the current statistics without informing observers.
+     * 
+     * @return the snapshot.
+     */
+    public TupleMeasurement getSnapshot() {
+        synchronized (this.statistics) {
+            return this.snapshotMetrics.createSnapshot(this.orderedStatistics);
+        }
+    }
+
+    /**
+     * Creates a snapshot of the current statistics and informs observers about it.
+     * 
+     * @return the emitted snapshot.
+     */
+    public TupleMeasurement emitSnapshot() {
+        final TupleMeasurement snapshot;
+        synchronized (this.statistics) {
+            this.pendingMeasurements = 0;
+            snapshot = this.snapshotMetrics.createSnapshot(this.orderedStatistics);
+        }
+        notifyMeasurementSourceListener(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Returns a copy of the current statistics of an aggregated metric.
+     * 
+     * @param aggregatedMetric
+     *            the aggregated metric.
+     * @return the statistics, or <code>null</code> if the metric is not aggregated.
+     */
+    public StreamingStatistics getStatistics(final MetricDescription aggregatedMetric) {
+        synchronized (this.statistics) {
+            final StreamingStatistics result = this.statistics.get(aggregatedMetric);
+            return result == null ? null : result.copy();
+        }
+    }
+
+    /**
+     * Returns the metric set describing the aggregated metrics and the emitted snapshots.
+     * 
+     * @return the snapshot metric set.
+     */
+    public StatisticsMetricSet getSnapshotMetrics() {
+        return this.snapshotMetrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Measurements are aggregated within the call-backs, i.e., they are not retained.
+     */
+    @Override
+    public boolean retainsMeasurements() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Emits a final snapshot and informs the own observers about being unregistered.
+     */
+    @Override
+    public void preUnregister() {
+        emitSnapshot();
+        for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+            listener.preUnregister();
+        }
+    }
+}
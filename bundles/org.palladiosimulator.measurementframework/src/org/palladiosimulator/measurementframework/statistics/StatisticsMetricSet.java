@@ -0,0 +1,327 @@
+package org.palladiosimulator.measurementframework.statistics;
+
+import java.util.Arrays;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.measureprovider.ColumnarMeasureProvider;
+import org.palladiosimulator.measurementframework.measureprovider.MetricSetLayout;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.DataType;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.MetricSpecFactory;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+import org.palladiosimulator.metricspec.Scale;
+
+/**
+ * Metric set describing snapshots of {@link StreamingStatistics} of one or more aggregated
+ * metrics. For each aggregated metric, the set subsumes the count, mean, variance, minimum,
+ * maximum, and the configured quantiles, in this order. All statistics but the count and the
+ * variance are stated in the default unit of the aggregated metric; the variance is stated in its
+ * square. Sets describing statistics over time, e.g., per time window, additionally subsume a
+ * point in time metric as their first metric.
+ * 
+ * Metric descriptions of the set are created in memory, i.e., they are not part of the common
+ * metrics model.
+ * 
+ * @author agent
+ */
+public final class StatisticsMetricSet {
+
+    /** Quantiles used if none are given. */
+    static final double[] DEFAULT_QUANTILES = { 0.5d, 0.9d, 0.95d, 0.99d };
+
+    /** Number of statistics per aggregated metric besides the quantiles. */
+    private static final int MOMENT_COUNT = 5;
+
+    /** Point in time metric subsumed first; <code>null</code> if not subsumed. */
+    private final NumericalBaseMetricDescription pointInTimeMetric;
+
+    private final NumericalBaseMetricDescription[] aggregatedMetrics;
+
+    private final Unit<?>[] units;
+
+    private final double[] quantiles;
+
+    private final MetricSetDescription metricSetDescription;
+
+    private final MetricSetLayout layout;
+
+    /**
+     * Constructor using the quantiles 0.5, 0.9, 0.95, and 0.99.
+     * 
+     * @param aggregatedMetrics
+     *            the aggregated metrics.
+     */
+    public StatisticsMetricSet(final NumericalBaseMetricDescription... aggregatedMetrics) {
+        this(DEFAULT_QUANTILES, aggregatedMetrics);
+    }
+
+    /**
+     * Constructor for snapshots without point in time.
+     * 
+     * @param quantiles
+     *            the quantiles to be part of the snapshots.
+     * @param aggregatedMetrics
+     *            the aggregated metrics.
+     * @throws IllegalArgumentException
+     *             if no metric is given, a metric does not capture numbers, or a quantile is not in
+     *             [0, 1].
+     */
+    public StatisticsMetricSet(final double[] quantiles, final NumericalBaseMetricDescription... aggregatedMetrics) {
+        this(null, quantiles, aggregatedMetrics);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param pointInTimeMetric
+     *            the point in time metric subsumed first, or <code>null</code> for snapshots
+     *            without point in time.
+     * @param quantiles
+     *            the quantiles to be part of the snapshots.
+     * @param aggregatedMetrics
+     *            the aggregated metrics.
+     * @throws IllegalArgumentException
+     *             if no metric is given, a metric does not capture numbers, or a quantile is not in
+     *             [0, 1].
+     */
+    public StatisticsMetricSet(final NumericalBaseMetricDescription pointInTimeMetric, final double[] quantiles,
+            final NumericalBaseMetricDescription... aggregatedMetrics) {
+        if (aggregatedMetrics.length == 0) {
+            throw new IllegalArgumentException("At least one metric has to be aggregated");
+        }
+        for (final double quantile : quantiles) {
+            if (!(quantile >= 0.0d && quantile <= 1.0d)) {
+                throw new IllegalArgumentException("Quantile has to be in [0, 1]");
+            }
+        }
+        this.pointInTimeMetric = pointInTimeMetric;
+        this.aggregatedMetrics = aggregatedMetrics.clone();
+        this.quantiles = quantiles.clone();
+        this.units = new Unit<?>[aggregatedMetrics.length];
+
+        this.metricSetDescription = MetricSpecFactory.eINSTANCE.createMetricSetDescription();
+        final StringBuilder setId = new StringBuilder("_statistics");
+        final StringBuilder setName = new StringBuilder("Statistics of ");
+        final int pointInTimeSlots = pointInTimeMetric == null ? 0 : 1;
+        final Unit<?>[] slotUnits = new Unit<?>[pointInTimeSlots
+                + aggregatedMetrics.length * (MOMENT_COUNT + quantiles.length)];
+        int slot = 0;
+        if (pointInTimeMetric != null) {
+            if (pointInTimeMetric.getCaptureType() != CaptureType.REAL_NUMBER) {
+                throw new IllegalArgumentException(
+                        "Point in time metric \"" + pointInTimeMetric.getName() + "\" does not capture real numbers");
+            }
+            setId.append('_').append(pointInTimeMetric.getId());
+            this.metricSetDescription.getSubsumedMetrics().add(pointInTimeMetric);
+            slotUnits[slot++] = defaultUnitOf(pointInTimeMetric);
+        }
+        for (int i = 0; i < aggregatedMetrics.length; i++) {
+            final NumericalBaseMetricDescription metric = aggregatedMetrics[i];
+            checkNumerical(metric);
+            final Unit<?> unit = defaultUnitOf(metric);
+            this.units[i] = unit;
+            setId.append('_').append(metric.getId());
+            setName.append(i == 0 ? "" : ", ").append(metric.getName());
+
+            slotUnits[slot++] = addStatistic(metric, "_count", "Count of ", CaptureType.INTEGER_NUMBER, Unit.ONE);
+            slotUnits[slot++] = addStatistic(metric, "_mean", "Mean of ", CaptureType.REAL_NUMBER, unit);
+            slotUnits[slot++] = addStatistic(metric, "_variance", "Variance of ", CaptureType.REAL_NUMBER,
+                    unit.times(unit));
+            slotUnits[slot++] = addStatistic(metric, "_min", "Minimum of ", CaptureType.REAL_NUMBER, unit);
+            slotUnits[slot++] = addStatistic(metric, "_max", "Maximum of ", CaptureType.REAL_NUMBER, unit);
+            for (final double quantile : quantiles) {
+                slotUnits[slot++] = addStatistic(metric, "_quantile" + quantile, "Quantile " + quantile + " of ",
+                        CaptureType.REAL_NUMBER, unit);
+            }
+        }
+        this.metricSetDescription.setId(setId.toString());
+        this.metricSetDescription.setName(setName.toString());
+        this.layout = MetricSetLayout.compile(this.metricSetDescription, slotUnits);
+    }
+
+    private static void checkNumerical(final NumericalBaseMetricDescription metric) {
+        if (metric.getCaptureType() == CaptureType.IDENTIFIER) {
+            throw new IllegalArgumentException("Metric \"" + metric.getName() + "\" does not capture numbers");
+        }
+    }
+
+    private static Unit<?> defaultUnitOf(final NumericalBaseMetricDescription metric) {
+        return metric.getDefaultUnit() == null ? Unit.ONE : metric.getDefaultUnit();
+    }
+
+    /**
+     * Creates a statistic metric for the given aggregated metric and adds it to the metric set.
+     * 
+     * @return the unit of the statistic.
+     */
+    private Unit<?> addStatistic(final NumericalBaseMetricDescription aggregatedMetric, final String idSuffix,
+            final String namePrefix, final CaptureType captureType, final Unit<?> unit) {
+        final NumericalBaseMetricDescription statistic = MetricSpecFactory.eINSTANCE
+                .createNumericalBaseMetricDescription();
+        statistic.setId(aggregatedMetric.getId() + idSuffix);
+        statistic.setName(namePrefix + aggregatedMetric.getName());
+        statistic.setCaptureType(captureType);
+        statistic.setDataType(DataType.QUANTITATIVE);
+        statistic.setScale(Scale.RATIO);
+        statistic.setDefaultUnit(unit);
+        this.metricSetDescription.getSubsumedMetrics().add(statistic);
+        return unit;
+    }
+
+    /**
+     * Creates a snapshot measurement of the given statistics.
+     * 
+     * @param statistics
+     *            the statistics, one per aggregated metric in the order of the aggregated metrics.
+     *            Values are expected in the default units of the aggregated metrics.
+     * @return the snapshot.
+     * @throws IllegalArgumentException
+     *             if the number of statistics does not match the number of aggregated metrics.
+     * @throws IllegalStateException
+     *             if the set subsumes a point in time metric.
+     */
+    public TupleMeasurement createSnapshot(final StreamingStatistics... statistics) {
+        if (this.pointInTimeMetric != null) {
+            throw new IllegalStateException("Snapshots of metric set \"" + this.metricSetDescription.getName()
+                    + "\" require a point in time");
+        }
+        return newSnapshot(0, Double.NaN, statistics);
+    }
+
+    /**
+     * Creates a snapshot measurement of the given statistics at the given point in time.
+     * 
+     * @param pointInTime
+     *            the point in time, stated in the default unit of the point in time metric.
+     * @param statistics
+     *            the statistics, one per aggregated metric in the order of the aggregated metrics.
+     *            Values are expected in the default units of the aggregated metrics.
+     * @return the snapshot.
+     * @throws IllegalArgumentException
+     *             if the number of statistics does not match the number of aggregated metrics.
+     * @throws IllegalStateException
+     *             if the set does not subsume a point in time metric.
+     */
+    public TupleMeasurement createSnapshot(final double pointInTime, final StreamingStatistics... statistics) {
+        if (this.pointInTimeMetric == null) {
+            throw new IllegalStateException("Metric set \"" + this.metricSetDescription.getName()
+                    + "\" does not subsume a point in time metric");
+        }
+        return newSnapshot(1, pointInTime, statistics);
+    }
+
+    /**
+     * Creates a snapshot measurement; the point in time is only used if there is a leading point
+     * in time slot.
+     */
+    private TupleMeasurement newSnapshot(final int firstSlot, final double pointInTime,
+            final StreamingStatistics[] statistics) {
+        if (statistics.length != this.aggregatedMetrics.length) {
+            throw new IllegalArgumentException("Number of statistics has to match the number of aggregated metrics");
+        }
+        final double[] realValues = new double[this.layout.getRealColumnCount()];
+        final long[] integerValues = new long[this.layout.getIntegerColumnCount()];
+        int slot = 0;
+        if (firstSlot > 0) {
+            realValues[this.layout.getColumn(slot++)] = pointInTime;
+        }
+        for (final StreamingStatistics statistic : statistics) {
+            integerValues[this.layout.getColumn(slot++)] = statistic.getCount();
+            realValues[this.layout.getColumn(slot++)] = statistic.getMean();
+            realValues[this.layout.getColumn(slot++)] = statistic.getVariance();
+            realValues[this.layout.getColumn(slot++)] = statistic.getMin();
+            realValues[this.layout.getColumn(slot++)] = statistic.getMax();
+            for (final double quantile : this.quantiles) {
+                realValues[this.layout.getColumn(slot++)] = statistic.getQuantile(quantile);
+            }
+        }
+        return new TupleMeasurement(this.metricSetDescription,
+                new ColumnarMeasureProvider(this.layout, realValues, integerValues, null));
+    }
+
+    /**
+     * Returns the metric set description of the snapshots.
+     * 
+     * @return the metric set description.
+     */
+    public MetricSetDescription getMetricSetDescription() {
+        return this.metricSetDescription;
+    }
+
+    /**
+     * Returns the layout of the snapshots.
+     * 
+     * @return the layout.
+     */
+    public MetricSetLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Returns the point in time metric subsumed first.
+     * 
+     * @return the point in time metric, or <code>null</code> if snapshots have no point in time.
+     */
+    public NumericalBaseMetricDescription getPointInTimeMetric() {
+        return this.pointInTimeMetric;
+    }
+
+    /**
+     * Returns the unit of points in time, i.e., the default unit of the point in time metric.
+     * 
+     * @return the unit, or <code>null</code> if snapshots have no point in time.
+     */
+    public Unit<?> getPointInTimeUnit() {
+        return this.pointInTimeMetric == null ? null : defaultUnitOf(this.pointInTimeMetric);
+    }
+
+    /**
+     * Returns the number of aggregated metrics.
+     * 
+     * @return the number of aggregated metrics.
+     */
+    public int getAggregatedMetricCount() {
+        return this.aggregatedMetrics.length;
+    }
+
+    /**
+     * Returns an aggregated metric.
+     * 
+     * @param index
+     *            the index of the aggregated metric.
+     * @return the aggregated metric.
+     */
+    public NumericalBaseMetricDescription getAggregatedMetric(final int index) {
+        return this.aggregatedMetrics[index];
+    }
+
+    /**
+     * Returns the unit in which values of an aggregated metric are aggregated, i.e., its default
+     * unit.
+     * 
+     * @param index
+     *            the index of the aggregated metric.
+     * @return the unit.
+     */
+    public Unit<?> getUnit(final int index) {
+        return this.units[index];
+    }
+
+    /**
+     * Returns the quantiles being part of the snapshots.
+     * 
+     * @return a copy of the quantiles.
+     */
+    public double[] getQuantiles() {
+        return this.quantiles.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "StatisticsMetricSet [metricSetDescription=" + this.metricSetDescription.getName() + ", quantiles="
+                + Arrays.toString(this.quantiles) + "]";
+    }
+}
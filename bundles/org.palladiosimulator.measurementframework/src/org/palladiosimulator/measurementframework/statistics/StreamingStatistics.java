@@ -0,0 +1,190 @@
+package org.palladiosimulator.measurementframework.statistics;
+
+/**
+ * Summary statistics of a stream of values maintained in constant memory, i.e., count, mean and
+ * variance (using Welford's algorithm), minimum and maximum, and quantile estimates (using a
+ * {@link QuantileSketch}).
+ * 
+ * Statistics are not thread-safe.
+ * 
+ * @author agent
+ */
+public final class StreamingStatistics {
+
+    private final QuantileSketch quantileSketch;
+
+    private long count;
+
+    private double mean;
+
+    /** Sum of squared differences from the current mean. */
+    private double squaredDeviations;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    /**
+     * Constructor using a quantile sketch with default accuracy.
+     */
+    public StreamingStatistics() {
+        this(new QuantileSketch());
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param quantileSketch
+     *            the empty sketch used for estimating quantiles.
+     * @throws IllegalArgumentException
+     *             if the sketch is not empty.
+     */
+    public StreamingStatistics(final QuantileSketch quantileSketch) {
+        if (quantileSketch.getCount() != 0) {
+            throw new IllegalArgumentException("Quantile sketch has to be empty");
+        }
+        this.quantileSketch = quantileSketch;
+    }
+
+    /**
+     * Adds a value to these statistics.
+     * 
+     * @param value
+     *            the value to be added.
+     * @throws IllegalArgumentException
+     *             if the value is not a number.
+     */
+    public void add(final double value) {
+        this.quantileSketch.add(value);
+
+        this.count++;
+        final double delta = value - this.mean;
+        this.mean += delta / this.count;
+        this.squaredDeviations += delta * (value - this.mean);
+        if (this.count == 1) {
+            this.min = value;
+            this.max = value;
+        } else {
+            this.min = Math.min(this.min, value);
+            this.max = Math.max(this.max, value);
+        }
+    }
+
+    /**
+     * Adds all values of other statistics to these statistics.
+     * 
+     * @param other
+     *            the statistics to be merged into these statistics.
+     * @throws IllegalArgumentException
+     *             if the quantile sketches of both statistics are incompatible.
+     */
+    public void merge(final StreamingStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        this.quantileSketch.merge(other.quantileSketch);
+        if (this.count == 0) {
+            this.count = other.count;
+            this.mean = other.mean;
+            this.squaredDeviations = other.squaredDeviations;
+            this.min = other.min;
+            this.max = other.max;
+            return;
+        }
+
+        final long mergedCount = this.count + other.count;
+        final double delta = other.mean - this.mean;
+        this.mean += delta * other.count / mergedCount;
+        this.squaredDeviations += other.squaredDeviations
+                + delta * delta * ((double) this.count * other.count / mergedCount);
+        this.count = mergedCount;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Creates an independent copy of these statistics.
+     * 
+     * @return the copy.
+     */
+    public StreamingStatistics copy() {
+        final StreamingStatistics copy = new StreamingStatistics(this.quantileSketch.createEmpty());
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Returns the number of added values.
+     * 
+     * @return the number of values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the arithmetic mean of all added values.
+     * 
+     * @return the mean, or {@link Double#NaN} if no values were added.
+     */
+    public double getMean() {
+        return this.count == 0 ? Double.NaN : this.mean;
+    }
+
+    /**
+     * Returns the sample variance of all added values.
+     * 
+     * @return the sample variance, or {@link Double#NaN} if less than two values were added.
+     */
+    public double getVariance() {
+        return this.count < 2 ? Double.NaN : this.squaredDeviations / (this.count - 1);
+    }
+
+    /**
+     * Returns the sample standard deviation of all added values.
+     * 
+     * @return the sample standard deviation, or {@link Double#NaN} if less than two values were
+     *         added.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Returns the smallest added value.
+     * 
+     * @return the minimum, or {@link Double#NaN} if no values were added.
+     */
+    public double getMin() {
+        return this.min;
+    }
+
+    /**
+     * Returns the largest added value.
+     * 
+     * @return the maximum, or {@link Double#NaN} if no values were added.
+     */
+    public double getMax() {
+        return this.max;
+    }
+
+    /**
+     * Estimates the given quantile of all added values.
+     * 
+     * @param quantile
+     *            the quantile, e.g., 0.5 for the median.
+     * @return the estimated quantile, or {@link Double#NaN} if no values were added.
+     * @throws IllegalArgumentException
+     *             if the quantile is not in [0, 1].
+     * @see QuantileSketch#getQuantile(double)
+     */
+    public double getQuantile(final double quantile) {
+        return this.quantileSketch.getQuantile(quantile);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingStatistics [count=" + this.count + ", mean=" + getMean() + ", variance=" + getVariance()
+                + ", min=" + this.min + ", max=" + this.max + "]";
+    }
+}
@@ -0,0 +1,324 @@
+package org.palladiosimulator.measurementframework.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Listener aggregating point in time measurements, e.g., response time tuples, into time windows
+ * on their point in time. Window <i>k</i> covers the interval [<i>k</i> * slide, <i>k</i> * slide
+ * + length); windows are tumbling if slide and length are equal and sliding if the slide is
+ * shorter than the length. Each measurement contributes to the statistics of all windows covering
+ * its point in time.
+ * 
+ * The aggregator is a measurement source itself: once a window is complete, it informs its
+ * observers about one snapshot of the window's statistics at the end of the window (see
+ * {@link StatisticsMetricSet}). Measurements may arrive out of order within the allowed lateness,
+ * i.e., a window is complete as soon as a point in time later than its end plus the allowed
+ * lateness was seen. Measurements arriving after all their windows were completed are dropped.
+ * Windows without measurements are not emitted.
+ * 
+ * @author agent
+ */
+public class WindowedStatisticsAggregator extends MeasurementSource implements IMeasurementSourceListener {
+
+    private final StatisticsMetricSet snapshotMetrics;
+
+    /** Window length in the unit of the point in time metric. */
+    private final double windowLength;
+
+    /** Window slide in the unit of the point in time metric. */
+    private final double windowSlide;
+
+    /** Allowed lateness in the unit of the point in time metric. */
+    private final double allowedLateness;
+
+    /** Statistics of the open windows, keyed by window index; also used as lock. */
+    private final TreeMap<Long, StreamingStatistics[]> openWindows = new TreeMap<Long, StreamingStatistics[]>();
+
+    /** Index of the first window not completed yet. */
+    private long firstOpenWindow = Long.MIN_VALUE;
+
+    /** Latest point in time seen so far. */
+    private double latestPointInTime = Double.NEGATIVE_INFINITY;
+
+    /** Number of measurements dropped for arriving too late. */
+    private long lateMeasurements;
+
+    /**
+     * Values of the aggregated metrics of the measurement being aggregated; reused for each
+     * measurement and guarded by the lock of the open windows.
+     */
+    private final double[] values;
+
+    /**
+     * Constructor for tumbling windows without lateness, using default quantiles.
+     * 
+     * @param pointInTimeMetric
+     *            the point in time metric the windows are based on.
+     * @param aggregatedMetric
+     *            the metric to be aggregated.
+     * @param windowLength
+     *            the window length in the default unit of the point in time metric.
+     */
+    public WindowedStatisticsAggregator(final NumericalBaseMetricDescription pointInTimeMetric,
+            final NumericalBaseMetricDescription aggregatedMetric, final double windowLength) {
+        this(new StatisticsMetricSet(pointInTimeMetric, StatisticsMetricSet.DEFAULT_QUANTILES, aggregatedMetric),
+                windowLength, windowLength, 0.0d);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param snapshotMetrics
+     *            the metric set describing the aggregated metrics and the emitted snapshots; it
+     *            has to subsume the point in time metric the windows are based on.
+     * @param windowLength
+     *            the window length in the default unit of the point in time metric.
+     * @param windowSlide
+     *            the distance between the starts of two consecutive windows in the default unit of
+     *            the point in time metric; equal to the window length for tumbling windows.
+     * @param allowedLateness
+     *            the time a measurement may arrive after the latest point in time seen, in the
+     *            default unit of the point in time metric.
+     * @throws IllegalArgumentException
+     *             if the metric set has no point in time metric, the length or slide is not
+     *             positive, the slide exceeds the length, or the lateness is negative.
+     */
+    public WindowedStatisticsAggregator(final StatisticsMetricSet snapshotMetrics, final double windowLength,
+            final double windowSlide, final double allowedLateness) {
+        super(snapshotMetrics.getMetricSetDescription());
+        if (snapshotMetrics.getPointInTimeMetric() == null) {
+            throw new IllegalArgumentException("Windows require a point in time metric");
+        }
+        if (!(windowLength > 0.0d) || !(windowSlide > 0.0d) || windowSlide > windowLength) {
+            throw new IllegalArgumentException("Window slide has to be positive and at most the window length");
+        }
+        if (!(allowedLateness >= 0.0d)) {
+            throw new IllegalArgumentException("Allowed lateness must not be negative");
+        }
+        this.snapshotMetrics = snapshotMetrics;
+        this.windowLength = windowLength;
+        this.windowSlide = windowSlide;
+        this.allowedLateness = allowedLateness;
+        this.values = new double[snapshotMetrics.getAggregatedMetricCount()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        final List<TupleMeasurement> snapshots;
+        synchronized (this.openWindows) {
+            snapshots = aggregate(newMeasurement, null);
+        }
+        if (snapshots != null) {
+            notifyMeasurementSourceListener(snapshots);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * All measurements of the batch are aggregated at once; windows completed within the batch
+     * are emitted as one batch afterwards.
+     */
+    @Override
+    public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        List<TupleMeasurement> snapshots = null;
+        synchronized (this.openWindows) {
+            for (int i = 0; i < newMeasurements.size(); i++) {
+                snapshots = aggregate(newMeasurements.get(i), snapshots);
+            }
+        }
+        if (snapshots != null) {
+            notifyMeasurementSourceListener(snapshots);
+        }
+    }
+
+    /**
+     * Adds the given measurement to all open windows covering its point in time and completes
+     * the windows that cannot receive measurements anymore. Callers have to hold the lock of the
+     * open windows.
+     * 
+     * @param measurement
+     *            the measurement to be aggregated.
+     * @param snapshots
+     *            the list to which snapshots of completed windows are added, or <code>null</code>
+     *            if no window has been completed yet.
+     * @return the list of snapshots, created once the first window is completed.
+     */
+    private List<TupleMeasurement> aggregate(final MeasuringValue measurement,
+            final List<TupleMeasurement> snapshots) {
+        final double pointInTime = valueForMetric(measurement, this.snapshotMetrics.getPointInTimeMetric(),
+                this.snapshotMetrics.getPointInTimeUnit());
+        if (Double.isNaN(pointInTime)) {
+            return snapshots;
+        }
+        final double[] values = this.values;
+        boolean hasValues = false;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueForMetric(measurement, this.snapshotMetrics.getAggregatedMetric(i),
+                    this.snapshotMetrics.getUnit(i));
+            hasValues |= !Double.isNaN(values[i]);
+        }
+        if (!hasValues) {
+            return snapshots;
+        }
+
+        final long lastWindow = (long) Math.floor(pointInTime / this.windowSlide);
+        final long firstWindow = Math.max(this.firstOpenWindow,
+                (long) Math.floor((pointInTime - this.windowLength) / this.windowSlide) + 1);
+        if (firstWindow > lastWindow) {
+            this.lateMeasurements++;
+            return snapshots;
+        }
+        for (long window = firstWindow; window <= lastWindow; window++) {
+            StreamingStatistics[] statistics = this.openWindows.get(window);
+            if (statistics == null) {
+                statistics = new StreamingStatistics[values.length];
+                for (int i = 0; i < statistics.length; i++) {
+                    statistics[i] = new StreamingStatistics();
+                }
+                this.openWindows.put(window, statistics);
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!Double.isNaN(values[i])) {
+                    statistics[i].add(values[i]);
+                }
+            }
+        }
+
+        if (pointInTime > this.latestPointInTime) {
+            this.latestPointInTime = pointInTime;
+            final double watermark = pointInTime - this.allowedLateness;
+            final long completedWindows = (long) Math.floor((watermark - this.windowLength) / this.windowSlide) + 1;
+            return completeWindows(Math.max(this.firstOpenWindow, completedWindows), snapshots);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Completes all open windows with an index lower than the given index. Callers have to hold
+     * the lock of the open windows.
+     * 
+     * @param nextOpenWindow
+     *            the index of the first window to be kept open.
+     * @param snapshots
+     *            the list to which snapshots of completed windows are added, or <code>null</code>
+     *            if no window has been completed yet.
+     * @return the list of snapshots, created once the first window is completed.
+     */
+    private List<TupleMeasurement> completeWindows(final long nextOpenWindow,
+            final List<TupleMeasurement> snapshots) {
+        this.firstOpenWindow = nextOpenWindow;
+        List<TupleMeasurement> completedSnapshots = snapshots;
+        while (!this.openWindows.isEmpty() && this.openWindows.firstKey() < nextOpenWindow) {
+            final Map.Entry<Long, StreamingStatistics[]> window = this.openWindows.pollFirstEntry();
+            final double windowEnd = window.getKey() * this.windowSlide + this.windowLength;
+            if (completedSnapshots == null) {
+                completedSnapshots = new ArrayList<TupleMeasurement>();
+            }
+            completedSnapshots.add(this.snapshotMetrics.createSnapshot(windowEnd, window.getValue()));
+        }
+        return completedSnapshots;
+    }
+
+    /**
+     * Looks up the value of a metric via
+     * {@link MeasuringValue#doubleValueForMetric(MetricDescription, Unit)} without creating
+     * intermediate measurements.
+     * 
+     * @return the value in the given unit, or {@link Double#NaN} if the measurement does not
+     *         contain the metric.
+     */
+    private static double valueForMetric(final MeasuringValue measurement, final MetricDescription metric,
+            final Unit<?> unit) {
+        if (!measurement.containsMetric(metric)) {
+            return Double.NaN;
+        }
+        return measurement.doubleValueForMetric(metric, unit);
+    }
+
+    /**
+     * Completes all open windows regardless of the allowed lateness and informs observers about
+     * their snapshots. Measurements arriving afterwards are only aggregated into windows starting
+     * after the latest point in time seen so far.
+     */
+    public void flush() {
+        List<TupleMeasurement> snapshots = null;
+        synchronized (this.openWindows) {
+            if (!this.openWindows.isEmpty()) {
+                snapshots = completeWindows(Math.max(this.firstOpenWindow, this.openWindows.lastKey() + 1), null);
+            }
+        }
+        if (snapshots != null) {
+            notifyMeasurementSourceListener(snapshots);
+        }
+    }
+
+    /**
+     * Returns the number of windows currently open.
+     * 
+     * @return the number of open windows.
+     */
+    public int getOpenWindowCount() {
+        synchronized (this.openWindows) {
+            return this.openWindows.size();
+        }
+    }
+
+    /**
+     * Returns the number of measurements dropped because all their windows were already complete.
+     * 
+     * @return the number of late measurements.
+     */
+    public long getLateMeasurementCount() {
+        synchronized (this.openWindows) {
+            return this.lateMeasurements;
+        }
+    }
+
+    /**
+     * Returns the metric set describing the aggregated metrics and the emitted snapshots.
+     * 
+     * @return the snapshot metric set.
+     */
+    public StatisticsMetricSet getSnapshotMetrics() {
+        return this.snapshotMetrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Measurements are aggregated within the call-backs, i.e., they are not retained.
+     */
+    @Override
+    public boolean retainsMeasurements() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Completes all open windows and informs the own observers about being unregistered.
+     */
+    @Override
+    public void preUnregister() {
+        flush();
+        for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+            listener.preUnregister();
+        }
+    }
+}
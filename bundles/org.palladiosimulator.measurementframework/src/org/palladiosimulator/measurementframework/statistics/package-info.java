@@ -0,0 +1,10 @@
+/**
+ * This package provides listeners that aggregate measurements incrementally, e.g., into count,
+ * mean, variance, extrema, and quantiles of a metric. Aggregators are measurement sources
+ * themselves such that their statistics can be processed further within the pipes and filters
+ * chain of measurements. A {@link BatchMeansConfidenceListener} estimates a confidence interval of
+ * the steady-state mean of a metric, e.g., to stop simulation runs once it is precise enough.
+ * 
+ * @author agent
+ */
+package org.palladiosimulator.measurementframework.statistics;
@@ -0,0 +1,404 @@
+package org.palladiosimulator.measurementframework.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.IntegerNumberMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Read access to a trace file written by a {@link MeasurementTraceWriter}. The data blocks of the
+ * trace are memory-mapped, i.e., values are read from the file on demand and the trace does not
+ * need to fit into the heap. Measurements are accessible by row, either as primitive values or as
+ * {@link MeasuringValue} views that read their measures from the mapping when requested.
+ * 
+ * Traces with a point in time metric keep a sparse time index, i.e., the point in time of the
+ * first row of each block. Range queries by time use this index to find the block and a binary
+ * search within the block to find the row.
+ * 
+ * The trace covers the rows flushed before it was opened. Traces are safe for concurrent reads.
+ * 
+ * @author agent
+ */
+public final class MeasurementTrace implements Closeable {
+
+    /** Maximum size of a single mapped region. */
+    private static final long MAX_REGION_BYTES = 1L << 30;
+
+    /** Number of header bytes read for decoding the header. */
+    private static final int HEADER_READ_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+
+    private final TraceSchema schema;
+
+    private final long rowCount;
+
+    /** Mapped regions, each holding a fixed number of whole blocks. */
+    private final ByteBuffer[] regions;
+
+    /** Number of blocks per mapped region. */
+    private final long regionBlocks;
+
+    /** Point in time of the first row of each block; <code>null</code> without time index. */
+    private final double[] blockStartTimes;
+
+    /**
+     * Default constructor. Opens and maps the given trace file.
+     * 
+     * @param file
+     *            the trace file.
+     * @param metricResolver
+     *            the resolver of the ID of the stored metric; returns <code>null</code> for
+     *            unknown IDs.
+     * @throws IOException
+     *             if the file cannot be read, is not a trace, or does not match the resolved
+     *             metric.
+     */
+    public MeasurementTrace(final Path file, final Function<String, ? extends MetricDescription> metricResolver)
+            throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER_READ_BYTES, this.channel.size()));
+            while (header.hasRemaining() && this.channel.read(header, header.position()) >= 0) {
+                // read the header completely
+            }
+            header.flip();
+            this.schema = TraceSchema.decodeHeader(header, metricResolver);
+            this.rowCount = header.getLong(TraceSchema.ROW_COUNT_OFFSET);
+
+            final long blockCount = (this.rowCount + this.schema.blockRows - 1) / this.schema.blockRows;
+            if (this.rowCount < 0
+                    || this.channel.size() < this.schema.dataOffset + blockCount * this.schema.blockBytes) {
+                throw new IOException("Measurement trace is truncated");
+            }
+            this.regionBlocks = Math.max(1, MAX_REGION_BYTES / this.schema.blockBytes);
+            this.regions = new ByteBuffer[(int) ((blockCount + this.regionBlocks - 1) / this.regionBlocks)];
+            for (int i = 0; i < this.regions.length; i++) {
+                final long firstBlock = i * this.regionBlocks;
+                final long blocks = Math.min(this.regionBlocks, blockCount - firstBlock);
+                this.regions[i] = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                        this.schema.dataOffset + firstBlock * this.schema.blockBytes, blocks * this.schema.blockBytes)
+                        .order(TraceSchema.VALUE_ORDER);
+            }
+
+            if (this.schema.pointInTimeSlot >= 0) {
+                this.blockStartTimes = new double[(int) blockCount];
+                for (int i = 0; i < this.blockStartTimes.length; i++) {
+                    this.blockStartTimes[i] = pointInTimeAt(i * (long) this.schema.blockRows);
+                }
+            } else {
+                this.blockStartTimes = null;
+            }
+        } catch (final IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the raw value of a slot.
+     */
+    private long rawValueAt(final long row, final int slot) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + this.rowCount);
+        }
+        final long block = row / this.schema.blockRows;
+        final int rowInBlock = (int) (row - block * this.schema.blockRows);
+        final long blockInRegion = block % this.regionBlocks;
+        return this.regions[(int) (block / this.regionBlocks)].getLong(
+                (int) (blockInRegion * this.schema.blockBytes) + this.schema.offsetInBlock(rowInBlock, slot));
+    }
+
+    private double pointInTimeAt(final long row) {
+        return Double.longBitsToDouble(rawValueAt(row, this.schema.pointInTimeSlot));
+    }
+
+    /**
+     * Returns the value of a real or integer number slot.
+     * 
+     * @param row
+     *            the row.
+     * @param slot
+     *            the slot.
+     * @return the value in the unit of the slot.
+     * @throws IllegalArgumentException
+     *             if the slot holds identifiers.
+     */
+    public double doubleValueAt(final long row, final int slot) {
+        switch (this.schema.captureTypes[slot]) {
+        case REAL_NUMBER:
+            return Double.longBitsToDouble(rawValueAt(row, slot));
+        case INTEGER_NUMBER:
+            return rawValueAt(row, slot);
+        default:
+            throw new IllegalArgumentException("Slot " + slot + " does not hold numbers");
+        }
+    }
+
+    /**
+     * Returns the value of an integer number slot.
+     * 
+     * @param row
+     *            the row.
+     * @param slot
+     *            the slot.
+     * @return the value in the unit of the slot.
+     * @throws IllegalArgumentException
+     *             if the slot does not hold integer numbers.
+     */
+    public long longValueAt(final long row, final int slot) {
+        if (this.schema.captureTypes[slot] != CaptureType.INTEGER_NUMBER) {
+            throw new IllegalArgumentException("Slot " + slot + " does not hold integer numbers");
+        }
+        return rawValueAt(row, slot);
+    }
+
+    /**
+     * Returns the value of an identifier slot.
+     * 
+     * @param row
+     *            the row.
+     * @param slot
+     *            the slot.
+     * @return the identifier.
+     * @throws IllegalArgumentException
+     *             if the slot does not hold identifiers.
+     */
+    public Identifier identifierAt(final long row, final int slot) {
+        if (this.schema.captureTypes[slot] != CaptureType.IDENTIFIER) {
+            throw new IllegalArgumentException("Slot " + slot + " does not hold identifiers");
+        }
+        final long index = rawValueAt(row, slot);
+        return ((TextualBaseMetricDescription) this.schema.slotMetrics[slot]).getIdentifiers().get((int) index);
+    }
+
+    /**
+     * Creates the measure of a slot.
+     * 
+     * @param row
+     *            the row.
+     * @param slot
+     *            the slot.
+     * @return the measure in the unit of the slot.
+     */
+    @SuppressWarnings("unchecked")
+    public Measure<?, ?> measureAt(final long row, final int slot) {
+        final Unit<Quantity> unit = (Unit<Quantity>) this.schema.units[slot];
+        switch (this.schema.captureTypes[slot]) {
+        case REAL_NUMBER:
+            return Measure.valueOf(Double.longBitsToDouble(rawValueAt(row, slot)), unit);
+        case INTEGER_NUMBER:
+            return Measure.valueOf(rawValueAt(row, slot), unit);
+        default:
+            return IdentifierMeasure.valueOf(identifierAt(row, slot), unit);
+        }
+    }
+
+    /**
+     * Creates the basic measurement of a slot.
+     * 
+     * @param row
+     *            the row.
+     * @param slot
+     *            the slot.
+     * @return the basic measurement in the unit of the slot.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public BasicMeasurement<?, ?> basicMeasurementAt(final long row, final int slot) {
+        final Unit<Quantity> unit = (Unit<Quantity>) this.schema.units[slot];
+        final BaseMetricDescription metric = this.schema.slotMetrics[slot];
+        switch (this.schema.captureTypes[slot]) {
+        case REAL_NUMBER:
+            return new RealNumberMeasurement<Quantity>(Double.longBitsToDouble(rawValueAt(row, slot)), unit, metric);
+        case INTEGER_NUMBER:
+            return new IntegerNumberMeasurement<Quantity>(rawValueAt(row, slot), unit, metric);
+        default:
+            return new BasicMeasurement(measureAt(row, slot), metric);
+        }
+    }
+
+    /**
+     * Returns a view on the measurement of a row.
+     * 
+     * @param row
+     *            the row.
+     * @return the measurement view.
+     */
+    public TraceMeasurement getMeasurement(final long row) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + this.rowCount);
+        }
+        return new TraceMeasurement(this, row);
+    }
+
+    /**
+     * Returns a view on all rows of this trace.
+     * 
+     * @return the range of all rows.
+     */
+    public TraceRange getRange() {
+        return new TraceRange(this, 0, this.rowCount);
+    }
+
+    /**
+     * Returns a view on all rows with a point in time in the given interval.
+     * 
+     * @param fromPointInTime
+     *            the inclusive start of the interval, in the unit of the point in time metric.
+     * @param toPointInTime
+     *            the exclusive end of the interval, in the unit of the point in time metric.
+     * @return the range of rows.
+     * @throws IllegalStateException
+     *             if the trace has no point in time metric.
+     */
+    public TraceRange getRange(final double fromPointInTime, final double toPointInTime) {
+        final long firstRow = firstRowNotBefore(fromPointInTime);
+        final long endRow = Math.max(firstRow, firstRowNotBefore(toPointInTime));
+        return new TraceRange(this, firstRow, endRow);
+    }
+
+    /**
+     * Finds the first row with a point in time not before the given point in time.
+     * 
+     * @param pointInTime
+     *            the point in time, in the unit of the point in time metric.
+     * @return the first row not before the point in time, or the number of rows if there is none.
+     * @throws IllegalStateException
+     *             if the trace has no point in time metric.
+     */
+    public long firstRowNotBefore(final double pointInTime) {
+        if (this.blockStartTimes == null) {
+            throw new IllegalStateException("Trace of metric \"" + this.schema.metric.getName()
+                    + "\" has no point in time metric");
+        }
+        // first block starting at or after the point in time; the row lies within its predecessor
+        int low = 0;
+        int high = this.blockStartTimes.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (this.blockStartTimes[middle] < pointInTime) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        long firstRow = (low - 1) * (long) this.schema.blockRows;
+        long endRow = Math.min(this.rowCount, low * (long) this.schema.blockRows);
+        while (firstRow < endRow) {
+            final long middle = (firstRow + endRow) >>> 1;
+            if (pointInTimeAt(middle) < pointInTime) {
+                firstRow = middle + 1;
+            } else {
+                endRow = middle;
+            }
+        }
+        return firstRow;
+    }
+
+    /**
+     * Returns the slot of the given base metric.
+     * 
+     * @param metric
+     *            the base metric.
+     * @return the slot, or -1 if the metric is not stored.
+     */
+    public int slotOf(final MetricDescription metric) {
+        for (int i = 0; i < this.schema.slotMetrics.length; i++) {
+            if (this.schema.slotMetrics[i] == metric || this.schema.slotMetrics[i].getId().equals(metric.getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the stored metric.
+     * 
+     * @return the metric description.
+     */
+    public MetricDescription getMetricDescription() {
+        return this.schema.metric;
+    }
+
+    /**
+     * Returns the number of rows, i.e., measurements.
+     * 
+     * @return the number of rows.
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of slots, i.e., base metrics per row.
+     * 
+     * @return the number of slots.
+     */
+    public int getSlotCount() {
+        return this.schema.slotMetrics.length;
+    }
+
+    /**
+     * Returns the base metric of a slot.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the base metric.
+     */
+    public BaseMetricDescription getSlotMetric(final int slot) {
+        return this.schema.slotMetrics[slot];
+    }
+
+    /**
+     * Returns the unit of a slot, i.e., the default unit of its base metric.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the unit.
+     */
+    public Unit<?> getUnit(final int slot) {
+        return this.schema.units[slot];
+    }
+
+    /**
+     * Returns the slot of the point in time metric.
+     * 
+     * @return the slot, or -1 if the trace has no point in time metric.
+     */
+    public int getPointInTimeSlot() {
+        return this.schema.pointInTimeSlot;
+    }
+
+    /**
+     * Closes the trace file. Mapped regions are released once they are no longer referenced, i.e.,
+     * views must not be used after closing the trace.
+     * 
+     * @throws IOException
+     *             if closing the file fails.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,301 @@
+package org.palladiosimulator.measurementframework.trace;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Appends measurements of a single metric description to a trace file (see
+ * {@link MeasurementTrace} for reading). Values are converted to the default units of their
+ * metrics. If the trace has a point in time metric, measurements have to be appended in the order
+ * of their point in time, which allows for range queries by time.
+ * 
+ * Rows are buffered per block; a block is written once it is full, on {@link #flush()}, and on
+ * {@link #close()}. Writers are not thread-safe.
+ * 
+ * @author agent
+ */
+public final class MeasurementTraceWriter implements Closeable, Flushable {
+
+    /** Default number of rows per block. */
+    public static final int DEFAULT_BLOCK_ROWS = 8192;
+
+    private final FileChannel channel;
+
+    private final TraceSchema schema;
+
+    /** The current block in column-major order. */
+    private final ByteBuffer block;
+
+    /** Values of the row currently appended. */
+    private final long[] rowValues;
+
+    /** Identifier indices of identifier slots, created on demand. */
+    private final List<Map<Identifier, Integer>> identifierIndices;
+
+    private long rowCount;
+
+    private int rowsInBlock;
+
+    private long blockIndex;
+
+    private double latestPointInTime = Double.NEGATIVE_INFINITY;
+
+    private boolean closed;
+
+    /**
+     * Constructor using {@link #DEFAULT_BLOCK_ROWS}.
+     * 
+     * @param file
+     *            the trace file; an existing file is replaced.
+     * @param metric
+     *            the stored metric, either a base metric or a metric set only subsuming base
+     *            metrics.
+     * @param pointInTimeMetric
+     *            the point in time metric used for the time index, or <code>null</code> if the
+     *            trace has no time index.
+     * @throws IOException
+     *             if the file cannot be created.
+     */
+    public MeasurementTraceWriter(final Path file, final MetricDescription metric,
+            final MetricDescription pointInTimeMetric) throws IOException {
+        this(file, metric, pointInTimeMetric, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param file
+     *            the trace file; an existing file is replaced.
+     * @param metric
+     *            the stored metric, either a base metric or a metric set only subsuming base
+     *            metrics.
+     * @param pointInTimeMetric
+     *            the point in time metric used for the time index, or <code>null</code> if the
+     *            trace has no time index.
+     * @param blockRows
+     *            the number of rows per block.
+     * @throws IOException
+     *             if the file cannot be created.
+     * @throws IllegalArgumentException
+     *             if the metric is not supported, the point in time metric is not a real number
+     *             metric of the stored metric, or the number of rows per block is not positive or
+     *             too large.
+     */
+    public MeasurementTraceWriter(final Path file, final MetricDescription metric,
+            final MetricDescription pointInTimeMetric, final int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Number of rows per block has to be positive");
+        }
+        this.schema = new TraceSchema(metric, pointInTimeMetric, blockRows);
+        if (this.schema.blockBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Number of rows per block is too large");
+        }
+        this.block = ByteBuffer.allocate((int) this.schema.blockBytes).order(TraceSchema.VALUE_ORDER);
+        this.rowValues = new long[this.schema.slotMetrics.length];
+        this.identifierIndices = new ArrayList<Map<Identifier, Integer>>(
+                Collections.<Map<Identifier, Integer>> nCopies(this.schema.slotMetrics.length, null));
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        writeHeader();
+    }
+
+    /**
+     * Appends a measurement.
+     * 
+     * @param measurement
+     *            the measurement to be appended.
+     * @throws IOException
+     *             if writing to the file fails.
+     * @throws IllegalArgumentException
+     *             if the measurement does not match the stored metric or its point in time lies
+     *             before the point in time of the previous measurement.
+     */
+    public void append(final MeasuringValue measurement) throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("Trace writer is closed");
+        }
+        if (!measurement.getMetricDesciption().getId().equals(this.schema.metric.getId())) {
+            throw new IllegalArgumentException("Measurement of metric \""
+                    + measurement.getMetricDesciption().getName() + "\" does not match trace of metric \""
+                    + this.schema.metric.getName() + "\"");
+        }
+
+        if (measurement instanceof BasicMeasurement<?, ?>) {
+            this.rowValues[0] = valueOf((BasicMeasurement<?, ?>) measurement);
+        } else {
+            if (measurement.size() != this.rowValues.length) {
+                throw new IllegalArgumentException("Number of measures has to match the number of child metrics");
+            }
+            for (int slot = 0; slot < this.rowValues.length; slot++) {
+                this.rowValues[slot] = valueOf(slot, measurement.measureAt(slot));
+            }
+        }
+        if (this.schema.pointInTimeSlot >= 0) {
+            final double pointInTime = Double.longBitsToDouble(this.rowValues[this.schema.pointInTimeSlot]);
+            if (pointInTime < this.latestPointInTime) {
+                throw new IllegalArgumentException("Point in time " + pointInTime
+                        + " lies before the point in time of the previous measurement");
+            }
+            this.latestPointInTime = pointInTime;
+        }
+
+        for (int slot = 0; slot < this.rowValues.length; slot++) {
+            this.block.putLong(this.schema.offsetInBlock(this.rowsInBlock, slot), this.rowValues[slot]);
+        }
+        this.rowCount++;
+        if (++this.rowsInBlock == this.schema.blockRows) {
+            writeBlock();
+            this.blockIndex++;
+            this.rowsInBlock = 0;
+        }
+    }
+
+    /**
+     * Appends the given measurements in order.
+     * 
+     * @param measurements
+     *            the measurements to be appended.
+     * @throws IOException
+     *             if writing to the file fails.
+     */
+    public void append(final List<? extends MeasuringValue> measurements) throws IOException {
+        for (int i = 0; i < measurements.size(); i++) {
+            append(measurements.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private long valueOf(final BasicMeasurement<?, ?> measurement) {
+        final Unit<Quantity> unit = (Unit<Quantity>) this.schema.units[0];
+        final BasicMeasurement<?, Quantity> basicMeasurement = (BasicMeasurement<?, Quantity>) measurement;
+        switch (this.schema.captureTypes[0]) {
+        case REAL_NUMBER:
+            return Double.doubleToRawLongBits(basicMeasurement.doubleValue(unit));
+        case INTEGER_NUMBER:
+            return basicMeasurement.longValue(unit);
+        default:
+            return valueOf(0, basicMeasurement.getMeasure());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private long valueOf(final int slot, final Measure<?, ?> measure) {
+        final Unit<Quantity> unit = (Unit<Quantity>) this.schema.units[slot];
+        switch (this.schema.captureTypes[slot]) {
+        case REAL_NUMBER:
+            return Double.doubleToRawLongBits(((Measure<?, Quantity>) measure).doubleValue(unit));
+        case INTEGER_NUMBER:
+            return ((Measure<?, Quantity>) measure).longValue(unit);
+        default:
+            return identifierIndexOf(slot, measure.getValue());
+        }
+    }
+
+    private int identifierIndexOf(final int slot, final Object identifier) {
+        Map<Identifier, Integer> indices = this.identifierIndices.get(slot);
+        if (indices == null) {
+            indices = new IdentityHashMap<Identifier, Integer>();
+            final BaseMetricDescription metric = this.schema.slotMetrics[slot];
+            if (metric instanceof TextualBaseMetricDescription) {
+                final List<Identifier> identifiers = ((TextualBaseMetricDescription) metric).getIdentifiers();
+                for (int i = 0; i < identifiers.size(); i++) {
+                    indices.put(identifiers.get(i), i);
+                }
+            }
+            this.identifierIndices.set(slot, indices);
+        }
+        final Integer index = indices.get(identifier);
+        if (index == null) {
+            throw new IllegalArgumentException("Identifier " + identifier + " is not defined by metric \""
+                    + this.schema.slotMetrics[slot].getName() + "\"");
+        }
+        return index;
+    }
+
+    private void writeHeader() throws IOException {
+        final ByteBuffer header = this.schema.encodeHeader(this.rowCount);
+        while (header.hasRemaining()) {
+            this.channel.write(header, header.position());
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        this.block.clear();
+        final long position = this.schema.dataOffset + this.blockIndex * this.schema.blockBytes;
+        while (this.block.hasRemaining()) {
+            this.channel.write(this.block, position + this.block.position());
+        }
+    }
+
+    /**
+     * Returns the number of appended rows, i.e., measurements.
+     * 
+     * @return the number of rows.
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Writes the current, possibly incomplete block and the number of rows to the file. Traces
+     * opened afterwards include all measurements appended so far.
+     * 
+     * @throws IOException
+     *             if writing to the file fails.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("Trace writer is closed");
+        }
+        if (this.rowsInBlock > 0) {
+            writeBlock();
+        }
+        writeHeader();
+    }
+
+    /**
+     * Flushes the trace and closes the file.
+     * 
+     * @throws IOException
+     *             if writing to or closing the file fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            try {
+                flush();
+            } finally {
+                this.closed = true;
+                this.channel.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MeasurementTraceWriter [metric=" + this.schema.metric.getName() + ", rowCount=" + this.rowCount + "]";
+    }
+}
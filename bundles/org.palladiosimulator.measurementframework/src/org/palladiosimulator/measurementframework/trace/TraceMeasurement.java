@@ -0,0 +1,179 @@
+package org.palladiosimulator.measurementframework.trace;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.measure.UnitConversion;
+import org.palladiosimulator.measurementframework.measureprovider.MeasureListView;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * View on the measurement of a row of a {@link MeasurementTrace}. The view only references its
+ * trace and row; measures are created from the mapped trace when requested.
+ * 
+ * @author agent
+ */
+public final class TraceMeasurement extends MeasuringValue {
+
+    private final MeasurementTrace trace;
+
+    private final long row;
+
+    /**
+     * Default constructor.
+     * 
+     * @param trace
+     *            the trace.
+     * @param row
+     *            the row within the trace.
+     */
+    TraceMeasurement(final MeasurementTrace trace, final long row) {
+        super(trace.getMetricDescription());
+        this.trace = trace;
+        this.row = row;
+    }
+
+    /**
+     * Returns the trace of this measurement.
+     * 
+     * @return the trace.
+     */
+    public MeasurementTrace getTrace() {
+        return this.trace;
+    }
+
+    /**
+     * Returns the row of this measurement within its trace.
+     * 
+     * @return the row.
+     */
+    public long getRow() {
+        return this.row;
+    }
+
+    /**
+     * Returns the value of a real or integer number slot without creating a measure.
+     * 
+     * @param slot
+     *            the slot.
+     * @return the value in the unit of the slot.
+     * @see MeasurementTrace#doubleValueAt(long, int)
+     */
+    public double doubleValueAt(final int slot) {
+        return this.trace.doubleValueAt(this.row, slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Measure<?, ?>> asList() {
+        return new MeasureListView(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.trace.getSlotCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Measure<?, ?> measureAt(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return this.trace.measureAt(this.row, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachMeasure(final Consumer<? super Measure<?, ?>> consumer) {
+        for (int i = 0; i < size(); i++) {
+            consumer.accept(this.trace.measureAt(this.row, i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V, Q extends Quantity> Measure<V, Q> getMeasureForMetric(final MetricDescription wantedMetric) {
+        if (!(wantedMetric instanceof BaseMetricDescription)) {
+            throw new IllegalArgumentException("Only base metrics have measures attached.");
+        }
+        final int slot = this.trace.slotOf(wantedMetric);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Metric \"" + wantedMetric.getName() + "\" is not part of measurement");
+        }
+        return (Measure<V, Q>) this.trace.measureAt(this.row, slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValueForMetric(final MetricDescription wantedMetric, final Unit<?> unit) {
+        final int slot = wantedMetric instanceof BaseMetricDescription ? this.trace.slotOf(wantedMetric) : -1;
+        if (slot >= 0 && this.trace.getSlotMetric(slot) instanceof NumericalBaseMetricDescription) {
+            return UnitConversion.convert(this.trace.doubleValueAt(this.row, slot), this.trace.getUnit(slot), unit);
+        }
+        return super.doubleValueForMetric(wantedMetric, unit);
+    }
+
+    /**
+     * Returns this measuring value in case it conforms to the given metric description. For base
+     * metrics subsumed by the stored metric set, a basic measurement of the corresponding slot is
+     * created instead.
+     * 
+     * @param metricDesciption
+     *            the given metric description.
+     * @return this measuring value or the basic measurement if it conforms to the given metric
+     *         description, <code>null</code> otherwise.
+     */
+    @Override
+    public MeasuringValue getMeasuringValueForMetric(final MetricDescription metricDesciption) {
+        if (metricDesciption.getId().equals(getMetricDesciption().getId())) {
+            return this;
+        }
+        final int slot = this.trace.slotOf(metricDesciption);
+        return slot < 0 ? null : this.trace.basicMeasurementAt(this.row, slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Answers via the slots of the trace, i.e., without reading the stored value.
+     */
+    @Override
+    public boolean containsMetric(final MetricDescription metricDesciption) {
+        return metricDesciption.getId().equals(getMetricDesciption().getId())
+                || this.trace.slotOf(metricDesciption) >= 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("TraceMeasurement [");
+        for (int i = 0; i < size(); i++) {
+            sb.append(measureAt(i)).append(' ');
+        }
+        sb.deleteCharAt(sb.length() - 1);
+        sb.append(']');
+        return sb.toString();
+    }
+}
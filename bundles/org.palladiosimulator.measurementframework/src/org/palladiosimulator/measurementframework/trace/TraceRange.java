@@ -0,0 +1,144 @@
+package org.palladiosimulator.measurementframework.trace;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+
+/**
+ * View on a contiguous range of rows of a {@link MeasurementTrace}, e.g., the result of a range
+ * query by time. Measurements are provided as {@link TraceMeasurement} views; values can also be
+ * read as primitives without creating any views.
+ * 
+ * @author agent
+ */
+public final class TraceRange implements Iterable<MeasuringValue> {
+
+    private final MeasurementTrace trace;
+
+    private final long firstRow;
+
+    private final long endRow;
+
+    /**
+     * Default constructor.
+     * 
+     * @param trace
+     *            the trace.
+     * @param firstRow
+     *            the first row of the range.
+     * @param endRow
+     *            the row after the last row of the range.
+     */
+    TraceRange(final MeasurementTrace trace, final long firstRow, final long endRow) {
+        this.trace = trace;
+        this.firstRow = firstRow;
+        this.endRow = endRow;
+    }
+
+    /**
+     * Returns the number of rows within this range.
+     * 
+     * @return the number of rows.
+     */
+    public long size() {
+        return this.endRow - this.firstRow;
+    }
+
+    /**
+     * Returns whether this range is empty.
+     * 
+     * @return <code>true</code> if the range has no rows, <code>false</code> otherwise.
+     */
+    public boolean isEmpty() {
+        return this.endRow == this.firstRow;
+    }
+
+    /**
+     * Returns a view on the measurement at the given index within this range.
+     * 
+     * @param index
+     *            the index within this range.
+     * @return the measurement view.
+     */
+    public TraceMeasurement get(final long index) {
+        return this.trace.getMeasurement(rowOf(index));
+    }
+
+    /**
+     * Returns the value of a real or integer number slot at the given index within this range.
+     * 
+     * @param index
+     *            the index within this range.
+     * @param slot
+     *            the slot.
+     * @return the value in the unit of the slot.
+     * @see MeasurementTrace#doubleValueAt(long, int)
+     */
+    public double doubleValueAt(final long index, final int slot) {
+        return this.trace.doubleValueAt(rowOf(index), slot);
+    }
+
+    private long rowOf(final long index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return this.firstRow + index;
+    }
+
+    /**
+     * Returns the first row of this range within the trace.
+     * 
+     * @return the first row.
+     */
+    public long getFirstRow() {
+        return this.firstRow;
+    }
+
+    /**
+     * Returns the row after the last row of this range within the trace.
+     * 
+     * @return the end row.
+     */
+    public long getEndRow() {
+        return this.endRow;
+    }
+
+    /**
+     * Returns the trace of this range.
+     * 
+     * @return the trace.
+     */
+    public MeasurementTrace getTrace() {
+        return this.trace;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<MeasuringValue> iterator() {
+        return new Iterator<MeasuringValue>() {
+
+            private long row = TraceRange.this.firstRow;
+
+            @Override
+            public boolean hasNext() {
+                return this.row < TraceRange.this.endRow;
+            }
+
+            @Override
+            public MeasuringValue next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return TraceRange.this.trace.getMeasurement(this.row++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "TraceRange [firstRow=" + this.firstRow + ", endRow=" + this.endRow + "]";
+    }
+}
@@ -0,0 +1,357 @@
+package org.palladiosimulator.measurementframework.trace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+
+/**
+ * Measurement source replaying the measurements of a {@link MeasurementTrace} to its listeners,
+ * e.g., to benchmark or regression-test listener pipelines without a simulation run. Measurements
+ * are notified in batches of views on the trace, either as fast as possible or paced by their
+ * point in time measures.
+ * 
+ * The measurements of a single source are always notified in trace order by the replaying thread.
+ * Several sources, e.g., one per metric, can be replayed concurrently with
+ * {@link #replayPartitioned(Collection, int)} and {@link #replayPartitionedPaced(Collection, int,
+ * double)}.
+ * 
+ * @author agent
+ */
+public class TraceReplaySource extends MeasurementSource {
+
+    /** Default maximal number of measurements notified as one batch. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /** Paced replays park for at most this duration before checking the clock again. */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /** The replayed trace. */
+    private final MeasurementTrace trace;
+
+    /** Maximal number of measurements notified as one batch. */
+    private final int batchSize;
+
+    /** Converter of points in time to seconds; <code>null</code> if not available. */
+    private final UnitConverter pointInTimeConverter;
+
+    /** Number of measurements replayed so far. */
+    private final AtomicLong replayedMeasurements = new AtomicLong();
+
+    /**
+     * Constructor using {@link #DEFAULT_BATCH_SIZE}.
+     * 
+     * @param trace
+     *            the replayed trace.
+     */
+    public TraceReplaySource(final MeasurementTrace trace) {
+        this(trace, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param trace
+     *            the replayed trace.
+     * @param batchSize
+     *            maximal number of measurements notified as one batch; 1 notifies each measurement
+     *            on its own.
+     */
+    public TraceReplaySource(final MeasurementTrace trace, final int batchSize) {
+        super(trace.getMetricDescription());
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size has to be positive");
+        }
+        this.trace = trace;
+        this.batchSize = batchSize;
+        this.pointInTimeConverter = trace.getPointInTimeSlot() < 0 ? null
+                : toSecondsConverter(trace.getUnit(trace.getPointInTimeSlot()));
+    }
+
+    /**
+     * Replays all measurements of the trace as fast as possible.
+     * 
+     * @return the number of replayed measurements.
+     */
+    public long replay() {
+        return replay(this.trace.getRange());
+    }
+
+    /**
+     * Replays the measurements of the given range as fast as possible.
+     * 
+     * @param range
+     *            a range of the replayed trace, e.g., a range query by time.
+     * @return the number of replayed measurements.
+     */
+    public long replay(final TraceRange range) {
+        checkRange(range);
+        final List<MeasuringValue> batch = new ArrayList<MeasuringValue>(this.batchSize);
+        for (long row = range.getFirstRow(); row < range.getEndRow(); row++) {
+            batch.add(this.trace.getMeasurement(row));
+            if (batch.size() == this.batchSize) {
+                notifyBatch(batch);
+            }
+        }
+        notifyBatch(batch);
+        return range.size();
+    }
+
+    /**
+     * Replays all measurements of the trace paced by their point in time.
+     * 
+     * @param timeScale
+     *            the simulated seconds replayed per wall-clock second, e.g., 1 for real time.
+     * @return the number of replayed measurements.
+     * @throws InterruptedException
+     *             if the replaying thread is interrupted while waiting.
+     * @throws IllegalStateException
+     *             if the trace has no point in time metric.
+     */
+    public long replayPaced(final double timeScale) throws InterruptedException {
+        return replayPaced(this.trace.getRange(), timeScale);
+    }
+
+    /**
+     * Replays the measurements of the given range paced by their point in time. The first
+     * measurement of the range is notified immediately.
+     * 
+     * @param range
+     *            a range of the replayed trace, e.g., a range query by time.
+     * @param timeScale
+     *            the simulated seconds replayed per wall-clock second, e.g., 1 for real time.
+     * @return the number of replayed measurements.
+     * @throws InterruptedException
+     *             if the replaying thread is interrupted while waiting.
+     * @throws IllegalStateException
+     *             if the trace has no point in time metric.
+     */
+    public long replayPaced(final TraceRange range, final double timeScale) throws InterruptedException {
+        checkRange(range);
+        checkTimeScale(timeScale);
+        if (range.isEmpty()) {
+            return 0;
+        }
+        return replayPaced(range, timeScale, pointInTimeInSeconds(range.getFirstRow()), System.nanoTime());
+    }
+
+    /**
+     * Replays the measurements of the given range, notifying each measurement once the wall-clock
+     * time has reached its point in time relative to the given origin.
+     */
+    private long replayPaced(final TraceRange range, final double timeScale, final double originPointInTime,
+            final long originNanos) throws InterruptedException {
+        final List<MeasuringValue> batch = new ArrayList<MeasuringValue>(this.batchSize);
+        long row = range.getFirstRow();
+        while (row < range.getEndRow()) {
+            waitUntil(dueNanos(row, timeScale, originPointInTime, originNanos));
+            // notify the measurements already due together
+            final long now = System.nanoTime();
+            do {
+                batch.add(this.trace.getMeasurement(row++));
+            } while (row < range.getEndRow() && batch.size() < this.batchSize
+                    && dueNanos(row, timeScale, originPointInTime, originNanos) - now <= 0);
+            notifyBatch(batch);
+        }
+        return range.size();
+    }
+
+    private long dueNanos(final long row, final double timeScale, final double originPointInTime,
+            final long originNanos) {
+        return originNanos
+                + (long) ((pointInTimeInSeconds(row) - originPointInTime) / timeScale * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void waitUntil(final long dueNanos) throws InterruptedException {
+        long remainingNanos;
+        while ((remainingNanos = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(remainingNanos, MAX_PARK_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Returns the point in time of the given row in seconds.
+     */
+    private double pointInTimeInSeconds(final long row) {
+        if (this.pointInTimeConverter == null) {
+            throw new IllegalStateException("Trace of metric \"" + this.trace.getMetricDescription().getName()
+                    + "\" has no point in time metric measured in units of time");
+        }
+        return this.pointInTimeConverter.convert(this.trace.doubleValueAt(row, this.trace.getPointInTimeSlot()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UnitConverter toSecondsConverter(final Unit<?> unit) {
+        try {
+            return ((Unit<Quantity>) unit).getConverterTo((Unit<Quantity>) (Unit<?>) SI.SECOND);
+        } catch (final ConversionException e) {
+            return null;
+        }
+    }
+
+    private void notifyBatch(final List<MeasuringValue> batch) {
+        if (batch.size() == 1) {
+            notifyMeasurementSourceListener(batch.get(0));
+        } else {
+            notifyMeasurementSourceListener(batch);
+        }
+        this.replayedMeasurements.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    private void checkRange(final TraceRange range) {
+        if (range.getTrace() != this.trace) {
+            throw new IllegalArgumentException("Range is not part of the replayed trace");
+        }
+    }
+
+    private static void checkTimeScale(final double timeScale) {
+        if (!(timeScale > 0) || Double.isInfinite(timeScale)) {
+            throw new IllegalArgumentException("Time scale has to be positive and finite");
+        }
+    }
+
+    /**
+     * Returns the replayed trace.
+     * 
+     * @return the trace.
+     */
+    public MeasurementTrace getTrace() {
+        return this.trace;
+    }
+
+    /**
+     * Returns the number of measurements replayed so far, summed over all replays.
+     * 
+     * @return the number of replayed measurements.
+     */
+    public long getReplayedMeasurementCount() {
+        return this.replayedMeasurements.get();
+    }
+
+    /**
+     * Replays all measurements of the given sources as fast as possible, using up to the given
+     * number of threads. Each source is replayed by a single thread, i.e., the measurements of a
+     * source keep their order while different sources, e.g., of different metrics, are replayed
+     * concurrently. Listeners registered at several sources have to be thread-safe.
+     * 
+     * @param sources
+     *            the replayed sources.
+     * @param threads
+     *            the maximal number of replaying threads.
+     * @return the number of replayed measurements.
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting for the replays.
+     */
+    public static long replayPartitioned(final Collection<? extends TraceReplaySource> sources, final int threads)
+            throws InterruptedException {
+        final List<PartitionReplay> partitions = new ArrayList<PartitionReplay>(sources.size());
+        for (final TraceReplaySource source : sources) {
+            partitions.add(source::replay);
+        }
+        return replayPartitions(partitions, threads);
+    }
+
+    /**
+     * Replays all measurements of the given sources paced by their point in time, using up to the
+     * given number of threads. All sources share the same clock, starting at the earliest point in
+     * time of all traces, so that measurements of different sources are notified in the order of
+     * their points in time. Each source is replayed by a single thread; replays only stay in time
+     * if each source gets a thread of its own.
+     * 
+     * @param sources
+     *            the replayed sources.
+     * @param threads
+     *            the maximal number of replaying threads.
+     * @param timeScale
+     *            the simulated seconds replayed per wall-clock second, e.g., 1 for real time.
+     * @return the number of replayed measurements.
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting for the replays.
+     * @throws IllegalStateException
+     *             if a trace has no point in time metric.
+     */
+    public static long replayPartitionedPaced(final Collection<? extends TraceReplaySource> sources,
+            final int threads, final double timeScale) throws InterruptedException {
+        checkTimeScale(timeScale);
+        double originPointInTime = Double.POSITIVE_INFINITY;
+        for (final TraceReplaySource source : sources) {
+            if (source.trace.getRowCount() > 0) {
+                originPointInTime = Math.min(originPointInTime, source.pointInTimeInSeconds(0));
+            }
+        }
+        final double origin = originPointInTime;
+        final long originNanos = System.nanoTime();
+        final List<PartitionReplay> partitions = new ArrayList<PartitionReplay>(sources.size());
+        for (final TraceReplaySource source : sources) {
+            partitions.add(() -> source.replayPaced(source.trace.getRange(), timeScale, origin, originNanos));
+        }
+        return replayPartitions(partitions, threads);
+    }
+
+    /**
+     * Replay of a single partition, i.e., source.
+     */
+    private interface PartitionReplay {
+
+        long replay() throws InterruptedException;
+    }
+
+    private static long replayPartitions(final List<PartitionReplay> partitions, final int threads)
+            throws InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads has to be positive");
+        }
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, partitions.size()),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "Measurement replay");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            final List<Future<Long>> replays = new ArrayList<Future<Long>>(partitions.size());
+            for (final PartitionReplay partition : partitions) {
+                replays.add(executor.submit(partition::replay));
+            }
+            long replayedMeasurements = 0;
+            for (final Future<Long> replay : replays) {
+                try {
+                    replayedMeasurements += replay.get();
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException("Replay failed", cause);
+                }
+            }
+            return replayedMeasurements;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.palladiosimulator.measurementframework.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Structure and file format of a measurement trace.
+ * 
+ * A trace file starts with a header, followed by data blocks at {@link #dataOffset}. The header
+ * holds the magic number, the format version, the number of rows, the number of rows per block,
+ * the slot of the point in time metric, the ID of the stored metric, and the capture type and unit
+ * of each slot. Each slot is a base metric, i.e., the metric itself or a metric subsumed by the
+ * stored metric set. Values are stored in the default unit of their metric.
+ * 
+ * Each block holds {@link #blockRows} rows in column-major order, i.e., one fixed-width column of
+ * 8 byte little-endian values per slot: raw bits of real numbers, integer numbers, or the index of
+ * identifiers within their textual metric.
+ * 
+ * @author agent
+ */
+final class TraceSchema {
+
+    /** Magic number at the start of each trace ("PMT" and format generation 1). */
+    static final int MAGIC = 0x504D5431;
+
+    /** Version of the format. */
+    static final int VERSION = 1;
+
+    /** Offset of the row count within the header. */
+    static final int ROW_COUNT_OFFSET = 8;
+
+    /** Byte order of values. */
+    static final ByteOrder VALUE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Width of a value in bytes. */
+    static final int VALUE_BYTES = 8;
+
+    /** Alignment of the data offset, i.e., a common page size. */
+    private static final int DATA_ALIGNMENT = 4096;
+
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    /** The stored metric. */
+    final MetricDescription metric;
+
+    /** Base metrics, one per slot. */
+    final BaseMetricDescription[] slotMetrics;
+
+    /** Capture types, one per slot. */
+    final CaptureType[] captureTypes;
+
+    /** Units, one per slot. */
+    final Unit<?>[] units;
+
+    /** Slot of the point in time metric; -1 if there is none. */
+    final int pointInTimeSlot;
+
+    /** Number of rows per block. */
+    final int blockRows;
+
+    /** Size of a block in bytes. */
+    final long blockBytes;
+
+    /** Offset of the first block within the file. */
+    final long dataOffset;
+
+    /**
+     * Creates the schema of a new trace.
+     * 
+     * @param metric
+     *            the stored metric, either a base metric or a metric set only subsuming base
+     *            metrics.
+     * @param pointInTimeMetric
+     *            the point in time metric, or <code>null</code> if the trace has no time index.
+     * @param blockRows
+     *            the number of rows per block.
+     * @throws IllegalArgumentException
+     *             if the metric is not supported or the point in time metric is not a real number
+     *             slot of the metric.
+     */
+    TraceSchema(final MetricDescription metric, final MetricDescription pointInTimeMetric, final int blockRows) {
+        this.metric = metric;
+        this.slotMetrics = slotMetricsOf(metric);
+        this.captureTypes = new CaptureType[this.slotMetrics.length];
+        this.units = new Unit<?>[this.slotMetrics.length];
+        int timeSlot = -1;
+        for (int i = 0; i < this.slotMetrics.length; i++) {
+            this.captureTypes[i] = this.slotMetrics[i].getCaptureType();
+            this.units[i] = defaultUnitOf(this.slotMetrics[i]);
+            if (pointInTimeMetric != null && this.slotMetrics[i].getId().equals(pointInTimeMetric.getId())) {
+                timeSlot = i;
+            }
+        }
+        if (pointInTimeMetric != null
+                && (timeSlot < 0 || this.captureTypes[timeSlot] != CaptureType.REAL_NUMBER)) {
+            throw new IllegalArgumentException("Point in time metric \"" + pointInTimeMetric.getName()
+                    + "\" is not a real number metric of metric \"" + metric.getName() + "\"");
+        }
+        this.pointInTimeSlot = timeSlot;
+        this.blockRows = blockRows;
+        this.blockBytes = (long) blockRows * this.slotMetrics.length * VALUE_BYTES;
+        this.dataOffset = align(encodeHeader(0).remaining());
+    }
+
+    /**
+     * Creates the schema of an existing trace from its header.
+     */
+    private TraceSchema(final MetricDescription metric, final int pointInTimeSlot, final int blockRows,
+            final long dataOffset) {
+        this.metric = metric;
+        this.slotMetrics = slotMetricsOf(metric);
+        this.captureTypes = new CaptureType[this.slotMetrics.length];
+        this.units = new Unit<?>[this.slotMetrics.length];
+        for (int i = 0; i < this.slotMetrics.length; i++) {
+            this.captureTypes[i] = this.slotMetrics[i].getCaptureType();
+            this.units[i] = defaultUnitOf(this.slotMetrics[i]);
+        }
+        this.pointInTimeSlot = pointInTimeSlot;
+        this.blockRows = blockRows;
+        this.blockBytes = (long) blockRows * this.slotMetrics.length * VALUE_BYTES;
+        this.dataOffset = dataOffset;
+    }
+
+    private static BaseMetricDescription[] slotMetricsOf(final MetricDescription metric) {
+        if (metric instanceof BaseMetricDescription) {
+            return new BaseMetricDescription[] { (BaseMetricDescription) metric };
+        } else if (metric instanceof MetricSetDescription) {
+            final List<MetricDescription> subsumedMetrics = ((MetricSetDescription) metric).getSubsumedMetrics();
+            final BaseMetricDescription[] result = new BaseMetricDescription[subsumedMetrics.size()];
+            for (int i = 0; i < result.length; i++) {
+                if (!(subsumedMetrics.get(i) instanceof BaseMetricDescription)) {
+                    throw new IllegalArgumentException(
+                            "Traces do not support nested metric set \"" + metric.getName() + "\"");
+                }
+                result[i] = (BaseMetricDescription) subsumedMetrics.get(i);
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("Unsupported type of Metric Description");
+    }
+
+    private static Unit<?> defaultUnitOf(final BaseMetricDescription metric) {
+        if (metric instanceof NumericalBaseMetricDescription
+                && ((NumericalBaseMetricDescription) metric).getDefaultUnit() != null) {
+            return ((NumericalBaseMetricDescription) metric).getDefaultUnit();
+        }
+        return Unit.ONE;
+    }
+
+    private static long align(final long offset) {
+        return (offset + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+    }
+
+    /**
+     * Encodes the header of a trace with the given number of rows.
+     * 
+     * @param rowCount
+     *            the number of rows.
+     * @return the encoded header, ready to be written.
+     */
+    ByteBuffer encodeHeader(final long rowCount) {
+        final byte[] id = this.metric.getId().getBytes(CHARSET);
+        final byte[][] unitTexts = new byte[this.units.length][];
+        int size = 40 + id.length;
+        for (int i = 0; i < this.units.length; i++) {
+            unitTexts[i] = this.units[i].toString().getBytes(CHARSET);
+            size += 5 + unitTexts[i].length;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(size);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(rowCount);
+        header.putInt(this.blockRows);
+        header.putInt(this.slotMetrics.length);
+        header.putInt(this.pointInTimeSlot);
+        header.putLong(this.dataOffset);
+        header.putInt(id.length);
+        header.put(id);
+        for (int i = 0; i < this.units.length; i++) {
+            header.put((byte) this.captureTypes[i].ordinal());
+            header.putInt(unitTexts[i].length);
+            header.put(unitTexts[i]);
+        }
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Decodes the header of a trace.
+     * 
+     * @param header
+     *            the buffer holding the header.
+     * @param metricResolver
+     *            the resolver of the stored metric; returns <code>null</code> for unknown IDs.
+     * @return the schema of the trace; the number of rows remains within the header.
+     * @throws IOException
+     *             if the header is malformed or does not match the resolved metric.
+     */
+    static TraceSchema decodeHeader(final ByteBuffer header,
+            final Function<String, ? extends MetricDescription> metricResolver) throws IOException {
+        try {
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a measurement trace");
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of measurement trace");
+            }
+            header.getLong();
+            final int blockRows = header.getInt();
+            final int slotCount = header.getInt();
+            final int pointInTimeSlot = header.getInt();
+            final long dataOffset = header.getLong();
+            final String id = getString(header);
+            final MetricDescription metric = metricResolver.apply(id);
+            if (metric == null) {
+                throw new IOException("Unknown metric ID \"" + id + "\"");
+            }
+
+            final TraceSchema schema;
+            try {
+                schema = new TraceSchema(metric, pointInTimeSlot, blockRows, dataOffset);
+            } catch (final IllegalArgumentException e) {
+                throw new IOException("Trace does not match metric \"" + metric.getName() + "\"", e);
+            }
+            if (blockRows <= 0 || slotCount != schema.slotMetrics.length || pointInTimeSlot >= slotCount) {
+                throw new IOException("Trace does not match metric \"" + metric.getName() + "\"");
+            }
+            for (int i = 0; i < slotCount; i++) {
+                final int captureType = header.get();
+                final String unit = getString(header);
+                if (captureType != schema.captureTypes[i].ordinal() || !unit.equals(schema.units[i].toString())) {
+                    throw new IOException("Slot " + i + " of trace does not match metric \"" + metric.getName()
+                            + "\"");
+                }
+            }
+            return schema;
+        } catch (final RuntimeException e) {
+            throw new IOException("Malformed measurement trace header", e);
+        }
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Returns the offset of a value within its block.
+     * 
+     * @param rowInBlock
+     *            the row within the block.
+     * @param slot
+     *            the slot.
+     * @return the offset in bytes.
+     */
+    int offsetInBlock(final int rowInBlock, final int slot) {
+        return (slot * this.blockRows + rowInBlock) * VALUE_BYTES;
+    }
+}
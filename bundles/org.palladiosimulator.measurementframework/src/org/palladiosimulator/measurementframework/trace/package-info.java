@@ -0,0 +1,11 @@
+/**
+ * This package provides measurement traces, i.e., files storing the measurements of a single
+ * metric description in fixed-width columns. Traces are written by a
+ * {@link MeasurementTraceWriter} and read via memory mapping by a {@link MeasurementTrace}, which
+ * offers random access to measurements by row and by point in time without loading the trace into
+ * the heap. A {@link TraceReplaySource} replays traces to measurement source listeners, either as
+ * fast as possible or paced by the points in time of the measurements.
+ * 
+ * @author agent
+ */
+package org.palladiosimulator.measurementframework.trace;
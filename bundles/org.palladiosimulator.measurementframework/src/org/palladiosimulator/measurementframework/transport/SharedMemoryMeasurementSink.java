@@ -0,0 +1,172 @@
+package org.palladiosimulator.measurementframework.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.codec.MeasurementWriter;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+
+/**
+ * Listener passing the notified measurements to another process on the same machine via a
+ * shared memory ring file (see {@link SharedMemoryMeasurementSource} for the receiving side).
+ * Measurements are encoded in the binary measurement format of the
+ * {@link org.palladiosimulator.measurementframework.codec} package, i.e., metric descriptions are
+ * referenced by their IDs. Each call-back writes its measurements to the ring at once, so that
+ * the receiving side sees them without further delay; batches are written as a whole.
+ * 
+ * If the ring is full, call-backs wait for the receiving side to catch up. On
+ * {@link #preUnregister()} and on {@link #close()}, the end of the stream is marked; measurements
+ * notified afterwards are rejected. Hence, a sink is registered at a single source, whose metric
+ * description is the one the receiving side resolves metric IDs with. Call-backs are synchronized
+ * with closing the sink; the sink is the single producer of its ring.
+ * 
+ * @author agent
+ */
+public class SharedMemoryMeasurementSink implements IMeasurementSourceListener, Closeable {
+
+    /** Default capacity of the ring in bytes. */
+    public static final int DEFAULT_CAPACITY = 1 << 22;
+
+    private final SharedMemoryRing ring;
+
+    private final MeasurementWriter writer;
+
+    /** Whether the end of the stream has been marked. */
+    private boolean closed;
+
+    /**
+     * Constructor using a ring of {@link #DEFAULT_CAPACITY}.
+     * 
+     * @param file
+     *            the ring file, preferably on a memory file system; an existing file is replaced.
+     * @throws IOException
+     *             if the file cannot be created or mapped.
+     */
+    public SharedMemoryMeasurementSink(final Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Default constructor. Creates the ring file, which has to exist before the receiving side
+     * opens it.
+     * 
+     * @param file
+     *            the ring file, preferably on a memory file system; an existing file is replaced.
+     * @param capacity
+     *            the capacity of the ring in bytes, a power of two of at least 4096 bytes.
+     * @throws IOException
+     *             if the file cannot be created or mapped.
+     * @throws IllegalArgumentException
+     *             if the capacity is not supported.
+     */
+    public SharedMemoryMeasurementSink(final Path file, final int capacity) throws IOException {
+        this.ring = SharedMemoryRing.create(file, capacity);
+        this.writer = new MeasurementWriter(this.ring);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws UncheckedIOException
+     *             if writing to the ring fails, e.g., because the receiving side closed it.
+     * @throws IllegalStateException
+     *             if the sink has been closed or unregistered.
+     */
+    @Override
+    public synchronized void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+        checkOpen();
+        try {
+            this.writer.write(newMeasurement);
+            this.writer.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws UncheckedIOException
+     *             if writing to the ring fails, e.g., because the receiving side closed it.
+     * @throws IllegalStateException
+     *             if the sink has been closed or unregistered.
+     */
+    @Override
+    public synchronized void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+        checkOpen();
+        try {
+            this.writer.write(newMeasurements);
+            this.writer.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Shared memory sink is closed; the end of the stream has been marked");
+        }
+    }
+
+    /**
+     * Returns the number of measurements written to the ring.
+     * 
+     * @return the number of measurements.
+     */
+    public synchronized long getMeasurementCount() {
+        return this.writer.getMeasurementCount();
+    }
+
+    /**
+     * Returns the number of bytes written to the ring but not read by the receiving side yet.
+     * 
+     * @return the number of buffered bytes.
+     */
+    public int getBufferedBytes() {
+        return this.ring.getBufferedBytes();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Measurements are encoded within the call-backs, i.e., they are not retained.
+     */
+    @Override
+    public boolean retainsMeasurements() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Marks the end of the stream.
+     * 
+     * @throws UncheckedIOException
+     *             if closing the ring fails.
+     */
+    @Override
+    public void preUnregister() {
+        try {
+            close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Marks the end of the stream and closes the ring file. Measurements notified afterwards are
+     * rejected with an {@link IllegalStateException}. Has no effect if the sink is closed already.
+     * 
+     * @throws IOException
+     *             if closing the ring fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.closed = true;
+        this.writer.close();
+    }
+}
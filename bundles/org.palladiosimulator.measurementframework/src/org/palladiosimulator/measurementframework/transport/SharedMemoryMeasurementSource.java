@@ -0,0 +1,194 @@
+package org.palladiosimulator.measurementframework.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.codec.MeasurementReader;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+
+/**
+ * Measurement source re-publishing the measurements a {@link SharedMemoryMeasurementSink} in
+ * another process on the same machine writes to a shared memory ring file. Metric descriptions
+ * are resolved by their IDs, either within the metric description of the source, i.e., the metric
+ * description of the source the sink is registered at, or by a given resolver. Measurements of
+ * other metrics end {@link #receive()} with an {@link IOException}.
+ * 
+ * {@link #receive()} reads measurements until the end of the stream and notifies observers in
+ * batches of the measurements available at once, up to the batch size; a measurement is passed
+ * on as soon as no further one is available. At the end of the stream, observers are informed
+ * about being unregistered. The source is the single consumer of its ring.
+ * 
+ * @author agent
+ */
+public class SharedMemoryMeasurementSource extends MeasurementSource implements Closeable {
+
+    /** Default maximal number of measurements per notified batch. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final SharedMemoryRing ring;
+
+    private final Function<String, ? extends MetricDescription> metricResolver;
+
+    private final int batchSize;
+
+    private final List<MeasuringValue> batch;
+
+    private final AtomicLong receivedMeasurements = new AtomicLong();
+
+    /**
+     * Constructor resolving metric IDs within the given metric description, including the metrics
+     * subsumed by a metric set, and using {@link #DEFAULT_BATCH_SIZE}.
+     * 
+     * @param file
+     *            the ring file created by the sink.
+     * @param metricDescription
+     *            the metric description of the received measurements.
+     * @throws IOException
+     *             if the file cannot be opened or is not a ring file.
+     */
+    public SharedMemoryMeasurementSource(final Path file, final MetricDescription metricDescription)
+            throws IOException {
+        this(file, metricDescription, metricsById(metricDescription)::get, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Default constructor.
+     * 
+     * @param file
+     *            the ring file created by the sink.
+     * @param metricDescription
+     *            the metric description of the received measurements.
+     * @param metricResolver
+     *            the resolver of metric IDs; returns <code>null</code> for unknown IDs.
+     * @param batchSize
+     *            the maximal number of measurements per notified batch.
+     * @throws IOException
+     *             if the file cannot be opened or is not a ring file.
+     * @throws IllegalArgumentException
+     *             if the batch size is not positive.
+     */
+    public SharedMemoryMeasurementSource(final Path file, final MetricDescription metricDescription,
+            final Function<String, ? extends MetricDescription> metricResolver, final int batchSize)
+            throws IOException {
+        super(metricDescription);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size has to be positive");
+        }
+        this.metricResolver = metricResolver;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<MeasuringValue>(batchSize);
+        this.ring = SharedMemoryRing.open(file);
+        this.ring.setIdleHandler(this::notifyBatch);
+    }
+
+    private static Map<String, MetricDescription> metricsById(final MetricDescription metricDescription) {
+        final Map<String, MetricDescription> result = new HashMap<String, MetricDescription>();
+        addMetric(metricDescription, result);
+        return result;
+    }
+
+    private static void addMetric(final MetricDescription metricDescription,
+            final Map<String, MetricDescription> result) {
+        result.put(metricDescription.getId(), metricDescription);
+        if (metricDescription instanceof MetricSetDescription) {
+            for (final MetricDescription subsumedMetric : ((MetricSetDescription) metricDescription)
+                    .getSubsumedMetrics()) {
+                addMetric(subsumedMetric, result);
+            }
+        }
+    }
+
+    /**
+     * Receives measurements and notifies observers until the sink marks the end of the stream or
+     * the source is closed. Observers are informed about being unregistered at the end of the
+     * stream.
+     * 
+     * @return the number of received measurements.
+     * @throws IOException
+     *             if reading from the ring fails, the stream is malformed, or the thread was
+     *             interrupted while waiting for measurements.
+     */
+    public long receive() throws IOException {
+        final long start = this.receivedMeasurements.get();
+        try {
+            final MeasurementReader reader = new MeasurementReader(this.ring, this.metricResolver);
+            MeasuringValue measurement;
+            while ((measurement = reader.read()) != null) {
+                this.batch.add(measurement);
+                if (this.batch.size() == this.batchSize) {
+                    notifyBatch();
+                }
+            }
+        } catch (final IOException e) {
+            if (this.ring.isOpen()) {
+                throw e;
+            }
+            // closed before the sink wrote the stream header
+        } finally {
+            notifyBatch();
+        }
+        for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+            listener.preUnregister();
+        }
+        return this.receivedMeasurements.get() - start;
+    }
+
+    private void notifyBatch() {
+        if (this.batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (this.batch.size() == 1) {
+                notifyMeasurementSourceListener(this.batch.get(0));
+            } else {
+                notifyMeasurementSourceListener(
+                        Collections.unmodifiableList(new ArrayList<MeasuringValue>(this.batch)));
+            }
+        } finally {
+            this.receivedMeasurements.addAndGet(this.batch.size());
+            this.batch.clear();
+        }
+    }
+
+    /**
+     * Returns the number of measurements received and notified so far.
+     * 
+     * @return the number of received measurements.
+     */
+    public long getReceivedMeasurementCount() {
+        return this.receivedMeasurements.get();
+    }
+
+    /**
+     * Returns the number of bytes written by the sink but not received yet.
+     * 
+     * @return the number of buffered bytes.
+     */
+    public int getBufferedBytes() {
+        return this.ring.getBufferedBytes();
+    }
+
+    /**
+     * Closes the ring file. A concurrent {@link #receive()} ends once it read the measurements
+     * available at once; a sink waiting for free space fails.
+     * 
+     * @throws IOException
+     *             if closing the ring fails.
+     */
+    @Override
+    public void close() throws IOException {
+        this.ring.close();
+    }
+}
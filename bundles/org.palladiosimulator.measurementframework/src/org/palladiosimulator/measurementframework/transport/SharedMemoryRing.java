@@ -0,0 +1,354 @@
+package org.palladiosimulator.measurementframework.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer/single-consumer byte ring within a memory-mapped file, shared by two processes
+ * on the same machine. Placing the file on a memory file system, e.g., <code>/dev/shm</code> on
+ * Linux, keeps the ring off the disk entirely.
+ * 
+ * The file starts with a header page holding the magic number, the format version, and the
+ * capacity, followed by the positions of producer and consumer on separate cache lines and the
+ * data area of the given capacity. Positions count the bytes written and read so far; the
+ * producer publishes written bytes by a release store of its position, and the consumer frees
+ * read bytes by a release store of its position. Waiting sides spin briefly, then yield, and
+ * finally park for short intervals.
+ * 
+ * Each instance takes one role: the producer may only write and the consumer may only read.
+ * Closing the producer ends the stream for the consumer once it read the remaining bytes; closing
+ * the consumer makes pending and further writes of the producer fail.
+ * 
+ * @author agent
+ */
+final class SharedMemoryRing implements ByteChannel {
+
+    /** Magic number at the start of each ring file ("PMR" and format generation 1). */
+    private static final int MAGIC = 0x504D5231;
+
+    /** Version of the format. */
+    private static final int VERSION = 1;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int CAPACITY_OFFSET = 8;
+
+    /** Offset of the producer position; written by the producer only. */
+    private static final int PRODUCER_POSITION_OFFSET = 128;
+
+    /** Offset of the flag marking the end of the stream; written by the producer only. */
+    private static final int PRODUCER_CLOSED_OFFSET = 136;
+
+    /** Offset of the consumer position; written by the consumer only. */
+    private static final int CONSUMER_POSITION_OFFSET = 256;
+
+    /** Offset of the flag marking a closed consumer; written by the consumer only. */
+    private static final int CONSUMER_CLOSED_OFFSET = 264;
+
+    /** Offset of the data area, i.e., the size of the header page. */
+    private static final int DATA_OFFSET = 4096;
+
+    /** Maximal capacity such that the whole file fits into a single mapping. */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /** Number of busy spins before a waiting side starts to yield. */
+    private static final int SPIN_TRIES = 1 << 10;
+
+    /** Number of yields before a waiting side starts to park. */
+    private static final int YIELD_TRIES = 1 << 6;
+
+    /** Maximal park interval of a waiting side. */
+    private static final long MAX_PARK_NANOS = 100_000L;
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer mapping;
+
+    private final int capacity;
+
+    private final boolean producer;
+
+    /** Own position, i.e., the position this side publishes. */
+    private long position;
+
+    /** Position of the other side as seen most recently. */
+    private long cachedPosition;
+
+    /** Called before the consumer waits for bytes; may be <code>null</code>. */
+    private Runnable idleHandler;
+
+    private volatile boolean open = true;
+
+    private SharedMemoryRing(final FileChannel channel, final MappedByteBuffer mapping, final int capacity,
+            final boolean producer) {
+        this.channel = channel;
+        this.mapping = mapping;
+        this.capacity = capacity;
+        this.producer = producer;
+        if (producer) {
+            this.position = getAcquire(PRODUCER_POSITION_OFFSET);
+            this.cachedPosition = getAcquire(CONSUMER_POSITION_OFFSET);
+        } else {
+            this.position = getAcquire(CONSUMER_POSITION_OFFSET);
+            this.cachedPosition = getAcquire(PRODUCER_POSITION_OFFSET);
+        }
+    }
+
+    /**
+     * Creates a ring file and opens it as producer.
+     * 
+     * @param file
+     *            the ring file; an existing file is replaced.
+     * @param capacity
+     *            the capacity of the ring in bytes, a power of two.
+     * @return the producer side of the ring.
+     * @throws IOException
+     *             if the file cannot be created or mapped.
+     * @throws IllegalArgumentException
+     *             if the capacity is not a power of two of at least a page or exceeds
+     *             {@link #MAX_CAPACITY}.
+     */
+    static SharedMemoryRing create(final Path file, final int capacity) throws IOException {
+        if (capacity < DATA_OFFSET || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity has to be a power of two between " + DATA_OFFSET + " and "
+                    + MAX_CAPACITY + " bytes");
+        }
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) DATA_OFFSET + capacity);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            mapping.putInt(VERSION_OFFSET, VERSION);
+            mapping.putInt(CAPACITY_OFFSET, capacity);
+            // the magic number is published last, marking the ring as initialized
+            VarHandle.releaseFence();
+            mapping.putInt(0, MAGIC);
+            return new SharedMemoryRing(channel, mapping, capacity, true);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing ring file as consumer.
+     * 
+     * @param file
+     *            the ring file created by the producer.
+     * @return the consumer side of the ring.
+     * @throws IOException
+     *             if the file cannot be read or mapped, or is not an initialized ring file.
+     */
+    static SharedMemoryRing open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < DATA_OFFSET) {
+                throw new IOException("Not a shared memory ring");
+            }
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, DATA_OFFSET);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a shared memory ring");
+            }
+            VarHandle.acquireFence();
+            final int version = header.getInt(VERSION_OFFSET);
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of shared memory ring");
+            }
+            final int capacity = header.getInt(CAPACITY_OFFSET);
+            if (capacity < DATA_OFFSET || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1
+                    || channel.size() < (long) DATA_OFFSET + capacity) {
+                throw new IOException("Shared memory ring is truncated or malformed");
+            }
+            final MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) DATA_OFFSET + capacity);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            return new SharedMemoryRing(channel, mapping, capacity, false);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long getAcquire(final int offset) {
+        return (long) LONG_VIEW.getAcquire(this.mapping, offset);
+    }
+
+    private void setRelease(final int offset, final long value) {
+        LONG_VIEW.setRelease(this.mapping, offset, value);
+    }
+
+    /**
+     * Sets the handler called before the consumer waits for bytes, e.g., to pass on what was read
+     * so far instead of holding it back while waiting.
+     * 
+     * @param idleHandler
+     *            the handler, or <code>null</code> for none.
+     */
+    void setIdleHandler(final Runnable idleHandler) {
+        this.idleHandler = idleHandler;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Waits until the ring has free space and writes as many bytes as fit.
+     * 
+     * @throws IOException
+     *             if the consumer closed the ring or the thread was interrupted while waiting.
+     */
+    @Override
+    public int write(final ByteBuffer source) throws IOException {
+        if (!this.producer) {
+            throw new NonWritableChannelException();
+        }
+        checkOpen();
+        if (!source.hasRemaining()) {
+            return 0;
+        }
+        int free = this.capacity - (int) (this.position - this.cachedPosition);
+        for (int tries = 0; free == 0; tries++) {
+            if (getAcquire(CONSUMER_CLOSED_OFFSET) != 0) {
+                throw new IOException("Consumer of shared memory ring is closed");
+            }
+            this.cachedPosition = getAcquire(CONSUMER_POSITION_OFFSET);
+            free = this.capacity - (int) (this.position - this.cachedPosition);
+            if (free == 0) {
+                idle(tries);
+                checkOpen();
+            }
+        }
+        final int length = Math.min(free, source.remaining());
+        final int index = (int) this.position & (this.capacity - 1);
+        final int first = Math.min(length, this.capacity - index);
+        this.mapping.put(DATA_OFFSET + index, source, source.position(), first);
+        this.mapping.put(DATA_OFFSET, source, source.position() + first, length - first);
+        source.position(source.position() + length);
+        this.position += length;
+        setRelease(PRODUCER_POSITION_OFFSET, this.position);
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Waits until the ring holds bytes and reads as many as available.
+     * 
+     * @return the number of bytes read, or -1 once the producer closed the ring and all bytes were
+     *         read, or this side was closed.
+     * @throws IOException
+     *             if the thread was interrupted while waiting.
+     */
+    @Override
+    public int read(final ByteBuffer destination) throws IOException {
+        if (this.producer) {
+            throw new NonReadableChannelException();
+        }
+        checkOpen();
+        if (!destination.hasRemaining()) {
+            return 0;
+        }
+        int available = (int) (this.cachedPosition - this.position);
+        if (available == 0) {
+            this.cachedPosition = getAcquire(PRODUCER_POSITION_OFFSET);
+            available = (int) (this.cachedPosition - this.position);
+            if (available == 0 && this.idleHandler != null) {
+                this.idleHandler.run();
+            }
+        }
+        for (int tries = 0; available == 0; tries++) {
+            final boolean producerClosed = getAcquire(PRODUCER_CLOSED_OFFSET) != 0;
+            this.cachedPosition = getAcquire(PRODUCER_POSITION_OFFSET);
+            available = (int) (this.cachedPosition - this.position);
+            if (available == 0) {
+                if (producerClosed || !this.open) {
+                    return -1;
+                }
+                idle(tries);
+            }
+        }
+        final int length = Math.min(available, destination.remaining());
+        final int index = (int) this.position & (this.capacity - 1);
+        final int first = Math.min(length, this.capacity - index);
+        destination.put(destination.position(), this.mapping, DATA_OFFSET + index, first);
+        destination.put(destination.position() + first, this.mapping, DATA_OFFSET, length - first);
+        destination.position(destination.position() + length);
+        this.position += length;
+        setRelease(CONSUMER_POSITION_OFFSET, this.position);
+        return length;
+    }
+
+    private static void idle(final int tries) throws InterruptedIOException {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1L << Math.min(tries - SPIN_TRIES - YIELD_TRIES, 17)));
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Interrupted while waiting for shared memory ring");
+            }
+        }
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (!this.open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Returns the number of bytes written but not read yet, as seen by this side.
+     * 
+     * @return the number of buffered bytes.
+     */
+    int getBufferedBytes() {
+        return (int) (getAcquire(PRODUCER_POSITION_OFFSET) - getAcquire(CONSUMER_POSITION_OFFSET));
+    }
+
+    /**
+     * Returns the capacity of the ring.
+     * 
+     * @return the capacity in bytes.
+     */
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Marks the end of the stream if this is the producer side, or the consumer as closed
+     * otherwise. A consumer waiting for bytes in another thread returns the end of the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.open) {
+            this.open = false;
+            setRelease(this.producer ? PRODUCER_CLOSED_OFFSET : CONSUMER_CLOSED_OFFSET, 1L);
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * This package provides a transport of measurement streams between processes on the same machine,
+ * e.g., to keep the recording of measurements out of the heap of the simulation. A
+ * {@link SharedMemoryMeasurementSink} writes the notified measurements to a single-producer,
+ * single-consumer ring within a memory-mapped file; a {@link SharedMemoryMeasurementSource} in
+ * the other process reads them and notifies its own observers. Measurements are encoded in the
+ * binary measurement format, resolving metric descriptions by their IDs.
+ * 
+ * @author agent
+ */
+package org.palladiosimulator.measurementframework.transport;
@@ -0,0 +1,51 @@
+package org.palladiosimulator.measurementframework.benchmarks;
+
+import org.palladiosimulator.measurementframework.tests.MetricFixtures;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Metric descriptions shared by the benchmarks, created once by the {@link MetricFixtures} of the
+ * tests.
+ * 
+ * @author agent
+ */
+public final class BenchmarkMetrics {
+
+    /** Point in time metric, measured in seconds. */
+    public static final NumericalBaseMetricDescription POINT_IN_TIME = MetricFixtures.createPointInTimeMetric();
+
+    /** Response time metric, measured in seconds. */
+    public static final NumericalBaseMetricDescription RESPONSE_TIME = MetricFixtures.createResponseTimeMetric();
+
+    /** Response time tuple, i.e., point in time and response time. */
+    public static final MetricSetDescription RESPONSE_TIME_TUPLE = MetricFixtures.createMetricSet(
+            "_responseTimeTuple", "Response Time Tuple", POINT_IN_TIME, RESPONSE_TIME);
+
+    /** State metric, e.g., of a resource, capturing the identifiers <code>BUSY</code> and <code>IDLE</code>. */
+    public static final TextualBaseMetricDescription STATE = MetricFixtures.createIdentifierMetric("_state", "State",
+            "BUSY", "IDLE");
+
+    /** Identifier <code>BUSY</code> of the state metric. */
+    public static final Identifier BUSY = STATE.getIdentifiers().get(0);
+
+    /** Identifier <code>IDLE</code> of the state metric. */
+    public static final Identifier IDLE = STATE.getIdentifiers().get(1);
+
+    /** Flat tuple of point in time, response time, and state. */
+    public static final MetricSetDescription RESPONSE_TIME_STATE_TUPLE = MetricFixtures.createMetricSet(
+            "_responseTimeStateTuple", "Response Time State Tuple", POINT_IN_TIME, RESPONSE_TIME, STATE);
+
+    /** Response time and state, subsumed by {@link #NESTED_RESPONSE_TIME_STATE_TUPLE}. */
+    public static final MetricSetDescription RESPONSE_TIME_STATE = MetricFixtures.createMetricSet(
+            "_responseTimeState", "Response Time State", RESPONSE_TIME, STATE);
+
+    /** Nested tuple of point in time and a tuple of response time and state. */
+    public static final MetricSetDescription NESTED_RESPONSE_TIME_STATE_TUPLE = MetricFixtures.createMetricSet(
+            "_nestedResponseTimeStateTuple", "Nested Response Time State Tuple", POINT_IN_TIME, RESPONSE_TIME_STATE);
+
+    private BenchmarkMetrics() {
+    }
+}
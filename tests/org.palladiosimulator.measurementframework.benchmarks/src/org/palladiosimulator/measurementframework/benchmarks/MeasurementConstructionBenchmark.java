@@ -0,0 +1,107 @@
+package org.palladiosimulator.measurementframework.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.MeasurementFactory;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.metricspec.BaseMetricDescription;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Measures the cost of constructing basic measurements of a real number metric. The
+ * <code>fullValidation</code> benchmark performs the checks formerly run by each constructor
+ * before creating the measurement unchecked, i.e., it shows the construction cost before
+ * validations were cached. The other benchmarks use the public constructors, whose validations
+ * are cached, and a {@link MeasurementFactory}, which skips validations.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasurementConstructionBenchmark {
+
+    private final NumericalBaseMetricDescription metric = BenchmarkMetrics.RESPONSE_TIME;
+
+    private Measure<Double, Duration> measure;
+
+    private MeasurementFactory<Duration> factory;
+
+    private double value;
+
+    @Setup
+    public void setUp() {
+        this.measure = Measure.valueOf(0.25d, SI.SECOND);
+        this.factory = MeasurementFactory.forMetric(this.metric, SI.SECOND);
+        this.value = 0.25d;
+    }
+
+    @Benchmark
+    public BasicMeasurement<Double, Duration> fullValidation() {
+        checkMeasureDataType(this.measure, this.metric);
+        return this.factory.createRealNumberMeasurement(this.measure.getValue());
+    }
+
+    @Benchmark
+    public BasicMeasurement<Double, Duration> basicMeasurement() {
+        return new BasicMeasurement<Double, Duration>(this.measure, this.metric);
+    }
+
+    @Benchmark
+    public RealNumberMeasurement<Duration> realNumberMeasurement() {
+        return new RealNumberMeasurement<Duration>(this.value, SI.SECOND, this.metric);
+    }
+
+    @Benchmark
+    public RealNumberMeasurement<Duration> trustedFactory() {
+        return this.factory.createRealNumberMeasurement(this.value);
+    }
+
+    /**
+     * The checks formerly run by {@link BasicMeasurement} for every measurement.
+     */
+    private static void checkMeasureDataType(final Measure<?, ?> measure,
+            final BaseMetricDescription metricDescription) {
+        final Class<?> valueDataType;
+        switch (metricDescription.getCaptureType()) {
+        case IDENTIFIER:
+            valueDataType = Identifier.class;
+            break;
+        case INTEGER_NUMBER:
+            valueDataType = Long.class;
+            break;
+        case REAL_NUMBER:
+            valueDataType = Double.class;
+            break;
+        default:
+            valueDataType = null;
+            break;
+        }
+        if (!valueDataType.isAssignableFrom(measure.getValue().getClass())) {
+            throw new IllegalArgumentException("Incompatible data type");
+        }
+        if (metricDescription instanceof NumericalBaseMetricDescription && !measure.getUnit()
+                .isCompatible(((NumericalBaseMetricDescription) metricDescription).getDefaultUnit())) {
+            throw new IllegalArgumentException("Incompatible unit");
+        }
+    }
+}
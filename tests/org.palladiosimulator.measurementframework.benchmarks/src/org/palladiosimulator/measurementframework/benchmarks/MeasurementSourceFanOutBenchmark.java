@@ -0,0 +1,119 @@
+package org.palladiosimulator.measurementframework.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.Measure;
+import javax.measure.unit.SI;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.palladiosimulator.commons.designpatterns.AbstractObservable;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.measurementframework.listener.MeasurementSourceListenerRegistry;
+
+/**
+ * Measures the cost of informing 1, 4, and 16 listeners about a single measurement. Compares the
+ * copy-on-write {@link MeasurementSourceListenerRegistry} with the reflective event dispatcher of
+ * {@link AbstractObservable} formerly used by {@link MeasurementSource}.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasurementSourceFanOutBenchmark {
+
+    @Param({ "1", "4", "16" })
+    private int listenerCount;
+
+    private MeasuringValue measurement;
+
+    private MeasurementSourceListenerRegistry registry;
+
+    private AbstractObservable<IMeasurementSourceListener> observable;
+
+    private PublishingMeasurementSource source;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.measurement = new TupleMeasurement(BenchmarkMetrics.RESPONSE_TIME_TUPLE, Measure.valueOf(1.0d, SI.SECOND),
+                Measure.valueOf(0.25d, SI.SECOND));
+        this.registry = new MeasurementSourceListenerRegistry();
+        this.observable = new AbstractObservable<IMeasurementSourceListener>() {
+        };
+        this.source = new PublishingMeasurementSource();
+
+        for (int i = 0; i < this.listenerCount; i++) {
+            final IMeasurementSourceListener listener = new ConsumingListener(blackhole);
+            this.registry.addListener(listener);
+            this.observable.addObserver(listener);
+            this.source.addObserver(listener);
+        }
+    }
+
+    @Benchmark
+    public void registry() {
+        this.registry.notifyListeners(this.measurement);
+    }
+
+    @Benchmark
+    public void abstractObservable() {
+        this.observable.getEventDispatcher().newMeasurementAvailable(this.measurement);
+    }
+
+    @Benchmark
+    public void measurementSource() {
+        this.source.publish(this.measurement);
+    }
+
+    /**
+     * Listener handing each measurement to a black hole.
+     */
+    private static final class ConsumingListener implements IMeasurementSourceListener {
+
+        private final Blackhole blackhole;
+
+        private ConsumingListener(final Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+            this.blackhole.consume(newMeasurement);
+        }
+
+        @Override
+        public void preUnregister() {
+        }
+    }
+
+    /**
+     * Measurement source publishing measurements on request, including compatibility checks.
+     */
+    private static final class PublishingMeasurementSource extends MeasurementSource {
+
+        private PublishingMeasurementSource() {
+            super(BenchmarkMetrics.RESPONSE_TIME_TUPLE);
+        }
+
+        private void publish(final MeasuringValue newMeasurement) {
+            notifyMeasurementSourceListener(newMeasurement);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.palladiosimulator.measurementframework.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Dimensionless;
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+
+/**
+ * Measures construction of, lookups in, and conversions of tuple measurements for the metric sets
+ * typically produced by probes: point in time and response time, optionally with a state, either
+ * flat or with a nested metric set.
+ * 
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TupleMeasurementBenchmark {
+
+    /**
+     * The benchmarked metric sets.
+     */
+    public enum Shape {
+        /** {@link BenchmarkMetrics#RESPONSE_TIME_TUPLE} */
+        RESPONSE_TIME,
+        /** {@link BenchmarkMetrics#RESPONSE_TIME_STATE_TUPLE} */
+        RESPONSE_TIME_STATE,
+        /** {@link BenchmarkMetrics#NESTED_RESPONSE_TIME_STATE_TUPLE} */
+        NESTED_RESPONSE_TIME_STATE
+    }
+
+    @Param
+    private Shape shape;
+
+    private Measure<Double, Duration> pointInTime;
+
+    private Measure<Double, Duration> responseTime;
+
+    private Measure<?, Dimensionless> state;
+
+    private MeasuringValue measurement;
+
+    @Setup
+    public void setUp() {
+        this.pointInTime = Measure.valueOf(1.0d, SI.SECOND);
+        this.responseTime = Measure.valueOf(0.25d, SI.SECOND);
+        this.state = IdentifierMeasure.valueOf(BenchmarkMetrics.BUSY, Unit.ONE);
+        this.measurement = construct();
+    }
+
+    /**
+     * Creates the measurement as a probe would, i.e., from basic measurements of the subsumed
+     * metrics.
+     * 
+     * @return the new measurement.
+     */
+    @Benchmark
+    public MeasuringValue construct() {
+        final MeasuringValue pointInTimeMeasurement = new BasicMeasurement<Double, Duration>(this.pointInTime,
+                BenchmarkMetrics.POINT_IN_TIME);
+        final MeasuringValue responseTimeMeasurement = new BasicMeasurement<Double, Duration>(this.responseTime,
+                BenchmarkMetrics.RESPONSE_TIME);
+        switch (this.shape) {
+        case RESPONSE_TIME:
+            return new TupleMeasurement(Arrays.asList(pointInTimeMeasurement, responseTimeMeasurement),
+                    BenchmarkMetrics.RESPONSE_TIME_TUPLE);
+        case RESPONSE_TIME_STATE:
+            return new TupleMeasurement(Arrays.asList(pointInTimeMeasurement, responseTimeMeasurement,
+                    stateMeasurement()), BenchmarkMetrics.RESPONSE_TIME_STATE_TUPLE);
+        default:
+            final MeasuringValue innerMeasurement = new TupleMeasurement(
+                    Arrays.asList(responseTimeMeasurement, stateMeasurement()), BenchmarkMetrics.RESPONSE_TIME_STATE);
+            return new TupleMeasurement(Arrays.asList(pointInTimeMeasurement, innerMeasurement),
+                    BenchmarkMetrics.NESTED_RESPONSE_TIME_STATE_TUPLE);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private MeasuringValue stateMeasurement() {
+        return new BasicMeasurement(this.state, BenchmarkMetrics.STATE);
+    }
+
+    /**
+     * Creates a flat measurement from its measures; not applicable to nested metric sets.
+     * 
+     * @return the new measurement, or <code>null</code> for nested metric sets.
+     */
+    @Benchmark
+    public MeasuringValue constructFromMeasures() {
+        switch (this.shape) {
+        case RESPONSE_TIME:
+            return new TupleMeasurement(BenchmarkMetrics.RESPONSE_TIME_TUPLE, this.pointInTime, this.responseTime);
+        case RESPONSE_TIME_STATE:
+            return new TupleMeasurement(BenchmarkMetrics.RESPONSE_TIME_STATE_TUPLE, this.pointInTime,
+                    this.responseTime, this.state);
+        default:
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Measure<Double, Duration> getMeasureForMetric() {
+        return this.measurement.getMeasureForMetric(BenchmarkMetrics.RESPONSE_TIME);
+    }
+
+    @Benchmark
+    public MeasuringValue getMeasuringValueForMetric() {
+        return this.measurement.getMeasuringValueForMetric(BenchmarkMetrics.RESPONSE_TIME);
+    }
+
+    @Benchmark
+    public void asList(final Blackhole blackhole) {
+        final List<Measure<?, ?>> measures = this.measurement.asList();
+        for (int i = 0; i < measures.size(); i++) {
+            blackhole.consume(measures.get(i));
+        }
+    }
+
+    @Benchmark
+    public Measure<?, ?>[] asArray() {
+        return this.measurement.asArray();
+    }
+
+    @Benchmark
+    public void forEachMeasure(final Blackhole blackhole) {
+        this.measurement.forEachMeasure(blackhole::consume);
+    }
+}
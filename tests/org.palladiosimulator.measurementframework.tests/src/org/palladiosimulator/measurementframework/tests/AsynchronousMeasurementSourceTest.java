@@ -0,0 +1,267 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+
+import org.junit.After;
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.listener.AsynchronousMeasurementSource;
+import org.palladiosimulator.measurementframework.listener.AsynchronousMeasurementSource.Backpressure;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests dispatching measurements by the consumer thread of an
+ * {@link AsynchronousMeasurementSource}.
+ * 
+ * @author agent
+ */
+public class AsynchronousMeasurementSourceTest {
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    /** The consumer threads started by the sources of a test, in order. */
+    private final List<Thread> consumers = new ArrayList<Thread>();
+
+    /** Creates daemon consumer threads and records them. */
+    private final ThreadFactory threadFactory = runnable -> {
+        final Thread thread = new Thread(runnable, "Measurement dispatcher (test)");
+        thread.setDaemon(true);
+        synchronized (this.consumers) {
+            this.consumers.add(thread);
+        }
+        return thread;
+    };
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @After
+    public void tearDown() {
+        this.listener.release.countDown();
+    }
+
+    @Test(timeout = 30000)
+    public void testMeasurementsAreDispatchedInOrder() {
+        final AsynchronousMeasurementSource source = createSource(64, Backpressure.BLOCK);
+        this.listener.release.countDown();
+        for (int i = 0; i < 10000; i++) {
+            source.newMeasurementAvailable(measurement(i));
+        }
+        source.flush();
+
+        this.listener.assertValues(0, 10000);
+        assertEquals(10000, source.getDispatchedMeasurementCount());
+        assertEquals(0, source.getDroppedMeasurementCount());
+        assertEquals(0, source.getQueueDepth());
+    }
+
+    @Test(timeout = 30000)
+    public void testBlockingProducerWaitsForFreeSpace() throws InterruptedException {
+        final AsynchronousMeasurementSource source = createSource(4, Backpressure.BLOCK);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                source.newMeasurementAvailable(measurement(i));
+            }
+        });
+        producer.start();
+        // the producer parks once the buffer is full while the consumer thread is stuck in the listener
+        while (source.getQueueDepth() < 4 || producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertTrue(producer.isAlive());
+        assertEquals(0, source.getDispatchedMeasurementCount());
+
+        this.listener.release.countDown();
+        producer.join();
+        source.flush();
+        this.listener.assertValues(0, 10);
+        assertEquals(0, source.getDroppedMeasurementCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testDroppingDiscardsMeasurementsWhileFull() throws InterruptedException {
+        final AsynchronousMeasurementSource source = createSource(4, Backpressure.DROP);
+        source.newMeasurementAvailable(measurement(0));
+        this.listener.entered.await();
+        for (int i = 1; i <= 10; i++) {
+            source.newMeasurementAvailable(measurement(i));
+        }
+        assertEquals(6, source.getDroppedMeasurementCount());
+
+        this.listener.release.countDown();
+        source.flush();
+        this.listener.assertValues(0, 5);
+    }
+
+    @Test(timeout = 30000)
+    public void testSamplingBuffersEveryNthMeasurementAboveThreeQuarters() throws InterruptedException {
+        final AsynchronousMeasurementSource source = new AsynchronousMeasurementSource(this.responseTime, 16,
+                Backpressure.SAMPLE, 2, this.threadFactory);
+        source.addObserver(this.listener);
+        source.newMeasurementAvailable(measurement(0));
+        this.listener.entered.await();
+        // 13 measurements fill the buffer beyond three quarters, then every second one is kept until it is full
+        for (int i = 1; i <= 20; i++) {
+            source.newMeasurementAvailable(measurement(i));
+        }
+        assertEquals(16, source.getQueueDepth());
+        assertEquals(4, source.getDroppedMeasurementCount());
+
+        this.listener.release.countDown();
+        source.flush();
+        assertEquals(17, this.listener.values.size());
+        assertEquals(18.0d, this.listener.values.get(16), 0.0d);
+    }
+
+    @Test(timeout = 30000)
+    public void testUnregisteringDispatchesAllMeasurementsFirst() throws InterruptedException {
+        final AsynchronousMeasurementSource source = createSource(64, Backpressure.BLOCK);
+        this.listener.release.countDown();
+        for (int i = 0; i < 1000; i++) {
+            source.newMeasurementAvailable(measurement(i));
+        }
+        source.preUnregister();
+
+        this.listener.assertValues(0, 1000);
+        assertEquals(1, this.listener.unregistrations);
+        for (final Thread consumer : this.consumers) {
+            consumer.join();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testListenerFailuresAreRethrownToTheProducer() {
+        final AsynchronousMeasurementSource source = new AsynchronousMeasurementSource(this.responseTime);
+        final RuntimeException failure = new RuntimeException("Listener failed");
+        source.addObserver(new IMeasurementSourceListener() {
+
+            private boolean failed;
+
+            @Override
+            public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+                if (!this.failed) {
+                    this.failed = true;
+                    throw failure;
+                }
+            }
+
+            @Override
+            public void preUnregister() {
+            }
+        });
+
+        source.newMeasurementAvailable(measurement(0));
+        try {
+            source.flush();
+            fail("Failure of the listener has not been rethrown");
+        } catch (final IllegalStateException e) {
+            assertSame(failure, e.getCause());
+        }
+
+        // the failure is rethrown once; later measurements are dispatched again
+        source.newMeasurementAvailable(measurement(1));
+        source.flush();
+        assertEquals(2, source.getDispatchedMeasurementCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testIdleConsumerParksAndTerminatesAfterKeepAlive() throws InterruptedException {
+        final AsynchronousMeasurementSource source = createSource(64, Backpressure.BLOCK);
+        this.listener.release.countDown();
+        source.newMeasurementAvailable(measurement(0));
+        source.flush();
+        final Thread consumer = this.consumers.get(0);
+        awaitState(consumer, Thread.State.TIMED_WAITING);
+
+        consumer.join(10 * AsynchronousMeasurementSource.CONSUMER_KEEP_ALIVE_MILLIS);
+        assertFalse(consumer.isAlive());
+
+        source.newMeasurementAvailable(measurement(1));
+        source.flush();
+        this.listener.assertValues(0, 2);
+        assertEquals(2, this.consumers.size());
+    }
+
+    @Test(timeout = 30000)
+    public void testWakeUpsAreNotLostUnderContention() {
+        final AsynchronousMeasurementSource source = createSource(1, Backpressure.BLOCK);
+        this.listener.release.countDown();
+        for (int i = 0; i < 50000; i++) {
+            source.newMeasurementAvailable(measurement(i));
+        }
+        source.flush();
+
+        this.listener.assertValues(0, 50000);
+    }
+
+    private AsynchronousMeasurementSource createSource(final int capacity, final Backpressure backpressure) {
+        final AsynchronousMeasurementSource source = new AsynchronousMeasurementSource(this.responseTime, capacity,
+                backpressure, AsynchronousMeasurementSource.DEFAULT_SAMPLING_INTERVAL, this.threadFactory);
+        source.addObserver(this.listener);
+        return source;
+    }
+
+    private MeasuringValue measurement(final int value) {
+        return new RealNumberMeasurement<Duration>(value, SI.SECOND, this.responseTime);
+    }
+
+    private static void awaitState(final Thread thread, final Thread.State state) throws InterruptedException {
+        while (thread.getState() != state) {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Listener recording the dispatched values; blocks the consumer thread until released.
+     */
+    private static final class RecordingListener implements IMeasurementSourceListener {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final List<Double> values = new ArrayList<Double>();
+
+        private volatile int unregistrations;
+
+        @Override
+        public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+            this.entered.countDown();
+            try {
+                this.release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this.values) {
+                this.values.add(((RealNumberMeasurement<?>) newMeasurement).doubleValue());
+            }
+        }
+
+        @Override
+        public void preUnregister() {
+            this.unregistrations++;
+        }
+
+        private void assertValues(final int first, final int count) {
+            synchronized (this.values) {
+                assertEquals(count, this.values.size());
+                for (int i = 0; i < count; i++) {
+                    assertEquals(first + i, this.values.get(i), 0.0d);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Dimensionless;
+import javax.measure.quantity.Duration;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.BasicMeasurement;
+import org.palladiosimulator.measurementframework.IntegerNumberMeasurement;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.codec.MeasurementReader;
+import org.palladiosimulator.measurementframework.codec.MeasurementWriter;
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Tests encoding and decoding measurements in the binary measurement format.
+ * 
+ * @author agent
+ */
+public class MeasurementCodecTest {
+
+    private final NumericalBaseMetricDescription pointInTime = MetricFixtures.createPointInTimeMetric();
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    private final NumericalBaseMetricDescription queueLength = MetricFixtures.createNumberMetric("_queueLength",
+            "Queue Length", CaptureType.INTEGER_NUMBER, Unit.ONE);
+
+    private final TextualBaseMetricDescription state = MetricFixtures.createIdentifierMetric("_state", "State",
+            "BUSY", "IDLE");
+
+    private final MetricSetDescription responseTimeTuple = MetricFixtures.createMetricSet("_responseTimeTuple",
+            "Response Time Tuple", this.pointInTime, this.responseTime);
+
+    @Test
+    public void testEmptyStreamHasNoMeasurements() throws IOException {
+        final List<MeasuringValue> decoded = roundTrip(new ArrayList<MeasuringValue>(), this.responseTime);
+        assertTrue(decoded.isEmpty());
+    }
+
+    @Test
+    public void testBasicMeasurementsRoundTrip() throws IOException {
+        final Identifier idle = this.state.getIdentifiers().get(1);
+        final List<MeasuringValue> measurements = Arrays.<MeasuringValue> asList(
+                new RealNumberMeasurement<Duration>(1.5d, SI.SECOND, this.responseTime),
+                new RealNumberMeasurement<Duration>(-0.0d, SI.SECOND, this.responseTime),
+                new RealNumberMeasurement<Duration>(Double.POSITIVE_INFINITY, SI.SECOND, this.responseTime),
+                new IntegerNumberMeasurement<Dimensionless>(-42L, Unit.ONE, this.queueLength),
+                new IntegerNumberMeasurement<Dimensionless>(Long.MAX_VALUE, Unit.ONE, this.queueLength),
+                new BasicMeasurement<Identifier, Dimensionless>(IdentifierMeasure.valueOf(idle, Unit.ONE),
+                        this.state));
+
+        final List<MeasuringValue> decoded = roundTrip(measurements, this.responseTime, this.queueLength,
+                this.state);
+
+        assertMeasurementsEqual(measurements, decoded);
+        assertTrue(decoded.get(0) instanceof RealNumberMeasurement<?>);
+        assertTrue(decoded.get(3) instanceof IntegerNumberMeasurement<?>);
+        assertSame(idle, decoded.get(5).getMeasureForMetric(this.state).getValue());
+    }
+
+    @Test
+    public void testTupleMeasurementsRoundTrip() throws IOException {
+        final List<MeasuringValue> measurements = new ArrayList<MeasuringValue>();
+        for (int i = 0; i < 1000; i++) {
+            measurements.add(new TupleMeasurement(this.responseTimeTuple, Measure.valueOf(i * 0.25d, SI.SECOND),
+                    Measure.valueOf(Math.sin(i), SI.SECOND)));
+        }
+
+        assertMeasurementsEqual(measurements, roundTrip(measurements, this.responseTimeTuple));
+    }
+
+    @Test
+    public void testNestedTupleMeasurementsRoundTrip() throws IOException {
+        final Identifier busy = this.state.getIdentifiers().get(0);
+        final MetricSetDescription queueState = MetricFixtures.createMetricSet("_queueState", "Queue State",
+                this.queueLength, this.state);
+        final MetricSetDescription nested = MetricFixtures.createMetricSet("_nested", "Queue State over Time",
+                this.pointInTime, queueState);
+        final List<MeasuringValue> measurements = new ArrayList<MeasuringValue>();
+        for (int i = 0; i < 10; i++) {
+            final MeasuringValue queueStateMeasurement = new TupleMeasurement(Arrays.<MeasuringValue> asList(
+                    new IntegerNumberMeasurement<Dimensionless>((long) i, Unit.ONE, this.queueLength),
+                    new BasicMeasurement<Identifier, Dimensionless>(
+                            IdentifierMeasure.valueOf(this.state.getIdentifiers().get(i % 2), Unit.ONE), this.state)),
+                    queueState);
+            measurements.add(new TupleMeasurement(Arrays.<MeasuringValue> asList(
+                    new RealNumberMeasurement<Duration>((double) i, SI.SECOND, this.pointInTime),
+                    queueStateMeasurement), nested));
+        }
+
+        final List<MeasuringValue> decoded = roundTrip(measurements, nested);
+
+        assertMeasurementsEqual(measurements, decoded);
+        assertSame(nested, decoded.get(0).getMetricDesciption());
+        assertSame(busy, decoded.get(0).getMeasureForMetric(this.state).getValue());
+    }
+
+    @Test
+    public void testUnitsArePreservedPerMeasurement() throws IOException {
+        final List<MeasuringValue> measurements = Arrays.<MeasuringValue> asList(
+                new TupleMeasurement(this.responseTimeTuple, Measure.valueOf(2.0d, NonSI.MINUTE),
+                        Measure.valueOf(3.0d, SI.MILLI(SI.SECOND))),
+                new TupleMeasurement(this.responseTimeTuple, Measure.valueOf(121.0d, SI.SECOND),
+                        Measure.valueOf(3.0d, SI.SECOND)),
+                new RealNumberMeasurement<Duration>(4.0d, NonSI.HOUR, this.responseTime),
+                new RealNumberMeasurement<Duration>(4.0d, SI.SECOND, this.responseTime));
+
+        final List<MeasuringValue> decoded = roundTrip(measurements, this.responseTimeTuple);
+
+        assertMeasurementsEqual(measurements, decoded);
+        assertEquals(NonSI.MINUTE, decoded.get(0).getMeasureForMetric(this.pointInTime).getUnit());
+        assertEquals(SI.MILLI(SI.SECOND), decoded.get(0).getMeasureForMetric(this.responseTime).getUnit());
+        assertEquals(SI.SECOND, decoded.get(1).getMeasureForMetric(this.pointInTime).getUnit());
+        assertEquals(NonSI.HOUR, decoded.get(2).getMeasureForMetric(this.responseTime).getUnit());
+        assertEquals(4.0d * 3600.0d, decoded.get(2).doubleValueForMetric(this.responseTime, SI.SECOND), 1e-9d);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownMetricFailsReading() throws IOException {
+        roundTrip(Arrays.<MeasuringValue> asList(new RealNumberMeasurement<Duration>(1.0d, SI.SECOND,
+                this.responseTime)), this.pointInTime);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedStreamFailsReading() throws IOException {
+        final byte[] encoded = encode(Arrays.<MeasuringValue> asList(
+                new TupleMeasurement(this.responseTimeTuple, Measure.valueOf(1.0d, SI.SECOND),
+                        Measure.valueOf(2.0d, SI.SECOND))));
+        decode(Arrays.copyOf(encoded, encoded.length - 1), this.responseTimeTuple);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherStreamsAreRejected() throws IOException {
+        decode(new byte[] { 1, 2, 3, 4, 5, 6 }, this.responseTime);
+    }
+
+    private static List<MeasuringValue> roundTrip(final List<MeasuringValue> measurements,
+            final MetricDescription... metrics) throws IOException {
+        return decode(encode(measurements), metrics);
+    }
+
+    private static byte[] encode(final List<MeasuringValue> measurements) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (MeasurementWriter writer = new MeasurementWriter(Channels.newChannel(output), 64)) {
+            for (final MeasuringValue measurement : measurements) {
+                writer.write(measurement);
+            }
+            assertEquals(measurements.size(), writer.getMeasurementCount());
+        }
+        return output.toByteArray();
+    }
+
+    private static List<MeasuringValue> decode(final byte[] encoded, final MetricDescription... metrics)
+            throws IOException {
+        final List<MeasuringValue> decoded = new ArrayList<MeasuringValue>();
+        try (MeasurementReader reader = new MeasurementReader(
+                Channels.newChannel(new ByteArrayInputStream(encoded)), Arrays.asList(metrics))) {
+            MeasuringValue measurement;
+            while ((measurement = reader.read()) != null) {
+                decoded.add(measurement);
+            }
+            assertNull(reader.read());
+        }
+        return decoded;
+    }
+
+    private static void assertMeasurementsEqual(final List<MeasuringValue> expected,
+            final List<MeasuringValue> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i).getMetricDesciption(), actual.get(i).getMetricDesciption());
+            assertEquals(Arrays.asList(expected.get(i).asArray()), Arrays.asList(actual.get(i).asArray()));
+        }
+    }
+}
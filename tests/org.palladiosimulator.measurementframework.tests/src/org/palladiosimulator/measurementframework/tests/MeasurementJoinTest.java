@@ -0,0 +1,262 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.measure.Measure;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementJoin;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests joining the measurements of several sources on their point in time via a
+ * {@link MeasurementJoin}.
+ * 
+ * @author agent
+ */
+public class MeasurementJoinTest {
+
+    private final NumericalBaseMetricDescription pointInTime = MetricFixtures.createPointInTimeMetric();
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    private final NumericalBaseMetricDescription queueLength = MetricFixtures.createNumberMetric("_queueLength",
+            "Queue Length", CaptureType.INTEGER_NUMBER, Unit.ONE);
+
+    private final MetricSetDescription responseTimeTuple = MetricFixtures.createMetricSet("_responseTimeTuple",
+            "Response Time Tuple", this.pointInTime, this.responseTime);
+
+    private final MetricSetDescription queueLengthTuple = MetricFixtures.createMetricSet("_queueLengthTuple",
+            "Queue Length Tuple", this.pointInTime, this.queueLength);
+
+    private final MetricSetDescription joinedTuple = MetricFixtures.createMetricSet("_joinedTuple",
+            "Response Time and Queue Length Tuple", this.pointInTime, this.responseTime, this.queueLength);
+
+    private PublishingMeasurementSource responseTimes;
+
+    private PublishingMeasurementSource queueLengths;
+
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        this.responseTimes = new PublishingMeasurementSource(this.responseTimeTuple);
+        this.queueLengths = new PublishingMeasurementSource(this.queueLengthTuple);
+        this.listener = new RecordingListener();
+    }
+
+    @Test
+    public void testExactMatchesRequireEqualPointsInTime() {
+        final MeasurementJoin join = createJoin(0.0d, MeasurementJoin.DEFAULT_CAPACITY);
+        publishQueueLength(0.0d, 10);
+        publishQueueLength(1.0d, 11);
+        publishQueueLength(3.0d, 13);
+        for (int i = 0; i < 4; i++) {
+            publishResponseTime(i, i * 0.5d);
+        }
+
+        assertJoined(new double[] { 0.0d, 1.0d, 3.0d }, new double[] { 0.0d, 0.5d, 1.5d }, new long[] { 10, 11, 13 });
+        assertEquals(3, join.getJoinedMeasurementCount());
+        assertEquals(1, join.getUnmatchedMeasurementCount());
+    }
+
+    @Test
+    public void testToleranceMatchesNearestEarlierMeasurement() {
+        final MeasurementJoin join = createJoin(0.5d, MeasurementJoin.DEFAULT_CAPACITY);
+        publishQueueLength(0.25d, 1);
+        publishQueueLength(0.75d, 2);
+        publishQueueLength(1.875d, 3);
+        publishQueueLength(4.0d, 4);
+        publishResponseTime(0.5d, 0.1d);
+        publishResponseTime(2.0d, 0.2d);
+        publishResponseTime(3.0d, 0.3d);
+
+        // equally distant measurements resolve to the earlier one; 3.0 has no match within 0.5
+        assertJoined(new double[] { 0.5d, 2.0d }, new double[] { 0.1d, 0.2d }, new long[] { 1, 3 });
+        assertEquals(1, join.getUnmatchedMeasurementCount());
+    }
+
+    @Test
+    public void testPrimaryMeasurementsWaitForCloserMatches() {
+        final MeasurementJoin join = createJoin(0.5d, MeasurementJoin.DEFAULT_CAPACITY);
+        publishResponseTime(1.0d, 0.1d);
+        publishQueueLength(0.875d, 1);
+        assertEquals(0, this.listener.measurements.size());
+        assertEquals(2, join.getBufferedMeasurementCount());
+
+        publishQueueLength(1.5d, 2);
+        assertJoined(new double[] { 1.0d }, new double[] { 0.1d }, new long[] { 1 });
+    }
+
+    @Test
+    public void testMeasurementsThatCannotMatchAreEvicted() {
+        final MeasurementJoin join = createJoin(0.0d, MeasurementJoin.DEFAULT_CAPACITY);
+        for (int i = 0; i < 1000; i++) {
+            publishQueueLength(i, i);
+            publishResponseTime(i, i);
+            assertTrue(join.getBufferedMeasurementCount() <= 1);
+        }
+
+        assertEquals(1000, join.getJoinedMeasurementCount());
+        assertEquals(0, join.getEvictedMeasurementCount());
+    }
+
+    @Test
+    public void testFullBuffersDropOldestMeasurements() {
+        final MeasurementJoin join = createJoin(0.0d, 4);
+        for (int i = 0; i < 10; i++) {
+            publishQueueLength(i, i);
+        }
+        assertEquals(6, join.getEvictedMeasurementCount());
+        assertEquals(4, join.getBufferedMeasurementCount());
+
+        publishResponseTime(0.0d, 0.0d);
+        publishResponseTime(9.0d, 0.9d);
+        assertJoined(new double[] { 9.0d }, new double[] { 0.9d }, new long[] { 9 });
+        assertEquals(1, join.getUnmatchedMeasurementCount());
+    }
+
+    @Test
+    public void testPendingPrimaryMeasurementsAreBounded() {
+        final MeasurementJoin join = createJoin(0.0d, 4);
+        for (int i = 0; i < 6; i++) {
+            publishResponseTime(i, i);
+        }
+
+        assertEquals(2, join.getUnmatchedMeasurementCount());
+        assertEquals(4, join.getBufferedMeasurementCount());
+    }
+
+    @Test
+    public void testFinishingJoinsPendingMeasurementsBeforeUnregistering() {
+        final MeasurementJoin join = createJoin(0.5d, MeasurementJoin.DEFAULT_CAPACITY);
+        publishResponseTime(1.0d, 0.1d);
+        publishResponseTime(2.0d, 0.2d);
+        publishResponseTime(3.0d, 0.3d);
+        publishQueueLength(1.0d, 1);
+        publishQueueLength(2.25d, 2);
+        assertJoined(new double[] { 1.0d }, new double[] { 0.1d }, new long[] { 1 });
+
+        join.getInput(1).preUnregister();
+        assertJoined(new double[] { 1.0d, 2.0d }, new double[] { 0.1d, 0.2d }, new long[] { 1, 2 });
+        assertEquals(1, join.getUnmatchedMeasurementCount());
+        assertEquals(Arrays.asList("1.0", "2.0"), this.listener.events);
+
+        join.getInput(0).preUnregister();
+        assertEquals(Arrays.asList("1.0", "2.0", "preUnregister"), this.listener.events);
+        assertEquals(0, join.getBufferedMeasurementCount());
+    }
+
+    @Test
+    public void testFinishingPrimarySourceFirst() {
+        final MeasurementJoin join = createJoin(0.0d, MeasurementJoin.DEFAULT_CAPACITY);
+        publishResponseTime(1.0d, 0.1d);
+        publishResponseTime(2.0d, 0.2d);
+        join.getInput(0).preUnregister();
+        assertTrue(this.listener.events.isEmpty());
+
+        publishQueueLength(1.0d, 1);
+        join.getInput(1).preUnregister();
+
+        assertEquals(Arrays.asList("1.0", "preUnregister"), this.listener.events);
+        assertEquals(1, join.getJoinedMeasurementCount());
+        assertEquals(1, join.getUnmatchedMeasurementCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTargetMetricsHaveToBeProvided() {
+        final MetricSetDescription target = MetricFixtures.createMetricSet("_target", "Target", this.pointInTime,
+                this.responseTime, MetricFixtures.createNumberMetric("_utilization", "Utilization",
+                        CaptureType.REAL_NUMBER, Unit.ONE));
+        new MeasurementJoin(target, this.pointInTime, 0.0d,
+                Arrays.<MeasurementSource> asList(this.responseTimes, this.queueLengths));
+    }
+
+    private MeasurementJoin createJoin(final double tolerance, final int capacity) {
+        final MeasurementJoin join = new MeasurementJoin(this.joinedTuple, this.pointInTime, tolerance, capacity,
+                Arrays.<MeasurementSource> asList(this.responseTimes, this.queueLengths));
+        join.addObserver(this.listener);
+        join.connect();
+        return join;
+    }
+
+    private void publishResponseTime(final double time, final double value) {
+        this.responseTimes.publish(new TupleMeasurement(this.responseTimeTuple, Measure.valueOf(time, SI.SECOND),
+                Measure.valueOf(value, SI.SECOND)));
+    }
+
+    private void publishQueueLength(final double time, final long value) {
+        this.queueLengths.publish(new TupleMeasurement(this.queueLengthTuple, Measure.valueOf(time, SI.SECOND),
+                Measure.valueOf(value, Unit.ONE)));
+    }
+
+    private void assertJoined(final double[] pointsInTime, final double[] responseTimes, final long[] queueLengths) {
+        final List<MeasuringValue> measurements = this.listener.measurements;
+        assertEquals(pointsInTime.length, measurements.size());
+        for (int i = 0; i < pointsInTime.length; i++) {
+            final MeasuringValue measurement = measurements.get(i);
+            assertEquals(this.joinedTuple, measurement.getMetricDesciption());
+            assertEquals(pointsInTime[i], measurement.doubleValueForMetric(this.pointInTime, SI.SECOND), 0.0d);
+            assertEquals(responseTimes[i], measurement.doubleValueForMetric(this.responseTime, SI.SECOND), 0.0d);
+            assertEquals(queueLengths[i], measurement.doubleValueForMetric(this.queueLength, Unit.ONE), 0.0d);
+        }
+    }
+
+    /**
+     * Measurement source publishing measurements on request.
+     */
+    private static final class PublishingMeasurementSource extends MeasurementSource {
+
+        private PublishingMeasurementSource(final MetricDescription metricDescription) {
+            super(metricDescription);
+        }
+
+        private void publish(final MeasuringValue newMeasurement) {
+            notifyMeasurementSourceListener(newMeasurement);
+        }
+    }
+
+    /**
+     * Listener recording the joined measurements and the order of call-backs.
+     */
+    private final class RecordingListener implements IMeasurementSourceListener {
+
+        private final List<MeasuringValue> measurements = new ArrayList<MeasuringValue>();
+
+        private final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+            this.measurements.add(newMeasurement);
+            this.events.add(String.valueOf(
+                    newMeasurement.doubleValueForMetric(MeasurementJoinTest.this.pointInTime, SI.SECOND)));
+        }
+
+        @Override
+        public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+            for (final MeasuringValue newMeasurement : newMeasurements) {
+                newMeasurementAvailable(newMeasurement);
+            }
+        }
+
+        @Override
+        public void preUnregister() {
+            this.events.add("preUnregister");
+        }
+    }
+}
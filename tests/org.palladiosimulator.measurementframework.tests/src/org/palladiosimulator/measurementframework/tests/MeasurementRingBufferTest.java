@@ -0,0 +1,138 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.listener.MeasurementRingBuffer;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests the bounded single-producer, single-consumer {@link MeasurementRingBuffer}.
+ * 
+ * @author agent
+ */
+public class MeasurementRingBufferTest {
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    @Test
+    public void testCapacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new MeasurementRingBuffer(1).capacity());
+        assertEquals(8, new MeasurementRingBuffer(5).capacity());
+        assertEquals(16, new MeasurementRingBuffer(16).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityHasToBePositive() {
+        new MeasurementRingBuffer(0);
+    }
+
+    @Test
+    public void testOfferFailsWhileFull() {
+        final MeasurementRingBuffer buffer = new MeasurementRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(measurement(i)));
+        }
+        assertFalse(buffer.offer(measurement(4)));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0.0d, value(buffer.poll()), 0.0d);
+        assertTrue(buffer.offer(measurement(4)));
+        assertEquals(5, buffer.getOfferedCount());
+        assertEquals(1, buffer.getPolledCount());
+    }
+
+    @Test
+    public void testMeasurementsArePolledInOrderAcrossWrapArounds() {
+        final MeasurementRingBuffer buffer = new MeasurementRingBuffer(4);
+        assertNull(buffer.poll());
+        int next = 0;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.offer(measurement(i)));
+            if (i % 3 == 2) {
+                while (!buffer.isEmpty()) {
+                    assertEquals(next++, value(buffer.poll()), 0.0d);
+                }
+            }
+        }
+        while (!buffer.isEmpty()) {
+            assertEquals(next++, value(buffer.poll()), 0.0d);
+        }
+        assertEquals(100, next);
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testDrainingMovesAtMostTheGivenNumberOfMeasurements() {
+        final MeasurementRingBuffer buffer = new MeasurementRingBuffer(8);
+        final MeasuringValue first = measurement(0);
+        buffer.offer(first);
+        for (int i = 1; i < 6; i++) {
+            buffer.offer(measurement(i));
+        }
+
+        final List<MeasuringValue> target = new ArrayList<MeasuringValue>();
+        assertEquals(4, buffer.drainTo(target, 4));
+        assertSame(first, target.get(0));
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.drainTo(target, 4));
+        assertEquals(0, buffer.drainTo(target, 4));
+        for (int i = 0; i < target.size(); i++) {
+            assertEquals(i, value(target.get(i)), 0.0d);
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test(timeout = 30000)
+    public void testOneProducerAndOneConsumerTransferAllMeasurementsInOrder() throws InterruptedException {
+        final int count = 200000;
+        final MeasurementRingBuffer buffer = new MeasurementRingBuffer(64);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final Thread consumer = new Thread(() -> {
+            final List<MeasuringValue> batch = new ArrayList<MeasuringValue>();
+            int next = 0;
+            while (next < count) {
+                buffer.drainTo(batch, 16);
+                for (final MeasuringValue measurement : batch) {
+                    if (value(measurement) != next++) {
+                        failure.compareAndSet(null, "Measurement " + (next - 1) + " out of order");
+                    }
+                }
+                batch.clear();
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            final MeasuringValue measurement = measurement(i);
+            while (!buffer.offer(measurement)) {
+                Thread.onSpinWait();
+            }
+        }
+        consumer.join();
+
+        assertNull(failure.get());
+        assertTrue(buffer.isEmpty());
+        assertEquals(count, buffer.getPolledCount());
+    }
+
+    private MeasuringValue measurement(final int value) {
+        return new RealNumberMeasurement<Duration>(value, SI.SECOND, this.responseTime);
+    }
+
+    private static double value(final MeasuringValue measurement) {
+        return ((RealNumberMeasurement<?>) measurement).doubleValue();
+    }
+}
@@ -0,0 +1,237 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.listener.AsynchronousMeasurementSource.Backpressure;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.MeasurementPublisher;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.measurementframework.listener.MeasurementSubscription;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests passing measurements to {@link Flow.Subscriber}s via a {@link MeasurementSubscription}.
+ * 
+ * @author agent
+ */
+public class MeasurementSubscriptionTest {
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    private final PublishingMeasurementSource source = new PublishingMeasurementSource(this.responseTime);
+
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    @Test
+    public void testMeasurementsArePassedAsRequested() {
+        final MeasurementSubscription subscription = subscribe(16, Backpressure.DROP);
+        for (int i = 0; i < 5; i++) {
+            this.source.publish(measurement(i));
+        }
+        assertEquals(0, this.subscriber.values.size());
+        assertEquals(5, subscription.getQueueDepth());
+
+        subscription.request(2);
+        assertEquals(2, this.subscriber.values.size());
+        assertEquals(0, subscription.getDemand());
+
+        subscription.request(10);
+        assertEquals(5, subscription.getDeliveredMeasurementCount());
+        assertEquals(7, subscription.getDemand());
+
+        this.source.publish(measurement(5));
+        assertEquals(6, subscription.getDemand());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, this.subscriber.values.get(i), 0.0d);
+        }
+    }
+
+    @Test
+    public void testDemandIsCappedAtUnbounded() {
+        final MeasurementSubscription subscription = subscribe(16, Backpressure.DROP);
+        subscription.request(Long.MAX_VALUE);
+        subscription.request(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, subscription.getDemand());
+
+        this.source.publish(measurement(0));
+        assertEquals(Long.MAX_VALUE, subscription.getDemand());
+        assertEquals(1, this.subscriber.values.size());
+    }
+
+    @Test
+    public void testNonPositiveRequestsFailTheSubscriber() {
+        final MeasurementSubscription subscription = subscribe(16, Backpressure.DROP);
+        subscription.request(1);
+        this.source.publish(measurement(0));
+        subscription.request(0);
+
+        assertTrue(this.subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscription.isTerminated());
+        assertFalse(this.subscriber.completed);
+
+        this.source.publish(measurement(1));
+        subscription.request(1);
+        assertEquals(1, this.subscriber.values.size());
+    }
+
+    @Test
+    public void testUnregisteringCompletesTheSubscriberOnceBufferIsEmpty() {
+        final MeasurementSubscription subscription = subscribe(16, Backpressure.DROP);
+        this.source.publish(measurement(0));
+        this.source.publish(measurement(1));
+        this.source.finish();
+        assertFalse(this.subscriber.completed);
+
+        subscription.request(1);
+        assertFalse(this.subscriber.completed);
+        subscription.request(1);
+        assertTrue(this.subscriber.completed);
+        assertEquals(2, this.subscriber.values.size());
+        assertNull(this.subscriber.error);
+        assertTrue(subscription.isTerminated());
+    }
+
+    @Test(timeout = 30000)
+    public void testCancellingContinuesBlockedProducers() throws InterruptedException {
+        final MeasurementSubscription subscription = subscribe(2, Backpressure.BLOCK);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                this.source.publish(measurement(i));
+            }
+        });
+        producer.start();
+        while (subscription.getQueueDepth() < 2 || producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        subscription.cancel();
+        producer.join();
+        assertTrue(subscription.isTerminated());
+        assertEquals(0, this.subscriber.values.size());
+        assertFalse(this.subscriber.completed);
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducersAreBufferedOneAtATime() throws InterruptedException {
+        final int count = 20000;
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final MeasurementPublisher publisher = new MeasurementPublisher(this.source, 16, Backpressure.BLOCK,
+                    executor);
+            publisher.subscribe(this.subscriber);
+            this.subscriber.subscription.request(Long.MAX_VALUE);
+
+            final Thread[] producers = new Thread[4];
+            for (int i = 0; i < producers.length; i++) {
+                final int offset = i * count;
+                producers[i] = new Thread(() -> {
+                    for (int value = 0; value < count; value++) {
+                        this.source.publish(measurement(offset + value));
+                    }
+                });
+                producers[i].start();
+            }
+            for (final Thread producer : producers) {
+                producer.join();
+            }
+            this.source.finish();
+            this.subscriber.terminated.await();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(this.subscriber.completed);
+        assertEquals(4 * count, this.subscriber.values.size());
+        // measurements of each producer keep their order
+        final double[] latestValues = new double[] { -1, -1, -1, -1 };
+        for (final double value : this.subscriber.values) {
+            final int producer = (int) value / count;
+            assertTrue(value > latestValues[producer]);
+            latestValues[producer] = value;
+        }
+    }
+
+    private MeasurementSubscription subscribe(final int capacity, final Backpressure backpressure) {
+        new MeasurementPublisher(this.source, capacity, backpressure, Runnable::run).subscribe(this.subscriber);
+        return this.subscriber.subscription;
+    }
+
+    private MeasuringValue measurement(final int value) {
+        return new RealNumberMeasurement<Duration>(value, SI.SECOND, this.responseTime);
+    }
+
+    /**
+     * Measurement source publishing measurements on request.
+     */
+    private static final class PublishingMeasurementSource extends MeasurementSource {
+
+        private PublishingMeasurementSource(final MetricDescription metricDescription) {
+            super(metricDescription);
+        }
+
+        private void publish(final MeasuringValue newMeasurement) {
+            notifyMeasurementSourceListener(newMeasurement);
+        }
+
+        private void finish() {
+            for (final IMeasurementSourceListener listener : getMeasurementSourceListeners()) {
+                listener.preUnregister();
+            }
+        }
+    }
+
+    /**
+     * Subscriber recording the passed values without requesting any.
+     */
+    private static final class RecordingSubscriber implements Flow.Subscriber<MeasuringValue> {
+
+        private final List<Double> values = new ArrayList<Double>();
+
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        private MeasurementSubscription subscription;
+
+        private volatile Throwable error;
+
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = (MeasurementSubscription) subscription;
+        }
+
+        @Override
+        public void onNext(final MeasuringValue item) {
+            this.values.add(((RealNumberMeasurement<?>) item).doubleValue());
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error = throwable;
+            this.terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            this.terminated.countDown();
+        }
+    }
+}
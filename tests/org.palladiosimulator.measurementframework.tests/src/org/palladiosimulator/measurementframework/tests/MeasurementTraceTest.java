@@ -0,0 +1,235 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Dimensionless;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.measure.IdentifierMeasure;
+import org.palladiosimulator.measurementframework.trace.MeasurementTrace;
+import org.palladiosimulator.measurementframework.trace.MeasurementTraceWriter;
+import org.palladiosimulator.measurementframework.trace.TraceRange;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Tests writing, reading, and replaying measurement traces.
+ * 
+ * @author agent
+ */
+public class MeasurementTraceTest {
+
+    /** Small blocks, such that a few rows span several blocks of the time index. */
+    private static final int BLOCK_ROWS = 4;
+
+    private final NumericalBaseMetricDescription pointInTime = MetricFixtures.createPointInTimeMetric();
+
+    private final NumericalBaseMetricDescription queueLength = MetricFixtures.createNumberMetric("_queueLength",
+            "Queue Length", CaptureType.INTEGER_NUMBER, Unit.ONE);
+
+    private final TextualBaseMetricDescription state = MetricFixtures.createIdentifierMetric("_state", "State",
+            "BUSY", "IDLE");
+
+    private final MetricSetDescription queueStateTuple = MetricFixtures.createMetricSet("_queueStateTuple",
+            "Queue State Tuple", this.pointInTime, this.queueLength, this.state);
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("measurements", ".trace");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Test
+    public void testFlushedRowsAreVisibleAfterReopening() throws IOException {
+        try (MeasurementTraceWriter writer = createWriter()) {
+            for (int row = 0; row < 10; row++) {
+                writer.append(measurement(row));
+            }
+            writer.flush();
+            try (MeasurementTrace trace = openTrace()) {
+                assertEquals(10, trace.getRowCount());
+                assertRows(trace, 10);
+            }
+
+            for (int row = 10; row < 15; row++) {
+                writer.append(measurement(row));
+            }
+            try (MeasurementTrace trace = openTrace()) {
+                assertEquals(10, trace.getRowCount());
+            }
+            writer.flush();
+            try (MeasurementTrace trace = openTrace()) {
+                assertEquals(15, trace.getRowCount());
+                assertRows(trace, 15);
+            }
+            writer.append(measurement(15));
+        }
+
+        try (MeasurementTrace trace = openTrace()) {
+            assertEquals(16, trace.getRowCount());
+            assertRows(trace, 16);
+            assertSame(this.queueStateTuple, trace.getMetricDescription());
+            assertEquals(0, trace.getPointInTimeSlot());
+        }
+    }
+
+    @Test
+    public void testValuesAreStoredInDefaultUnits() throws IOException {
+        try (MeasurementTraceWriter writer = createWriter()) {
+            writer.append(new TupleMeasurement(this.queueStateTuple, Measure.valueOf(1500.0d, SI.MILLI(SI.SECOND)),
+                    Measure.valueOf(3L, Unit.ONE), stateMeasure(0)));
+        }
+        try (MeasurementTrace trace = openTrace()) {
+            assertEquals(SI.SECOND, trace.getUnit(0));
+            assertEquals(1.5d, trace.doubleValueAt(0, 0), 0.0d);
+            assertEquals(1.5d, trace.getMeasurement(0).doubleValueForMetric(this.pointInTime, SI.SECOND), 0.0d);
+        }
+    }
+
+    @Test
+    public void testFirstRowNotBeforeAtBlockBoundaries() throws IOException {
+        final double[] pointsInTime = new double[3 * BLOCK_ROWS + 1];
+        for (int row = 0; row < pointsInTime.length; row++) {
+            pointsInTime[row] = row;
+        }
+        try (MeasurementTrace trace = writeTrace(pointsInTime)) {
+            assertEquals(0, trace.firstRowNotBefore(-1.0d));
+            assertEquals(0, trace.firstRowNotBefore(0.0d));
+            assertEquals(BLOCK_ROWS - 1, trace.firstRowNotBefore(BLOCK_ROWS - 1));
+            assertEquals(BLOCK_ROWS, trace.firstRowNotBefore(BLOCK_ROWS - 0.5d));
+            assertEquals(BLOCK_ROWS, trace.firstRowNotBefore(BLOCK_ROWS));
+            assertEquals(2 * BLOCK_ROWS, trace.firstRowNotBefore(2 * BLOCK_ROWS));
+            assertEquals(3 * BLOCK_ROWS, trace.firstRowNotBefore(3 * BLOCK_ROWS));
+            assertEquals(pointsInTime.length, trace.firstRowNotBefore(3 * BLOCK_ROWS + 0.5d));
+            assertFirstRowsNotBefore(trace, pointsInTime);
+        }
+    }
+
+    @Test
+    public void testFirstRowNotBeforeWithDuplicatePointsInTime() throws IOException {
+        final double[] pointsInTime = { 0, 1, 1, 1, 1, 1, 1, 2, 2, 2, 3, 3, 3, 3, 3, 3, 3, 3, 4 };
+        try (MeasurementTrace trace = writeTrace(pointsInTime)) {
+            assertEquals(1, trace.firstRowNotBefore(1.0d));
+            assertEquals(7, trace.firstRowNotBefore(2.0d));
+            assertEquals(10, trace.firstRowNotBefore(3.0d));
+            assertEquals(18, trace.firstRowNotBefore(4.0d));
+            assertFirstRowsNotBefore(trace, pointsInTime);
+
+            final TraceRange range = trace.getRange(3.0d, 4.0d);
+            assertEquals(10, range.getFirstRow());
+            assertEquals(8, range.size());
+            assertEquals(0, trace.getRange(3.5d, 3.75d).size());
+        }
+    }
+
+    @Test
+    public void testFirstRowNotBeforeWithEqualPointsInTime() throws IOException {
+        final double[] pointsInTime = new double[2 * BLOCK_ROWS + 2];
+        try (MeasurementTrace trace = writeTrace(pointsInTime)) {
+            assertEquals(0, trace.firstRowNotBefore(0.0d));
+            assertEquals(pointsInTime.length, trace.firstRowNotBefore(Double.MIN_VALUE));
+            assertEquals(pointsInTime.length, trace.getRange(0.0d, 1.0d).size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecreasingPointInTimeIsRejected() throws IOException {
+        try (MeasurementTraceWriter writer = createWriter()) {
+            writer.append(measurement(2));
+            writer.append(measurement(1));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAppendingAfterClosingIsRejected() throws IOException {
+        final MeasurementTraceWriter writer = createWriter();
+        writer.close();
+        writer.append(measurement(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTraceWithoutPointInTimeHasNoTimeIndex() throws IOException {
+        try (MeasurementTraceWriter writer = new MeasurementTraceWriter(this.file, this.queueStateTuple, null,
+                BLOCK_ROWS)) {
+            writer.append(measurement(0));
+        }
+        try (MeasurementTrace trace = openTrace()) {
+            trace.firstRowNotBefore(0.0d);
+        }
+    }
+
+    private MeasurementTraceWriter createWriter() throws IOException {
+        return new MeasurementTraceWriter(this.file, this.queueStateTuple, this.pointInTime, BLOCK_ROWS);
+    }
+
+    private MeasurementTrace openTrace() throws IOException {
+        return new MeasurementTrace(this.file,
+                Collections.singletonMap(this.queueStateTuple.getId(), this.queueStateTuple)::get);
+    }
+
+    private MeasurementTrace writeTrace(final double[] pointsInTime) throws IOException {
+        try (MeasurementTraceWriter writer = createWriter()) {
+            for (int row = 0; row < pointsInTime.length; row++) {
+                writer.append(new TupleMeasurement(this.queueStateTuple, Measure.valueOf(pointsInTime[row], SI.SECOND),
+                        Measure.valueOf((long) row, Unit.ONE), stateMeasure(row)));
+            }
+        }
+        return openTrace();
+    }
+
+    private MeasuringValue measurement(final int row) {
+        return new TupleMeasurement(this.queueStateTuple, Measure.valueOf(row * 0.5d, SI.SECOND),
+                Measure.valueOf((long) row * row, Unit.ONE), stateMeasure(row));
+    }
+
+    private IdentifierMeasure<Dimensionless> stateMeasure(final int row) {
+        return IdentifierMeasure.valueOf(this.state.getIdentifiers().get(row % 2), Unit.ONE);
+    }
+
+    private void assertRows(final MeasurementTrace trace, final int rows) {
+        for (int row = 0; row < rows; row++) {
+            assertEquals(row * 0.5d, trace.doubleValueAt(row, 0), 0.0d);
+            assertEquals((long) row * row, trace.longValueAt(row, 1));
+            assertSame(this.state.getIdentifiers().get(row % 2), trace.identifierAt(row, 2));
+        }
+    }
+
+    /**
+     * Compares the rows found via the time index with a linear scan, for all points in time of the
+     * trace and the points in time between them.
+     */
+    private static void assertFirstRowsNotBefore(final MeasurementTrace trace, final double[] pointsInTime) {
+        for (int i = 0; i < pointsInTime.length; i++) {
+            for (final double pointInTime : new double[] { pointsInTime[i], pointsInTime[i] - 0.5d,
+                    pointsInTime[i] + 0.5d }) {
+                int expectedRow = 0;
+                while (expectedRow < pointsInTime.length && pointsInTime[expectedRow] < pointInTime) {
+                    expectedRow++;
+                }
+                assertEquals("First row not before " + pointInTime, expectedRow,
+                        trace.firstRowNotBefore(pointInTime));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.DataType;
+import org.palladiosimulator.metricspec.Identifier;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.MetricSpecFactory;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+import org.palladiosimulator.metricspec.Scale;
+import org.palladiosimulator.metricspec.TextualBaseMetricDescription;
+
+/**
+ * Factory of metric descriptions used by the tests. Descriptions are created in memory, i.e.,
+ * independent of the common metrics model; each test creates its own descriptions.
+ * 
+ * @author agent
+ */
+public final class MetricFixtures {
+
+    private MetricFixtures() {
+    }
+
+    /**
+     * Creates a point in time metric, measured in seconds.
+     * 
+     * @return the new metric description.
+     */
+    public static NumericalBaseMetricDescription createPointInTimeMetric() {
+        return createNumberMetric("_pointInTime", "Point in Time", CaptureType.REAL_NUMBER, SI.SECOND);
+    }
+
+    /**
+     * Creates a response time metric, measured in seconds.
+     * 
+     * @return the new metric description.
+     */
+    public static NumericalBaseMetricDescription createResponseTimeMetric() {
+        return createNumberMetric("_responseTime", "Response Time", CaptureType.REAL_NUMBER, SI.SECOND);
+    }
+
+    /**
+     * Creates a numerical base metric.
+     * 
+     * @param id
+     *            Identifier of the metric.
+     * @param name
+     *            Name of the metric.
+     * @param captureType
+     *            Capture type of the metric, i.e., real or integer numbers.
+     * @param defaultUnit
+     *            Default unit of the metric.
+     * @return the new metric description.
+     */
+    public static NumericalBaseMetricDescription createNumberMetric(final String id, final String name,
+            final CaptureType captureType, final Unit<?> defaultUnit) {
+        final NumericalBaseMetricDescription metric = MetricSpecFactory.eINSTANCE
+                .createNumericalBaseMetricDescription();
+        metric.setId(id);
+        metric.setName(name);
+        metric.setCaptureType(captureType);
+        metric.setDataType(DataType.QUANTITATIVE);
+        metric.setScale(Scale.RATIO);
+        metric.setDefaultUnit(defaultUnit);
+        return metric;
+    }
+
+    /**
+     * Creates a textual base metric capturing identifiers.
+     * 
+     * @param id
+     *            Identifier of the metric.
+     * @param name
+     *            Name of the metric.
+     * @param literals
+     *            Literals of the captured identifiers, in order.
+     * @return the new metric description.
+     */
+    public static TextualBaseMetricDescription createIdentifierMetric(final String id, final String name,
+            final String... literals) {
+        final TextualBaseMetricDescription metric = MetricSpecFactory.eINSTANCE.createTextualBaseMetricDescription();
+        metric.setId(id);
+        metric.setName(name);
+        metric.setCaptureType(CaptureType.IDENTIFIER);
+        metric.setDataType(DataType.QUALITATIVE);
+        metric.setScale(Scale.NOMINAL);
+        for (final String literal : literals) {
+            final Identifier identifier = MetricSpecFactory.eINSTANCE.createIdentifier();
+            identifier.setLiteral(literal);
+            metric.getIdentifiers().add(identifier);
+        }
+        return metric;
+    }
+
+    /**
+     * Creates a metric set subsuming the given metrics.
+     * 
+     * @param id
+     *            Identifier of the metric set.
+     * @param name
+     *            Name of the metric set.
+     * @param subsumedMetrics
+     *            The subsumed metrics, in order.
+     * @return the new metric set description.
+     */
+    public static MetricSetDescription createMetricSet(final String id, final String name,
+            final MetricDescription... subsumedMetrics) {
+        final MetricSetDescription metricSet = MetricSpecFactory.eINSTANCE.createMetricSetDescription();
+        metricSet.setId(id);
+        metricSet.setName(name);
+        for (final MetricDescription subsumedMetric : subsumedMetrics) {
+            metricSet.getSubsumedMetrics().add(subsumedMetric);
+        }
+        return metricSet;
+    }
+}
@@ -0,0 +1,296 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.listener.PartitionedMeasurementPipeline;
+import org.palladiosimulator.metricspec.CaptureType;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests dispatching measurements by the lanes of a {@link PartitionedMeasurementPipeline}.
+ * 
+ * @author agent
+ */
+public class PartitionedMeasurementPipelineTest {
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        this.executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test(timeout = 30000)
+    public void testMeasurementsOfAPartitionKeepTheirOrder() throws InterruptedException {
+        final int count = 20000;
+        final NumericalBaseMetricDescription[] metrics = new NumericalBaseMetricDescription[4];
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = MetricFixtures.createNumberMetric("_metric" + i, "Metric " + i, CaptureType.REAL_NUMBER,
+                    SI.SECOND);
+        }
+        final PartitionedMeasurementPipeline pipeline = new PartitionedMeasurementPipeline(
+                PartitionedMeasurementPipeline.byMetric(), 2, this.executor, 64);
+        final OrderCheckingListener listener = new OrderCheckingListener();
+        pipeline.addObserver(listener);
+
+        final Thread[] producers = new Thread[metrics.length];
+        for (int i = 0; i < producers.length; i++) {
+            final NumericalBaseMetricDescription metric = metrics[i];
+            producers[i] = new Thread(() -> {
+                for (int value = 0; value < count; value++) {
+                    pipeline.newMeasurementAvailable(new RealNumberMeasurement<Duration>(value, SI.SECOND, metric));
+                }
+            });
+            producers[i].start();
+        }
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        pipeline.flush();
+
+        assertEquals(0, listener.violations.get());
+        assertEquals((long) count * metrics.length, listener.measurements.get());
+        assertEquals((long) count * metrics.length, pipeline.getDispatchedMeasurementCount());
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test(timeout = 30000)
+    public void testFullLanesBlockNotifyingThreads() throws InterruptedException {
+        final PartitionedMeasurementPipeline pipeline = new PartitionedMeasurementPipeline(
+                PartitionedMeasurementPipeline.byMetric(), 1, this.executor, 4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger dispatched = new AtomicInteger();
+        pipeline.addObserver(new IMeasurementSourceListener() {
+
+            @Override
+            public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dispatched.incrementAndGet();
+            }
+
+            @Override
+            public void preUnregister() {
+            }
+        });
+
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                pipeline.newMeasurementAvailable(measurement(i));
+            }
+        });
+        producer.start();
+        while (producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertTrue(producer.isAlive());
+        assertEquals(4, pipeline.getQueueDepth());
+        assertEquals(0, dispatched.get());
+
+        release.countDown();
+        producer.join();
+        pipeline.flush();
+        assertEquals(10, dispatched.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testLanesNotifyingEachOtherDoNotDeadlock() throws InterruptedException {
+        final int count = 2000;
+        final int hops = 20;
+        final PartitionedMeasurementPipeline pipeline = new PartitionedMeasurementPipeline(
+                measurement -> measurement.doubleValueForMetric(this.responseTime, SI.SECOND) > 0 ? "a" : "b", 2,
+                this.executor, 4);
+        final AtomicLong dispatched = new AtomicLong();
+        // the listener forwards each measurement into the lane of the other partition
+        pipeline.addObserver(new IMeasurementSourceListener() {
+
+            @Override
+            public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+                dispatched.incrementAndGet();
+                final double value = newMeasurement.doubleValueForMetric(
+                        PartitionedMeasurementPipelineTest.this.responseTime, SI.SECOND);
+                if (Math.abs(value) > 1) {
+                    pipeline.newMeasurementAvailable(measurement(-Math.signum(value) * (Math.abs(value) - 1)));
+                }
+            }
+
+            @Override
+            public void preUnregister() {
+            }
+        });
+
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                pipeline.newMeasurementAvailable(measurement(i % 2 == 0 ? hops : -hops));
+            }
+        });
+        producer.start();
+        producer.join(20000);
+        assertFalse("Producer and lanes deadlocked", producer.isAlive());
+        pipeline.flush();
+
+        assertEquals((long) count * hops, dispatched.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testListenerFailuresAreRethrownToNotifyingThreads() {
+        final PartitionedMeasurementPipeline pipeline = new PartitionedMeasurementPipeline(
+                PartitionedMeasurementPipeline.byMetric(), 2, this.executor, 4);
+        final RuntimeException failure = new RuntimeException("Listener failed");
+        final AtomicInteger calls = new AtomicInteger();
+        pipeline.addObserver(new IMeasurementSourceListener() {
+
+            @Override
+            public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+                if (calls.getAndIncrement() == 0) {
+                    throw failure;
+                }
+            }
+
+            @Override
+            public void preUnregister() {
+            }
+        });
+
+        pipeline.newMeasurementAvailable(measurement(1.0d));
+        try {
+            pipeline.flush();
+            fail("Failure of the listener has not been rethrown");
+        } catch (final IllegalStateException e) {
+            assertSame(failure, e.getCause());
+        }
+
+        // the failure is rethrown once; later measurements are dispatched again
+        pipeline.newMeasurementAvailable(measurement(2.0d));
+        pipeline.flush();
+        assertEquals(2, calls.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testListenersAreInformedOnceAllInputsAreUnregistered() {
+        final PartitionedMeasurementPipeline pipeline = new PartitionedMeasurementPipeline(
+                PartitionedMeasurementPipeline.byMetric(), 2, this.executor, 4);
+        final AtomicInteger dispatched = new AtomicInteger();
+        final AtomicInteger unregistrations = new AtomicInteger();
+        pipeline.addObserver(new IMeasurementSourceListener() {
+
+            @Override
+            public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+                dispatched.incrementAndGet();
+            }
+
+            @Override
+            public void preUnregister() {
+                unregistrations.incrementAndGet();
+            }
+        });
+        final IMeasurementSourceListener first = pipeline.listenerFor("first");
+        final IMeasurementSourceListener second = pipeline.listenerFor("second");
+
+        first.newMeasurementAvailable(measurement(1.0d));
+        first.preUnregister();
+        first.preUnregister();
+        pipeline.preUnregister();
+        assertEquals(1, dispatched.get());
+        assertEquals(0, unregistrations.get());
+
+        second.newMeasurementAvailable(measurement(2.0d));
+        second.preUnregister();
+        assertEquals(2, dispatched.get());
+        assertEquals(1, unregistrations.get());
+
+        pipeline.finish();
+        assertEquals(1, unregistrations.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testFinishingDispatchesWaitingMeasurements() {
+        final PartitionedMeasurementPipeline pipeline = new PartitionedMeasurementPipeline(
+                PartitionedMeasurementPipeline.byMetric(), 2, this.executor, 1024);
+        final OrderCheckingListener listener = new OrderCheckingListener();
+        pipeline.addObserver(listener);
+        for (int i = 0; i < 1000; i++) {
+            pipeline.newMeasurementAvailable(measurement(i));
+        }
+        pipeline.finish();
+
+        assertEquals(1000, listener.measurements.get());
+        assertEquals(1, listener.unregistrations.get());
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    private MeasuringValue measurement(final double value) {
+        return new RealNumberMeasurement<Duration>(value, SI.SECOND, this.responseTime);
+    }
+
+    /**
+     * Listener counting the measurements that do not increase within their metric.
+     */
+    private static final class OrderCheckingListener implements IMeasurementSourceListener {
+
+        private final Map<String, Double> latestValues = new HashMap<String, Double>();
+
+        private final AtomicLong measurements = new AtomicLong();
+
+        private final AtomicLong violations = new AtomicLong();
+
+        private final AtomicInteger unregistrations = new AtomicInteger();
+
+        @Override
+        public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+            final String metric = newMeasurement.getMetricDesciption().getId();
+            final double value = ((RealNumberMeasurement<?>) newMeasurement).doubleValue();
+            synchronized (this.latestValues) {
+                final Double latestValue = this.latestValues.put(metric, value);
+                if (latestValue != null && latestValue >= value) {
+                    this.violations.incrementAndGet();
+                }
+            }
+            this.measurements.incrementAndGet();
+        }
+
+        @Override
+        public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+            for (final MeasuringValue newMeasurement : newMeasurements) {
+                newMeasurementAvailable(newMeasurement);
+            }
+        }
+
+        @Override
+        public void preUnregister() {
+            this.unregistrations.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.statistics.QuantileSketch;
+import org.palladiosimulator.measurementframework.statistics.StreamingStatistics;
+
+/**
+ * Tests the accuracy and merging of {@link QuantileSketch}es.
+ * 
+ * @author agent
+ */
+public class QuantileSketchTest {
+
+    private static final double ACCURACY = QuantileSketch.DEFAULT_RELATIVE_ACCURACY;
+
+    @Test
+    public void testEmptySketchHasNoQuantiles() {
+        final QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0, sketch.getCount());
+        assertEquals(Double.NaN, sketch.getQuantile(0.5), 0.0d);
+    }
+
+    @Test
+    public void testQuantilesWithinRelativeAccuracy() {
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 1000; i++) {
+            sketch.add(i);
+        }
+        assertEquals(1.0d, sketch.getQuantile(0.0d), 0.0d);
+        assertEquals(500.0d, sketch.getQuantile(0.5d), 500.0d * ACCURACY);
+        assertEquals(990.0d, sketch.getQuantile(0.99d), 990.0d * ACCURACY);
+        assertEquals(1000.0d, sketch.getQuantile(1.0d), 0.0d);
+    }
+
+    @Test
+    public void testZeroAndSubnormalValuesCountAsZero() {
+        final QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0.0d);
+        sketch.add(-0.0d);
+        sketch.add(Double.MIN_VALUE);
+        sketch.add(-Double.MIN_NORMAL / 2.0d);
+        sketch.add(1.0d);
+        assertEquals(5, sketch.getCount());
+        assertEquals(0.0d, sketch.getQuantile(0.5d), 0.0d);
+        assertEquals(1.0d, sketch.getQuantile(1.0d), ACCURACY);
+    }
+
+    @Test
+    public void testNegativeValuesPrecedePositiveValues() {
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(-i);
+            sketch.add(i);
+        }
+        assertEquals(-100.0d, sketch.getQuantile(0.0d), 0.0d);
+        assertEquals(-51.0d, sketch.getQuantile(0.25d), 51.0d * ACCURACY);
+        assertEquals(50.0d, sketch.getQuantile(0.75d), 50.0d * ACCURACY);
+        assertEquals(100.0d, sketch.getQuantile(1.0d), 0.0d);
+    }
+
+    @Test
+    public void testValuesAfterPositiveInfinity() {
+        final QuantileSketch sketch = new QuantileSketch();
+        sketch.add(3.0d);
+        sketch.add(Double.POSITIVE_INFINITY);
+        sketch.add(3.0d);
+        assertEquals(3, sketch.getCount());
+        assertEquals(3.0d, sketch.getQuantile(0.5d), 3.0d * ACCURACY);
+        assertEquals(Double.POSITIVE_INFINITY, sketch.getQuantile(1.0d), 0.0d);
+    }
+
+    @Test
+    public void testInfiniteValuesFirst() {
+        final QuantileSketch sketch = new QuantileSketch();
+        sketch.add(Double.POSITIVE_INFINITY);
+        sketch.add(Double.NEGATIVE_INFINITY);
+        sketch.add(3.0d);
+        assertEquals(Double.NEGATIVE_INFINITY, sketch.getQuantile(0.0d), 0.0d);
+        assertEquals(3.0d, sketch.getQuantile(0.5d), 3.0d * ACCURACY);
+        assertEquals(Double.POSITIVE_INFINITY, sketch.getQuantile(1.0d), 0.0d);
+    }
+
+    @Test
+    public void testMergeKeepsInfiniteValues() {
+        final QuantileSketch sketch = new QuantileSketch();
+        sketch.add(1.0d);
+        final QuantileSketch other = new QuantileSketch();
+        other.add(Double.NEGATIVE_INFINITY);
+        other.add(Double.POSITIVE_INFINITY);
+        sketch.merge(other);
+        assertEquals(3, sketch.getCount());
+        assertEquals(Double.NEGATIVE_INFINITY, sketch.getQuantile(0.0d), 0.0d);
+        assertEquals(Double.POSITIVE_INFINITY, sketch.getQuantile(1.0d), 0.0d);
+    }
+
+    @Test
+    public void testExtremeMagnitudesWithFinestAccuracy() {
+        final QuantileSketch sketch = new QuantileSketch(QuantileSketch.MIN_RELATIVE_ACCURACY, 16);
+        sketch.add(Double.MAX_VALUE);
+        sketch.add(Double.MIN_NORMAL);
+        sketch.add(-Double.MAX_VALUE);
+        sketch.add(-Double.MIN_NORMAL);
+        sketch.add(Double.MAX_VALUE);
+        assertEquals(5, sketch.getCount());
+        assertEquals(-Double.MAX_VALUE, sketch.getQuantile(0.0d), Double.MAX_VALUE * 1e-6);
+        assertEquals(Double.MAX_VALUE, sketch.getQuantile(1.0d), Double.MAX_VALUE * 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFineAccuracyIsRejected() {
+        new QuantileSketch(1e-9, QuantileSketch.DEFAULT_MAX_BUCKETS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotANumberIsRejected() {
+        new QuantileSketch().add(Double.NaN);
+    }
+
+    @Test
+    public void testStreamingStatisticsAcceptInfiniteValues() {
+        final StreamingStatistics statistics = new StreamingStatistics();
+        statistics.add(Double.POSITIVE_INFINITY);
+        statistics.add(2.0d);
+        statistics.add(4.0d);
+        assertEquals(3, statistics.getCount());
+        assertEquals(Double.POSITIVE_INFINITY, statistics.getMax(), 0.0d);
+        assertEquals(2.0d, statistics.getMin(), 0.0d);
+    }
+}
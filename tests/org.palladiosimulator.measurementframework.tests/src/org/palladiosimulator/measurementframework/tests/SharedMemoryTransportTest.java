@@ -0,0 +1,203 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.measure.Measure;
+import javax.measure.unit.SI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.MeasuringValue;
+import org.palladiosimulator.measurementframework.TupleMeasurement;
+import org.palladiosimulator.measurementframework.listener.IMeasurementSourceListener;
+import org.palladiosimulator.measurementframework.transport.SharedMemoryMeasurementSink;
+import org.palladiosimulator.measurementframework.transport.SharedMemoryMeasurementSource;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests transferring measurements via shared memory.
+ * 
+ * @author agent
+ */
+public class SharedMemoryTransportTest {
+
+    /** Smallest ring capacity; a few hundred measurements wrap around it. */
+    private static final int CAPACITY = 4096;
+
+    private final NumericalBaseMetricDescription pointInTime = MetricFixtures.createPointInTimeMetric();
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    private final MetricSetDescription responseTimeTuple = MetricFixtures.createMetricSet("_responseTimeTuple",
+            "Response Time Tuple", this.pointInTime, this.responseTime);
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("measurements", ".ring");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Test(timeout = 30000)
+    public void testMeasurementsArriveInOrderAcrossWrapArounds() throws Exception {
+        final int count = 20000;
+        final SharedMemoryMeasurementSink sink = new SharedMemoryMeasurementSink(this.file, CAPACITY);
+        final SharedMemoryMeasurementSource source = new SharedMemoryMeasurementSource(this.file,
+                this.responseTimeTuple);
+        final CollectingListener listener = new CollectingListener();
+        source.addObserver(listener);
+        final Thread receiver = startReceiver(source, new AtomicReference<Throwable>());
+
+        final List<MeasuringValue> batch = new ArrayList<MeasuringValue>();
+        for (int i = 0; i < count; i++) {
+            if (i % 1000 < 100) {
+                batch.add(measurement(i));
+                if (batch.size() == 50) {
+                    sink.newMeasurementsAvailable(batch);
+                    batch.clear();
+                }
+            } else {
+                sink.newMeasurementAvailable(measurement(i));
+            }
+        }
+        sink.preUnregister();
+        receiver.join();
+
+        assertEquals(count, sink.getMeasurementCount());
+        assertEquals(count, source.getReceivedMeasurementCount());
+        assertEquals(count, listener.measurements.size());
+        for (int i = 0; i < count; i++) {
+            final MeasuringValue measurement = listener.measurements.get(i);
+            assertEquals(i, measurement.doubleValueForMetric(this.pointInTime, SI.SECOND), 0.0d);
+            assertEquals(i / 1000.0d, measurement.doubleValueForMetric(this.responseTime, SI.SECOND), 0.0d);
+        }
+        assertEquals(1, listener.unregistrations);
+        assertEquals(0, source.getBufferedBytes());
+        source.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMeasurementsAfterUnregisteringAreRejected() throws IOException {
+        final SharedMemoryMeasurementSink sink = new SharedMemoryMeasurementSink(this.file, CAPACITY);
+        sink.newMeasurementAvailable(measurement(0));
+        sink.preUnregister();
+        sink.newMeasurementAvailable(measurement(1));
+    }
+
+    @Test
+    public void testClosingSinkTwiceHasNoEffect() throws IOException {
+        final SharedMemoryMeasurementSink sink = new SharedMemoryMeasurementSink(this.file, CAPACITY);
+        sink.close();
+        sink.preUnregister();
+        sink.close();
+        assertEquals(0, sink.getMeasurementCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testClosedSourceFailsWaitingSink() throws IOException {
+        final SharedMemoryMeasurementSink sink = new SharedMemoryMeasurementSink(this.file, CAPACITY);
+        final SharedMemoryMeasurementSource source = new SharedMemoryMeasurementSource(this.file,
+                this.responseTimeTuple);
+        source.close();
+        try {
+            for (int i = 0; i < CAPACITY; i++) {
+                sink.newMeasurementAvailable(measurement(i));
+            }
+        } catch (final UncheckedIOException e) {
+            assertTrue(sink.getMeasurementCount() < CAPACITY);
+            return;
+        }
+        throw new AssertionError("Sink did not fail after the source was closed");
+    }
+
+    @Test(timeout = 10000)
+    public void testClosingSourceEndsReceiving() throws Exception {
+        final SharedMemoryMeasurementSink sink = new SharedMemoryMeasurementSink(this.file, CAPACITY);
+        final SharedMemoryMeasurementSource source = new SharedMemoryMeasurementSource(this.file,
+                this.responseTimeTuple);
+        final CollectingListener listener = new CollectingListener();
+        source.addObserver(listener);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread receiver = startReceiver(source, failure);
+
+        Thread.sleep(50);
+        source.close();
+        receiver.join();
+
+        assertEquals(null, failure.get());
+        assertEquals(0, listener.measurements.size());
+        assertEquals(1, listener.unregistrations);
+        sink.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testMeasurementsOfOtherMetricsFailReceiving() throws Exception {
+        final SharedMemoryMeasurementSink sink = new SharedMemoryMeasurementSink(this.file, CAPACITY);
+        final SharedMemoryMeasurementSource source = new SharedMemoryMeasurementSource(this.file, this.pointInTime);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread receiver = startReceiver(source, failure);
+
+        sink.newMeasurementAvailable(measurement(0));
+        sink.close();
+        receiver.join();
+
+        assertTrue(failure.get() instanceof IOException);
+        source.close();
+    }
+
+    private Thread startReceiver(final SharedMemoryMeasurementSource source,
+            final AtomicReference<Throwable> failure) {
+        final Thread receiver = new Thread(() -> {
+            try {
+                source.receive();
+            } catch (final IOException e) {
+                failure.set(e);
+            }
+        });
+        receiver.start();
+        return receiver;
+    }
+
+    private MeasuringValue measurement(final int index) {
+        return new TupleMeasurement(this.responseTimeTuple, Measure.valueOf((double) index, SI.SECOND),
+                Measure.valueOf(index / 1000.0d, SI.SECOND));
+    }
+
+    private static final class CollectingListener implements IMeasurementSourceListener {
+
+        private final List<MeasuringValue> measurements = new ArrayList<MeasuringValue>();
+
+        private int unregistrations;
+
+        @Override
+        public void newMeasurementAvailable(final MeasuringValue newMeasurement) {
+            this.measurements.add(newMeasurement);
+        }
+
+        @Override
+        public void newMeasurementsAvailable(final List<? extends MeasuringValue> newMeasurements) {
+            this.measurements.addAll(newMeasurements);
+        }
+
+        @Override
+        public void preUnregister() {
+            this.unregistrations++;
+        }
+    }
+}
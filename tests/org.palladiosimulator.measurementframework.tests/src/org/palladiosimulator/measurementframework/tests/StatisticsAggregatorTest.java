@@ -0,0 +1,110 @@
+package org.palladiosimulator.measurementframework.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import javax.measure.quantity.Duration;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+import org.palladiosimulator.measurementframework.RealNumberMeasurement;
+import org.palladiosimulator.measurementframework.ReusableMeasurement;
+import org.palladiosimulator.measurementframework.listener.MeasurementSource;
+import org.palladiosimulator.measurementframework.statistics.StatisticsAggregator;
+import org.palladiosimulator.measurementframework.statistics.StatisticsMetricSet;
+import org.palladiosimulator.measurementframework.statistics.StreamingStatistics;
+import org.palladiosimulator.metricspec.MetricDescription;
+import org.palladiosimulator.metricspec.MetricSetDescription;
+import org.palladiosimulator.metricspec.NumericalBaseMetricDescription;
+
+/**
+ * Tests aggregating measurements into statistics snapshots.
+ * 
+ * @author agent
+ */
+public class StatisticsAggregatorTest {
+
+    private final NumericalBaseMetricDescription responseTime = MetricFixtures.createResponseTimeMetric();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMetricSetWithPointInTimeIsRejected() {
+        new StatisticsAggregator(new StatisticsMetricSet(MetricFixtures.createPointInTimeMetric(),
+                new double[] { 0.5d }, this.responseTime), 1);
+    }
+
+    @Test
+    public void testInfiniteValuesAreAggregated() {
+        final StatisticsAggregator aggregator = new StatisticsAggregator(this.responseTime);
+        aggregator.newMeasurementAvailable(measurement(3.0d));
+        aggregator.newMeasurementAvailable(measurement(Double.POSITIVE_INFINITY));
+        aggregator.newMeasurementAvailable(measurement(3.0d));
+
+        final StreamingStatistics statistics = aggregator.getStatistics(this.responseTime);
+        assertEquals(3, statistics.getCount());
+        assertEquals(Double.POSITIVE_INFINITY, statistics.getMax(), 0.0d);
+        assertEquals(3.0d, statistics.getQuantile(0.5d), 0.03d);
+    }
+
+    @Test
+    public void testValuesThatAreNotANumberAreIgnored() {
+        final StatisticsAggregator aggregator = new StatisticsAggregator(this.responseTime);
+        aggregator.newMeasurementAvailable(measurement(Double.NaN));
+        aggregator.newMeasurementAvailable(measurement(2.0d));
+
+        assertEquals(1, aggregator.getStatistics(this.responseTime).getCount());
+    }
+
+    @Test
+    public void testReusableBaseMetricMeasurementsAreAggregated() {
+        final PublishingMeasurementSource source = new PublishingMeasurementSource(this.responseTime);
+        final StatisticsAggregator aggregator = new StatisticsAggregator(this.responseTime);
+        source.addObserver(aggregator);
+        assertFalse(aggregator.retainsMeasurements());
+
+        final ReusableMeasurement measurement = new ReusableMeasurement(this.responseTime);
+        for (int i = 1; i <= 4; i++) {
+            source.publish(measurement.setReal(0, i));
+        }
+
+        final StreamingStatistics statistics = aggregator.getStatistics(this.responseTime);
+        assertEquals(4, statistics.getCount());
+        assertEquals(1.0d, statistics.getMin(), 0.0d);
+        assertEquals(4.0d, statistics.getMax(), 0.0d);
+    }
+
+    @Test
+    public void testReusableTupleMeasurementsAreAggregated() {
+        final MetricSetDescription responseTimeTuple = MetricFixtures.createMetricSet("_responseTimeTuple",
+                "Response Time Tuple", MetricFixtures.createPointInTimeMetric(), this.responseTime);
+        final PublishingMeasurementSource source = new PublishingMeasurementSource(responseTimeTuple);
+        final StatisticsAggregator aggregator = new StatisticsAggregator(this.responseTime);
+        source.addObserver(aggregator);
+
+        final ReusableMeasurement measurement = new ReusableMeasurement(responseTimeTuple);
+        for (int i = 1; i <= 4; i++) {
+            source.publish(measurement.setReal(0, i).setReal(1, i * 0.5d));
+        }
+
+        final StreamingStatistics statistics = aggregator.getStatistics(this.responseTime);
+        assertEquals(4, statistics.getCount());
+        assertEquals(2.0d, statistics.getMax(), 0.0d);
+    }
+
+    private RealNumberMeasurement<Duration> measurement(final double value) {
+        return new RealNumberMeasurement<Duration>(value, SI.SECOND, this.responseTime);
+    }
+
+    /**
+     * Measurement source publishing reusable measurements on request.
+     */
+    private static final class PublishingMeasurementSource extends MeasurementSource {
+
+        private PublishingMeasurementSource(final MetricDescription metricDescription) {
+            super(metricDescription);
+        }
+
+        private void publish(final ReusableMeasurement newMeasurement) {
+            notifyMeasurementSourceListener(newMeasurement);
+        }
+    }
+}